@@ -28,19 +28,19 @@ import com.oracle.truffle.api.interop.Resolve;
 import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.r.ffi.impl.interop.NativePointer;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RNull;
 
 @MessageResolution(receiverType = RNull.class)
 public class RNullMR {
     /**
-     * Workaround to avoid NFI converting {@link RNull} to {@code null}.
+     * Workaround to avoid NFI converting {@link RNull} to {@code null}: the answer depends on the
+     * current context, so that a native call in one context does not change it for the others.
      */
-    private static boolean isNull = true;
-
     @Resolve(message = "IS_NULL")
     public abstract static class RNullIsNullNode extends Node {
         protected Object access(@SuppressWarnings("unused") RNull receiver) {
-            return isNull;
+            return RContext.getInstance().getRNullIsNull();
         }
     }
 
@@ -67,8 +67,6 @@ public class RNullMR {
     }
 
     static boolean setIsNull(boolean value) {
-        boolean prev = isNull;
-        isNull = value;
-        return prev;
+        return RContext.getInstance().setRNullIsNull(value);
     }
 }
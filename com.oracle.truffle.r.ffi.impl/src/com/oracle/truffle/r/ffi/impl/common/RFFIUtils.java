@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.r.ffi.impl.nodes.FFIUpCallRootNode;
 import com.oracle.truffle.r.ffi.impl.upcalls.UpCallsRFFI;
 import com.oracle.truffle.r.runtime.FastROptions;
@@ -53,9 +54,10 @@ public class RFFIUtils {
      */
     private static boolean alwaysTrace;
     /**
-     * Is set by initialization and caches whether we are tracing.
+     * Is set by initialization and caches whether we are tracing. Constant in compiled code, so
+     * that the checks in the call paths fold away when tracing is off.
      */
-    private static boolean traceEnabled;
+    @CompilationFinal private static boolean traceEnabled;
 
     /**
      * Always trace to a file because stdout is problematic for embedded mode.
@@ -0,0 +1,904 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.ffi.impl.managed;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Java implementations of the LU, Cholesky and triangular LAPACK routines used by
+ * {@link Managed_LapackRFFI}. All matrices are stored in column-major order with a leading
+ * dimension, as in Fortran, but indices are 0-based. The return value is the LAPACK "info" value.
+ *
+ * {@link #dgetrf} and {@link #dpotrf} are blocked right-looking factorizations: the panel is
+ * factored with the unblocked algorithm and the trailing sub-matrix is updated with a rank-{@link #NB}
+ * update, which is split into column ranges processed on the common fork-join pool if it is large
+ * enough.
+ */
+final class JavaLapack {
+
+    /**
+     * Block size of the blocked factorizations.
+     */
+    static final int NB = 64;
+
+    /**
+     * Trailing updates with at least this many floating point operations are done in parallel.
+     */
+    private static final double PARALLEL_FLOPS = 32e6;
+
+    static final double EPS = Math.ulp(1.0) / 2;
+    static final double SAFE_MIN = Double.MIN_NORMAL;
+
+    private JavaLapack() {
+        // no instances
+    }
+
+    // LU factorization
+
+    static int dgetrf(int m, int n, double[] a, int lda, int[] ipiv) {
+        if (m < 0) {
+            return -1;
+        } else if (n < 0) {
+            return -2;
+        } else if (lda < Math.max(1, m)) {
+            return -4;
+        }
+        int mn = Math.min(m, n);
+        int info = 0;
+        for (int j = 0; j < mn; j += NB) {
+            int jb = Math.min(NB, mn - j);
+            int panelInfo = getf2(m, a, lda, j, jb, ipiv);
+            if (info == 0 && panelInfo > 0) {
+                info = panelInfo;
+            }
+            laswp(a, lda, 0, j, j, j + jb, ipiv);
+            if (j + jb < n) {
+                laswp(a, lda, j + jb, n, j, j + jb, ipiv);
+                // A12 = L11^-1 * A12
+                for (int c = j + jb; c < n; c++) {
+                    int col = c * lda;
+                    for (int k = 0; k < jb; k++) {
+                        double x = a[col + j + k];
+                        if (x != 0) {
+                            int lcol = (j + k) * lda;
+                            for (int i = j + k + 1; i < j + jb; i++) {
+                                a[col + i] -= x * a[lcol + i];
+                            }
+                        }
+                    }
+                }
+                if (j + jb < m) {
+                    // A22 = A22 - A21 * A12
+                    gemmUpdate(a, lda, j + jb, m, j + jb, n, j, jb);
+                }
+            }
+        }
+        return info;
+    }
+
+    /**
+     * Unblocked LU factorization with partial pivoting of the panel consisting of the columns
+     * {@code [c0, c0 + jb)} and rows {@code [c0, m)}.
+     */
+    private static int getf2(int m, double[] a, int lda, int c0, int jb, int[] ipiv) {
+        int info = 0;
+        for (int j = c0; j < c0 + jb; j++) {
+            int col = j * lda;
+            int p = j;
+            double max = Math.abs(a[col + j]);
+            for (int i = j + 1; i < m; i++) {
+                double v = Math.abs(a[col + i]);
+                if (v > max) {
+                    max = v;
+                    p = i;
+                }
+            }
+            ipiv[j] = p + 1;
+            double pivot = a[col + p];
+            if (pivot != 0) {
+                if (p != j) {
+                    for (int c = c0; c < c0 + jb; c++) {
+                        int cc = c * lda;
+                        double t = a[cc + p];
+                        a[cc + p] = a[cc + j];
+                        a[cc + j] = t;
+                    }
+                }
+                if (Math.abs(pivot) >= SAFE_MIN) {
+                    double r = 1 / pivot;
+                    for (int i = j + 1; i < m; i++) {
+                        a[col + i] *= r;
+                    }
+                } else {
+                    for (int i = j + 1; i < m; i++) {
+                        a[col + i] /= pivot;
+                    }
+                }
+            } else if (info == 0) {
+                info = j + 1;
+            }
+            for (int c = j + 1; c < c0 + jb; c++) {
+                int cc = c * lda;
+                double x = a[cc + j];
+                if (x != 0) {
+                    for (int i = j + 1; i < m; i++) {
+                        a[cc + i] -= x * a[col + i];
+                    }
+                }
+            }
+        }
+        return info;
+    }
+
+    /**
+     * Applies the row interchanges {@code ipiv[k1..k2)} to the columns {@code [c1, c2)}.
+     */
+    private static void laswp(double[] a, int lda, int c1, int c2, int k1, int k2, int[] ipiv) {
+        for (int c = c1; c < c2; c++) {
+            int col = c * lda;
+            for (int i = k1; i < k2; i++) {
+                int p = ipiv[i] - 1;
+                if (p != i) {
+                    double t = a[col + i];
+                    a[col + i] = a[col + p];
+                    a[col + p] = t;
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code A[r1..r2, c1..c2] -= A[r1..r2, k0..k0+kb] * A[k0..k0+kb, c1..c2]}.
+     */
+    private static void gemmUpdate(double[] a, int lda, int r1, int r2, int c1, int c2, int k0, int kb) {
+        double flops = 2.0 * (r2 - r1) * (c2 - c1) * kb;
+        if (flops >= PARALLEL_FLOPS && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new ColumnsTask((from, to) -> gemmColumns(a, lda, r1, r2, from, to, k0, kb), c1, c2, grain(c2 - c1, flops)));
+        } else {
+            gemmColumns(a, lda, r1, r2, c1, c2, k0, kb);
+        }
+    }
+
+    private static void gemmColumns(double[] a, int lda, int r1, int r2, int c1, int c2, int k0, int kb) {
+        for (int c = c1; c < c2; c++) {
+            int col = c * lda;
+            for (int k = k0; k < k0 + kb; k++) {
+                double x = a[col + k];
+                if (x != 0) {
+                    int kcol = k * lda;
+                    for (int i = r1; i < r2; i++) {
+                        a[col + i] -= x * a[kcol + i];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves {@code A * X = B} using the LU factorization computed by {@link #dgetrf}.
+     */
+    static void dgetrs(int n, int nrhs, double[] a, int lda, int[] ipiv, double[] b, int ldb) {
+        laswp(b, ldb, 0, nrhs, 0, n, ipiv);
+        for (int c = 0; c < nrhs; c++) {
+            trsv(true, false, true, n, a, lda, b, c * ldb);
+            trsv(false, false, false, n, a, lda, b, c * ldb);
+        }
+    }
+
+    static int dgesv(int n, int nrhs, double[] a, int lda, int[] ipiv, double[] b, int ldb) {
+        if (n < 0) {
+            return -1;
+        } else if (nrhs < 0) {
+            return -2;
+        } else if (lda < Math.max(1, n)) {
+            return -4;
+        } else if (ldb < Math.max(1, n)) {
+            return -7;
+        }
+        int info = dgetrf(n, n, a, lda, ipiv);
+        if (info == 0) {
+            dgetrs(n, nrhs, a, lda, ipiv, b, ldb);
+        }
+        return info;
+    }
+
+    // Triangular matrices
+
+    /**
+     * Solves {@code op(T) * x = b} in place, where {@code T} is the upper or lower triangle of
+     * {@code a} and {@code b} starts at {@code off}.
+     */
+    private static void trsv(boolean lower, boolean trans, boolean unit, int n, double[] a, int lda, double[] b, int off) {
+        if (!trans) {
+            if (lower) {
+                for (int k = 0; k < n; k++) {
+                    int col = k * lda;
+                    if (!unit) {
+                        b[off + k] /= a[col + k];
+                    }
+                    double x = b[off + k];
+                    if (x != 0) {
+                        for (int i = k + 1; i < n; i++) {
+                            b[off + i] -= x * a[col + i];
+                        }
+                    }
+                }
+            } else {
+                for (int k = n - 1; k >= 0; k--) {
+                    int col = k * lda;
+                    if (!unit) {
+                        b[off + k] /= a[col + k];
+                    }
+                    double x = b[off + k];
+                    if (x != 0) {
+                        for (int i = 0; i < k; i++) {
+                            b[off + i] -= x * a[col + i];
+                        }
+                    }
+                }
+            }
+        } else {
+            if (lower) {
+                for (int k = n - 1; k >= 0; k--) {
+                    int col = k * lda;
+                    double x = b[off + k];
+                    for (int i = k + 1; i < n; i++) {
+                        x -= a[col + i] * b[off + i];
+                    }
+                    b[off + k] = unit ? x : x / a[col + k];
+                }
+            } else {
+                for (int k = 0; k < n; k++) {
+                    int col = k * lda;
+                    double x = b[off + k];
+                    for (int i = 0; i < k; i++) {
+                        x -= a[col + i] * b[off + i];
+                    }
+                    b[off + k] = unit ? x : x / a[col + k];
+                }
+            }
+        }
+    }
+
+    static int dtrtrs(char uplo, char trans, char diag, int n, int nrhs, double[] a, int lda, double[] b, int ldb) {
+        boolean lower = uplo == 'L' || uplo == 'l';
+        boolean transposed = trans == 'T' || trans == 't' || trans == 'C' || trans == 'c';
+        boolean unit = diag == 'U' || diag == 'u';
+        if (!lower && uplo != 'U' && uplo != 'u') {
+            return -1;
+        } else if (!transposed && trans != 'N' && trans != 'n') {
+            return -2;
+        } else if (!unit && diag != 'N' && diag != 'n') {
+            return -3;
+        } else if (n < 0) {
+            return -4;
+        } else if (nrhs < 0) {
+            return -5;
+        } else if (lda < Math.max(1, n)) {
+            return -7;
+        } else if (ldb < Math.max(1, n)) {
+            return -9;
+        }
+        if (!unit) {
+            for (int i = 0; i < n; i++) {
+                if (a[i * lda + i] == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        for (int c = 0; c < nrhs; c++) {
+            trsv(lower, transposed, unit, n, a, lda, b, c * ldb);
+        }
+        return 0;
+    }
+
+    // Cholesky factorization
+
+    static int dpotrf(char uplo, int n, double[] a, int lda) {
+        boolean lower = uplo == 'L' || uplo == 'l';
+        if (!lower && uplo != 'U' && uplo != 'u') {
+            return -1;
+        } else if (n < 0) {
+            return -2;
+        } else if (lda < Math.max(1, n)) {
+            return -4;
+        }
+        if (lower) {
+            // the lower factor is the transposed upper factor of the transposed matrix
+            double[] upper = transposeLower(n, a, lda);
+            int info = potrfUpper(n, upper, n);
+            copyBackLower(n, upper, a, lda);
+            return info;
+        }
+        return potrfUpper(n, a, lda);
+    }
+
+    private static int potrfUpper(int n, double[] a, int lda) {
+        for (int j = 0; j < n; j += NB) {
+            int jb = Math.min(NB, n - j);
+            int info = potf2Upper(a, lda, j, jb);
+            if (info != 0) {
+                return info;
+            }
+            if (j + jb < n) {
+                // A12 = U11^-T * A12
+                for (int c = j + jb; c < n; c++) {
+                    int col = c * lda;
+                    for (int k = j; k < j + jb; k++) {
+                        int kcol = k * lda;
+                        double x = a[col + k];
+                        for (int i = j; i < k; i++) {
+                            x -= a[kcol + i] * a[col + i];
+                        }
+                        a[col + k] = x / a[kcol + k];
+                    }
+                }
+                // A22 = A22 - U12^T * U12 (upper triangle)
+                syrkUpdate(a, lda, j + jb, n, j, jb);
+            }
+        }
+        return 0;
+    }
+
+    private static int potf2Upper(double[] a, int lda, int j0, int jb) {
+        for (int k = j0; k < j0 + jb; k++) {
+            int kcol = k * lda;
+            double ajj = a[kcol + k];
+            for (int i = j0; i < k; i++) {
+                ajj -= a[kcol + i] * a[kcol + i];
+            }
+            if (ajj <= 0 || Double.isNaN(ajj)) {
+                a[kcol + k] = ajj;
+                return k + 1;
+            }
+            ajj = Math.sqrt(ajj);
+            a[kcol + k] = ajj;
+            for (int c = k + 1; c < j0 + jb; c++) {
+                int col = c * lda;
+                double x = a[col + k];
+                for (int i = j0; i < k; i++) {
+                    x -= a[kcol + i] * a[col + i];
+                }
+                a[col + k] = x / ajj;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * {@code A[c, c'] -= sum(A[k, c] * A[k, c'])} for {@code c <= c'} in {@code [c1, n)} and
+     * {@code k} in {@code [k0, k0 + kb)}.
+     */
+    private static void syrkUpdate(double[] a, int lda, int c1, int n, int k0, int kb) {
+        double flops = 1.0 * (n - c1) * (n - c1) * kb;
+        if (flops >= PARALLEL_FLOPS && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new ColumnsTask((from, to) -> syrkColumns(a, lda, c1, from, to, k0, kb), c1, n, grain(n - c1, flops)));
+        } else {
+            syrkColumns(a, lda, c1, c1, n, k0, kb);
+        }
+    }
+
+    private static void syrkColumns(double[] a, int lda, int r1, int c1, int c2, int k0, int kb) {
+        for (int c = c1; c < c2; c++) {
+            int col = c * lda;
+            for (int r = r1; r <= c; r++) {
+                int rcol = r * lda;
+                double x = 0;
+                for (int k = k0; k < k0 + kb; k++) {
+                    x += a[rcol + k] * a[col + k];
+                }
+                a[col + r] -= x;
+            }
+        }
+    }
+
+    private static double[] transposeLower(int n, double[] a, int lda) {
+        double[] result = new double[n * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = j; i < n; i++) {
+                result[i * n + j] = a[j * lda + i];
+            }
+        }
+        return result;
+    }
+
+    private static void copyBackLower(int n, double[] upper, double[] a, int lda) {
+        for (int j = 0; j < n; j++) {
+            for (int i = j; i < n; i++) {
+                a[j * lda + i] = upper[i * n + j];
+            }
+        }
+    }
+
+    /**
+     * Computes the inverse of a symmetric positive definite matrix from its Cholesky factor.
+     */
+    static int dpotri(char uplo, int n, double[] a, int lda) {
+        boolean lower = uplo == 'L' || uplo == 'l';
+        if (!lower && uplo != 'U' && uplo != 'u') {
+            return -1;
+        } else if (n < 0) {
+            return -2;
+        } else if (lda < Math.max(1, n)) {
+            return -4;
+        }
+        if (lower) {
+            double[] upper = transposeLower(n, a, lda);
+            int info = potriUpper(n, upper, n);
+            copyBackLower(n, upper, a, lda);
+            return info;
+        }
+        return potriUpper(n, a, lda);
+    }
+
+    private static int potriUpper(int n, double[] a, int lda) {
+        // inv(U)
+        for (int j = 0; j < n; j++) {
+            if (a[j * lda + j] == 0) {
+                return j + 1;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            int col = j * lda;
+            a[col + j] = 1 / a[col + j];
+            double ajj = -a[col + j];
+            // A[0..j, j] = T * A[0..j, j], T being the already inverted leading block
+            for (int k = 0; k < j; k++) {
+                double x = a[col + k];
+                if (x != 0) {
+                    int kcol = k * lda;
+                    for (int i = 0; i < k; i++) {
+                        a[col + i] += x * a[kcol + i];
+                    }
+                    a[col + k] = x * a[kcol + k];
+                }
+            }
+            for (int i = 0; i < j; i++) {
+                a[col + i] *= ajj;
+            }
+        }
+        // inv(U) * inv(U)^T
+        for (int i = 0; i < n; i++) {
+            int icol = i * lda;
+            double aii = a[icol + i];
+            if (i < n - 1) {
+                double dot = 0;
+                for (int c = i; c < n; c++) {
+                    double x = a[c * lda + i];
+                    dot += x * x;
+                }
+                a[icol + i] = dot;
+                for (int r = 0; r < i; r++) {
+                    double x = aii * a[icol + r];
+                    for (int c = i + 1; c < n; c++) {
+                        x += a[c * lda + r] * a[c * lda + i];
+                    }
+                    a[icol + r] = x;
+                }
+            } else {
+                for (int r = 0; r <= i; r++) {
+                    a[icol + r] *= aii;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Cholesky factorization with complete pivoting of a positive semi-definite matrix (the
+     * unblocked algorithm of LAPACK's {@code dpstf2}). Only {@code uplo == 'U'} is supported.
+     */
+    static int dpstrf(char uplo, int n, double[] a, int lda, int[] piv, int[] rank, double tol, double[] work) {
+        if (uplo != 'U' && uplo != 'u') {
+            return -1;
+        } else if (n < 0) {
+            return -2;
+        } else if (lda < Math.max(1, n)) {
+            return -4;
+        }
+        if (n == 0) {
+            rank[0] = 0;
+            return 0;
+        }
+        for (int i = 0; i < n; i++) {
+            piv[i] = i + 1;
+        }
+        int pvt = 0;
+        double ajj = a[0];
+        for (int i = 1; i < n; i++) {
+            if (a[i * lda + i] > ajj) {
+                ajj = a[i * lda + i];
+                pvt = i;
+            }
+        }
+        if (ajj <= 0 || Double.isNaN(ajj)) {
+            rank[0] = 0;
+            return 1;
+        }
+        double dstop = tol < 0 || Double.isNaN(tol) ? n * EPS * 2 * ajj : tol;
+        for (int i = 0; i < n; i++) {
+            work[i] = 0;
+        }
+        for (int j = 0; j < n; j++) {
+            for (int i = j; i < n; i++) {
+                if (j > 0) {
+                    double x = a[i * lda + j - 1];
+                    work[i] += x * x;
+                }
+                work[n + i] = a[i * lda + i] - work[i];
+            }
+            if (j > 0) {
+                pvt = j;
+                ajj = work[n + j];
+                for (int i = j + 1; i < n; i++) {
+                    if (work[n + i] > ajj) {
+                        ajj = work[n + i];
+                        pvt = i;
+                    }
+                }
+                if (ajj <= dstop || Double.isNaN(ajj)) {
+                    a[j * lda + j] = ajj;
+                    rank[0] = j;
+                    return 1;
+                }
+            }
+            if (j != pvt) {
+                a[pvt * lda + pvt] = a[j * lda + j];
+                for (int i = 0; i < j; i++) {
+                    swap(a, j * lda + i, pvt * lda + i);
+                }
+                for (int c = pvt + 1; c < n; c++) {
+                    swap(a, c * lda + j, c * lda + pvt);
+                }
+                for (int k = j + 1; k < pvt; k++) {
+                    swap(a, k * lda + j, pvt * lda + k);
+                }
+                double t = work[j];
+                work[j] = work[pvt];
+                work[pvt] = t;
+                int p = piv[pvt];
+                piv[pvt] = piv[j];
+                piv[j] = p;
+            }
+            ajj = Math.sqrt(ajj);
+            a[j * lda + j] = ajj;
+            for (int c = j + 1; c < n; c++) {
+                int col = c * lda;
+                double x = a[col + j];
+                for (int i = 0; i < j; i++) {
+                    x -= a[j * lda + i] * a[col + i];
+                }
+                a[col + j] = x / ajj;
+            }
+        }
+        rank[0] = n;
+        return 0;
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    // Norms and condition numbers
+
+    static double dlange(char norm, int m, int n, double[] a, int lda, double[] work) {
+        if (Math.min(m, n) == 0) {
+            return 0;
+        }
+        double value = 0;
+        switch (norm) {
+            case 'M':
+            case 'm':
+                for (int j = 0; j < n; j++) {
+                    for (int i = 0; i < m; i++) {
+                        double x = Math.abs(a[j * lda + i]);
+                        if (value < x || Double.isNaN(x)) {
+                            value = x;
+                        }
+                    }
+                }
+                break;
+            case 'O':
+            case 'o':
+            case '1':
+                for (int j = 0; j < n; j++) {
+                    double sum = 0;
+                    for (int i = 0; i < m; i++) {
+                        sum += Math.abs(a[j * lda + i]);
+                    }
+                    if (value < sum || Double.isNaN(sum)) {
+                        value = sum;
+                    }
+                }
+                break;
+            case 'I':
+            case 'i':
+                double[] rows = work != null && work.length >= m ? work : new double[m];
+                for (int i = 0; i < m; i++) {
+                    rows[i] = 0;
+                }
+                for (int j = 0; j < n; j++) {
+                    for (int i = 0; i < m; i++) {
+                        rows[i] += Math.abs(a[j * lda + i]);
+                    }
+                }
+                for (int i = 0; i < m; i++) {
+                    if (value < rows[i] || Double.isNaN(rows[i])) {
+                        value = rows[i];
+                    }
+                }
+                break;
+            case 'F':
+            case 'f':
+            case 'E':
+            case 'e':
+                double scale = 0;
+                double sumsq = 1;
+                for (int j = 0; j < n; j++) {
+                    for (int i = 0; i < m; i++) {
+                        double x = a[j * lda + i];
+                        if (x != 0) {
+                            double absx = Math.abs(x);
+                            if (scale < absx) {
+                                sumsq = 1 + sumsq * (scale / absx) * (scale / absx);
+                                scale = absx;
+                            } else {
+                                sumsq += (absx / scale) * (absx / scale);
+                            }
+                        }
+                    }
+                }
+                value = scale * Math.sqrt(sumsq);
+                break;
+            default:
+                value = 0;
+        }
+        return value;
+    }
+
+    /**
+     * Estimates the reciprocal condition number of a general matrix from its LU factorization,
+     * estimating the norm of the inverse with Higham's variant of Hager's method (LAPACK's
+     * {@code dlacn2}).
+     */
+    static int dgecon(char norm, int n, double[] a, int lda, double anorm, double[] rcond, double[] work, int[] iwork) {
+        boolean onenrm = norm == '1' || norm == 'O' || norm == 'o';
+        if (!onenrm && norm != 'I' && norm != 'i') {
+            return -1;
+        } else if (n < 0) {
+            return -2;
+        } else if (lda < Math.max(1, n)) {
+            return -4;
+        } else if (anorm < 0) {
+            return -5;
+        }
+        rcond[0] = 0;
+        if (n == 0) {
+            rcond[0] = 1;
+            return 0;
+        } else if (anorm == 0 || Double.isNaN(anorm)) {
+            return 0;
+        }
+        double[] x = new double[n];
+        double[] v = new double[n];
+        int[] isgn = new int[n];
+        Estimator estimator = new Estimator(n, x, v, isgn);
+        int kase1 = onenrm ? 1 : 2;
+        int kase;
+        while ((kase = estimator.next()) != 0) {
+            if (kase == kase1) {
+                // inv(U) * inv(L) * x
+                trsv(true, false, true, n, a, lda, x, 0);
+                trsv(false, false, false, n, a, lda, x, 0);
+            } else {
+                // inv(L^T) * inv(U^T) * x
+                trsv(false, true, false, n, a, lda, x, 0);
+                trsv(true, true, true, n, a, lda, x, 0);
+            }
+            for (int i = 0; i < n; i++) {
+                if (Double.isInfinite(x[i]) || Double.isNaN(x[i])) {
+                    // the matrix is numerically singular
+                    return 0;
+                }
+            }
+        }
+        if (estimator.est != 0) {
+            rcond[0] = (1 / estimator.est) / anorm;
+        }
+        return 0;
+    }
+
+    /**
+     * The reverse communication state machine of {@code dlacn2}: {@link #next()} returns
+     * {@code 1} if {@code x} should be overwritten by {@code A * x}, {@code 2} for
+     * {@code A^T * x} and {@code 0} once {@link #est} holds the estimate of the 1-norm of
+     * {@code A}.
+     */
+    private static final class Estimator {
+        private static final int ITMAX = 5;
+
+        private final int n;
+        private final double[] x;
+        private final double[] v;
+        private final int[] isgn;
+        private double est;
+        private int state;
+        private int j;
+        private int iter;
+
+        Estimator(int n, double[] x, double[] v, int[] isgn) {
+            this.n = n;
+            this.x = x;
+            this.v = v;
+            this.isgn = isgn;
+        }
+
+        int next() {
+            switch (state) {
+                case 0:
+                    for (int i = 0; i < n; i++) {
+                        x[i] = 1.0 / n;
+                    }
+                    state = 1;
+                    return 1;
+                case 1:
+                    if (n == 1) {
+                        v[0] = x[0];
+                        est = Math.abs(v[0]);
+                        return 0;
+                    }
+                    est = asum(x);
+                    for (int i = 0; i < n; i++) {
+                        x[i] = x[i] >= 0 ? 1 : -1;
+                        isgn[i] = (int) x[i];
+                    }
+                    state = 2;
+                    return 2;
+                case 2:
+                    j = iamax(x);
+                    iter = 2;
+                    return unitVector();
+                case 3:
+                    System.arraycopy(x, 0, v, 0, n);
+                    double estold = est;
+                    est = asum(v);
+                    boolean changed = false;
+                    for (int i = 0; i < n; i++) {
+                        if ((x[i] >= 0 ? 1 : -1) != isgn[i]) {
+                            changed = true;
+                            break;
+                        }
+                    }
+                    if (!changed || est <= estold) {
+                        return alternatingVector();
+                    }
+                    for (int i = 0; i < n; i++) {
+                        x[i] = x[i] >= 0 ? 1 : -1;
+                        isgn[i] = (int) x[i];
+                    }
+                    state = 4;
+                    return 2;
+                case 4:
+                    int jlast = j;
+                    j = iamax(x);
+                    if (x[jlast] != Math.abs(x[j]) && iter < ITMAX) {
+                        iter++;
+                        return unitVector();
+                    }
+                    return alternatingVector();
+                case 5:
+                    double temp = 2 * (asum(x) / (3 * n));
+                    if (temp > est) {
+                        System.arraycopy(x, 0, v, 0, n);
+                        est = temp;
+                    }
+                    return 0;
+                default:
+                    return 0;
+            }
+        }
+
+        private int unitVector() {
+            for (int i = 0; i < n; i++) {
+                x[i] = 0;
+            }
+            x[j] = 1;
+            state = 3;
+            return 1;
+        }
+
+        private int alternatingVector() {
+            double altsgn = 1;
+            for (int i = 0; i < n; i++) {
+                x[i] = altsgn * (1 + (double) i / (n - 1));
+                altsgn = -altsgn;
+            }
+            state = 5;
+            return 1;
+        }
+
+        private double asum(double[] values) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += Math.abs(values[i]);
+            }
+            return sum;
+        }
+
+        private int iamax(double[] values) {
+            int result = 0;
+            double max = Math.abs(values[0]);
+            for (int i = 1; i < n; i++) {
+                if (Math.abs(values[i]) > max) {
+                    max = Math.abs(values[i]);
+                    result = i;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Number of columns per task, such that every task does about a quarter of
+     * {@link #PARALLEL_FLOPS} operations.
+     */
+    private static int grain(int columns, double flops) {
+        return Math.max(1, (int) (columns * PARALLEL_FLOPS / 4 / flops));
+    }
+
+    @FunctionalInterface
+    private interface ColumnRange {
+        void compute(int from, int to);
+    }
+
+    /**
+     * Splits a column range into chunks of at most {@code grain} columns processed in parallel.
+     */
+    @SuppressWarnings("serial")
+    private static final class ColumnsTask extends RecursiveAction {
+        private final ColumnRange body;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ColumnsTask(ColumnRange body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.compute(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ColumnsTask(body, from, mid, grain), new ColumnsTask(body, mid, to, grain));
+        }
+    }
+}
@@ -0,0 +1,867 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.ffi.impl.managed;
+
+/**
+ * Java implementations of the eigenvalue routines used by {@link Managed_LapackRFFI}, based on the
+ * EISPACK algorithms as formulated in the public domain JAMA library: {@code dsyevr} reduces the
+ * symmetric matrix to tridiagonal form by Householder transformations and then uses the implicit
+ * QL method ({@code tred2}, {@code tql2}), {@code dgeev} reduces the general matrix to Hessenberg
+ * form and uses the shifted QR algorithm ({@code orthes}, {@code hqr2}). The matrix is not
+ * balanced. The eigenvectors are normalized as LAPACK does, but their signs may differ.
+ */
+final class JavaLapackEigen {
+
+    private static final double EPS = Math.ulp(1.0);
+
+    private JavaLapackEigen() {
+        // no instances
+    }
+
+    // Symmetric matrices
+
+    static int dsyevr(char jobz, char range, char uplo, int n, double[] a, int lda, double vl, double vu, int il, int iu, double abstol, int[] m, double[] w, double[] z, int ldz,
+                    int[] isuppz, double[] work, int lwork, int[] iwork, int liwork) {
+        boolean wantz = jobz == 'V' || jobz == 'v';
+        boolean alleig = range == 'A' || range == 'a';
+        boolean valeig = range == 'V' || range == 'v';
+        boolean indeig = range == 'I' || range == 'i';
+        boolean lower = uplo == 'L' || uplo == 'l';
+        int lwmin = Math.max(1, 26 * n);
+        int liwmin = Math.max(1, 10 * n);
+        if (!wantz && jobz != 'N' && jobz != 'n') {
+            return -1;
+        } else if (!alleig && !valeig && !indeig) {
+            return -2;
+        } else if (!lower && uplo != 'U' && uplo != 'u') {
+            return -3;
+        } else if (n < 0) {
+            return -4;
+        } else if (lda < Math.max(1, n)) {
+            return -6;
+        } else if (valeig && n > 0 && vu <= vl) {
+            return -8;
+        } else if (indeig && (il < 1 || il > Math.max(1, n))) {
+            return -9;
+        } else if (indeig && (iu < Math.min(n, il) || iu > n)) {
+            return -10;
+        } else if (ldz < 1 || (wantz && ldz < n)) {
+            return -15;
+        }
+        if (lwork == -1 || liwork == -1) {
+            work[0] = lwmin;
+            iwork[0] = liwmin;
+            return 0;
+        } else if (lwork < lwmin) {
+            return -18;
+        } else if (liwork < liwmin) {
+            return -20;
+        }
+        m[0] = 0;
+        if (n == 0) {
+            return 0;
+        }
+        double[][] v = new double[n][n];
+        for (int j = 0; j < n; j++) {
+            for (int i = j; i < n; i++) {
+                double x = lower ? a[j * lda + i] : a[i * lda + j];
+                v[i][j] = x;
+                v[j][i] = x;
+            }
+        }
+        double[] d = new double[n];
+        double[] e = new double[n];
+        tred2(n, v, d, e);
+        if (!tql2(n, v, d, e, wantz)) {
+            return 1;
+        }
+        int first = 0;
+        int last = n;
+        if (indeig) {
+            first = il - 1;
+            last = iu;
+        } else if (valeig) {
+            while (first < n && d[first] <= vl) {
+                first++;
+            }
+            last = first;
+            while (last < n && d[last] <= vu) {
+                last++;
+            }
+        }
+        m[0] = last - first;
+        for (int k = first; k < last; k++) {
+            w[k - first] = d[k];
+            if (wantz) {
+                int off = (k - first) * ldz;
+                for (int i = 0; i < n; i++) {
+                    z[off + i] = v[i][k];
+                }
+                isuppz[2 * (k - first)] = 1;
+                isuppz[2 * (k - first) + 1] = n;
+            }
+        }
+        work[0] = lwmin;
+        iwork[0] = liwmin;
+        return 0;
+    }
+
+    /**
+     * Householder reduction of the symmetric matrix {@code v} to tridiagonal form, accumulating
+     * the transformations in {@code v}.
+     */
+    private static void tred2(int n, double[][] v, double[] d, double[] e) {
+        for (int j = 0; j < n; j++) {
+            d[j] = v[n - 1][j];
+        }
+        for (int i = n - 1; i > 0; i--) {
+            double scale = 0;
+            double h = 0;
+            for (int k = 0; k < i; k++) {
+                scale += Math.abs(d[k]);
+            }
+            if (scale == 0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = v[i - 1][j];
+                    v[i][j] = 0;
+                    v[j][i] = 0;
+                }
+            } else {
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+                double f = d[i - 1];
+                double g = Math.sqrt(h);
+                if (f > 0) {
+                    g = -g;
+                }
+                e[i] = scale * g;
+                h -= f * g;
+                d[i - 1] = f - g;
+                for (int j = 0; j < i; j++) {
+                    e[j] = 0;
+                }
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    v[j][i] = f;
+                    g = e[j] + v[j][j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += v[k][j] * d[k];
+                        e[k] += v[k][j] * f;
+                    }
+                    e[j] = g;
+                }
+                f = 0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+                double hh = f / (h + h);
+                for (int j = 0; j < i; j++) {
+                    e[j] -= hh * d[j];
+                }
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    for (int k = j; k <= i - 1; k++) {
+                        v[k][j] -= f * e[k] + g * d[k];
+                    }
+                    d[j] = v[i - 1][j];
+                    v[i][j] = 0;
+                }
+            }
+            d[i] = h;
+        }
+        for (int i = 0; i < n - 1; i++) {
+            v[n - 1][i] = v[i][i];
+            v[i][i] = 1;
+            double h = d[i + 1];
+            if (h != 0) {
+                for (int k = 0; k <= i; k++) {
+                    d[k] = v[k][i + 1] / h;
+                }
+                for (int j = 0; j <= i; j++) {
+                    double g = 0;
+                    for (int k = 0; k <= i; k++) {
+                        g += v[k][i + 1] * v[k][j];
+                    }
+                    for (int k = 0; k <= i; k++) {
+                        v[k][j] -= g * d[k];
+                    }
+                }
+            }
+            for (int k = 0; k <= i; k++) {
+                v[k][i + 1] = 0;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            d[j] = v[n - 1][j];
+            v[n - 1][j] = 0;
+        }
+        v[n - 1][n - 1] = 1;
+        e[0] = 0;
+    }
+
+    /**
+     * Implicit QL iterations on the tridiagonal matrix {@code (d, e)}, the eigenvalues are returned
+     * in ascending order in {@code d}. Returns {@code false} if the iteration did not converge.
+     */
+    private static boolean tql2(int n, double[][] v, double[] d, double[] e, boolean vectors) {
+        for (int i = 1; i < n; i++) {
+            e[i - 1] = e[i];
+        }
+        e[n - 1] = 0;
+        double f = 0;
+        double tst1 = 0;
+        for (int l = 0; l < n; l++) {
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n) {
+                if (Math.abs(e[m]) <= EPS * tst1) {
+                    break;
+                }
+                m++;
+            }
+            if (m == n) {
+                // only possible with NaNs
+                return false;
+            }
+            if (m > l) {
+                int iter = 0;
+                do {
+                    if (++iter > 30 * Math.max(10, n)) {
+                        return false;
+                    }
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2 * e[l]);
+                    double r = Math.hypot(p, 1);
+                    if (p < 0) {
+                        r = -r;
+                    }
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f += h;
+                    p = d[m];
+                    double c = 1;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0;
+                    double s2 = 0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+                        if (vectors) {
+                            for (int k = 0; k < n; k++) {
+                                h = v[k][i + 1];
+                                v[k][i + 1] = s * v[k][i] + c * h;
+                                v[k][i] = c * v[k][i] - s * h;
+                            }
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > EPS * tst1);
+            }
+            d[l] += f;
+            e[l] = 0;
+        }
+        for (int i = 0; i < n - 1; i++) {
+            int k = i;
+            double p = d[i];
+            for (int j = i + 1; j < n; j++) {
+                if (d[j] < p) {
+                    k = j;
+                    p = d[j];
+                }
+            }
+            if (k != i) {
+                d[k] = d[i];
+                d[i] = p;
+                if (vectors) {
+                    for (int j = 0; j < n; j++) {
+                        p = v[j][i];
+                        v[j][i] = v[j][k];
+                        v[j][k] = p;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // General matrices
+
+    static int dgeev(char jobVL, char jobVR, int n, double[] a, int lda, double[] wr, double[] wi, double[] vl, int ldvl, double[] vr, int ldvr, double[] work, int lwork) {
+        boolean wantvl = jobVL == 'V' || jobVL == 'v';
+        boolean wantvr = jobVR == 'V' || jobVR == 'v';
+        int minwrk = n == 0 ? 1 : (wantvl || wantvr ? 4 * n : 3 * n);
+        if (!wantvl && jobVL != 'N' && jobVL != 'n') {
+            return -1;
+        } else if (!wantvr && jobVR != 'N' && jobVR != 'n') {
+            return -2;
+        } else if (n < 0) {
+            return -3;
+        } else if (lda < Math.max(1, n)) {
+            return -5;
+        } else if (ldvl < 1 || (wantvl && ldvl < n)) {
+            return -9;
+        } else if (ldvr < 1 || (wantvr && ldvr < n)) {
+            return -11;
+        }
+        if (lwork == -1) {
+            work[0] = minwrk;
+            return 0;
+        } else if (lwork < minwrk) {
+            return -13;
+        }
+        if (n == 0) {
+            return 0;
+        }
+        double[][] h = new double[n][n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                h[i][j] = a[j * lda + i];
+            }
+        }
+        double[][] v = new double[n][n];
+        orthes(n, h, v);
+        int info = hqr2(n, h, v, wr, wi);
+        if (info != 0) {
+            return info;
+        }
+        if (wantvr) {
+            normalize(n, v, wi);
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    vr[j * ldvr + i] = v[i][j];
+                }
+            }
+        }
+        work[0] = minwrk;
+        return 0;
+    }
+
+    /**
+     * Scales the eigenvectors to unit Euclidean norm, rotating complex eigenvectors such that
+     * their component of the largest modulus is real (as {@code dgeev} does).
+     */
+    private static void normalize(int n, double[][] v, double[] wi) {
+        for (int j = 0; j < n; j++) {
+            if (wi[j] == 0) {
+                double norm = 0;
+                for (int i = 0; i < n; i++) {
+                    norm = Math.hypot(norm, v[i][j]);
+                }
+                if (norm != 0) {
+                    for (int i = 0; i < n; i++) {
+                        v[i][j] /= norm;
+                    }
+                }
+            } else if (wi[j] > 0 && j + 1 < n) {
+                double norm = 0;
+                int k = 0;
+                double max = -1;
+                for (int i = 0; i < n; i++) {
+                    norm = Math.hypot(norm, Math.hypot(v[i][j], v[i][j + 1]));
+                    double mod = v[i][j] * v[i][j] + v[i][j + 1] * v[i][j + 1];
+                    if (mod > max) {
+                        max = mod;
+                        k = i;
+                    }
+                }
+                if (norm != 0) {
+                    // multiply by conj(v[k]) / |v[k]| / norm
+                    double mod = Math.hypot(v[k][j], v[k][j + 1]);
+                    double cs = v[k][j] / mod / norm;
+                    double sn = -v[k][j + 1] / mod / norm;
+                    for (int i = 0; i < n; i++) {
+                        double re = v[i][j];
+                        double im = v[i][j + 1];
+                        v[i][j] = re * cs - im * sn;
+                        v[i][j + 1] = re * sn + im * cs;
+                    }
+                    v[k][j + 1] = 0;
+                }
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Reduction to Hessenberg form by orthogonal similarity transformations, accumulating the
+     * transformations in {@code v}.
+     */
+    private static void orthes(int n, double[][] h, double[][] v) {
+        int high = n - 1;
+        double[] ort = new double[n];
+        for (int m = 1; m <= high - 1; m++) {
+            double scale = 0;
+            for (int i = m; i <= high; i++) {
+                scale += Math.abs(h[i][m - 1]);
+            }
+            if (scale != 0) {
+                double hh = 0;
+                for (int i = high; i >= m; i--) {
+                    ort[i] = h[i][m - 1] / scale;
+                    hh += ort[i] * ort[i];
+                }
+                double g = Math.sqrt(hh);
+                if (ort[m] > 0) {
+                    g = -g;
+                }
+                hh -= ort[m] * g;
+                ort[m] -= g;
+                for (int j = m; j < n; j++) {
+                    double f = 0;
+                    for (int i = high; i >= m; i--) {
+                        f += ort[i] * h[i][j];
+                    }
+                    f /= hh;
+                    for (int i = m; i <= high; i++) {
+                        h[i][j] -= f * ort[i];
+                    }
+                }
+                for (int i = 0; i <= high; i++) {
+                    double f = 0;
+                    for (int j = high; j >= m; j--) {
+                        f += ort[j] * h[i][j];
+                    }
+                    f /= hh;
+                    for (int j = m; j <= high; j++) {
+                        h[i][j] -= f * ort[j];
+                    }
+                }
+                ort[m] = scale * ort[m];
+                h[m][m - 1] = scale * g;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            v[i][i] = 1;
+        }
+        for (int m = high - 1; m >= 1; m--) {
+            if (h[m][m - 1] != 0) {
+                for (int i = m + 1; i <= high; i++) {
+                    ort[i] = h[i][m - 1];
+                }
+                for (int j = m; j <= high; j++) {
+                    double g = 0;
+                    for (int i = m; i <= high; i++) {
+                        g += ort[i] * v[i][j];
+                    }
+                    g = (g / ort[m]) / h[m][m - 1];
+                    for (int i = m; i <= high; i++) {
+                        v[i][j] += g * ort[i];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduction of the Hessenberg matrix {@code h} to real Schur form by the shifted QR algorithm,
+     * followed by the back-substitution of the eigenvectors, which are accumulated in {@code v}.
+     * Returns the LAPACK info value, non-zero if the iteration did not converge.
+     */
+    private static int hqr2(int nn, double[][] h, double[][] v, double[] d, double[] e) {
+        int n = nn - 1;
+        double exshift = 0;
+        double p = 0;
+        double q = 0;
+        double r = 0;
+        double s = 0;
+        double z = 0;
+        double t;
+        double w;
+        double x;
+        double y;
+
+        double norm = 0;
+        for (int i = 0; i < nn; i++) {
+            for (int j = Math.max(i - 1, 0); j < nn; j++) {
+                norm += Math.abs(h[i][j]);
+            }
+        }
+
+        int iter = 0;
+        int totalIter = 0;
+        int maxIter = 30 * Math.max(10, nn);
+        while (n >= 0) {
+            // look for a single small sub-diagonal element
+            int l = n;
+            while (l > 0) {
+                s = Math.abs(h[l - 1][l - 1]) + Math.abs(h[l][l]);
+                if (s == 0) {
+                    s = norm;
+                }
+                if (Math.abs(h[l][l - 1]) < EPS * s) {
+                    break;
+                }
+                l--;
+            }
+            if (l == n) {
+                // one root found
+                h[n][n] += exshift;
+                d[n] = h[n][n];
+                e[n] = 0;
+                n--;
+                iter = 0;
+            } else if (l == n - 1) {
+                // two roots found
+                w = h[n][n - 1] * h[n - 1][n];
+                p = (h[n - 1][n - 1] - h[n][n]) / 2;
+                q = p * p + w;
+                z = Math.sqrt(Math.abs(q));
+                h[n][n] += exshift;
+                h[n - 1][n - 1] += exshift;
+                x = h[n][n];
+                if (q >= 0) {
+                    // real pair
+                    z = p >= 0 ? p + z : p - z;
+                    d[n - 1] = x + z;
+                    d[n] = d[n - 1];
+                    if (z != 0) {
+                        d[n] = x - w / z;
+                    }
+                    e[n - 1] = 0;
+                    e[n] = 0;
+                    x = h[n][n - 1];
+                    s = Math.abs(x) + Math.abs(z);
+                    p = x / s;
+                    q = z / s;
+                    r = Math.sqrt(p * p + q * q);
+                    p /= r;
+                    q /= r;
+                    for (int j = n - 1; j < nn; j++) {
+                        z = h[n - 1][j];
+                        h[n - 1][j] = q * z + p * h[n][j];
+                        h[n][j] = q * h[n][j] - p * z;
+                    }
+                    for (int i = 0; i <= n; i++) {
+                        z = h[i][n - 1];
+                        h[i][n - 1] = q * z + p * h[i][n];
+                        h[i][n] = q * h[i][n] - p * z;
+                    }
+                    for (int i = 0; i < nn; i++) {
+                        z = v[i][n - 1];
+                        v[i][n - 1] = q * z + p * v[i][n];
+                        v[i][n] = q * v[i][n] - p * z;
+                    }
+                } else {
+                    // complex pair
+                    d[n - 1] = x + p;
+                    d[n] = x + p;
+                    e[n - 1] = z;
+                    e[n] = -z;
+                }
+                n -= 2;
+                iter = 0;
+            } else {
+                if (++totalIter > maxIter) {
+                    return n + 1;
+                }
+                // form shift
+                x = h[n][n];
+                y = 0;
+                w = 0;
+                if (l < n) {
+                    y = h[n - 1][n - 1];
+                    w = h[n][n - 1] * h[n - 1][n];
+                }
+                if (iter == 10) {
+                    // Wilkinson's original ad hoc shift
+                    exshift += x;
+                    for (int i = 0; i <= n; i++) {
+                        h[i][i] -= x;
+                    }
+                    s = Math.abs(h[n][n - 1]) + Math.abs(h[n - 1][n - 2]);
+                    x = 0.75 * s;
+                    y = x;
+                    w = -0.4375 * s * s;
+                }
+                if (iter == 30) {
+                    // MATLAB's new ad hoc shift
+                    s = (y - x) / 2;
+                    s = s * s + w;
+                    if (s > 0) {
+                        s = Math.sqrt(s);
+                        if (y < x) {
+                            s = -s;
+                        }
+                        s = x - w / ((y - x) / 2 + s);
+                        for (int i = 0; i <= n; i++) {
+                            h[i][i] -= s;
+                        }
+                        exshift += s;
+                        x = 0.964;
+                        y = x;
+                        w = x;
+                    }
+                }
+                iter++;
+                // look for two consecutive small sub-diagonal elements
+                int m = n - 2;
+                while (m >= l) {
+                    z = h[m][m];
+                    r = x - z;
+                    s = y - z;
+                    p = (r * s - w) / h[m + 1][m] + h[m][m + 1];
+                    q = h[m + 1][m + 1] - z - r - s;
+                    r = h[m + 2][m + 1];
+                    s = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                    p /= s;
+                    q /= s;
+                    r /= s;
+                    if (m == l) {
+                        break;
+                    }
+                    if (Math.abs(h[m][m - 1]) * (Math.abs(q) + Math.abs(r)) < EPS * (Math.abs(p) * (Math.abs(h[m - 1][m - 1]) + Math.abs(z) + Math.abs(h[m + 1][m + 1])))) {
+                        break;
+                    }
+                    m--;
+                }
+                for (int i = m + 2; i <= n; i++) {
+                    h[i][i - 2] = 0;
+                    if (i > m + 2) {
+                        h[i][i - 3] = 0;
+                    }
+                }
+                // double QR step involving rows l:n and columns m:n
+                for (int k = m; k <= n - 1; k++) {
+                    boolean notlast = k != n - 1;
+                    if (k != m) {
+                        p = h[k][k - 1];
+                        q = h[k + 1][k - 1];
+                        r = notlast ? h[k + 2][k - 1] : 0;
+                        x = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                        if (x == 0) {
+                            continue;
+                        }
+                        p /= x;
+                        q /= x;
+                        r /= x;
+                    }
+                    s = Math.sqrt(p * p + q * q + r * r);
+                    if (p < 0) {
+                        s = -s;
+                    }
+                    if (s != 0) {
+                        if (k != m) {
+                            h[k][k - 1] = -s * x;
+                        } else if (l != m) {
+                            h[k][k - 1] = -h[k][k - 1];
+                        }
+                        p += s;
+                        x = p / s;
+                        y = q / s;
+                        z = r / s;
+                        q /= p;
+                        r /= p;
+                        // row modification
+                        for (int j = k; j < nn; j++) {
+                            p = h[k][j] + q * h[k + 1][j];
+                            if (notlast) {
+                                p += r * h[k + 2][j];
+                                h[k + 2][j] -= p * z;
+                            }
+                            h[k][j] -= p * x;
+                            h[k + 1][j] -= p * y;
+                        }
+                        // column modification
+                        for (int i = 0; i <= Math.min(n, k + 3); i++) {
+                            p = x * h[i][k] + y * h[i][k + 1];
+                            if (notlast) {
+                                p += z * h[i][k + 2];
+                                h[i][k + 2] -= p * r;
+                            }
+                            h[i][k] -= p;
+                            h[i][k + 1] -= p * q;
+                        }
+                        // accumulate transformations
+                        for (int i = 0; i < nn; i++) {
+                            p = x * v[i][k] + y * v[i][k + 1];
+                            if (notlast) {
+                                p += z * v[i][k + 2];
+                                v[i][k + 2] -= p * r;
+                            }
+                            v[i][k] -= p;
+                            v[i][k + 1] -= p * q;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (norm == 0) {
+            return 0;
+        }
+        // back-substitute to find the vectors of the upper triangular form
+        for (n = nn - 1; n >= 0; n--) {
+            p = d[n];
+            q = e[n];
+            if (q == 0) {
+                // real vector
+                int l = n;
+                h[n][n] = 1;
+                for (int i = n - 1; i >= 0; i--) {
+                    w = h[i][i] - p;
+                    r = 0;
+                    for (int j = l; j <= n; j++) {
+                        r += h[i][j] * h[j][n];
+                    }
+                    if (e[i] < 0) {
+                        z = w;
+                        s = r;
+                    } else {
+                        l = i;
+                        if (e[i] == 0) {
+                            h[i][n] = w != 0 ? -r / w : -r / (EPS * norm);
+                        } else {
+                            x = h[i][i + 1];
+                            y = h[i + 1][i];
+                            q = (d[i] - p) * (d[i] - p) + e[i] * e[i];
+                            t = (x * s - z * r) / q;
+                            h[i][n] = t;
+                            h[i + 1][n] = Math.abs(x) > Math.abs(z) ? (-r - w * t) / x : (-s - y * t) / z;
+                        }
+                        // overflow control
+                        t = Math.abs(h[i][n]);
+                        if ((EPS * t) * t > 1) {
+                            for (int j = i; j <= n; j++) {
+                                h[j][n] /= t;
+                            }
+                        }
+                    }
+                }
+            } else if (q < 0) {
+                // complex vector
+                int l = n - 1;
+                double[] c = new double[2];
+                if (Math.abs(h[n][n - 1]) > Math.abs(h[n - 1][n])) {
+                    h[n - 1][n - 1] = q / h[n][n - 1];
+                    h[n - 1][n] = -(h[n][n] - p) / h[n][n - 1];
+                } else {
+                    cdiv(0, -h[n - 1][n], h[n - 1][n - 1] - p, q, c);
+                    h[n - 1][n - 1] = c[0];
+                    h[n - 1][n] = c[1];
+                }
+                h[n][n - 1] = 0;
+                h[n][n] = 1;
+                for (int i = n - 2; i >= 0; i--) {
+                    double ra = 0;
+                    double sa = 0;
+                    for (int j = l; j <= n; j++) {
+                        ra += h[i][j] * h[j][n - 1];
+                        sa += h[i][j] * h[j][n];
+                    }
+                    w = h[i][i] - p;
+                    if (e[i] < 0) {
+                        z = w;
+                        r = ra;
+                        s = sa;
+                    } else {
+                        l = i;
+                        if (e[i] == 0) {
+                            cdiv(-ra, -sa, w, q, c);
+                            h[i][n - 1] = c[0];
+                            h[i][n] = c[1];
+                        } else {
+                            // solve the complex equations
+                            x = h[i][i + 1];
+                            y = h[i + 1][i];
+                            double vr = (d[i] - p) * (d[i] - p) + e[i] * e[i] - q * q;
+                            double vi = (d[i] - p) * 2 * q;
+                            if (vr == 0 && vi == 0) {
+                                vr = EPS * norm * (Math.abs(w) + Math.abs(q) + Math.abs(x) + Math.abs(y) + Math.abs(z));
+                            }
+                            cdiv(x * r - z * ra + q * sa, x * s - z * sa - q * ra, vr, vi, c);
+                            h[i][n - 1] = c[0];
+                            h[i][n] = c[1];
+                            if (Math.abs(x) > (Math.abs(z) + Math.abs(q))) {
+                                h[i + 1][n - 1] = (-ra - w * h[i][n - 1] + q * h[i][n]) / x;
+                                h[i + 1][n] = (-sa - w * h[i][n] - q * h[i][n - 1]) / x;
+                            } else {
+                                cdiv(-r - y * h[i][n - 1], -s - y * h[i][n], z, q, c);
+                                h[i + 1][n - 1] = c[0];
+                                h[i + 1][n] = c[1];
+                            }
+                        }
+                        // overflow control
+                        t = Math.max(Math.abs(h[i][n - 1]), Math.abs(h[i][n]));
+                        if ((EPS * t) * t > 1) {
+                            for (int j = i; j <= n; j++) {
+                                h[j][n - 1] /= t;
+                                h[j][n] /= t;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        // back transformation to get the eigenvectors of the original matrix
+        for (int j = nn - 1; j >= 0; j--) {
+            for (int i = 0; i < nn; i++) {
+                z = 0;
+                for (int k = 0; k <= j; k++) {
+                    z += v[i][k] * h[k][j];
+                }
+                v[i][j] = z;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Complex division {@code (xr + i xi) / (yr + i yi)}, the result is stored in {@code c}.
+     */
+    private static void cdiv(double xr, double xi, double yr, double yi, double[] c) {
+        if (Math.abs(yr) > Math.abs(yi)) {
+            double r = yi / yr;
+            double d = yr + r * yi;
+            c[0] = (xr + r * xi) / d;
+            c[1] = (xi - r * xr) / d;
+        } else {
+            double r = yr / yi;
+            double d = yi + r * yr;
+            c[0] = (r * xr + xi) / d;
+            c[1] = (r * xi - xr) / d;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.ffi.impl.managed;
+
+/**
+ * Java implementations of the Householder QR routines used by {@link Managed_LapackRFFI}: QR
+ * factorization with column pivoting ({@code dgeqp3}) and multiplication by the orthogonal factor
+ * ({@code dormqr}). Both use the unblocked (Level 2) algorithms, {@code dgeqp3} follows LAPACK's
+ * {@code dlaqp2}.
+ */
+final class JavaLapackQR {
+
+    private static final double TOL3Z = Math.sqrt(JavaLapack.EPS);
+
+    private JavaLapackQR() {
+        // no instances
+    }
+
+    static int dgeqp3(int m, int n, double[] a, int lda, int[] jpvt, double[] tau, double[] work, int lwork) {
+        if (m < 0) {
+            return -1;
+        } else if (n < 0) {
+            return -2;
+        } else if (lda < Math.max(1, m)) {
+            return -4;
+        }
+        int minws = Math.min(m, n) == 0 ? 1 : 3 * n + 1;
+        if (lwork == -1) {
+            work[0] = minws;
+            return 0;
+        } else if (lwork < minws) {
+            return -8;
+        }
+        // move the initial (fixed) columns to the front
+        int nfxd = 0;
+        for (int j = 0; j < n; j++) {
+            if (jpvt[j] != 0) {
+                if (j != nfxd) {
+                    swapColumns(a, lda, m, j, nfxd);
+                    jpvt[j] = jpvt[nfxd];
+                    jpvt[nfxd] = j + 1;
+                } else {
+                    jpvt[j] = j + 1;
+                }
+                nfxd++;
+            } else {
+                jpvt[j] = j + 1;
+            }
+        }
+        int minmn = Math.min(m, n);
+        // factorize the fixed columns and update the rest
+        int na = Math.min(m, nfxd);
+        double[] v = new double[Math.max(1, m)];
+        for (int i = 0; i < na; i++) {
+            householder(a, lda, m, i, i, tau, v);
+            applyLeft(a, lda, m, i, i + 1, n, tau[i], v);
+        }
+        if (na < minmn) {
+            // norms of the free columns
+            double[] vn1 = new double[n];
+            double[] vn2 = new double[n];
+            for (int j = nfxd; j < n; j++) {
+                vn1[j] = norm2(a, j * lda + nfxd, m - nfxd);
+                vn2[j] = vn1[j];
+            }
+            for (int i = nfxd; i < minmn; i++) {
+                // pivot
+                int pvt = i;
+                for (int j = i + 1; j < n; j++) {
+                    if (Math.abs(vn1[j]) > Math.abs(vn1[pvt])) {
+                        pvt = j;
+                    }
+                }
+                if (pvt != i) {
+                    swapColumns(a, lda, m, pvt, i);
+                    int t = jpvt[pvt];
+                    jpvt[pvt] = jpvt[i];
+                    jpvt[i] = t;
+                    vn1[pvt] = vn1[i];
+                    vn2[pvt] = vn2[i];
+                }
+                householder(a, lda, m, i, i, tau, v);
+                applyLeft(a, lda, m, i, i + 1, n, tau[i], v);
+                // update the partial column norms
+                for (int j = i + 1; j < n; j++) {
+                    if (vn1[j] != 0) {
+                        double temp = Math.abs(a[j * lda + i]) / vn1[j];
+                        temp = 1 - temp * temp;
+                        temp = Math.max(temp, 0);
+                        double ratio = vn1[j] / vn2[j];
+                        double temp2 = temp * ratio * ratio;
+                        if (temp2 <= TOL3Z) {
+                            if (i < m - 1) {
+                                vn1[j] = norm2(a, j * lda + i + 1, m - i - 1);
+                                vn2[j] = vn1[j];
+                            } else {
+                                vn1[j] = 0;
+                                vn2[j] = 0;
+                            }
+                        } else {
+                            vn1[j] *= Math.sqrt(temp);
+                        }
+                    }
+                }
+            }
+        }
+        work[0] = minws;
+        return 0;
+    }
+
+    private static void swapColumns(double[] a, int lda, int m, int c1, int c2) {
+        int o1 = c1 * lda;
+        int o2 = c2 * lda;
+        for (int i = 0; i < m; i++) {
+            double t = a[o1 + i];
+            a[o1 + i] = a[o2 + i];
+            a[o2 + i] = t;
+        }
+    }
+
+    /**
+     * Scaled Euclidean norm of {@code x[off..off+len)}, as computed by {@code dnrm2}.
+     */
+    static double norm2(double[] x, int off, int len) {
+        double scale = 0;
+        double ssq = 1;
+        for (int i = off; i < off + len; i++) {
+            if (x[i] != 0) {
+                double absxi = Math.abs(x[i]);
+                if (scale < absxi) {
+                    ssq = 1 + ssq * (scale / absxi) * (scale / absxi);
+                    scale = absxi;
+                } else {
+                    ssq += (absxi / scale) * (absxi / scale);
+                }
+            }
+        }
+        return scale * Math.sqrt(ssq);
+    }
+
+    /**
+     * Generates the elementary reflector annihilating {@code A[row+1..m, col]} ({@code dlarfg}).
+     * The reflector is stored below the diagonal, {@code tau[col]} is set and the vector
+     * {@code v} (with {@code v[row] == 1}) is filled in for {@link #applyLeft}.
+     */
+    private static void householder(double[] a, int lda, int m, int row, int col, double[] tau, double[] v) {
+        int off = col * lda;
+        double alpha = a[off + row];
+        double xnorm = row + 1 < m ? norm2(a, off + row + 1, m - row - 1) : 0;
+        if (xnorm == 0) {
+            tau[col] = 0;
+        } else {
+            double beta = -Math.copySign(Math.hypot(alpha, xnorm), alpha);
+            int knt = 0;
+            double rsafmn = 1 / (JavaLapack.SAFE_MIN / JavaLapack.EPS);
+            if (Math.abs(beta) < JavaLapack.SAFE_MIN / JavaLapack.EPS) {
+                // xnorm and beta may be inaccurate, scale the vector and recompute them
+                do {
+                    knt++;
+                    for (int i = row + 1; i < m; i++) {
+                        a[off + i] *= rsafmn;
+                    }
+                    beta *= rsafmn;
+                    alpha *= rsafmn;
+                } while (Math.abs(beta) < JavaLapack.SAFE_MIN / JavaLapack.EPS && knt < 20);
+                xnorm = norm2(a, off + row + 1, m - row - 1);
+                beta = -Math.copySign(Math.hypot(alpha, xnorm), alpha);
+            }
+            tau[col] = (beta - alpha) / beta;
+            double scal = 1 / (alpha - beta);
+            for (int i = row + 1; i < m; i++) {
+                a[off + i] *= scal;
+            }
+            for (int j = 0; j < knt; j++) {
+                beta *= JavaLapack.SAFE_MIN / JavaLapack.EPS;
+            }
+            alpha = beta;
+        }
+        a[off + row] = alpha;
+        v[row] = 1;
+        for (int i = row + 1; i < m; i++) {
+            v[i] = a[off + i];
+        }
+    }
+
+    /**
+     * Applies {@code H = I - tau * v * v^T} to {@code A[row..m, c1..c2)} from the left.
+     */
+    private static void applyLeft(double[] a, int lda, int m, int row, int c1, int c2, double tau, double[] v) {
+        if (tau == 0) {
+            return;
+        }
+        for (int c = c1; c < c2; c++) {
+            int off = c * lda;
+            double dot = 0;
+            for (int i = row; i < m; i++) {
+                dot += v[i] * a[off + i];
+            }
+            if (dot != 0) {
+                double f = tau * dot;
+                for (int i = row; i < m; i++) {
+                    a[off + i] -= f * v[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Overwrites {@code C} with {@code Q * C}, {@code Q^T * C}, {@code C * Q} or {@code C * Q^T},
+     * where {@code Q} is the product of the {@code k} reflectors stored in {@code a} and
+     * {@code tau} by {@link #dgeqp3}.
+     */
+    static int dormqr(char side, char trans, int m, int n, int k, double[] a, int lda, double[] tau, double[] c, int ldc, double[] work, int lwork) {
+        boolean left = side == 'L' || side == 'l';
+        boolean notran = trans == 'N' || trans == 'n';
+        int nq = left ? m : n;
+        int nw = Math.max(1, left ? n : m);
+        if (!left && side != 'R' && side != 'r') {
+            return -1;
+        } else if (!notran && trans != 'T' && trans != 't') {
+            return -2;
+        } else if (m < 0) {
+            return -3;
+        } else if (n < 0) {
+            return -4;
+        } else if (k < 0 || k > nq) {
+            return -5;
+        } else if (lda < Math.max(1, nq)) {
+            return -7;
+        } else if (ldc < Math.max(1, m)) {
+            return -10;
+        }
+        if (lwork == -1) {
+            work[0] = nw;
+            return 0;
+        } else if (lwork < nw) {
+            return -12;
+        }
+        if (m == 0 || n == 0 || k == 0) {
+            work[0] = 1;
+            return 0;
+        }
+        // Q = H(1) H(2) ... H(k): Q * C and C * Q^T apply H(k) first
+        boolean forward = left != notran;
+        for (int s = 0; s < k; s++) {
+            int i = forward ? s : k - 1 - s;
+            double t = tau[i];
+            if (t == 0) {
+                continue;
+            }
+            int off = i * lda;
+            if (left) {
+                // rows i..m of C
+                for (int col = 0; col < n; col++) {
+                    int coff = col * ldc;
+                    double dot = c[coff + i];
+                    for (int r = i + 1; r < m; r++) {
+                        dot += a[off + r] * c[coff + r];
+                    }
+                    if (dot != 0) {
+                        double f = t * dot;
+                        c[coff + i] -= f;
+                        for (int r = i + 1; r < m; r++) {
+                            c[coff + r] -= f * a[off + r];
+                        }
+                    }
+                }
+            } else {
+                // columns i..n of C
+                for (int r = 0; r < m; r++) {
+                    double dot = c[i * ldc + r];
+                    for (int col = i + 1; col < n; col++) {
+                        dot += c[col * ldc + r] * a[off + col];
+                    }
+                    if (dot != 0) {
+                        double f = t * dot;
+                        c[i * ldc + r] -= f;
+                        for (int col = i + 1; col < n; col++) {
+                            c[col * ldc + r] -= f * a[off + col];
+                        }
+                    }
+                }
+            }
+        }
+        work[0] = nw;
+        return 0;
+    }
+}
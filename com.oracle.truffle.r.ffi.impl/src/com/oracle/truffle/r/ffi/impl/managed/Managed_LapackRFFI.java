@@ -24,71 +24,163 @@ package com.oracle.truffle.r.ffi.impl.managed;
 
 import static com.oracle.truffle.r.ffi.impl.managed.Managed_RFFIFactory.unsupported;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.r.runtime.ffi.LapackRFFI;
 
+/**
+ * The subset of LAPACK used by the R builtins, implemented in Java (see {@link JavaLapack},
+ * {@link JavaLapackQR} and {@link JavaLapackEigen}). The routines report the LAPACK version
+ * they are modeled after.
+ */
 public class Managed_LapackRFFI implements LapackRFFI {
     @Override
     public IlaverNode createIlaverNode() {
-        throw unsupported("lapack");
+        return new IlaverNode() {
+            @Override
+            public void execute(int[] version) {
+                version[0] = 3;
+                version[1] = 7;
+                version[2] = 0;
+            }
+        };
     }
 
     @Override
     public DgeevNode createDgeevNode() {
-        throw unsupported("lapack");
+        return new DgeevNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(char jobVL, char jobVR, int n, double[] a, int lda, double[] wr, double[] wi, double[] vl, int ldvl, double[] vr, int ldvr, double[] work, int lwork) {
+                if (jobVL == 'V' || jobVL == 'v') {
+                    throw unsupported("left eigenvectors");
+                }
+                return JavaLapackEigen.dgeev(jobVL, jobVR, n, a, lda, wr, wi, vl, ldvl, vr, ldvr, work, lwork);
+            }
+        };
     }
 
     @Override
     public Dgeqp3Node createDgeqp3Node() {
-        throw unsupported("lapack");
+        return new Dgeqp3Node() {
+            @Override
+            @TruffleBoundary
+            public int execute(int m, int n, double[] a, int lda, int[] jpvt, double[] tau, double[] work, int lwork) {
+                return JavaLapackQR.dgeqp3(m, n, a, lda, jpvt, tau, work, lwork);
+            }
+        };
     }
 
     @Override
     public DormqrNode createDormqrNode() {
-        throw unsupported("lapack");
+        return new DormqrNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(char side, char trans, int m, int n, int k, double[] a, int lda, double[] tau, double[] c, int ldc, double[] work, int lwork) {
+                return JavaLapackQR.dormqr(side, trans, m, n, k, a, lda, tau, c, ldc, work, lwork);
+            }
+        };
     }
 
     @Override
     public DtrtrsNode createDtrtrsNode() {
-        throw unsupported("lapack");
+        return new DtrtrsNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(char uplo, char trans, char diag, int n, int nrhs, double[] a, int lda, double[] b, int ldb) {
+                return JavaLapack.dtrtrs(uplo, trans, diag, n, nrhs, a, lda, b, ldb);
+            }
+        };
     }
 
     @Override
     public DgetrfNode createDgetrfNode() {
-        throw unsupported("lapack");
+        return new DgetrfNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(int m, int n, double[] a, int lda, int[] ipiv) {
+                return JavaLapack.dgetrf(m, n, a, lda, ipiv);
+            }
+        };
     }
 
     @Override
     public DpotrfNode createDpotrfNode() {
-        throw unsupported("lapack");
+        return new DpotrfNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(char uplo, int n, double[] a, int lda) {
+                return JavaLapack.dpotrf(uplo, n, a, lda);
+            }
+        };
     }
 
     @Override
     public DpotriNode createDpotriNode() {
-        throw unsupported("lapack");
+        return new DpotriNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(char uplo, int n, double[] a, int lda) {
+                return JavaLapack.dpotri(uplo, n, a, lda);
+            }
+        };
     }
 
     @Override
     public DpstrfNode createDpstrfNode() {
-        throw unsupported("lapack");
+        return new DpstrfNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(char uplo, int n, double[] a, int lda, int[] piv, int[] rank, double tol, double[] work) {
+                if (uplo != 'U' && uplo != 'u') {
+                    throw unsupported("dpstrf with uplo = '" + uplo + "'");
+                }
+                return JavaLapack.dpstrf(uplo, n, a, lda, piv, rank, tol, work);
+            }
+        };
     }
 
     @Override
     public DgesvNode createDgesvNode() {
-        throw unsupported("lapack");
+        return new DgesvNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(int n, int nrhs, double[] a, int lda, int[] ipiv, double[] b, int ldb) {
+                return JavaLapack.dgesv(n, nrhs, a, lda, ipiv, b, ldb);
+            }
+        };
     }
 
     @Override
     public DlangeNode createDlangeNode() {
-        throw unsupported("lapack");
+        return new DlangeNode() {
+            @Override
+            @TruffleBoundary
+            public double execute(char norm, int m, int n, double[] a, int lda, double[] work) {
+                return JavaLapack.dlange(norm, m, n, a, lda, work);
+            }
+        };
     }
 
     @Override
     public DgeconNode createDgeconNode() {
-        throw unsupported("lapack");
+        return new DgeconNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(char norm, int n, double[] a, int lda, double anorm, double[] rcond, double[] work, int[] iwork) {
+                return JavaLapack.dgecon(norm, n, a, lda, anorm, rcond, work, iwork);
+            }
+        };
     }
 
     @Override
     public DsyevrNode createDsyevrNode() {
-        throw unsupported("lapack");
+        return new DsyevrNode() {
+            @Override
+            @TruffleBoundary
+            public int execute(char jobz, char range, char uplo, int n, double[] a, int lda, double vl, double vu, int il, int iu, double abstol, int[] m, double[] w, double[] z, int ldz,
+                            int[] isuppz, double[] work, int lwork, int[] iwork, int liwork) {
+                return JavaLapackEigen.dsyevr(jobz, range, uplo, n, a, lda, vl, vu, il, iu, abstol, m, w, z, ldz, isuppz, work, lwork, iwork, liwork);
+            }
+        };
     }
 }
@@ -65,11 +65,6 @@ public class TruffleNFI_Call implements CallRFFI {
         }
     }
 
-    /**
-     * Nesting of native calls is rare but can happen and the cleanup needs to be per call.
-     */
-    private static int callDepth;
-
     public TruffleNFI_Call() {
         initialize();
         TruffleNFI_PkgInit.initialize();
@@ -135,10 +130,16 @@ public class TruffleNFI_Call implements CallRFFI {
         INTEGER_CREATE("([sint32], sint32): uint64", 2),
         DOUBLE_CREATE("([double], sint32): uint64", 2),
         BYTE_CREATE("([uint8], sint32, sint32): uint64", 3),
+        LOGICAL_CREATE("([uint8], sint32): uint64", 2),
         INTEGER_EXISTING("(uint64): void", 1),
         DOUBLE_EXISTING("(uint64): void", 1),
         BYTE_EXISTING("(uint64): void", 1),
-        FREE("(uint64): void", 1);
+        INTEGER_COPY_BACK("(uint64, [sint32], sint32): void", 3),
+        DOUBLE_COPY_BACK("(uint64, [double], sint32): void", 3),
+        BYTE_COPY_BACK("(uint64, [uint8], sint32): void", 3),
+        LOGICAL_COPY_BACK("(uint64, [uint8], sint32): sint32", 3),
+        FREE("(uint64): void", 1),
+        MIRROR_FREE("(uint64): void", 1);
 
         private final String signature;
         private final String funName;
@@ -165,17 +166,22 @@ public class TruffleNFI_Call implements CallRFFI {
     }
 
     // TODO Nodify?
-    static long returnArrayCreate(Object array, boolean isString) {
+    static long returnArrayCreate(Object array, SEXPTYPE type) {
         try {
-            if (array instanceof int[]) {
-                return (long) ForeignAccess.sendExecute(ReturnArray.INTEGER_CREATE.executeNode, ReturnArray.INTEGER_CREATE.function, JavaInterop.asTruffleObject(array), ((int[]) array).length);
-            } else if (array instanceof double[]) {
-                return (long) ForeignAccess.sendExecute(ReturnArray.DOUBLE_CREATE.executeNode, ReturnArray.DOUBLE_CREATE.function, JavaInterop.asTruffleObject(array), ((double[]) array).length);
-            } else if (array instanceof byte[]) {
-                return (long) ForeignAccess.sendExecute(ReturnArray.BYTE_CREATE.executeNode, ReturnArray.BYTE_CREATE.function, JavaInterop.asTruffleObject(array), ((byte[]) array).length,
-                                isString ? 1 : 0);
-            } else {
-                throw RInternalError.shouldNotReachHere();
+            switch (type) {
+                case INTSXP:
+                    return (long) ForeignAccess.sendExecute(ReturnArray.INTEGER_CREATE.executeNode, ReturnArray.INTEGER_CREATE.function, JavaInterop.asTruffleObject(array), ((int[]) array).length);
+                case REALSXP:
+                    return (long) ForeignAccess.sendExecute(ReturnArray.DOUBLE_CREATE.executeNode, ReturnArray.DOUBLE_CREATE.function, JavaInterop.asTruffleObject(array), ((double[]) array).length);
+                case LGLSXP:
+                    // the native side converts the bytes to the int representation
+                    return (long) ForeignAccess.sendExecute(ReturnArray.LOGICAL_CREATE.executeNode, ReturnArray.LOGICAL_CREATE.function, JavaInterop.asTruffleObject(array), ((byte[]) array).length);
+                case CHARSXP:
+                case RAWSXP:
+                    return (long) ForeignAccess.sendExecute(ReturnArray.BYTE_CREATE.executeNode, ReturnArray.BYTE_CREATE.function, JavaInterop.asTruffleObject(array), ((byte[]) array).length,
+                                    type == SEXPTYPE.CHARSXP ? 1 : 0);
+                default:
+                    throw RInternalError.shouldNotReachHere();
             }
         } catch (InteropException t) {
             throw RInternalError.shouldNotReachHere(t);
@@ -205,6 +211,48 @@ public class TruffleNFI_Call implements CallRFFI {
         }
     }
 
+    /**
+     * Copies the contents of the native array at {@code address} into {@code array}, which must be
+     * an {@code int[]}, {@code double[]} or {@code byte[]} of the same length.
+     */
+    static void copyBackArray(long address, Object array) {
+        try {
+            if (array instanceof int[]) {
+                ForeignAccess.sendExecute(ReturnArray.INTEGER_COPY_BACK.executeNode, ReturnArray.INTEGER_COPY_BACK.function, address, JavaInterop.asTruffleObject(array), ((int[]) array).length);
+            } else if (array instanceof double[]) {
+                ForeignAccess.sendExecute(ReturnArray.DOUBLE_COPY_BACK.executeNode, ReturnArray.DOUBLE_COPY_BACK.function, address, JavaInterop.asTruffleObject(array), ((double[]) array).length);
+            } else if (array instanceof byte[]) {
+                ForeignAccess.sendExecute(ReturnArray.BYTE_COPY_BACK.executeNode, ReturnArray.BYTE_COPY_BACK.function, address, JavaInterop.asTruffleObject(array), ((byte[]) array).length);
+            } else {
+                throw RInternalError.shouldNotReachHere();
+            }
+        } catch (InteropException t) {
+            throw RInternalError.shouldNotReachHere(t);
+        }
+    }
+
+    /**
+     * Copies the native {@code int} representation of a logical vector at {@code address} back
+     * into {@code array}.
+     *
+     * @return {@code true} if an {@code NA} was copied
+     */
+    static boolean copyBackLogicalArray(long address, byte[] array) {
+        try {
+            return (int) ForeignAccess.sendExecute(ReturnArray.LOGICAL_COPY_BACK.executeNode, ReturnArray.LOGICAL_COPY_BACK.function, address, JavaInterop.asTruffleObject(array), array.length) != 0;
+        } catch (InteropException t) {
+            throw RInternalError.shouldNotReachHere(t);
+        }
+    }
+
+    static void freeMirror(long address) {
+        try {
+            ForeignAccess.sendExecute(ReturnArray.MIRROR_FREE.executeNode, ReturnArray.MIRROR_FREE.function, address);
+        } catch (InteropException t) {
+            throw RInternalError.shouldNotReachHere(t);
+        }
+    }
+
     static void freeArray(long address) {
         Node executeNode = Message.createExecute(1).createNode();
         try {
@@ -233,11 +281,49 @@ public class TruffleNFI_Call implements CallRFFI {
     public abstract static class TruffleNFI_InvokeCallNode extends Node implements InvokeCallNode {
         @Child private Node bindNode = Message.createInvoke(1).createNode();
 
-        @Specialization(guards = "args.length == 0")
+        protected static final int CACHE_SIZE = 4;
+
+        protected TruffleObject bindCallFunction(NativeCallInfo nativeCallInfo, int argCount) {
+            StringBuilder signature = new StringBuilder("(");
+            for (int i = 0; i < argCount; i++) {
+                signature.append(i == 0 ? "object" : ", object");
+            }
+            signature.append("): object");
+            try {
+                return (TruffleObject) ForeignAccess.sendInvoke(bindNode, nativeCallInfo.address.asTruffleObject(), "bind", signature.toString());
+            } catch (InteropException ex) {
+                throw RInternalError.shouldNotReachHere(ex);
+            }
+        }
+
+        /**
+         * Binds the signature of a native function once per call site instead of for each call.
+         * The symbol handle of a function only changes if its library is reloaded.
+         */
+        @SuppressWarnings("unused")
+        @Specialization(limit = "CACHE_SIZE", guards = {"nativeCallInfo.address == cachedAddress", "args.length == cachedArgCount"})
+        protected Object invokeCallCached(NativeCallInfo nativeCallInfo, Object[] args,
+                        @Cached("nativeCallInfo.address") SymbolHandle cachedAddress,
+                        @Cached("args.length") int cachedArgCount,
+                        @Cached("bindCallFunction(nativeCallInfo, cachedArgCount)") TruffleObject callFunction,
+                        @Cached("createExecute(cachedArgCount)") Node executeNode) {
+            Object result = null;
+            prepareCall(nativeCallInfo.name, args);
+            try {
+                result = ForeignAccess.sendExecute(executeNode, callFunction, args);
+                return result;
+            } catch (InteropException ex) {
+                throw RInternalError.shouldNotReachHere(ex);
+            } finally {
+                prepareReturn(nativeCallInfo.name, result);
+            }
+        }
+
+        @Specialization(guards = "args.length == 0", replaces = "invokeCallCached")
         protected Object invokeCall0(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(): object");
@@ -246,15 +332,15 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
-        @Specialization(guards = "args.length == 1")
+        @Specialization(guards = "args.length == 1", replaces = "invokeCallCached")
         protected Object invokeCall1(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(object): object");
@@ -263,15 +349,15 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
-        @Specialization(guards = "args.length == 2")
+        @Specialization(guards = "args.length == 2", replaces = "invokeCallCached")
         protected Object invokeCall2(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(object, object): object");
@@ -280,15 +366,15 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
-        @Specialization(guards = "args.length == 3")
+        @Specialization(guards = "args.length == 3", replaces = "invokeCallCached")
         protected Object invokeCall3(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(object, object, object): object");
@@ -297,15 +383,15 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
-        @Specialization(guards = "args.length == 4")
+        @Specialization(guards = "args.length == 4", replaces = "invokeCallCached")
         protected Object invokeCall4(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(object, object, object, object): object");
@@ -315,15 +401,15 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
-        @Specialization(guards = "args.length == 5")
+        @Specialization(guards = "args.length == 5", replaces = "invokeCallCached")
         protected Object invokeCall5(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(object, object, object, object, object): object");
@@ -333,15 +419,15 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
-        @Specialization(guards = "args.length == 6")
+        @Specialization(guards = "args.length == 6", replaces = "invokeCallCached")
         protected Object invokeCall6(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(object, object, object, object, object, object): object");
@@ -351,15 +437,15 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
-        @Specialization(guards = "args.length == 7")
+        @Specialization(guards = "args.length == 7", replaces = "invokeCallCached")
         protected Object invokeCall7(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(object, object, object, object, object, object, object): object");
@@ -370,15 +456,15 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
-        @Specialization(guards = "args.length == 8")
+        @Specialization(guards = "args.length == 8", replaces = "invokeCallCached")
         protected Object invokeCall8(NativeCallInfo nativeCallInfo, Object[] args,
                         @Cached("createExecute(args.length)") Node executeNode) {
             Object result = null;
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 TruffleObject callFunction = (TruffleObject) ForeignAccess.sendInvoke(bindNode,
                                 nativeCallInfo.address.asTruffleObject(), "bind", "(object, object, object, object, object, object, object, object): object");
@@ -389,7 +475,7 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, result, isNullSetting);
+                prepareReturn(nativeCallInfo.name, result);
             }
         }
 
@@ -407,7 +493,7 @@ public class TruffleNFI_Call implements CallRFFI {
 
         @Override
         public void execute(NativeCallInfo nativeCallInfo, Object[] args) {
-            boolean isNullSetting = prepareCall(nativeCallInfo.name, args);
+            prepareCall(nativeCallInfo.name, args);
             try {
                 switch (args.length) {
                     case 0:
@@ -424,28 +510,29 @@ public class TruffleNFI_Call implements CallRFFI {
             } catch (InteropException ex) {
                 throw RInternalError.shouldNotReachHere(ex);
             } finally {
-                prepareReturn(nativeCallInfo.name, null, isNullSetting);
+                prepareReturn(nativeCallInfo.name, null);
             }
         }
     }
 
-    private static boolean prepareCall(String name, Object[] args) {
+    private static void prepareCall(String name, Object[] args) {
         if (traceEnabled()) {
             traceDownCall(name, args);
         }
-        boolean isNullSetting = RContext.getRForeignAccessFactory().setIsNull(false);
-        TruffleNFI_NativeArray.callEnter(callDepth);
-        callDepth++;
-        return isNullSetting;
+        RContext context = RContext.getInstance();
+        // also keeps interop from converting RNull to null while the call is active, nesting of
+        // native calls is rare but can happen and the cleanup of native arrays needs to be per call
+        int callDepth = context.enterNativeCall();
+        ((TruffleNFI_RFFIContextState) context.getStateRFFI()).nativeArrays.callEnter(callDepth);
     }
 
-    private static void prepareReturn(String name, Object result, boolean isNullSetting) {
+    private static void prepareReturn(String name, Object result) {
         if (traceEnabled()) {
             traceDownCallReturn(name, result);
         }
-        TruffleNFI_NativeArray.callEnter(callDepth);
-        RContext.getRForeignAccessFactory().setIsNull(isNullSetting);
-        callDepth--;
+        RContext context = RContext.getInstance();
+        ((TruffleNFI_RFFIContextState) context.getStateRFFI()).nativeArrays.callExit(context.getNativeCallDepth(), result);
+        context.exitNativeCall();
     }
 
     @Override
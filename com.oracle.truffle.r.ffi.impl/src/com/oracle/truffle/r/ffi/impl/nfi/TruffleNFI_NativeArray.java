@@ -22,24 +22,55 @@
  */
 package com.oracle.truffle.r.ffi.impl.nfi;
 
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.RRawVector;
+import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.gnur.SEXPTYPE;
 
 /**
  * Support for the {@code INTEGER, LOGICAL, ...} functions in the RFFI, which must return the same
  * array while an FFI call is in progress.
+ *
+ * The native copy of the data of an {@link RIntVector}, {@link RDoubleVector},
+ * {@link RLogicalVector} or {@link RRawVector} is kept as the
+ * {@link RVector#getNativeMirror() native mirror} of the vector, so that further native calls on an
+ * unchanged vector can reuse it without copying. At the end of each call, the mirrors used during
+ * the call are copied back into the Java data, as there is no way to tell whether native code wrote
+ * to them, unless the vector is {@link RVector#isShared() shared} and not the result of the call:
+ * native code must not modify the objects it is passed (see "Writing R Extensions"), which are
+ * shared once bound to an argument, so a call that only reads them does not cost time linear in
+ * their length. Logical vectors are converted between the {@code byte} and the {@code int}
+ * representation on the native side. A mirror is freed once it is not referenced anymore, i.e.,
+ * when the vector was collected or has dropped the mirror because it was written to.
+ *
+ * A mirror is only valid as long as all writes to the Java data drop it, see
+ * {@link RVector#dropNativeMirror()}. The write paths of the vectors do that; the only code writing
+ * to the {@link RVector#getInternalStore() internal store} of an existing vector directly are the
+ * in-place arithmetic in {@code BinaryMapNode} and {@code UnaryMapNode}, which drop it explicitly.
+ *
+ * There is one instance per context (see {@link TruffleNFI_RFFIContextState}), only the release of
+ * mirrors, which may be shared by contexts, is global.
  */
 public class TruffleNFI_NativeArray {
-    private static int tableHwm;
-    private static int[] hwmStack = new int[16];
-    private static Info[] table = new Info[64];
+    private int tableHwm;
+    private int[] hwmStack = new int[16];
+    private Info[] table = new Info[64];
+
+    private static final ReferenceQueue<NativeMirror> releasedMirrors = new ReferenceQueue<>();
+    private static final Set<MirrorReference> liveMirrors = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
-    static {
+    TruffleNFI_NativeArray() {
         initTableElements(0);
     }
 
@@ -53,60 +84,136 @@ public class TruffleNFI_NativeArray {
          */
         Object array;
         /**
-         * {@code null} unless {@code x} is an {@link RLogicalVector}, in which case it is the
-         * underlying {@code byte[]}.
+         * {@code true} if {@code array} is the {@code byte[]} of a logical vector, which is an
+         * {@code int*} on the native side.
          */
-        byte[] logicalByteArray;
+        boolean isLogical;
+        /**
+         * The mirror of {@code x}, or {@code null} if {@code x} does not have one and the native
+         * array is just for the duration of the call.
+         */
+        NativeMirror mirror;
 
         long arrayAddress;
     }
 
-    private static void initTableElements(int startIndex) {
+    /**
+     * The native copy of the data of a vector.
+     */
+    private static final class NativeMirror {
+        private final long address;
+        /**
+         * The table the mirror is recorded in for the current calls, or {@code null}.
+         */
+        private volatile TruffleNFI_NativeArray recordedBy;
+
+        NativeMirror(long address) {
+            this.address = address;
+        }
+    }
+
+    private static final class MirrorReference extends PhantomReference<NativeMirror> {
+        private final long address;
+
+        MirrorReference(NativeMirror mirror) {
+            super(mirror, releasedMirrors);
+            this.address = mirror.address;
+        }
+    }
+
+    private void initTableElements(int startIndex) {
         for (int i = startIndex; i < table.length; i++) {
             table[i] = new Info();
         }
     }
 
-    static void callEnter(int callDepth) {
+    void callEnter(int callDepth) {
+        if (callDepth == hwmStack.length) {
+            hwmStack = Arrays.copyOf(hwmStack, hwmStack.length * 2);
+        }
         hwmStack[callDepth] = tableHwm;
+        if (callDepth == 0) {
+            freeReleasedMirrors();
+        }
     }
 
-    static void callExit(int callDepth) {
+    void callExit(int callDepth, Object result) {
         int oldHwm = hwmStack[callDepth - 1];
         for (int i = oldHwm; i < tableHwm; i++) {
             Info info = table[i];
             if (info.x != null) {
-                if (info.logicalByteArray != null) {
-                    boolean seenNA = false;
-                    int[] xai = (int[]) info.array;
-                    for (int j = 0; j < xai.length; j++) {
-                        int xaival = xai[j];
-                        byte xal;
-                        if (xaival == RRuntime.INT_NA) {
-                            seenNA = true;
-                            xal = RRuntime.LOGICAL_NA;
-                        } else {
-                            xal = (byte) xaival;
-                        }
-                        info.logicalByteArray[j] = xal;
+                if (info.mirror != null) {
+                    if (info.mirror.recordedBy == this) {
+                        info.mirror.recordedBy = null;
                     }
-                    if (seenNA) {
-                        RLogicalVector lv = (RLogicalVector) info.x;
-                        lv.setComplete(false);
+                    RVector<?> vector = (RVector<?>) info.x;
+                    // a mirror dropped during the call is stale
+                    if (vector.getNativeMirror() == info.mirror && (!vector.isShared() || vector == result)) {
+                        copyBack(vector, info);
                     }
+                } else {
+                    if (info.isLogical) {
+                        copyBackLogical(info);
+                    }
+                    TruffleNFI_Call.freeArray(info.arrayAddress);
                 }
-                TruffleNFI_Call.freeArray(info.arrayAddress);
             }
+            info.x = null;
+            info.array = null;
+            info.isLogical = false;
+            info.mirror = null;
         }
         tableHwm = oldHwm;
     }
 
+    private static void copyBack(RVector<?> vector, Info info) {
+        if (info.isLogical) {
+            copyBackLogical(info);
+            return;
+        }
+        TruffleNFI_Call.copyBackArray(info.arrayAddress, info.array);
+        if (vector.isComplete()) {
+            if (info.array instanceof int[]) {
+                int[] data = (int[]) info.array;
+                for (int j = 0; j < data.length; j++) {
+                    if (RRuntime.isNA(data[j])) {
+                        vector.setComplete(false);
+                        break;
+                    }
+                }
+            } else if (info.array instanceof double[]) {
+                double[] data = (double[]) info.array;
+                for (int j = 0; j < data.length; j++) {
+                    if (RRuntime.isNA(data[j])) {
+                        vector.setComplete(false);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void copyBackLogical(Info info) {
+        boolean seenNA = TruffleNFI_Call.copyBackLogicalArray(info.arrayAddress, (byte[]) info.array);
+        if (seenNA && info.x instanceof RLogicalVector) {
+            ((RLogicalVector) info.x).setComplete(false);
+        }
+    }
+
+    private static void freeReleasedMirrors() {
+        MirrorReference ref;
+        while ((ref = (MirrorReference) releasedMirrors.poll()) != null) {
+            liveMirrors.remove(ref);
+            TruffleNFI_Call.freeMirror(ref.address);
+        }
+    }
+
     /**
      * Searches table for an entry matching {@code x}.
      *
      * @return the associated native array address or {@code 0} if not found.
      */
-    static long findArray(Object x) {
+    long findArray(Object x) {
         for (int i = 0; i < tableHwm; i++) {
             if (table[i].x == x) {
                 return table[i].arrayAddress;
@@ -115,41 +222,50 @@ public class TruffleNFI_NativeArray {
         return 0;
     }
 
+    /**
+     * Returns the address of the native mirror of {@code x}, creating it if needed, and makes sure
+     * that it is copied back at the end of the current call.
+     */
+    long recordMirror(RVector<?> x, SEXPTYPE type) {
+        Object existing = x.getNativeMirror();
+        if (existing != null) {
+            NativeMirror mirror = (NativeMirror) existing;
+            if (mirror.recordedBy != this) {
+                addTableEntry(x, x.getInternalStore(), type, mirror);
+            }
+            TruffleNFI_Call.returnArrayExisting(type, mirror.address);
+            return mirror.address;
+        } else {
+            Info t = addTableEntry(x, x.getInternalStore(), type, null);
+            NativeMirror mirror = new NativeMirror(t.arrayAddress);
+            liveMirrors.add(new MirrorReference(mirror));
+            mirror.recordedBy = this;
+            t.mirror = mirror;
+            x.setNativeMirror(mirror);
+            return mirror.address;
+        }
+    }
+
     /**
      * Records that the {@code array} associated with object {@code x} has been requested by the
      * native code from, e.g., an {@code INTEGER(x)} function.
      *
      * @return the native array address
      */
-    static long recordArray(Object x, Object array, SEXPTYPE type) {
-        Object xa;
-        byte[] logicalByteArray = null;
-        boolean isString = false;
+    long recordArray(Object x, Object array, SEXPTYPE type) {
+        return addTableEntry(x, array, type, null).arrayAddress;
+    }
+
+    private Info addTableEntry(Object x, Object array, SEXPTYPE type, NativeMirror mirror) {
         switch (type) {
             case INTSXP:
             case REALSXP:
             case RAWSXP:
             case CHARSXP:
-                isString = type == SEXPTYPE.CHARSXP;
-                xa = array;
-                break;
-
-            case LGLSXP: {
-                byte[] xal = (byte[]) array;
-                // RFFI wants int*
-                int[] xai = new int[xal.length];
-                for (int i = 0; i < xai.length; i++) {
-                    byte lval = xal[i];
-                    xai[i] = RRuntime.isNA(lval) ? RRuntime.INT_NA : lval;
-                }
-                xa = xai;
-                logicalByteArray = xal;
+            case LGLSXP:
                 break;
-            }
-
             default:
                 throw RInternalError.shouldNotReachHere();
-
         }
         if (tableHwm == table.length) {
             table = Arrays.copyOf(table, table.length * 2);
@@ -157,10 +273,17 @@ public class TruffleNFI_NativeArray {
         }
         Info t = table[tableHwm];
         t.x = x;
-        t.array = xa;
-        t.logicalByteArray = logicalByteArray;
-        t.arrayAddress = TruffleNFI_Call.returnArrayCreate(xa, isString);
+        t.array = array;
+        t.isLogical = type == SEXPTYPE.LGLSXP;
+        if (mirror == null) {
+            t.arrayAddress = TruffleNFI_Call.returnArrayCreate(array, type);
+        } else {
+            // the mirror already has the data
+            mirror.recordedBy = this;
+            t.mirror = mirror;
+            t.arrayAddress = mirror.address;
+        }
         tableHwm++;
-        return t.arrayAddress;
+        return t;
     }
 }
@@ -24,13 +24,10 @@ package com.oracle.truffle.r.ffi.impl.nfi;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
-import com.oracle.truffle.r.ffi.impl.common.LibPaths;
-import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.context.RContext.ContextState;
 import com.oracle.truffle.r.runtime.ffi.BaseRFFI;
 import com.oracle.truffle.r.runtime.ffi.CRFFI;
 import com.oracle.truffle.r.runtime.ffi.CallRFFI;
-import com.oracle.truffle.r.runtime.ffi.DLL;
 import com.oracle.truffle.r.runtime.ffi.DLLRFFI;
 import com.oracle.truffle.r.runtime.ffi.LapackRFFI;
 import com.oracle.truffle.r.runtime.ffi.MiscRFFI;
@@ -46,23 +43,9 @@ import com.oracle.truffle.r.runtime.ffi.ZipRFFI;
 
 public class TruffleNFI_RFFIFactory extends RFFIFactory {
 
-    private static class ContextStateImpl implements RContext.ContextState {
-        @Override
-        public ContextState initialize(RContext context) {
-            String librffiPath = LibPaths.getBuiltinLibPath("R");
-            if (context.isInitial()) {
-                DLL.loadLibR(librffiPath);
-            } else {
-                // force initialization of NFI
-                DLLRFFI.DLOpenRootNode.create(context).call(librffiPath, false, false);
-            }
-            return this;
-        }
-    }
-
     @Override
     public ContextState newContextState() {
-        return new ContextStateImpl();
+        return new TruffleNFI_RFFIContextState();
     }
 
     @Override
@@ -23,6 +23,10 @@
 package com.oracle.truffle.r.ffi.impl.nfi;
 
 import com.oracle.truffle.r.ffi.impl.common.JavaUpCallsRFFIImpl;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.RLogicalVector;
+import com.oracle.truffle.r.runtime.data.RRawVector;
 import com.oracle.truffle.r.runtime.ffi.CharSXPWrapper;
 import com.oracle.truffle.r.runtime.gnur.SEXPTYPE;
 
@@ -36,10 +40,15 @@ public class TruffleNFI_UpCallsRFFIImpl extends JavaUpCallsRFFIImpl {
 
     @Override
     public Object INTEGER(Object x) {
-        long arrayAddress = TruffleNFI_NativeArray.findArray(x);
+        TruffleNFI_NativeArray nativeArrays = TruffleNFI_RFFIContextState.getContextState().nativeArrays;
+        if (x instanceof RIntVector) {
+            nativeArrays.recordMirror((RIntVector) x, SEXPTYPE.INTSXP);
+            return x;
+        }
+        long arrayAddress = nativeArrays.findArray(x);
         if (arrayAddress == 0) {
             Object array = super.INTEGER(x);
-            arrayAddress = TruffleNFI_NativeArray.recordArray(x, array, SEXPTYPE.INTSXP);
+            arrayAddress = nativeArrays.recordArray(x, array, SEXPTYPE.INTSXP);
         } else {
             TruffleNFI_Call.returnArrayExisting(SEXPTYPE.INTSXP, arrayAddress);
         }
@@ -48,10 +57,15 @@ public class TruffleNFI_UpCallsRFFIImpl extends JavaUpCallsRFFIImpl {
 
     @Override
     public Object LOGICAL(Object x) {
-        long arrayAddress = TruffleNFI_NativeArray.findArray(x);
+        TruffleNFI_NativeArray nativeArrays = TruffleNFI_RFFIContextState.getContextState().nativeArrays;
+        if (x instanceof RLogicalVector) {
+            nativeArrays.recordMirror((RLogicalVector) x, SEXPTYPE.LGLSXP);
+            return x;
+        }
+        long arrayAddress = nativeArrays.findArray(x);
         if (arrayAddress == 0) {
             Object array = super.LOGICAL(x);
-            arrayAddress = TruffleNFI_NativeArray.recordArray(x, array, SEXPTYPE.LGLSXP);
+            arrayAddress = nativeArrays.recordArray(x, array, SEXPTYPE.LGLSXP);
         } else {
             TruffleNFI_Call.returnArrayExisting(SEXPTYPE.LGLSXP, arrayAddress);
         }
@@ -61,10 +75,15 @@ public class TruffleNFI_UpCallsRFFIImpl extends JavaUpCallsRFFIImpl {
 
     @Override
     public Object REAL(Object x) {
-        long arrayAddress = TruffleNFI_NativeArray.findArray(x);
+        TruffleNFI_NativeArray nativeArrays = TruffleNFI_RFFIContextState.getContextState().nativeArrays;
+        if (x instanceof RDoubleVector) {
+            nativeArrays.recordMirror((RDoubleVector) x, SEXPTYPE.REALSXP);
+            return x;
+        }
+        long arrayAddress = nativeArrays.findArray(x);
         if (arrayAddress == 0) {
             Object array = super.REAL(x);
-            arrayAddress = TruffleNFI_NativeArray.recordArray(x, array, SEXPTYPE.REALSXP);
+            arrayAddress = nativeArrays.recordArray(x, array, SEXPTYPE.REALSXP);
         } else {
             TruffleNFI_Call.returnArrayExisting(SEXPTYPE.REALSXP, arrayAddress);
         }
@@ -74,10 +93,15 @@ public class TruffleNFI_UpCallsRFFIImpl extends JavaUpCallsRFFIImpl {
 
     @Override
     public Object RAW(Object x) {
-        long arrayAddress = TruffleNFI_NativeArray.findArray(x);
+        TruffleNFI_NativeArray nativeArrays = TruffleNFI_RFFIContextState.getContextState().nativeArrays;
+        if (x instanceof RRawVector) {
+            nativeArrays.recordMirror((RRawVector) x, SEXPTYPE.RAWSXP);
+            return x;
+        }
+        long arrayAddress = nativeArrays.findArray(x);
         if (arrayAddress == 0) {
             Object array = super.RAW(x);
-            arrayAddress = TruffleNFI_NativeArray.recordArray(x, array, SEXPTYPE.RAWSXP);
+            arrayAddress = nativeArrays.recordArray(x, array, SEXPTYPE.RAWSXP);
         } else {
             TruffleNFI_Call.returnArrayExisting(SEXPTYPE.RAWSXP, arrayAddress);
         }
@@ -86,11 +110,12 @@ public class TruffleNFI_UpCallsRFFIImpl extends JavaUpCallsRFFIImpl {
 
     @Override
     public Object R_CHAR(Object x) {
-        long arrayAddress = TruffleNFI_NativeArray.findArray(x);
+        TruffleNFI_NativeArray nativeArrays = TruffleNFI_RFFIContextState.getContextState().nativeArrays;
+        long arrayAddress = nativeArrays.findArray(x);
         if (arrayAddress == 0) {
             CharSXPWrapper charSXP = (CharSXPWrapper) x;
             Object array = charSXP.getContents().getBytes();
-            arrayAddress = TruffleNFI_NativeArray.recordArray(x, array, SEXPTYPE.CHARSXP);
+            arrayAddress = nativeArrays.recordArray(x, array, SEXPTYPE.CHARSXP);
         } else {
             TruffleNFI_Call.returnArrayExisting(SEXPTYPE.CHARSXP, arrayAddress);
         }
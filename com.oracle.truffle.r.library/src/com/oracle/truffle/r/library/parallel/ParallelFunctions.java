@@ -22,10 +22,17 @@
  */
 package com.oracle.truffle.r.library.parallel;
 
+import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.integerValue;
+
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
+import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.rng.lecuyer.LecuyerCMRG;
 
 /**
  * The .Call support for the parallel package.
@@ -37,4 +44,41 @@ public class ParallelFunctions {
             return RRuntime.asLogical(RContext.getInstance().getParent() != null);
         }
     }
+
+    private static int[] getSeeds(RAbstractIntVector seed) {
+        if (seed.getLength() < 7) {
+            throw RError.error(RError.NO_CALLER, RError.Message.INVALID_VALUE, "seed");
+        }
+        int[] seeds = new int[7];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = seed.getDataAt(i);
+        }
+        return seeds;
+    }
+
+    public abstract static class NextStream extends RExternalBuiltinNode.Arg1 {
+
+        static {
+            Casts casts = new Casts(NextStream.class);
+            casts.arg(0).mustBe(integerValue()).asIntegerVector();
+        }
+
+        @Specialization
+        protected RIntVector nextStream(RAbstractIntVector seed) {
+            return RDataFactory.createIntVector(LecuyerCMRG.nextStream(getSeeds(seed)), RDataFactory.COMPLETE_VECTOR);
+        }
+    }
+
+    public abstract static class NextSubStream extends RExternalBuiltinNode.Arg1 {
+
+        static {
+            Casts casts = new Casts(NextSubStream.class);
+            casts.arg(0).mustBe(integerValue()).asIntegerVector();
+        }
+
+        @Specialization
+        protected RIntVector nextSubStream(RAbstractIntVector seed) {
+            return RDataFactory.createIntVector(LecuyerCMRG.nextSubStream(getSeeds(seed)), RDataFactory.COMPLETE_VECTOR);
+        }
+    }
 }
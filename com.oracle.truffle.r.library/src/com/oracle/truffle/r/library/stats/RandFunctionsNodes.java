@@ -26,6 +26,7 @@ import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.BranchProfile;
+import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.profiles.LoopConditionProfile;
 import com.oracle.truffle.r.library.stats.RandFunctionsNodesFactory.ConvertToLengthNodeGen;
 import com.oracle.truffle.r.library.stats.RandFunctionsNodesFactory.RandFunction1NodeGen;
@@ -105,6 +106,7 @@ public final class RandFunctionsNodes {
             final BranchProfile nan = BranchProfile.create();
             final VectorLengthProfile resultVectorLengthProfile = VectorLengthProfile.create();
             final LoopConditionProfile loopConditionProfile = LoopConditionProfile.createCountingProfile();
+            final ConditionProfile scalarParamsProfile = ConditionProfile.createBinaryProfile();
 
             public static RandGenerationNodeData create() {
                 return new RandGenerationNodeData();
@@ -229,16 +231,28 @@ public final class RandFunctionsNodes {
             double[] result;
             result = new double[length];
             nodeData.loopConditionProfile.profileCounted(length);
-            for (int i = 0; nodeData.loopConditionProfile.inject(i < length); i++) {
-                double aValue = a.getDataAt(i % aLength);
-                double bValue = b.getDataAt(i % bLength);
-                double cValue = c.getDataAt(i % cLength);
-                double value = function.execute(aValue, bValue, cValue, randProvider);
-                if (Double.isNaN(value) || RRuntime.isNA(value)) {
-                    nodeData.nan.enter();
-                    nans = true;
+            if (nodeData.scalarParamsProfile.profile(aLength == 1 && bLength == 1 && cLength == 1) &&
+                            function.executeBulk(a.getDataAt(0), b.getDataAt(0), c.getDataAt(0), result, 0, length, randProvider)) {
+                // the parameters are valid, but the distribution itself may still produce NaNs
+                for (int i = 0; nodeData.loopConditionProfile.inject(i < length); i++) {
+                    if (Double.isNaN(result[i])) {
+                        nodeData.nan.enter();
+                        nans = true;
+                        break;
+                    }
+                }
+            } else {
+                for (int i = 0; nodeData.loopConditionProfile.inject(i < length); i++) {
+                    double aValue = a.getDataAt(i % aLength);
+                    double bValue = b.getDataAt(i % bLength);
+                    double cValue = c.getDataAt(i % cLength);
+                    double value = function.execute(aValue, bValue, cValue, randProvider);
+                    if (Double.isNaN(value) || RRuntime.isNA(value)) {
+                        nodeData.nan.enter();
+                        nans = true;
+                    }
+                    result[i] = value;
                 }
-                result[i] = value;
             }
             putRNGState();
             if (nans) {
@@ -35,8 +35,15 @@ import static com.oracle.truffle.r.runtime.RError.Message.INVALID_ARG;
 import static com.oracle.truffle.r.runtime.RRuntime.LOGICAL_FALSE;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.r.nodes.attributes.SetFixedAttributeNode;
 import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
@@ -50,8 +57,24 @@ import com.oracle.truffle.r.runtime.data.RVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 
+/**
+ * Converts a character vector to the simplest type (logical, integer, double or factor) its
+ * elements can be parsed as. Long vectors, e.g., the columns of a large file read by
+ * {@code read.table}, are parsed in parallel chunks in the common fork-join pool; the type is still
+ * chosen for the whole vector, and the levels of a factor are collected from all chunks.
+ */
 public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
 
+    /**
+     * Vectors at least this long are converted in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Chunks of a vector converted in parallel are not split further below this length.
+     */
+    private static final int MIN_CHUNK_LENGTH = 1 << 13;
+
     @Child private SetFixedAttributeNode setLevelsAttrNode = SetFixedAttributeNode.create(RRuntime.LEVELS_ATTR_KEY);
 
     static {
@@ -81,6 +104,68 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
         return false;
     }
 
+    /**
+     * Converts to an integer, allowing leading blanks like {@code strtol} in GnuR, which the fields
+     * read by {@code scan} with a separator may have. Trailing blanks are only allowed for doubles.
+     */
+    private static int string2int(String s) {
+        int i = 0;
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return RRuntime.string2intNoCheck(i == 0 ? s : s.substring(i), true);
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        /**
+         * Processes the elements from {@code from} (inclusive) to {@code to} (exclusive).
+         *
+         * @throws NumberFormatException if an element cannot be converted
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs {@code action} on the range from {@code from} to {@code to}, split into chunks that are
+     * processed in parallel if the range is long enough. A {@link NumberFormatException} in any
+     * chunk is thrown to the caller.
+     */
+    @TruffleBoundary
+    private static void forEachChunk(int from, int to, ChunkAction action) {
+        if (to - from >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            int chunkLength = Math.max(MIN_CHUNK_LENGTH, (to - from) / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            ForkJoinPool.commonPool().invoke(new ChunkTask(action, from, to, chunkLength));
+        } else if (from < to) {
+            action.run(from, to);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ChunkTask extends RecursiveAction {
+        private final ChunkAction action;
+        private final int from;
+        private final int to;
+        private final int chunkLength;
+
+        ChunkTask(ChunkAction action, int from, int to, int chunkLength) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.chunkLength = chunkLength;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkLength) {
+                action.run(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(action, from, mid, chunkLength), new ChunkTask(action, mid, to, chunkLength));
+            }
+        }
+    }
+
     /*
      * In the next three methods, firstPos is the index of the first element in the vector that is
      * not isNA(elem, naStrings). However, there may be isNA values after that.
@@ -89,13 +174,16 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
     private static RIntVector readIntVector(RAbstractStringVector x, int firstPos, int firstVal, RAbstractStringVector naStrings) {
         int[] data = new int[x.getLength()];
         Arrays.fill(data, 0, firstPos, RRuntime.INT_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.INT_NA : RRuntime.string2intNoCheck(s, true);
-            complete = complete && !isNA;
+        forEachChunk(firstPos + 1, data.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                String s = x.getDataAt(i);
+                data[i] = isNA(s, naStrings) ? RRuntime.INT_NA : string2int(s);
+            }
+        });
+        boolean complete = canBeComplete(firstPos);
+        for (int i = firstPos + 1; complete && i < data.length; i++) {
+            complete = !RRuntime.isNA(data[i]);
         }
         return RDataFactory.createIntVector(data, complete);
     }
@@ -103,13 +191,16 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
     private static RDoubleVector readDoubleVector(RAbstractStringVector x, int firstPos, double firstVal, RAbstractStringVector naStrings) {
         double[] data = new double[x.getLength()];
         Arrays.fill(data, 0, firstPos, RRuntime.DOUBLE_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(s, true);
-            complete = complete && !isNA;
+        forEachChunk(firstPos + 1, data.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                String s = x.getDataAt(i);
+                data[i] = isNA(s, naStrings) ? RRuntime.DOUBLE_NA : RRuntime.string2doubleNoCheck(s, true);
+            }
+        });
+        boolean complete = canBeComplete(firstPos);
+        for (int i = firstPos + 1; complete && i < data.length; i++) {
+            complete = !RRuntime.isNA(data[i]);
         }
         return RDataFactory.createDoubleVector(data, complete);
     }
@@ -117,26 +208,67 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
     private static RLogicalVector readLogicalVector(RAbstractStringVector x, int firstPos, byte firstVal, RAbstractStringVector naStrings) {
         byte[] data = new byte[x.getLength()];
         Arrays.fill(data, 0, firstPos, RRuntime.LOGICAL_NA);
-        boolean complete = canBeComplete(firstPos);
         data[firstPos] = firstVal;
-        for (int i = firstPos + 1; i < data.length; i++) {
-            String s = x.getDataAt(i);
-            boolean isNA = isNA(s, naStrings);
-            data[i] = isNA ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(s, true);
-            complete = complete && !isNA;
+        forEachChunk(firstPos + 1, data.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                String s = x.getDataAt(i);
+                data[i] = isNA(s, naStrings) ? RRuntime.LOGICAL_NA : RRuntime.string2logicalNoCheck(s, true);
+            }
+        });
+        boolean complete = canBeComplete(firstPos);
+        for (int i = firstPos + 1; complete && i < data.length; i++) {
+            complete = !RRuntime.isNA(data[i]);
         }
         return RDataFactory.createLogicalVector(data, complete);
     }
 
+    /**
+     * Returns the sorted distinct values of {@code x} that are not NA.
+     */
+    @TruffleBoundary
+    private static String[] collectLevels(RAbstractStringVector x, RAbstractStringVector naStrings) {
+        Set<String> distinct = ConcurrentHashMap.newKeySet();
+        forEachChunk(0, x.getLength(), (from, to) -> {
+            // most values repeat, so collect them locally before touching the shared set
+            HashSet<String> chunkDistinct = new HashSet<>();
+            for (int i = from; i < to; i++) {
+                String s = x.getDataAt(i);
+                if (!isNA(s, naStrings)) {
+                    chunkDistinct.add(s);
+                }
+            }
+            distinct.addAll(chunkDistinct);
+        });
+        return new TreeSet<>(distinct).toArray(new String[0]);
+    }
+
+    @TruffleBoundary
+    private static int[] readFactorCodes(RAbstractStringVector x, String[] levels, RAbstractStringVector naStrings) {
+        HashMap<String, Integer> codes = new HashMap<>(levels.length * 2);
+        for (int k = 0; k < levels.length; k++) {
+            codes.put(levels[k], k + 1);
+        }
+        int[] data = new int[x.getLength()];
+        forEachChunk(0, data.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                String s = x.getDataAt(i);
+                data[i] = isNA(s, naStrings) ? RRuntime.INT_NA : codes.get(s);
+            }
+        });
+        return data;
+    }
+
     private static boolean canBeComplete(int firstNonNAPos) {
         return firstNonNAPos == 0 ? RDataFactory.COMPLETE_VECTOR : RDataFactory.INCOMPLETE_VECTOR;
     }
 
     @Specialization
-    protected Object typeConvert(RAbstractStringVector x, RAbstractStringVector naStrings, boolean asIs, @SuppressWarnings("unused") Object dec, @SuppressWarnings("unused") Object numeral) {
-        if (x.getLength() == 0) {
+    protected Object typeConvert(RAbstractStringVector xArg, RAbstractStringVector naStrings, boolean asIs, @SuppressWarnings("unused") Object dec, @SuppressWarnings("unused") Object numeral) {
+        if (xArg.getLength() == 0) {
             return RDataFactory.createEmptyLogicalVector();
         }
+        // the elements of a long vector are read from several threads
+        RAbstractStringVector x = xArg.getLength() >= PARALLEL_THRESHOLD ? xArg.materialize() : xArg;
 
         int i = 0;
         while (i < x.getLength() && isNA(x.getDataAt(i), naStrings)) {
@@ -162,7 +294,7 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
             }
         } else {
             try {
-                int intVal = RRuntime.string2intNoCheck(s, true);
+                int intVal = string2int(s);
                 return readIntVector(x, i, intVal, naStrings);
             } catch (NumberFormatException ix) {
                 try {
@@ -189,34 +321,14 @@ public abstract class TypeConvert extends RExternalBuiltinNode.Arg5 {
         // fall through target - conversion to int, double or logical failed
 
         if (asIs) {
-            return x;
+            return xArg;
         } else {
             // create a factor
-            TreeSet<String> levels = new TreeSet<>();
-            for (int j = 0; j < x.getLength(); j++) {
-                s = x.getDataAt(j);
-                if (!isNA(s, naStrings)) {
-                    levels.add(s);
-                }
-            }
-            String[] levelsArray = new String[levels.size()];
-            levels.toArray(levelsArray);
-
-            int[] data = new int[x.getLength()];
+            String[] levelsArray = collectLevels(x, naStrings);
+            int[] data = readFactorCodes(x, levelsArray, naStrings);
             boolean complete = true;
-            for (int j = 0; j < data.length; j++) {
-                s = x.getDataAt(j);
-                if (!isNA(s, naStrings)) {
-                    for (int k = 0; k < levelsArray.length; k++) {
-                        if (levelsArray[k].equals(s)) {
-                            data[j] = k + 1;
-                            break;
-                        }
-                    }
-                } else {
-                    data[j] = RRuntime.INT_NA;
-                    complete = false;
-                }
+            for (int j = 0; complete && j < data.length; j++) {
+                complete = !RRuntime.isNA(data[j]);
             }
             RIntVector res = RDataFactory.createIntVector(data, complete);
             setLevelsAttrNode.execute(res, RDataFactory.createStringVector(levelsArray, RDataFactory.COMPLETE_VECTOR));
@@ -40,9 +40,10 @@ void Rinternals_addCallback(TruffleEnv* env, int index, void *closure) {
 	callbacks[index] = closure;
 }
 
-static int* return_int;
-static double* return_double;
-static char* return_byte;
+// set by the INTEGER, REAL, ... upcalls of the calling thread, contexts can call native code concurrently
+static __thread int* return_int;
+static __thread double* return_double;
+static __thread char* return_byte;
 
 char *ensure_truffle_chararray_n(const char *x, int n) {
 	return (char *) x;
@@ -92,6 +93,16 @@ long return_BYTE_CREATE(char *value, int len, int isString) {
 	return (long) bdata;
 }
 
+// logicals are bytes with NA as -1 on the Java side
+long return_LOGICAL_CREATE(signed char *value, int len) {
+	int* idata = malloc(len * sizeof(int));
+	for (int i = 0; i < len; i++) {
+		idata[i] = value[i] == -1 ? INT_MIN : value[i];
+	}
+	return_int = idata;
+	return (long) idata;
+}
+
 void return_INTEGER_EXISTING(long address) {
 	return_int = (int*) address;
 }
@@ -108,6 +119,36 @@ void return_FREE(void *address) {
 //	free(address);
 }
 
+void return_INTEGER_COPY_BACK(long address, int *value, int len) {
+	memcpy(value, (int*) address, len * sizeof(int));
+}
+
+void return_DOUBLE_COPY_BACK(long address, double *value, int len) {
+	memcpy(value, (double*) address, len * sizeof(double));
+}
+
+void return_BYTE_COPY_BACK(long address, char *value, int len) {
+	memcpy(value, (char*) address, len * sizeof(char));
+}
+
+int return_LOGICAL_COPY_BACK(long address, signed char *value, int len) {
+	int *idata = (int*) address;
+	int seenNA = 0;
+	for (int i = 0; i < len; i++) {
+		if (idata[i] == INT_MIN) {
+			value[i] = -1;
+			seenNA = 1;
+		} else {
+			value[i] = (signed char) idata[i];
+		}
+	}
+	return seenNA;
+}
+
+void return_MIRROR_FREE(void *address) {
+	free(address);
+}
+
 int *INTEGER(SEXP x) {
 	((call_INTEGER) callbacks[INTEGER_x])(x);
 	return return_int;
@@ -27,6 +27,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Fallback;
@@ -41,8 +43,9 @@ import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
-import com.oracle.truffle.r.runtime.RegExp;
+import com.oracle.truffle.r.runtime.RegExpCache;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
@@ -125,6 +128,15 @@ public class GrepFunctions {
         @Child protected PCRERFFI.MaketablesNode maketablesNode = RFFIFactory.getPCRERFFI().createMaketablesNode();
         @Child protected PCRERFFI.CompileNode compileNode = RFFIFactory.getPCRERFFI().createCompileNode();
 
+        /**
+         * The first pattern compiled by this node, together with the {@link RegExpCache} of the
+         * context it was compiled in. Nodes can be shared by several contexts, so the pattern is
+         * only used for the same cache. Once the node sees another pattern (or context), it always
+         * asks the cache of the current context.
+         */
+        @CompilationFinal private CompiledPattern cachedPattern;
+        @CompilationFinal private boolean cachedPatternGeneric;
+
         /**
          * Temporary method that handles the check for the arguments that are common to the majority
          * of the functions, that we don't yet implement. If any of the arguments are {@code true},
@@ -204,18 +216,88 @@ public class GrepFunctions {
             return RDataFactory.createIntVector(naData, RDataFactory.INCOMPLETE_VECTOR);
         }
 
+        private Object getCachedPattern(RegExpCache cache, String pattern, boolean perl, boolean ignoreCase) {
+            CompiledPattern cached = cachedPattern;
+            if (cached != null) {
+                if (cached.isFor(cache, pattern, perl, ignoreCase)) {
+                    cache.inlineHit();
+                    return cached.compiled;
+                }
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                cachedPattern = null;
+                cachedPatternGeneric = true;
+            }
+            return null;
+        }
+
+        private void setCachedPattern(RegExpCache cache, String pattern, boolean perl, boolean ignoreCase, Object compiled) {
+            if (cachedPattern == null && !cachedPatternGeneric) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                cachedPattern = new CompiledPattern(cache, pattern, perl, ignoreCase, compiled);
+            }
+        }
+
+        /**
+         * Translates and compiles the R regular expression {@code pattern}, using the pattern
+         * cached in this node or the {@link RegExpCache} of the context if possible.
+         */
+        protected Pattern compileJavaPattern(String pattern, boolean ignoreCase) {
+            RegExpCache cache = RContext.getInstance().regExpCache;
+            Pattern result = (Pattern) getCachedPattern(cache, pattern, false, ignoreCase);
+            if (result == null) {
+                result = cache.getJavaPattern(pattern, ignoreCase);
+                setCachedPattern(cache, pattern, false, ignoreCase, result);
+            }
+            return result;
+        }
+
         protected PCRERFFI.Result compilePerlPattern(String pattern, boolean ignoreCase) {
-            int cflags = ignoreCase ? PCRERFFI.CASELESS : 0;
-            long tables = maketablesNode.execute();
-            PCRERFFI.Result pcre = compileNode.execute(pattern, cflags, tables);
-            if (pcre.result == 0) {
-                // TODO output warning if pcre.errorMessage not NULL
-                throw error(RError.Message.INVALID_REGEXP, pattern);
+            RegExpCache cache = RContext.getInstance().regExpCache;
+            PCRERFFI.Result pcre = (PCRERFFI.Result) getCachedPattern(cache, pattern, true, ignoreCase);
+            if (pcre != null) {
+                return pcre;
+            }
+            pcre = cache.getPerlPattern(pattern, ignoreCase);
+            if (pcre == null) {
+                int cflags = ignoreCase ? PCRERFFI.CASELESS : 0;
+                long tables = maketablesNode.execute();
+                pcre = compileNode.execute(pattern, cflags, tables);
+                if (pcre.result == 0) {
+                    // TODO output warning if pcre.errorMessage not NULL
+                    throw error(RError.Message.INVALID_REGEXP, pattern);
+                }
+                cache.putPerlPattern(pattern, ignoreCase, pcre);
             }
+            setCachedPattern(cache, pattern, true, ignoreCase, pcre);
             return pcre;
         }
     }
 
+    /**
+     * The pattern cached by a {@link CommonCodeNode}, immutable so that it can be read without
+     * synchronization. A PCRE compilation refers to the character tables of its context, it is
+     * therefore only valid for the {@link RegExpCache} it was taken from.
+     */
+    private static final class CompiledPattern {
+        private final RegExpCache cache;
+        private final String pattern;
+        private final boolean perl;
+        private final boolean ignoreCase;
+        private final Object compiled;
+
+        CompiledPattern(RegExpCache cache, String pattern, boolean perl, boolean ignoreCase, Object compiled) {
+            this.cache = cache;
+            this.pattern = pattern;
+            this.perl = perl;
+            this.ignoreCase = ignoreCase;
+            this.compiled = compiled;
+        }
+
+        boolean isFor(RegExpCache otherCache, String otherPattern, boolean otherPerl, boolean otherIgnoreCase) {
+            return cache == otherCache && perl == otherPerl && ignoreCase == otherIgnoreCase && pattern.equals(otherPattern);
+        }
+    }
+
     protected static final class GrepCommonCodeNode extends CommonCodeNode {
         @Child PCRERFFI.ExecNode execNode = RFFIFactory.getPCRERFFI().createExecNode();
 
@@ -234,10 +316,11 @@ public class GrepFunctions {
                 boolean[] matches = new boolean[len];
                 if (!perl) {
                     // TODO case
-                    if (!fixed) {
-                        pattern = RegExp.checkPreDefinedClasses(pattern);
+                    if (fixed) {
+                        findAllMatches(matches, pattern, vector);
+                    } else {
+                        findAllMatches(matches, compileJavaPattern(pattern, ignoreCase), vector);
                     }
-                    findAllMatches(matches, pattern, vector, fixed, ignoreCase);
                 } else {
                     PCRERFFI.Result pcre = compilePerlPattern(pattern, ignoreCase);
                     // TODO pcre_study for vectors > 10 ? (cf GnuR)
@@ -303,22 +386,24 @@ public class GrepFunctions {
             }
         }
 
-        protected static void findAllMatches(boolean[] result, String pattern, RAbstractStringVector vector, boolean fixed, boolean ignoreCase) {
+        protected static void findAllMatches(boolean[] result, String pattern, RAbstractStringVector vector) {
             for (int i = 0; i < result.length; i++) {
                 String text = vector.getDataAt(i);
                 if (!RRuntime.isNA(text)) {
-                    if (fixed) {
-                        result[i] = text.contains(pattern);
-                    } else {
-                        result[i] = findMatch(pattern, text, ignoreCase);
-                    }
+                    result[i] = text.contains(pattern);
                 }
             }
         }
 
-        protected static boolean findMatch(String pattern, String text, boolean ignoreCase) {
-            Matcher m = Regexpr.getPatternMatcher(pattern, text, ignoreCase);
-            return m.find();
+        protected static void findAllMatches(boolean[] result, Pattern pattern, RAbstractStringVector vector) {
+            Matcher m = null;
+            for (int i = 0; i < result.length; i++) {
+                String text = vector.getDataAt(i);
+                if (!RRuntime.isNA(text)) {
+                    m = m == null ? pattern.matcher(text) : m.reset(text);
+                    result[i] = m.find();
+                }
+            }
         }
     }
 
@@ -450,12 +535,13 @@ public class GrepFunctions {
                 }
 
                 PCRERFFI.Result pcre = null;
+                Pattern javaPattern = null;
                 if (fixed) {
                     // TODO case
                 } else if (perl) {
                     pcre = compilePerlPattern(pattern, ignoreCase);
                 } else {
-                    pattern = RegExp.checkPreDefinedClasses(pattern);
+                    javaPattern = compileJavaPattern(pattern, ignoreCase);
                 }
                 String[] result = new String[len];
                 for (int i = 0; i < len; i++) {
@@ -536,9 +622,9 @@ public class GrepFunctions {
                         replacement = convertGroups(replacement);
 
                         if (gsub) {
-                            value = input.replaceAll(pattern, replacement);
+                            value = javaPattern.matcher(input).replaceAll(replacement);
                         } else {
-                            value = input.replaceFirst(pattern, replacement);
+                            value = javaPattern.matcher(input).replaceFirst(replacement);
                         }
                     }
                     result[i] = value;
@@ -793,9 +879,6 @@ public class GrepFunctions {
                     throw RInternalError.unimplemented("multi-element patterns in regexpr not implemented yet");
                 }
                 String pattern = patternArg.getDataAt(0);
-                if (!perl && !fixed) {
-                    pattern = RegExp.checkPreDefinedClasses(pattern);
-                }
                 // TODO: useBytes normally depends on the value of the parameter and (if false) on
                 // whether the string is ASCII
                 boolean useBytes = true;
@@ -809,8 +892,9 @@ public class GrepFunctions {
                     // emtpy pattern
                     Arrays.fill(result, 1);
                 } else {
+                    Object compiled = compilePattern(common, pattern, ignoreCase, perl, fixed);
                     for (int i = 0; i < vector.getLength(); i++) {
-                        Info res = getInfo(common, pattern, vector.getDataAt(i), ignoreCase, perl, fixed).get(0);
+                        Info res = getInfo(compiled, pattern, vector.getDataAt(i), ignoreCase, perl, fixed).get(0);
                         result[i] = res.index;
                         matchLength[i] = res.size;
                         if (res.hasCapture) {
@@ -859,7 +943,24 @@ public class GrepFunctions {
             }
         }
 
-        protected List<Info> getInfo(CommonCodeNode common, String pattern, String text, boolean ignoreCase, boolean perl, boolean fixed) {
+        /**
+         * Compiles {@code pattern} once for all elements, returns the {@link PCRERFFI.Result} if
+         * {@code perl}, the {@link Pattern} if not {@code fixed} and {@code null} otherwise.
+         */
+        protected static Object compilePattern(CommonCodeNode common, String pattern, boolean ignoreCase, boolean perl, boolean fixed) {
+            if (fixed) {
+                return null;
+            } else if (perl) {
+                return common.compilePerlPattern(pattern, ignoreCase);
+            } else {
+                return common.compileJavaPattern(pattern, ignoreCase);
+            }
+        }
+
+        /**
+         * @param compiled the result of {@link #compilePattern}
+         */
+        protected List<Info> getInfo(Object compiled, String pattern, String text, boolean ignoreCase, boolean perl, boolean fixed) {
             List<Info> list = new ArrayList<>();
             if (fixed) {
                 int index = 0;
@@ -876,7 +977,7 @@ public class GrepFunctions {
                     index += pattern.length();
                 }
             } else if (perl) {
-                PCRERFFI.Result pcre = common.compilePerlPattern(pattern, ignoreCase);
+                PCRERFFI.Result pcre = (PCRERFFI.Result) compiled;
                 int maxCaptureCount = getCaptureCountNode.execute(pcre.result, 0);
                 int[] ovector = new int[(maxCaptureCount + 1) * 3];
                 int offset = 0;
@@ -910,7 +1011,7 @@ public class GrepFunctions {
                     }
                 }
             } else {
-                Matcher m = getPatternMatcher(pattern, text, ignoreCase);
+                Matcher m = ((Pattern) compiled).matcher(text);
                 while (m.find()) {
                     // R starts counting at index 1
                     list.add(new Info(m.start() + 1, m.end() - m.start(), null, null, null));
@@ -922,11 +1023,6 @@ public class GrepFunctions {
             list.add(new Info(-1, -1, null, null, null));
             return list;
         }
-
-        @TruffleBoundary
-        private static Matcher getPatternMatcher(String pattern, String text, boolean ignoreCase) {
-            return Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE : 0).matcher(text);
-        }
     }
 
     @ImportStatic(GrepFunctions.class)
@@ -975,7 +1071,7 @@ public class GrepFunctions {
                 }
                 RList ret = RDataFactory.createList(vector.getLength());
                 String pattern = patternArg.getDataAt(0);
-                pattern = RegExp.checkPreDefinedClasses(pattern);
+                Pattern compiled = fixed || pattern.length() == 0 ? null : common.compileJavaPattern(pattern, ignoreCase);
                 // TODO: useBytes normally depends on the value of the parameter and (if false) on
                 // whether the string is ASCII
                 for (int i = 0; i < vector.getLength(); i++) {
@@ -986,7 +1082,7 @@ public class GrepFunctions {
                         matchPos = new int[]{1};
                         matchLength = new int[]{0};
                     } else {
-                        List<Info> res = getInfo(pattern, vector.getDataAt(i), ignoreCase, fixed);
+                        List<Info> res = getInfo(compiled, pattern, vector.getDataAt(i), ignoreCase, fixed);
                         matchPos = new int[res.size()];
                         matchLength = new int[res.size()];
                         for (int j = 0; j < res.size(); j++) {
@@ -1007,7 +1103,7 @@ public class GrepFunctions {
             }
         }
 
-        protected List<Info> getInfo(String pattern, String text, boolean ignoreCase, boolean fixed) {
+        protected List<Info> getInfo(Pattern compiled, String pattern, String text, boolean ignoreCase, boolean fixed) {
             List<Info> list = new ArrayList<>();
             if (fixed) {
                 int index;
@@ -1020,7 +1116,7 @@ public class GrepFunctions {
                     list.add(new Info(index + 1, pattern.length(), null, null, null));
                 }
             } else {
-                Matcher m = getPatternMatcher(pattern, text, ignoreCase);
+                Matcher m = compiled.matcher(text);
                 if (m.find()) {
                     for (int i = 0; i <= m.groupCount(); i++) {
                         list.add(new Info(m.start(i) + 1, m.end(i) - m.start(i), null, null, null));
@@ -1033,11 +1129,6 @@ public class GrepFunctions {
             list.add(new Info(-1, -1, null, null, null));
             return list;
         }
-
-        @TruffleBoundary
-        private static Matcher getPatternMatcher(String pattern, String text, boolean ignoreCase) {
-            return Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE : 0).matcher(text);
-        }
     }
 
     @ImportStatic(GrepFunctions.class)
@@ -1090,15 +1181,13 @@ public class GrepFunctions {
                     throw RInternalError.unimplemented("multi-element patterns in gregexpr not implemented yet");
                 }
                 String pattern = patternArg.getDataAt(0);
-                if (!perl && !fixed) {
-                    pattern = RegExp.checkPreDefinedClasses(pattern);
-                }
                 // TODO: useBytes normally depends on the value of the parameter and (if false) on
                 // whether the string is ASCII
                 boolean useBytes = true;
                 Object[] result = new Object[vector.getLength()];
                 boolean hasAnyCapture = false;
                 RStringVector captureNames = null;
+                Object compiled = pattern.length() == 0 ? null : compilePattern(common, pattern, ignoreCase, perl, fixed);
                 for (int i = 0; i < vector.getLength(); i++) {
                     RIntVector res;
                     if (pattern.length() == 0) {
@@ -1112,7 +1201,7 @@ public class GrepFunctions {
                             setUseBytesAttrNode.execute(res, RRuntime.LOGICAL_TRUE);
                         }
                     } else {
-                        List<Info> l = getInfo(common, pattern, vector.getDataAt(i), ignoreCase, perl, fixed);
+                        List<Info> l = getInfo(compiled, pattern, vector.getDataAt(i), ignoreCase, perl, fixed);
                         res = toIndexOrSizeVector(l, true);
                         setMatchLengthAttrNode.execute(res, toIndexOrSizeVector(l, false));
                         if (useBytes) {
@@ -1364,21 +1453,24 @@ public class GrepFunctions {
             // treat split = NULL as split = ""
             RAbstractStringVector split = splitArg.getLength() == 0 ? RDataFactory.createStringVectorFromScalar("") : splitArg;
             String[] splits = new String[split.getLength()];
-            long pcreTables = perl ? common.maketablesNode.execute() : 0;
             PCRERFFI.Result[] pcreSplits = perl ? new PCRERFFI.Result[splits.length] : null;
+            Pattern[] javaSplits = !fixed && !perl ? new Pattern[splits.length] : null;
 
             na.enable(x);
             for (int i = 0; i < splits.length; i++) {
                 String currentSplit = split.getDataAt(i);
-                splits[i] = fixed || perl ? split.getDataAt(i) : RegExp.checkPreDefinedClasses(split.getDataAt(i));
+                splits[i] = currentSplit;
+                if (currentSplit.isEmpty()) {
+                    continue;
+                }
                 if (perl) {
-                    if (!currentSplit.isEmpty()) {
-                        pcreSplits[i] = common.compileNode.execute(currentSplit, 0, pcreTables);
-                        if (pcreSplits[i].result == 0) {
-                            // TODO output warning if pcre.errorMessage not NULL
-                            throw error(RError.Message.INVALID_REGEXP, currentSplit);
-                        }
-                        // TODO pcre_study for vectors > 10 ? (cf GnuR)
+                    pcreSplits[i] = common.compilePerlPattern(currentSplit, false);
+                    // TODO pcre_study for vectors > 10 ? (cf GnuR)
+                } else if (!fixed && !RRuntime.isNA(currentSplit)) {
+                    try {
+                        javaSplits[i] = common.compileJavaPattern(currentSplit, false);
+                    } catch (PatternSyntaxException e) {
+                        throw error(Message.INVALID_REGEXP_REASON, currentSplit, e.getMessage());
                     }
                 }
             }
@@ -1403,8 +1495,10 @@ public class GrepFunctions {
                         } else {
                             if (perl) {
                                 resultItem = splitPerl(data, pcreSplits[i % splits.length]);
+                            } else if (fixed) {
+                                resultItem = splitFixed(data, currentSplit);
                             } else {
-                                resultItem = splitIntl(data, currentSplit, fixed);
+                                resultItem = splitRegExp(data, javaSplits[i % splits.length]);
                             }
                             if (resultItem.getLength() == 0) {
                                 if (fixed) {
@@ -1438,35 +1532,35 @@ public class GrepFunctions {
             }
         }
 
-        private static RStringVector splitIntl(String input, String separator, boolean fixed) {
+        private static RStringVector splitFixed(String input, String separator) {
             assert !RRuntime.isNA(input);
-
-            if (fixed) {
-                ArrayList<String> matches = new ArrayList<>();
-                int idx = input.indexOf(separator);
-                if (idx < 0) {
-                    return RDataFactory.createStringVector(input);
-                }
-                int lastIdx = 0;
-                while (idx > -1) {
-                    matches.add(input.substring(lastIdx, idx));
-                    lastIdx = idx + separator.length();
-                    if (lastIdx > input.length()) {
-                        break;
-                    }
-                    idx = input.indexOf(separator, lastIdx);
-                }
-                String m = input.substring(lastIdx);
-                if (!m.isEmpty()) {
-                    matches.add(m);
+            ArrayList<String> matches = new ArrayList<>();
+            int idx = input.indexOf(separator);
+            if (idx < 0) {
+                return RDataFactory.createStringVector(input);
+            }
+            int lastIdx = 0;
+            while (idx > -1) {
+                matches.add(input.substring(lastIdx, idx));
+                lastIdx = idx + separator.length();
+                if (lastIdx > input.length()) {
+                    break;
                 }
-                return RDataFactory.createStringVector(matches.toArray(new String[matches.size()]), false);
+                idx = input.indexOf(separator, lastIdx);
+            }
+            String m = input.substring(lastIdx);
+            if (!m.isEmpty()) {
+                matches.add(m);
+            }
+            return RDataFactory.createStringVector(matches.toArray(new String[matches.size()]), false);
+        }
+
+        private static RStringVector splitRegExp(String input, Pattern separator) {
+            assert !RRuntime.isNA(input);
+            if (input.equals(separator.pattern())) {
+                return RDataFactory.createStringVector("");
             } else {
-                if (input.equals(separator)) {
-                    return RDataFactory.createStringVector("");
-                } else {
-                    return RDataFactory.createStringVector(input.split(separator), true);
-                }
+                return RDataFactory.createStringVector(separator.split(input), true);
             }
         }
 
@@ -42,6 +42,7 @@ import com.oracle.truffle.r.nodes.function.PromiseHelperNode;
 import com.oracle.truffle.r.nodes.function.RCallNode;
 import com.oracle.truffle.r.nodes.function.call.CallRFunctionCachedNode;
 import com.oracle.truffle.r.nodes.function.call.CallRFunctionCachedNodeGen;
+import com.oracle.truffle.r.runtime.LazyDBCache;
 import com.oracle.truffle.r.runtime.RCaller;
 import com.oracle.truffle.r.runtime.RCompression;
 import com.oracle.truffle.r.runtime.RError;
@@ -208,14 +209,19 @@ public class HiddenInternalFunctions {
             }
             String dbPath = datafile.getDataAt(0);
             String packageName = new File(dbPath).getName();
-            byte[] dbData = RContext.getInstance().stateLazyDBCache.getData(dbPath);
+            int offset = key.getDataAt(0);
+            int length = key.getDataAt(1);
+            LazyDBCache.ContextStateImpl dbCache = RContext.getInstance().stateLazyDBCache;
+            Object cached = dbCache.getValue(dbPath, offset);
+            if (cached != null) {
+                return cached;
+            }
+            // a view of the mapped file, the data is only copied when it is uncompressed
+            ByteBuffer dbData = dbCache.getData(dbPath);
             int dotIndex;
             if ((dotIndex = packageName.lastIndexOf('.')) > 0) {
                 packageName = packageName.substring(0, dotIndex);
             }
-            int offset = key.getDataAt(0);
-            int length = key.getDataAt(1);
-            int outlen = getOutlen(dbData, offset); // length of uncompressed data
             byte[] udata = null;
             boolean rc = true;
             /*
@@ -227,23 +233,23 @@ public class HiddenInternalFunctions {
              */
             if (compression == 0) {
                 udata = new byte[length];
-                System.arraycopy(dbData, offset, udata, 0, length);
+                dbData.position(offset);
+                dbData.get(udata);
             } else {
+                int outlen = dbData.getInt(offset); // length of uncompressed data
                 udata = new byte[outlen];
                 if (compression == 2 || compression == 3) {
-                    RCompression.Type type = RCompression.Type.fromTypeChar(dbData[4]);
+                    RCompression.Type type = RCompression.Type.fromTypeChar(dbData.get(offset + 4));
                     if (type == null) {
                         warning(RError.Message.GENERIC, "unknown compression type");
                         return RNull.instance;
                     }
-                    byte[] data = new byte[length - 5];
-                    System.arraycopy(dbData, offset + 5, data, 0, data.length);
-                    rc = RCompression.uncompress(type, udata, data);
+                    dbData.limit(offset + length).position(offset + 5);
+                    rc = RCompression.uncompress(type, udata, dbData);
                 } else {
                     // GnuR treats any other value as 1
-                    byte[] data = new byte[length - 4];
-                    System.arraycopy(dbData, offset + 4, data, 0, data.length);
-                    rc = RCompression.uncompress(RCompression.Type.GZIP, udata, data);
+                    dbData.limit(offset + length).position(offset + 4);
+                    rc = RCompression.uncompress(RCompression.Type.GZIP, udata, dbData);
                 }
             }
             if (!rc) {
@@ -258,19 +264,13 @@ public class HiddenInternalFunctions {
                 };
                 String functionName = ReadVariableNode.getSlowPathEvaluationName();
                 Object result = RSerialize.unserialize(udata, callHook, packageName, functionName);
+                dbCache.putValue(dbPath, offset, result);
                 return result;
             } catch (IOException ex) {
                 // unexpected
                 throw RInternalError.shouldNotReachHere(ex);
             }
         }
-
-        private static int getOutlen(byte[] dbData, int offset) {
-            ByteBuffer dataLengthBuf = ByteBuffer.allocate(4);
-            dataLengthBuf.put(dbData, offset, 4);
-            dataLengthBuf.position(0);
-            return dataLengthBuf.getInt();
-        }
     }
 
     @RBuiltin(name = "getRegisteredRoutines", kind = INTERNAL, parameterNames = "info", behavior = COMPLEX)
@@ -405,6 +405,11 @@ public class HiddenInternalFunctions {
                     if (!rc) {
                         throw error(Message.GENERIC, "zlib compress error");
                     }
+                } else if (compression == 2) {
+                    ctype = RCompression.Type.BZIP2;
+                    offset = 5;
+                    cdata = RCompression.bzipCompress(data);
+                    outLen = cdata.length;
                 } else if (compression == 3) {
                     ctype = RCompression.Type.XZ;
                     offset = 5;
@@ -418,7 +423,7 @@ public class HiddenInternalFunctions {
                     throw RInternalError.shouldNotReachHere();
                 }
                 int[] intData = new int[2];
-                intData[1] = outLen + offset; // include length + type (compression == 3)
+                intData[1] = outLen + offset; // include length + type (compression == 2 or 3)
                 intData[0] = appendFile(file.getDataAt(0), cdata, data.length, ctype);
                 return RDataFactory.createIntVector(intData, RDataFactory.COMPLETE_VECTOR);
             } catch (Throwable ex) {
@@ -453,8 +458,8 @@ public class HiddenInternalFunctions {
                 byte[] ulenData = new byte[4];
                 dataLengthBuf.get(ulenData);
                 out.write(ulenData);
-                if (type == RCompression.Type.XZ) {
-                    out.write(RCompression.Type.XZ.typeByte);
+                if (type != RCompression.Type.GZIP) {
+                    out.write(type.typeByte);
                 }
                 out.write(cdata);
                 return result;
@@ -64,7 +64,7 @@ import com.oracle.truffle.r.runtime.ops.na.NACheck;
 @RBuiltin(name = "%*%", kind = PRIMITIVE, parameterNames = {"", ""}, behavior = PURE)
 public abstract class MatMult extends RBuiltinNode.Arg2 {
 
-    private static final int BLOCK_SIZE = 64;
+    private static final int BLOCK_SIZE = MatMultKernel.BLOCK_SIZE;
 
     @Child private BinaryMapArithmeticFunctionNode mult = new BinaryMapArithmeticFunctionNode(BinaryArithmetic.MULTIPLY.createOperation());
     @Child private BinaryMapArithmeticFunctionNode add = new BinaryMapArithmeticFunctionNode(BinaryArithmetic.ADD.createOperation());
@@ -148,6 +148,7 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
 
     private final ConditionProfile bigProfile = ConditionProfile.createBinaryProfile();
     private final BranchProfile incompleteProfile = BranchProfile.create();
+    private final ConditionProfile parallelProfile = ConditionProfile.createBinaryProfile();
     @CompilationFinal private boolean seenLargeMatrix;
 
     private RDoubleVector doubleMatrixMultiply(RAbstractDoubleVector a, RAbstractDoubleVector b, int aRows, int aCols, int bRows, int bCols) {
@@ -184,7 +185,9 @@ public abstract class MatMult extends RBuiltinNode.Arg2 {
             CompilerDirectives.transferToInterpreterAndInvalidate();
             seenLargeMatrix = true;
         }
-        if (seenLargeMatrix) {
+        if (seenLargeMatrix && parallelProfile.profile(MatMultKernel.useParallel(aRows, aCols, bCols))) {
+            MatMultKernel.multiplyParallel(dataA, dataB, result, aRows, aCols, bCols, aRowStride, aColStride, bRowStride, bColStride, mirrored);
+        } else if (seenLargeMatrix) {
             for (int row = 0; row < aRows; row += BLOCK_SIZE) {
                 for (int col = mirrored ? row : 0; col < bCols; col += BLOCK_SIZE) {
                     for (int k = 0; k < aCols; k += BLOCK_SIZE) {
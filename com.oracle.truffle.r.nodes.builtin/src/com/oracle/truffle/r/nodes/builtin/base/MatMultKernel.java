@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.FastROptions;
+
+/**
+ * Fork-join kernel for large double matrix products, used by {@link MatMult} (and thereby by
+ * {@code crossprod} and {@code tcrossprod}) once the product exceeds
+ * {@link FastROptions#MatMultParallelThreshold}.
+ *
+ * The result is split into row and column panels aligned to {@link #BLOCK_SIZE}, each task then
+ * works through its panel tile by tile, copying the current tile of {@code a} into a contiguous
+ * buffer first. The tiles and the order in which the partial sums of every result element are
+ * accumulated are exactly those of the sequential blocked loop in {@link MatMult}, so the results
+ * are bit-identical to the sequential ones regardless of the number of threads.
+ */
+public final class MatMultKernel {
+
+    public static final int BLOCK_SIZE = 64;
+
+    /**
+     * Panels are not split further once they take less than this many floating point operations.
+     */
+    private static final double TASK_FLOPS = 16e6;
+
+    private MatMultKernel() {
+        // no instances
+    }
+
+    /**
+     * Determines whether a product of an {@code aRows x aCols} and an {@code aCols x bCols} matrix
+     * is large enough to be computed in parallel. The result must span more than one block in at
+     * least one dimension to be split into panels, e.g., a wide product with few rows is split
+     * into column panels.
+     */
+    @TruffleBoundary
+    public static boolean useParallel(int aRows, int aCols, int bCols) {
+        int threshold = FastROptions.MatMultParallelThreshold.getNonNegativeIntValue();
+        return threshold > 0 && flops(aRows, aCols, bCols) >= threshold * 1e6 && ForkJoinPool.getCommonPoolParallelism() > 1 && (aRows > BLOCK_SIZE || bCols > BLOCK_SIZE);
+    }
+
+    private static double flops(int rows, int k, int cols) {
+        return 2.0 * rows * k * cols;
+    }
+
+    /**
+     * Multiplies {@code a} and {@code b} into {@code result} (which must be zero-initialized) on the
+     * common fork-join pool. The parameters have the same meaning as in
+     * {@link MatMult#doubleMatrixMultiply}.
+     */
+    @TruffleBoundary
+    public static void multiplyParallel(double[] a, double[] b, double[] result, int aRows, int aCols, int bCols, int aRowStride, int aColStride, int bRowStride, int bColStride,
+                    boolean mirrored) {
+        Product product = new Product(a, b, result, aRows, aCols, aRowStride, aColStride, bRowStride, bColStride, mirrored);
+        ForkJoinPool.commonPool().invoke(new PanelTask(product, 0, aRows, 0, bCols));
+    }
+
+    /**
+     * Single-threaded variant of {@link #multiplyParallel}, computing the same result.
+     */
+    @TruffleBoundary
+    public static void multiplySequential(double[] a, double[] b, double[] result, int aRows, int aCols, int bCols, int aRowStride, int aColStride, int bRowStride, int bColStride,
+                    boolean mirrored) {
+        new Product(a, b, result, aRows, aCols, aRowStride, aColStride, bRowStride, bColStride, mirrored).multiplyPanel(0, aRows, 0, bCols);
+    }
+
+    private static final class Product {
+        private final double[] a;
+        private final double[] b;
+        private final double[] result;
+        private final int aRows;
+        private final int aCols;
+        private final int aRowStride;
+        private final int aColStride;
+        private final int bRowStride;
+        private final int bColStride;
+        private final boolean mirrored;
+
+        Product(double[] a, double[] b, double[] result, int aRows, int aCols, int aRowStride, int aColStride, int bRowStride, int bColStride, boolean mirrored) {
+            this.a = a;
+            this.b = b;
+            this.result = result;
+            this.aRows = aRows;
+            this.aCols = aCols;
+            this.aRowStride = aRowStride;
+            this.aColStride = aColStride;
+            this.bRowStride = bRowStride;
+            this.bColStride = bColStride;
+            this.mirrored = mirrored;
+        }
+
+        /**
+         * Computes the result rows {@code [rowFrom, rowTo)} and columns {@code [colFrom, colTo)}.
+         * The lower bounds must be multiples of {@link #BLOCK_SIZE}.
+         */
+        void multiplyPanel(int rowFrom, int rowTo, int colFrom, int colTo) {
+            double[] tile = new double[BLOCK_SIZE * BLOCK_SIZE];
+            for (int row = rowFrom; row < rowTo; row += BLOCK_SIZE) {
+                int remainingRows = Math.min(BLOCK_SIZE, rowTo - row);
+                int firstCol = mirrored ? Math.max(colFrom, row) : colFrom;
+                if (firstCol >= colTo) {
+                    continue;
+                }
+                for (int k = 0; k < aCols; k += BLOCK_SIZE) {
+                    int remainingK = Math.min(BLOCK_SIZE, aCols - k);
+                    packTile(tile, row, k, remainingRows, remainingK);
+                    for (int col = firstCol; col < colTo; col += BLOCK_SIZE) {
+                        multiplyTile(tile, row, col, k, remainingRows, Math.min(BLOCK_SIZE, colTo - col), remainingK);
+                    }
+                }
+            }
+        }
+
+        private void packTile(double[] tile, int row, int k, int remainingRows, int remainingK) {
+            for (int innerRow = 0; innerRow < remainingRows; innerRow++) {
+                int aIndex = k * aColStride + (row + innerRow) * aRowStride;
+                int tileIndex = innerRow * BLOCK_SIZE;
+                for (int innerK = 0; innerK < remainingK; innerK++) {
+                    tile[tileIndex + innerK] = a[aIndex];
+                    aIndex += aColStride;
+                }
+            }
+        }
+
+        private void multiplyTile(double[] tile, int row, int col, int k, int remainingRows, int remainingCols, int remainingK) {
+            for (int innerCol = 0; innerCol < remainingCols; innerCol++) {
+                int bStart = (col + innerCol) * bColStride + k * bRowStride;
+                int resultIndex = (col + innerCol) * aRows + row;
+                for (int innerRow = 0; innerRow < remainingRows; innerRow++) {
+                    int tileIndex = innerRow * BLOCK_SIZE;
+                    int bIndex = bStart;
+                    double x = 0.0;
+                    for (int innerK = 0; innerK < remainingK; innerK++) {
+                        x += tile[tileIndex + innerK] * b[bIndex];
+                        bIndex += bRowStride;
+                    }
+                    result[resultIndex + innerRow] += x;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class PanelTask extends RecursiveAction {
+        private final Product product;
+        private final int rowFrom;
+        private final int rowTo;
+        private final int colFrom;
+        private final int colTo;
+
+        PanelTask(Product product, int rowFrom, int rowTo, int colFrom, int colTo) {
+            this.product = product;
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.colFrom = colFrom;
+            this.colTo = colTo;
+        }
+
+        @Override
+        protected void compute() {
+            int rowBlocks = (rowTo - rowFrom + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int colBlocks = (colTo - colFrom + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            if (flops(rowTo - rowFrom, product.aCols, colTo - colFrom) < TASK_FLOPS || (rowBlocks < 2 && colBlocks < 2)) {
+                product.multiplyPanel(rowFrom, rowTo, colFrom, colTo);
+            } else if (rowBlocks >= colBlocks) {
+                int mid = rowFrom + rowBlocks / 2 * BLOCK_SIZE;
+                invokeAll(new PanelTask(product, rowFrom, mid, colFrom, colTo), new PanelTask(product, mid, rowTo, colFrom, colTo));
+            } else {
+                int mid = colFrom + colBlocks / 2 * BLOCK_SIZE;
+                invokeAll(new PanelTask(product, rowFrom, rowTo, colFrom, mid), new PanelTask(product, rowFrom, rowTo, mid, colTo));
+            }
+        }
+    }
+}
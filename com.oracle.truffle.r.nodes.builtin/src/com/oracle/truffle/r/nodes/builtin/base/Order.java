@@ -21,6 +21,8 @@ import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 import java.text.Collator;
 import java.text.ParseException;
 import java.text.RuleBasedCollator;
+import java.util.Arrays;
+import java.util.HashMap;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -34,7 +36,6 @@ import com.oracle.truffle.r.nodes.builtin.RPrecedenceBuiltinNode;
 import com.oracle.truffle.r.nodes.builtin.base.OrderNodeGen.CmpNodeGen;
 import com.oracle.truffle.r.nodes.builtin.base.OrderNodeGen.IsAtomicNANodeGen;
 import com.oracle.truffle.r.nodes.builtin.base.OrderNodeGen.OrderVector1NodeGen;
-import com.oracle.truffle.r.nodes.builtin.base.SortFunctions.RadixSort;
 import com.oracle.truffle.r.nodes.unary.CastToVectorNode;
 import com.oracle.truffle.r.nodes.unary.CastToVectorNodeGen;
 import com.oracle.truffle.r.runtime.RError;
@@ -45,6 +46,7 @@ import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.data.RArgsValuesAndNames;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RNull;
@@ -69,11 +71,6 @@ public abstract class Order extends RPrecedenceBuiltinNode {
     private final ConditionProfile notRemoveNAs = ConditionProfile.createBinaryProfile();
     private final ValueProfile vectorProfile = ValueProfile.createClassProfile();
 
-    /**
-     * For use by {@link RadixSort}.
-     */
-    public abstract Object execute(byte naLast, boolean decreasing, RArgsValuesAndNames args);
-
     private static final int[] SINCS = {1073790977, 268460033, 67121153, 16783361, 4197377, 1050113, 262913, 65921, 16577, 4193, 1073, 281, 77, 23, 8, 1, 0};
 
     private RIntVector executeOrderVector1(RAbstractVector v, byte naLast, boolean dec) {
@@ -480,6 +477,25 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         }
 
         private void sort(int[] indx, RAbstractDoubleVector dv, int lo, int hi, boolean dec) {
+            if (hi <= lo) {
+                return;
+            }
+            double[] store = dv instanceof RDoubleVector ? ((RDoubleVector) dv).getInternalStore() : null;
+            long[] keys = new long[hi - lo + 1];
+            for (int i = lo; i <= hi; i++) {
+                double value = store != null ? store[indx[i]] : dv.getDataAt(indx[i]);
+                if (Double.isNaN(value)) {
+                    // NaNs are only left in for rank() and na.last=NA, keep their odd semantics
+                    shellSort(indx, dv, lo, hi, dec);
+                    return;
+                }
+                long key = OrderSort.doubleKey(value);
+                keys[i - lo] = decProfile.profile(dec) ? -key : key;
+            }
+            OrderSort.sort(indx, lo, hi, keys);
+        }
+
+        private void shellSort(int[] indx, RAbstractDoubleVector dv, int lo, int hi, boolean dec) {
             int t = 0;
             for (; SINCS[t] > hi - lo + 1; t++) {
             }
@@ -508,61 +524,65 @@ public abstract class Order extends RPrecedenceBuiltinNode {
         }
 
         private void sort(int[] indx, RAbstractIntVector dv, int lo, int hi, boolean dec) {
-            int t = 0;
-            for (; SINCS[t] > hi - lo + 1; t++) {
+            if (hi <= lo) {
+                return;
             }
-            for (int h = SINCS[t]; t < 16; h = SINCS[++t]) {
-                for (int i = lo + h; i <= hi; i++) {
-                    int itmp = indx[i];
-                    int j = i;
-                    while (j >= lo + h) {
-                        int a = indx[j - h];
-                        int b = itmp;
-                        if (decProfile.profile(dec)) {
-                            if (!((dv.getDataAt(a)) < dv.getDataAt(b) || (dv.getDataAt(a) == dv.getDataAt(b) && a > b))) {
-                                break;
-                            }
-                        } else {
-                            if (!((dv.getDataAt(a)) > dv.getDataAt(b) || (dv.getDataAt(a) == dv.getDataAt(b) && a > b))) {
-                                break;
-                            }
-                        }
-                        indx[j] = indx[j - h];
-                        j -= h;
-                    }
-                    indx[j] = itmp;
-                }
+            int[] store = dv instanceof RIntVector ? ((RIntVector) dv).getInternalStore() : null;
+            long[] keys = new long[hi - lo + 1];
+            for (int i = lo; i <= hi; i++) {
+                int value = store != null ? store[indx[i]] : dv.getDataAt(indx[i]);
+                keys[i - lo] = decProfile.profile(dec) ? -(long) value : value;
             }
+            OrderSort.sort(indx, lo, hi, keys);
         }
 
         private void sort(int[] indx, RAbstractStringVector dv, int lo, int hi, boolean dec) {
-            Collator collator = createCollator();
-            int t = 0;
-            for (; SINCS[t] > hi - lo + 1; t++) {
+            if (hi <= lo) {
+                return;
             }
-            for (int h = SINCS[t]; t < 16; h = SINCS[++t]) {
-                for (int i = lo + h; i <= hi; i++) {
-                    int itmp = indx[i];
-                    int j = i;
-                    while (j >= lo + h) {
-                        int a = indx[j - h];
-                        int b = itmp;
-                        int c = compareString(collator, dv.getDataAt(a), dv.getDataAt(b));
-                        if (decProfile.profile(dec)) {
-                            if (!(c < 0 || (c == 0 && a > b))) {
-                                break;
-                            }
-                        } else {
-                            if (!(c > 0 || (c == 0 && a > b))) {
-                                break;
-                            }
-                        }
-                        indx[j] = indx[j - h];
-                        j -= h;
-                    }
-                    indx[j] = itmp;
+            long[] keys = rankStrings(indx, dv, lo, hi);
+            if (decProfile.profile(dec)) {
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = -keys[i];
                 }
             }
+            OrderSort.sort(indx, lo, hi, keys);
+        }
+
+        /**
+         * Replaces the strings by their rank among the distinct strings, so that the (expensive)
+         * string comparison is done only while sorting the distinct values. Strings that compare
+         * as equal get the same rank.
+         */
+        @TruffleBoundary
+        private long[] rankStrings(int[] indx, RAbstractStringVector dv, int lo, int hi) {
+            Collator collator = createCollator();
+            HashMap<String, Integer> unique = new HashMap<>();
+            int[] slots = new int[hi - lo + 1];
+            for (int i = lo; i <= hi; i++) {
+                String value = dv.getDataAt(indx[i]);
+                Integer slot = unique.get(value);
+                if (slot == null) {
+                    slot = unique.size();
+                    unique.put(value, slot);
+                }
+                slots[i - lo] = slot;
+            }
+            String[] values = unique.keySet().toArray(new String[unique.size()]);
+            Arrays.sort(values, (a, b) -> compareString(collator, a, b));
+            long[] slotRanks = new long[values.length];
+            long rank = 0;
+            for (int r = 0; r < values.length; r++) {
+                if (r > 0 && compareString(collator, values[r - 1], values[r]) != 0) {
+                    rank++;
+                }
+                slotRanks[unique.get(values[r])] = rank;
+            }
+            long[] keys = new long[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                keys[i] = slotRanks[slots[i]];
+            }
+            return keys;
         }
 
         private int compareString(Collator collator, String dataAt, String dataAt2) {
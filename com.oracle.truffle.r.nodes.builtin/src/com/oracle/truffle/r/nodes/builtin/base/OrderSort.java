@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Index-permuting merge sort used by {@link Order} and {@link Rank}. The keys are extracted once
+ * into a {@code long[]} whose signed order is the required order, and the pairs (key, index) are
+ * sorted by key and then by index. This is the same total order the shell sort previously used in
+ * {@code OrderVector1Node} established, so the result does not depend on the algorithm (or on the
+ * number of threads used).
+ *
+ * Input that is already in order or in exactly the reverse order is detected in a single pass.
+ * Large inputs are sorted with fork-join parallelism, like {@code Arrays.parallelSort} used by the
+ * {@code sort} builtins.
+ */
+final class OrderSort {
+
+    /**
+     * Ranges at least this long are sorted in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private OrderSort() {
+        // no instances
+    }
+
+    /**
+     * Maps a non-NaN double to a long with the same signed order, {@code -0.0} and {@code 0.0}
+     * being equal. The result is never {@link Long#MIN_VALUE}, so it can be negated.
+     */
+    static long doubleKey(double value) {
+        long bits = Double.doubleToRawLongBits(value == 0 ? 0d : value);
+        return bits >= 0 ? bits : bits ^ Long.MAX_VALUE;
+    }
+
+    /**
+     * Sorts {@code indx[lo..hi]} (inclusive) by the pairs (key, index), where {@code keys[i]} is
+     * the key of {@code indx[lo + i]}. The contents of {@code keys} are destroyed.
+     */
+    @TruffleBoundary
+    static void sort(int[] indx, int lo, int hi, long[] keys) {
+        int len = hi - lo + 1;
+        if (len < 2) {
+            return;
+        }
+        int[] ix = new int[len];
+        System.arraycopy(indx, lo, ix, 0, len);
+        if (!isSorted(keys, ix, len)) {
+            if (isReverseSorted(keys, ix, len)) {
+                reverse(keys, ix, len);
+            } else {
+                long[] keysBuf = new long[len];
+                int[] ixBuf = new int[len];
+                if (len >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+                    ForkJoinPool.commonPool().invoke(new SortTask(keys, ix, keysBuf, ixBuf, 0, len));
+                } else {
+                    mergeSort(keys, ix, keysBuf, ixBuf, 0, len);
+                }
+            }
+        }
+        System.arraycopy(ix, 0, indx, lo, len);
+    }
+
+    private static boolean less(long ka, int ia, long kb, int ib) {
+        return ka < kb || (ka == kb && ia < ib);
+    }
+
+    private static boolean isSorted(long[] keys, int[] ix, int len) {
+        for (int i = 1; i < len; i++) {
+            if (!less(keys[i - 1], ix[i - 1], keys[i], ix[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isReverseSorted(long[] keys, int[] ix, int len) {
+        for (int i = 1; i < len; i++) {
+            if (!less(keys[i], ix[i], keys[i - 1], ix[i - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void reverse(long[] keys, int[] ix, int len) {
+        for (int i = 0, j = len - 1; i < j; i++, j--) {
+            long k = keys[i];
+            keys[i] = keys[j];
+            keys[j] = k;
+            int t = ix[i];
+            ix[i] = ix[j];
+            ix[j] = t;
+        }
+    }
+
+    /**
+     * Sorts the range {@code [from, to)} of {@code keys} and {@code ix}, using the same range of
+     * the buffers as scratch space.
+     */
+    private static void mergeSort(long[] keys, int[] ix, long[] keysBuf, int[] ixBuf, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(keys, ix, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(keys, ix, keysBuf, ixBuf, from, mid);
+        mergeSort(keys, ix, keysBuf, ixBuf, mid, to);
+        merge(keys, ix, keysBuf, ixBuf, from, mid, to);
+    }
+
+    private static void insertionSort(long[] keys, int[] ix, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            long k = keys[i];
+            int t = ix[i];
+            int j = i - 1;
+            while (j >= from && less(k, t, keys[j], ix[j])) {
+                keys[j + 1] = keys[j];
+                ix[j + 1] = ix[j];
+                j--;
+            }
+            keys[j + 1] = k;
+            ix[j + 1] = t;
+        }
+    }
+
+    private static void merge(long[] keys, int[] ix, long[] keysBuf, int[] ixBuf, int from, int mid, int to) {
+        if (less(keys[mid - 1], ix[mid - 1], keys[mid], ix[mid])) {
+            // the halves are already in order
+            return;
+        }
+        System.arraycopy(keys, from, keysBuf, from, mid - from);
+        System.arraycopy(ix, from, ixBuf, from, mid - from);
+        int i = from;
+        int j = mid;
+        int dst = from;
+        while (i < mid && j < to) {
+            if (less(keys[j], ix[j], keysBuf[i], ixBuf[i])) {
+                keys[dst] = keys[j];
+                ix[dst++] = ix[j++];
+            } else {
+                keys[dst] = keysBuf[i];
+                ix[dst++] = ixBuf[i++];
+            }
+        }
+        // the remaining elements of the right half are already in place
+        System.arraycopy(keysBuf, i, keys, dst, mid - i);
+        System.arraycopy(ixBuf, i, ix, dst, mid - i);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class SortTask extends RecursiveAction {
+        private final long[] keys;
+        private final int[] ix;
+        private final long[] keysBuf;
+        private final int[] ixBuf;
+        private final int from;
+        private final int to;
+
+        SortTask(long[] keys, int[] ix, long[] keysBuf, int[] ixBuf, int from, int to) {
+            this.keys = keys;
+            this.ix = ix;
+            this.keysBuf = keysBuf;
+            this.ixBuf = ixBuf;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < PARALLEL_THRESHOLD) {
+                mergeSort(keys, ix, keysBuf, ixBuf, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(keys, ix, keysBuf, ixBuf, from, mid), new SortTask(keys, ix, keysBuf, ixBuf, mid, to));
+            merge(keys, ix, keysBuf, ixBuf, from, mid, to);
+        }
+    }
+}
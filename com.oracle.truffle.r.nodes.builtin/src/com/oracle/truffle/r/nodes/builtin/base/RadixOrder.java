@@ -0,0 +1,482 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.builtin.base;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractComplexVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * The ordering engine behind {@code .Internal(radixsort(...))}, i.e. {@code order(...,
+ * method="radix")} and {@code sort(x, method="radix")}.
+ *
+ * Every key column is first mapped to a {@code long} whose signed order is the required order of
+ * the column (taking the per-key {@code decreasing} flag and the {@code NA} placement into
+ * account): integers and logicals directly, doubles via the usual IEEE bit flip and strings via a
+ * rank computed once per distinct string. The keys are then shifted to start at zero so that only
+ * as many 11-bit digits as the actual range of the column requires are processed. Columns are
+ * processed from the last to the first one with a stable LSD pass each, so the result is the
+ * stable lexicographic order over all keys, exactly as in GnuR.
+ *
+ * As in GnuR, doubles are rounded to the last two bytes of the mantissa when groups are requested,
+ * the strings are compared in the C locale and if {@code sortstr} is {@code FALSE}, the strings are
+ * ranked in the order of their first appearance rather than sorted.
+ */
+final class RadixOrder {
+
+    private static final int DIGIT_BITS = 11;
+    private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
+
+    /**
+     * Ranges up to this many bits are sorted by a single counting pass.
+     */
+    private static final int COUNTING_SORT_BITS = 16;
+
+    /**
+     * Number of low-order bits of the double representation discarded when grouping.
+     */
+    private static final int DOUBLE_ROUNDING_BITS = 16;
+
+    /**
+     * Returned by {@link #gather} instead of the key range. The range of double keys (the widest
+     * ones) never reaches {@code 2^64-1}, so this cannot clash with an actual unsigned range.
+     */
+    private static final long ALREADY_SORTED = -1;
+
+    private final RAbstractVector[] vectors;
+    private final boolean[] decreasing;
+    private final byte naLast;
+    private final boolean retgrp;
+    private final boolean sortstr;
+    private final int n;
+
+    /**
+     * The group boundaries of the last {@link #execute()}, valid only if {@code retgrp} was set.
+     */
+    private int[] starts;
+    private int maxGroupSize;
+
+    RadixOrder(RAbstractVector[] vectors, boolean[] decreasing, byte naLast, boolean retgrp, boolean sortstr) {
+        assert vectors.length > 0 && vectors.length == decreasing.length;
+        this.vectors = vectors;
+        this.decreasing = decreasing;
+        this.naLast = naLast;
+        this.retgrp = retgrp;
+        this.sortstr = sortstr;
+        this.n = vectors[0].getLength();
+    }
+
+    /**
+     * Computes the (0-based) ordering permutation. If {@code na.last} is {@code NA}, elements that
+     * are {@code NA} in any key are dropped from the result.
+     */
+    @TruffleBoundary
+    int[] execute() {
+        int[] order = initialOrder();
+        int m = order.length;
+        long[] keys = new long[m];
+        long[] keysTmp = null;
+        int[] orderTmp = null;
+        // LSD over the key columns: the least significant column is sorted first
+        for (int k = vectors.length - 1; k >= 0; k--) {
+            RAbstractVector v = vectors[k];
+            int parts = v instanceof RAbstractComplexVector ? 2 : 1;
+            for (int part = parts - 1; part >= 0; part--) {
+                long[] columnKeys = columnKeys(v, part, decreasing[k]);
+                long range = gather(columnKeys, order, keys);
+                if (range == ALREADY_SORTED) {
+                    continue;
+                }
+                if (keysTmp == null) {
+                    keysTmp = new long[m];
+                    orderTmp = new int[m];
+                }
+                sortKeys(keys, order, keysTmp, orderTmp, range);
+            }
+        }
+        if (retgrp) {
+            computeGroups(order);
+        }
+        return order;
+    }
+
+    int[] getStarts() {
+        return starts;
+    }
+
+    int getMaxGroupSize() {
+        return maxGroupSize;
+    }
+
+    private int[] initialOrder() {
+        if (RRuntime.isNA(naLast)) {
+            boolean[] isNA = new boolean[n];
+            int naCount = 0;
+            for (RAbstractVector v : vectors) {
+                if (!v.isComplete()) {
+                    for (int i = 0; i < n; i++) {
+                        if (!isNA[i] && isNA(v, i)) {
+                            isNA[i] = true;
+                            naCount++;
+                        }
+                    }
+                }
+            }
+            if (naCount > 0) {
+                int[] order = new int[n - naCount];
+                for (int i = 0, j = 0; i < n; i++) {
+                    if (!isNA[i]) {
+                        order[j++] = i;
+                    }
+                }
+                return order;
+            }
+        }
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    private static boolean isNA(RAbstractVector v, int i) {
+        if (v instanceof RAbstractIntVector) {
+            return RRuntime.isNA(((RAbstractIntVector) v).getDataAt(i));
+        } else if (v instanceof RAbstractDoubleVector) {
+            return RRuntime.isNAorNaN(((RAbstractDoubleVector) v).getDataAt(i));
+        } else if (v instanceof RAbstractLogicalVector) {
+            return RRuntime.isNA(((RAbstractLogicalVector) v).getDataAt(i));
+        } else if (v instanceof RAbstractStringVector) {
+            return RRuntime.isNA(((RAbstractStringVector) v).getDataAt(i));
+        } else if (v instanceof RAbstractComplexVector) {
+            return RRuntime.isNA(((RAbstractComplexVector) v).getDataAt(i));
+        }
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    /**
+     * Copies the keys of the elements in the current order into {@code dst} and normalizes them to
+     * start at zero. Returns the (unsigned) range of the keys or {@link #ALREADY_SORTED} if they are
+     * already in non-decreasing order, in which case the stable sort would be the identity.
+     */
+    private static long gather(long[] columnKeys, int[] order, long[] dst) {
+        int m = order.length;
+        if (m == 0) {
+            return ALREADY_SORTED;
+        }
+        long min = columnKeys[order[0]];
+        long max = min;
+        boolean sorted = true;
+        long prev = min;
+        for (int i = 0; i < m; i++) {
+            long key = columnKeys[order[i]];
+            dst[i] = key;
+            if (key < prev) {
+                sorted = false;
+            }
+            prev = key;
+            if (key < min) {
+                min = key;
+            } else if (key > max) {
+                max = key;
+            }
+        }
+        if (sorted) {
+            return ALREADY_SORTED;
+        }
+        for (int i = 0; i < m; i++) {
+            dst[i] -= min;
+        }
+        return max - min;
+    }
+
+    /**
+     * Stable LSD radix sort of {@code keys} (all non-negative in the unsigned sense and at most
+     * {@code range}), permuting {@code order} alongside.
+     */
+    static void sortKeys(long[] keys, int[] order, long[] keysTmp, int[] orderTmp, long range) {
+        int bits = 64 - Long.numberOfLeadingZeros(range);
+        long[] srcKeys = keys;
+        int[] srcOrder = order;
+        long[] dstKeys = keysTmp;
+        int[] dstOrder = orderTmp;
+        int m = keys.length;
+        if (bits <= COUNTING_SORT_BITS) {
+            countingPass(srcKeys, srcOrder, dstKeys, dstOrder, (int) range + 1, m);
+            System.arraycopy(dstKeys, 0, keys, 0, m);
+            System.arraycopy(dstOrder, 0, order, 0, m);
+            return;
+        }
+        int[] counts = new int[DIGIT_MASK + 1];
+        for (int shift = 0; shift < bits; shift += DIGIT_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < m; i++) {
+                counts[(int) (srcKeys[i] >>> shift) & DIGIT_MASK]++;
+            }
+            if (isTrivial(counts, m)) {
+                continue;
+            }
+            int sum = 0;
+            for (int d = 0; d < counts.length; d++) {
+                int c = counts[d];
+                counts[d] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < m; i++) {
+                int pos = counts[(int) (srcKeys[i] >>> shift) & DIGIT_MASK]++;
+                dstKeys[pos] = srcKeys[i];
+                dstOrder[pos] = srcOrder[i];
+            }
+            long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            int[] swapOrder = srcOrder;
+            srcOrder = dstOrder;
+            dstOrder = swapOrder;
+        }
+        if (srcOrder != order) {
+            System.arraycopy(srcKeys, 0, keys, 0, m);
+            System.arraycopy(srcOrder, 0, order, 0, m);
+        }
+    }
+
+    private static void countingPass(long[] srcKeys, int[] srcOrder, long[] dstKeys, int[] dstOrder, int buckets, int m) {
+        int[] counts = new int[buckets];
+        for (int i = 0; i < m; i++) {
+            counts[(int) srcKeys[i]]++;
+        }
+        int sum = 0;
+        for (int d = 0; d < buckets; d++) {
+            int c = counts[d];
+            counts[d] = sum;
+            sum += c;
+        }
+        for (int i = 0; i < m; i++) {
+            int pos = counts[(int) srcKeys[i]]++;
+            dstKeys[pos] = srcKeys[i];
+            dstOrder[pos] = srcOrder[i];
+        }
+    }
+
+    private static boolean isTrivial(int[] counts, int m) {
+        for (int c : counts) {
+            if (c != 0) {
+                return c == m;
+            }
+        }
+        return true;
+    }
+
+    private void computeGroups(int[] order) {
+        int m = order.length;
+        boolean[] boundary = new boolean[m];
+        if (m > 0) {
+            boundary[0] = true;
+        }
+        for (int k = 0; k < vectors.length; k++) {
+            RAbstractVector v = vectors[k];
+            int parts = v instanceof RAbstractComplexVector ? 2 : 1;
+            for (int part = 0; part < parts; part++) {
+                long[] columnKeys = columnKeys(v, part, decreasing[k]);
+                for (int i = 1; i < m; i++) {
+                    if (columnKeys[order[i]] != columnKeys[order[i - 1]]) {
+                        boundary[i] = true;
+                    }
+                }
+            }
+        }
+        int groups = 0;
+        for (int i = 0; i < m; i++) {
+            if (boundary[i]) {
+                groups++;
+            }
+        }
+        starts = new int[groups];
+        maxGroupSize = 0;
+        for (int i = 0, g = 0; i < m; i++) {
+            if (boundary[i]) {
+                if (g > 0) {
+                    maxGroupSize = Math.max(maxGroupSize, i - (starts[g - 1] - 1));
+                }
+                starts[g++] = i + 1;
+            }
+        }
+        if (groups > 0) {
+            maxGroupSize = Math.max(maxGroupSize, m - (starts[groups - 1] - 1));
+        }
+    }
+
+    /**
+     * Maps the elements of the column to keys ordered as required. {@code NA} values are mapped
+     * just below the minimum or just above the maximum of the other keys.
+     */
+    private long[] columnKeys(RAbstractVector v, int part, boolean dec) {
+        long[] result = new long[n];
+        boolean[] isNA = null;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        if (v instanceof RAbstractIntVector || v instanceof RAbstractLogicalVector) {
+            int[] store = v instanceof RIntVector ? ((RIntVector) v).getInternalStore() : null;
+            for (int i = 0; i < n; i++) {
+                int value;
+                if (store != null) {
+                    value = store[i];
+                } else if (v instanceof RAbstractIntVector) {
+                    value = ((RAbstractIntVector) v).getDataAt(i);
+                } else {
+                    value = RRuntime.logical2int(((RAbstractLogicalVector) v).getDataAt(i));
+                }
+                if (RRuntime.isNA(value)) {
+                    isNA = markNA(isNA, i);
+                } else {
+                    long key = dec ? -(long) value : value;
+                    result[i] = key;
+                    min = Math.min(min, key);
+                    max = Math.max(max, key);
+                }
+            }
+        } else if (v instanceof RAbstractDoubleVector) {
+            double[] store = v instanceof RDoubleVector ? ((RDoubleVector) v).getInternalStore() : null;
+            for (int i = 0; i < n; i++) {
+                double value = store != null ? store[i] : ((RAbstractDoubleVector) v).getDataAt(i);
+                if (Double.isNaN(value)) {
+                    isNA = markNA(isNA, i);
+                } else {
+                    long key = doubleKey(value, dec);
+                    result[i] = key;
+                    min = Math.min(min, key);
+                    max = Math.max(max, key);
+                }
+            }
+        } else if (v instanceof RAbstractComplexVector) {
+            RAbstractComplexVector cv = (RAbstractComplexVector) v;
+            for (int i = 0; i < n; i++) {
+                RComplex value = cv.getDataAt(i);
+                if (RRuntime.isNA(value)) {
+                    isNA = markNA(isNA, i);
+                } else {
+                    long key = doubleKey(part == 0 ? value.getRealPart() : value.getImaginaryPart(), dec);
+                    result[i] = key;
+                    min = Math.min(min, key);
+                    max = Math.max(max, key);
+                }
+            }
+        } else if (v instanceof RAbstractStringVector) {
+            int[] ranks = stringRanks((RAbstractStringVector) v);
+            for (int i = 0; i < n; i++) {
+                int rank = ranks[i];
+                if (rank < 0) {
+                    isNA = markNA(isNA, i);
+                } else {
+                    long key = dec ? -(long) rank : rank;
+                    result[i] = key;
+                    min = Math.min(min, key);
+                    max = Math.max(max, key);
+                }
+            }
+        } else {
+            throw RInternalError.shouldNotReachHere();
+        }
+        if (isNA != null) {
+            // if there are only NAs, min and max are still at their initial values
+            long naKey = min > max ? 0 : RRuntime.fromLogical(naLast) ? max + 1 : min - 1;
+            for (int i = 0; i < n; i++) {
+                if (isNA[i]) {
+                    result[i] = naKey;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean[] markNA(boolean[] isNA, int i) {
+        boolean[] result = isNA == null ? new boolean[n] : isNA;
+        result[i] = true;
+        return result;
+    }
+
+    /**
+     * Maps a non-NaN double to a long with the same signed order. The extremes of the mapping are
+     * the infinities, so the neighbours used for {@code NA} never overflow.
+     */
+    private long doubleKey(double value, boolean dec) {
+        double d = dec ? -value : value;
+        if (d == 0) {
+            // -0.0 and 0.0 are equal
+            d = 0;
+        }
+        long bits = Double.doubleToRawLongBits(d);
+        if (retgrp && !Double.isInfinite(d)) {
+            bits = (bits + ((bits & (1L << (DOUBLE_ROUNDING_BITS - 1))) << 1)) & (-1L << DOUBLE_ROUNDING_BITS);
+        }
+        return bits >= 0 ? bits : bits ^ Long.MAX_VALUE;
+    }
+
+    /**
+     * Ranks the distinct strings of the vector once, so that the radix passes work on small
+     * integers. {@code NA} is ranked {@code -1}.
+     */
+    private int[] stringRanks(RAbstractStringVector v) {
+        int[] ranks = new int[n];
+        HashMap<String, Integer> unique = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            String s = v.getDataAt(i);
+            if (RRuntime.isNA(s)) {
+                ranks[i] = -1;
+            } else {
+                Integer rank = unique.get(s);
+                if (rank == null) {
+                    rank = unique.size();
+                    unique.put(s, rank);
+                }
+                ranks[i] = rank;
+            }
+        }
+        if (sortstr || !retgrp) {
+            String[] sorted = unique.keySet().toArray(new String[unique.size()]);
+            Arrays.sort(sorted);
+            int[] sortedRank = new int[sorted.length];
+            for (int r = 0; r < sorted.length; r++) {
+                sortedRank[unique.get(sorted[r])] = r;
+            }
+            for (int i = 0; i < n; i++) {
+                if (ranks[i] >= 0) {
+                    ranks[i] = sortedRank[ranks[i]];
+                }
+            }
+        }
+        return ranks;
+    }
+}
@@ -28,8 +28,17 @@ import static com.oracle.truffle.r.runtime.builtins.RBehavior.IO;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.INTERNAL;
 
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.regex.Pattern;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -38,12 +47,17 @@ import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.GetNames
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.nodes.unary.CastToVectorNode;
 import com.oracle.truffle.r.nodes.unary.CastToVectorNodeGen;
+import com.oracle.truffle.r.runtime.FastROptions;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
+import com.oracle.truffle.r.runtime.conn.FileConnections.FileRConnection;
 import com.oracle.truffle.r.runtime.conn.RConnection;
+import com.oracle.truffle.r.runtime.conn.RConnection.SeekMode;
+import com.oracle.truffle.r.runtime.conn.RConnection.SeekRWMode;
+import com.oracle.truffle.r.runtime.conn.ScanTokenizer;
 import com.oracle.truffle.r.runtime.conn.StdConnections;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
@@ -62,6 +76,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
     private static final int SCAN_BLOCKSIZE = 1000;
     private static final int NO_COMCHAR = 100000; /* won't occur even in Unicode */
+    private static final long PARALLEL_MIN_CHUNK_SIZE = 1 << 20;
 
     private final NACheck naCheck = NACheck.create();
     @Child private GetNamesAttributeNode getNames = GetNamesAttributeNode.create();
@@ -79,15 +94,19 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
     @SuppressWarnings("unused")
     private static class LocalData {
         RAbstractStringVector naStrings = null;
+        byte[][] naBytes = null;
         boolean quiet = false;
-        String sepchar = null;
-        String sepregex = null;
+        char sepchar = 0;
         char decchar = '.';
         String quoteset = null;
         int comchar = NO_COMCHAR;
+        boolean stripWhite = false;
         // connection-related (currently not supported)
         // int ttyflag = 0;
         RConnection con = null;
+        ScanTokenizer tokenizer = null;
+        // set if the connection reads a plain file, which can be read in parallel
+        FileRConnection file = null;
         // connection-related (currently not supported)
         // boolean wasopen = false;
         boolean escapes = false;
@@ -97,6 +116,24 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         boolean atStart = false;
         boolean embedWarn = false;
         boolean skipNull = false;
+
+        /**
+         * Creates the data for reading a chunk of the input with {@code chunkTokenizer}.
+         */
+        LocalData forChunk(ScanTokenizer chunkTokenizer) {
+            LocalData result = new LocalData();
+            result.naStrings = naStrings;
+            result.naBytes = naBytes;
+            result.quiet = quiet;
+            result.sepchar = sepchar;
+            result.decchar = decchar;
+            result.quoteset = quoteset;
+            result.comchar = comchar;
+            result.stripWhite = stripWhite;
+            result.tokenizer = chunkTokenizer;
+            result.skipNull = skipNull;
+            return result;
+        }
     }
 
     static {
@@ -152,8 +189,10 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         LocalData data = new LocalData();
 
         // TODO: some sort of character translation happens here?
-        data.sepchar = sep.isEmpty() ? null : sep.substring(0, 1);
-        data.sepregex = sep.isEmpty() ? null : Pattern.quote(sep.substring(0, 1));
+        data.sepchar = sep.isEmpty() ? 0 : sep.charAt(0);
+        if (data.sepchar >= 128) {
+            throw error(RError.Message.MUST_BE_ONE_BYTE, "'sep' value");
+        }
 
         // TODO: some sort of character translation happens here?
         data.decchar = dec.charAt(0);
@@ -167,6 +206,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
             throw error(RError.Message.INVALID_LENGTH, "strip.white");
         }
         byte strip = stripVec.getDataAt(0);
+        data.stripWhite = strip == RRuntime.LOGICAL_TRUE;
 
         data.quiet = quiet;
 
@@ -188,132 +228,39 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
 
         data.save = 0;
 
+        boolean wasOpen = data.con.isOpen();
         try (RConnection openConn = data.con.forceOpen("r")) {
+            data.tokenizer = new ScanTokenizer(openConn, wasOpen, data.sepchar, data.quoteset, data.comchar, data.stripWhite, skipNull);
+            data.naBytes = new byte[data.naStrings.getLength()][];
+            for (int i = 0; i < data.naBytes.length; i++) {
+                data.naBytes[i] = data.tokenizer.toBytes(data.naStrings.getDataAt(i));
+            }
             if (nskip > 0) {
-                openConn.readLines(nskip, true, skipNull);
+                data.tokenizer.skipLines(nskip);
             }
+            if (data.con instanceof FileRConnection) {
+                data.file = (FileRConnection) data.con;
+            }
+            RVector<?> result;
             if (what instanceof RList) {
-                return scanFrame((RList) what, nmax, nlines, flush, fill, strip == RRuntime.LOGICAL_TRUE, blSkip, multiLine, data);
+                result = scanFrame((RList) what, nmax, nlines, flush, fill, strip == RRuntime.LOGICAL_TRUE, blSkip, multiLine, data);
             } else {
-                return scanVector(what, nmax, nlines, flush, strip == RRuntime.LOGICAL_TRUE, blSkip, data);
+                result = scanVector(what, nmax, nlines, flush, strip == RRuntime.LOGICAL_TRUE, blSkip, data);
             }
+            data.tokenizer.finish();
+            return result;
         } catch (IOException x) {
             throw error(RError.Message.CANNOT_READ_CONNECTION);
         }
     }
 
-    private static int getFirstQuoteInd(String str, char quotechar, Character sepChar) {
-        int quoteInd = str.indexOf(quotechar);
-        if (quoteInd >= 0) {
-            if (quoteInd == 0 || (str.charAt(quoteInd - 1) == ' ' || str.charAt(quoteInd - 1) == '\t') || sepChar != null && str.charAt(quoteInd - 1) == sepChar) {
-                // it's a quote character if it starts the string or is preceded by a blank space
-                return quoteInd;
-            }
-        }
-        return -1;
-    }
-
-    private static String[] getQuotedItems(LocalData data, String s) {
-        LinkedList<String> items = new LinkedList<>();
-
-        String str = s;
-        StringBuilder sb = null;
-
-        while (true) {
-            int sepInd;
-            if (data.sepchar == null) {
-                int blInd = str.indexOf(' ');
-                int tabInd = str.indexOf('\t');
-                if (blInd == -1) {
-                    sepInd = tabInd;
-                } else if (tabInd == -1) {
-                    sepInd = blInd;
-                } else {
-                    sepInd = Math.min(blInd, tabInd);
-                }
-            } else {
-                assert data.sepchar.length() == 1;
-                sepInd = str.indexOf(data.sepchar.charAt(0));
-            }
-
-            Character sepChar = data.sepchar != null ? data.sepchar.charAt(0) : null;
-            int quoteInd = getFirstQuoteInd(str, data.quoteset.charAt(0), sepChar);
-            char quoteChar = data.quoteset.charAt(0);
-            for (int i = 1; i < data.quoteset.length(); i++) {
-                int ind = getFirstQuoteInd(str, data.quoteset.charAt(i), sepChar);
-                if (ind >= 0 && (quoteInd == -1 || (quoteInd >= 0 && ind < quoteInd))) {
-                    // update quoteInd if either the new index is smaller or the previous one (for
-                    // another separator) was not found
-                    quoteInd = ind;
-                    quoteChar = data.quoteset.charAt(i);
-                }
-            }
-
-            if (sb == null) {
-                // first iteration
-                if (quoteInd == -1) {
-                    // no quotes at all
-                    return data.sepregex == null ? s.split("\\s+") : s.split(data.sepregex);
-                } else {
-                    sb = new StringBuilder();
-                }
-            }
-
-            if (sepInd == -1 && quoteInd == -1) {
-                // no more separators and no more quotes - add the last item and return
-                sb.append(str);
-                items.add(sb.toString());
-                break;
-            }
-
-            if (quoteInd >= 0 && (sepInd == -1 || (sepInd >= 0 && quoteInd < sepInd))) {
-                // quote character was found before the separator character - everything from the
-                // beginning of str up to the end of quote becomes part of this item
-                sb.append(str.substring(0, quoteInd));
-                int nextQuoteInd = str.indexOf(quoteChar, quoteInd + 1);
-                sb.append(str.substring(quoteInd + 1, nextQuoteInd));
-                str = str.substring(nextQuoteInd + 1, str.length());
-            } else {
-                assert sepInd >= 0;
-                // everything from the beginning of str becomes part of this time and item
-                // processing is completed (also eat up separators)
-                String[] tuple = data.sepregex == null ? str.split("\\s+", 2) : str.split(data.sepregex, 2);
-                assert tuple.length == 2;
-                sb.append(tuple[0]);
-                str = tuple[1];
-                items.add(sb.toString());
-                sb = new StringBuilder();
-            }
-        }
-
-        return items.toArray(new String[items.size()]);
-    }
-
-    private static String[] getItems(LocalData data, boolean blSkip) throws IOException {
-        while (true) {
-            String[] str = data.con.readLines(1, true, false);
-            if (str == null || str.length == 0) {
-                return null;
-            } else {
-                String s = str[0].trim();
-                if (blSkip && s.length() == 0) {
-                    continue;
-                } else {
-                    if (data.quoteset.length() == 0) {
-                        return data.sepregex == null ? s.split("\\s+") : s.split(data.sepregex);
-                    } else {
-                        return getQuotedItems(data, s);
-                    }
-                }
-            }
-        }
-    }
-
-    private void fillEmpty(int from, int to, int records, RList list, LocalData data) {
-        for (int i = from; i < to; i++) {
-            RVector<?> vec = (RVector<?>) list.getDataAt(i);
-            vec.updateDataAtAsObject(records, extractItem(vec, "", data), naCheck);
-        }
+    /**
+     * Reads the next record and returns the number of its items, a blank line that is not
+     * skipped is a single empty item. Returns {@code -1} at the end of the input.
+     */
+    private static int readItems(LocalData data, boolean blSkip) throws IOException {
+        int n = data.tokenizer.readRecord(blSkip);
+        return n == 0 ? 1 : n;
     }
 
     private RVector<?> scanFrame(RList what, int maxRecords, int maxLines, boolean flush, boolean fill, @SuppressWarnings("unused") boolean stripWhite, boolean blSkip, boolean multiLine,
@@ -326,72 +273,49 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
         }
         int blockSize = maxRecords > 0 ? maxRecords : (maxLines > 0 ? maxLines : SCAN_BLOCKSIZE);
 
-        RList list = RDataFactory.createList(nc);
+        Column[] columns = new Column[nc];
         for (int i = 0; i < nc; i++) {
             if (what.getDataAt(i) == RNull.instance) {
                 throw error(RError.Message.INVALID_ARGUMENT, "what");
             } else {
                 RAbstractVector vec = castVector(what.getDataAt(i));
-                list.updateDataAt(i, vec.createEmptySameType(blockSize, RDataFactory.COMPLETE_VECTOR), null);
+                columns[i] = createColumn(vec, blockSize);
             }
         }
-        list.setNames(getNames.getNames(what));
 
         naCheck.enable(true);
 
-        return scanFrameInternal(maxRecords, maxLines, flush, fill, blSkip, multiLine, data, nc, blockSize, list);
+        RList list = scanFrameInternal(maxRecords, maxLines, flush, fill, blSkip, multiLine, data, columns);
+        list.setNames(getNames.getNames(what));
+        return list;
     }
 
     @TruffleBoundary
-    private RVector<?> scanFrameInternal(int maxRecords, int maxLines, boolean flush, boolean fill, boolean blSkip, boolean multiLine, LocalData data, int nc, int initialBlockSize, RList list)
-                    throws IOException {
-        int blockSize = initialBlockSize;
+    private RList scanFrameInternal(int maxRecords, int maxLines, boolean flush, boolean fill, boolean blSkip, boolean multiLine, LocalData data, Column[] columns) throws IOException {
+        int nc = columns.length;
         int n = 0;
         int lines = 0;
         int records = 0;
-        while (true) {
-            // TODO: does not do any fancy stuff, like handling comments
-            String[] strItems = getItems(data, blSkip);
-            if (strItems == null) {
+        boolean done = false;
+        boolean tryParallel = data.file != null && maxRecords <= 0 && maxLines <= 0 && canReadParallel(columns);
+        while (!done) {
+            // once pushed back lines are consumed, the rest of a file can be read in parallel
+            if (tryParallel && n == 0 && data.tokenizer.getUnconsumedBytes() >= 0) {
+                tryParallel = false;
+                int chunkRecords = scanFileParallel(flush, fill, blSkip, data, columns);
+                if (chunkRecords >= 0) {
+                    records += chunkRecords;
+                    break;
+                }
+            }
+            // TODO: does not do any fancy stuff, like handling escapes
+            int nitems = readItems(data, blSkip);
+            if (nitems < 0) {
                 break;
             }
 
-            boolean done = false;
-            for (int i = 0; i < Math.max(nc, strItems.length); i++) {
-
-                if (n == strItems.length) {
-                    if (fill) {
-                        fillEmpty(n, nc, records, list, data);
-                        records++;
-                        n = 0;
-                        break;
-                    } else if (!multiLine) {
-                        throw error(RError.Message.LINE_ELEMENTS, lines + 1, nc);
-                    } else {
-                        strItems = getItems(data, blSkip);
-                        // Checkstyle: stop modified control variable check
-                        i = 0;
-                        // Checkstyle: resume modified control variable check
-                        if (strItems == null) {
-                            done = true;
-                            break;
-                        }
-                    }
-                }
-                Object item = extractItem((RAbstractVector) list.getDataAt(n), strItems[i], data);
-
-                if (records == blockSize) {
-                    // enlarge the vector
-                    blockSize = blockSize * 2;
-                    for (int j = 0; j < nc; j++) {
-                        RVector<?> vec = (RVector<?>) list.getDataAt(j);
-                        vec = vec.copyResized(blockSize, false);
-                        list.updateDataAt(j, vec, null);
-                    }
-                }
-
-                RVector<?> vec = (RVector<?>) list.getDataAt(n);
-                vec.updateDataAtAsObject(records, item, naCheck);
+            for (int i = 0; i < nitems; i++) {
+                columns[n].add(data, i);
                 n++;
                 if (n == nc) {
                     records++;
@@ -405,8 +329,15 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
                     }
                 }
             }
-            if (done) {
-                break;
+            if (!done && n > 0) {
+                if (fill) {
+                    fillEmpty(columns, n, data);
+                    records++;
+                    n = 0;
+                    done = records == maxRecords;
+                } else if (!multiLine) {
+                    throw error(RError.Message.LINE_ELEMENTS, lines + 1, nc);
+                }
             }
             lines++;
             if (lines == maxLines) {
@@ -418,7 +349,7 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
             if (!fill) {
                 warning(RError.Message.ITEMS_NOT_MULTIPLE);
             }
-            fillEmpty(n, nc, records, list, data);
+            fillEmpty(columns, n, data);
             records++;
         }
 
@@ -426,54 +357,44 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
             String s = String.format("Read %d record%s", records, (records == 1) ? "" : "s");
             StdConnections.getStdout().writeString(s, true);
         }
-        // trim vectors if necessary
+        RList list = RDataFactory.createList(nc);
         for (int i = 0; i < nc; i++) {
-            RVector<?> vec = (RVector<?>) list.getDataAt(i);
-            if (vec.getLength() > records) {
-                list.updateDataAt(i, vec.copyResized(records, false), null);
-            }
+            list.updateDataAt(i, columns[i].finish(), null);
         }
-
         return list;
     }
 
+    private static void fillEmpty(Column[] columns, int from, LocalData data) {
+        for (int i = from; i < columns.length; i++) {
+            columns[i].addEmpty(data);
+        }
+    }
+
     @TruffleBoundary
     private RVector<?> scanVector(RAbstractVector what, int maxItems, int maxLines, @SuppressWarnings("unused") boolean flush, @SuppressWarnings("unused") boolean stripWhite, boolean blSkip,
                     LocalData data) throws IOException {
         int blockSize = maxItems > 0 ? maxItems : SCAN_BLOCKSIZE;
-        RVector<?> vec = what.createEmptySameType(blockSize, RDataFactory.COMPLETE_VECTOR);
+        Column column = createColumn(what, blockSize);
         naCheck.enable(true);
 
         int n = 0;
         int lines = 0;
-        while (true) {
-            // TODO: does not do any fancy stuff, like handling comments
-            String[] strItems = getItems(data, blSkip);
-            if (strItems == null) {
+        boolean done = false;
+        while (!done) {
+            // TODO: does not do any fancy stuff, like handling escapes
+            int nitems = readItems(data, blSkip);
+            if (nitems < 0) {
                 break;
             }
 
-            boolean done = false;
-            for (int i = 0; i < strItems.length; i++) {
-
-                Object item = extractItem(what, strItems[i], data);
-
-                if (n == blockSize) {
-                    // enlarge the vector
-                    blockSize = blockSize * 2;
-                    vec = vec.copyResized(blockSize, false);
-                }
-
-                vec.updateDataAtAsObject(n, item, naCheck);
+            for (int i = 0; i < nitems; i++) {
+                column.add(data, i);
                 n++;
                 if (n == maxItems) {
                     done = true;
                     break;
                 }
             }
-            if (done) {
-                break;
-            }
             lines++;
             if (lines == maxLines) {
                 break;
@@ -483,13 +404,529 @@ public abstract class Scan extends RBuiltinNode.Arg19 {
             String s = String.format("Read %d item%s", n, (n == 1) ? "" : "s");
             StdConnections.getStdout().writeString(s, true);
         }
-        // trim vector if necessary
-        return vec.getLength() > n ? vec.copyResized(n, false) : vec;
+        return column.finish();
+    }
+
+    private static boolean canReadParallel(Column[] columns) {
+        if (FastROptions.ScanParallelThreshold.getNonNegativeIntValue() == 0 || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            return false;
+        }
+        for (Column column : columns) {
+            if (column instanceof VectorColumn) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the rest of the plain file of the connection in parallel, if it is large enough (see
+     * {@link FastROptions#ScanParallelThreshold}). The file is split into ranges of whole lines,
+     * each of which is tokenized and converted into its own columns by a task in the common
+     * fork-join pool, and the columns are appended to {@code columns} in order.
+     *
+     * Splitting at line boundaries is only correct if every line holds whole records, so nothing is
+     * appended if any chunk contains a record spanning several lines (a quoted newline or, unless
+     * {@code fill}, a line with fewer items than columns) and the file is then read sequentially.
+     *
+     * @return the number of records read, or {@code -1} if the file has to be read sequentially
+     */
+    private static int scanFileParallel(boolean flush, boolean fill, boolean blSkip, LocalData data, Column[] columns) throws IOException {
+        String path = data.file.getPlainPath();
+        long unconsumed = data.tokenizer.getUnconsumedBytes();
+        if (path == null || unconsumed < 0) {
+            return -1;
+        }
+        int records = 0;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long start = data.file.getPlainPosition() - unconsumed;
+            long size = channel.size();
+            long length = size - start;
+            if (length < FastROptions.ScanParallelThreshold.getNonNegativeIntValue() * (1L << 20)) {
+                return -1;
+            }
+            int chunks = (int) Math.min(ForkJoinPool.getCommonPoolParallelism() * 4L, Math.max(1, length / PARALLEL_MIN_CHUNK_SIZE));
+            List<ChunkTask> tasks = new ArrayList<>(chunks);
+            long chunkStart = start;
+            for (int i = 1; i <= chunks; i++) {
+                long chunkEnd = i == chunks ? size : Math.max(chunkStart, nextLineStart(channel, start + length * i / chunks - 1, size));
+                if (chunkEnd > chunkStart) {
+                    tasks.add(new ChunkTask(channel, chunkStart, chunkEnd, flush, fill, blSkip, data, columns));
+                }
+                chunkStart = chunkEnd;
+            }
+
+            try {
+                List<Future<Column[]>> futures = ForkJoinPool.commonPool().invokeAll(tasks);
+                Column[][] chunkColumns = new Column[futures.size()][];
+                for (int i = 0; i < chunkColumns.length; i++) {
+                    chunkColumns[i] = futures.get(i).get();
+                    if (chunkColumns[i] == null) {
+                        return -1;
+                    }
+                }
+                for (int i = 0; i < chunkColumns.length; i++) {
+                    for (int j = 0; j < columns.length; j++) {
+                        columns[j].addAll(chunkColumns[i][j]);
+                    }
+                    records += tasks.get(i).records;
+                }
+            } catch (ExecutionException e) {
+                // surface the error of the chunk as if it had been read sequentially
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw RInternalError.shouldNotReachHere(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        data.tokenizer.discardInput();
+        data.con.seek(0, SeekMode.END, SeekRWMode.READ);
+        return records;
+    }
+
+    /**
+     * Returns the position after the first newline at or after {@code from}, or {@code size}.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    /**
+     * Reads a range of whole lines of a file into new columns, see {@link #scanFileParallel}.
+     */
+    private static final class ChunkTask implements Callable<Column[]> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final boolean flush;
+        private final boolean fill;
+        private final boolean blSkip;
+        private final LocalData data;
+        private final Column[] types;
+
+        private int records;
+
+        ChunkTask(FileChannel channel, long start, long end, boolean flush, boolean fill, boolean blSkip, LocalData data, Column[] types) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.flush = flush;
+            this.fill = fill;
+            this.blSkip = blSkip;
+            this.data = data;
+            this.types = types;
+        }
+
+        @Override
+        public Column[] call() throws IOException {
+            ScanTokenizer tokenizer = new ScanTokenizer(channel, start, end, data.tokenizer.getCharset(), data.sepchar, data.quoteset, data.comchar, data.stripWhite, data.skipNull);
+            LocalData chunkData = data.forChunk(tokenizer);
+            int nc = types.length;
+            Column[] columns = new Column[nc];
+            for (int i = 0; i < nc; i++) {
+                columns[i] = types[i].createEmpty(SCAN_BLOCKSIZE);
+            }
+            int n = 0;
+            while (true) {
+                // blank lines are skipped here, so that the lines of a record can be counted
+                int nitems = tokenizer.readRecord(false);
+                if (nitems == ScanTokenizer.EOF) {
+                    break;
+                } else if (tokenizer.getLines() > 1 || tokenizer.hasUnterminatedQuote()) {
+                    return null;
+                } else if (nitems == 0) {
+                    if (blSkip) {
+                        continue;
+                    }
+                    nitems = 1;
+                }
+                for (int i = 0; i < nitems; i++) {
+                    columns[n].add(chunkData, i);
+                    n++;
+                    if (n == nc) {
+                        records++;
+                        n = 0;
+                        if (flush) {
+                            break;
+                        }
+                    }
+                }
+                if (n > 0) {
+                    if (!fill) {
+                        return null;
+                    }
+                    fillEmpty(columns, n, chunkData);
+                    records++;
+                    n = 0;
+                }
+            }
+            return columns;
+        }
+    }
+
+    private Column createColumn(RAbstractVector what, int blockSize) {
+        switch (what.getRType()) {
+            case Logical:
+                return new LogicalColumn(blockSize);
+            case Integer:
+                return new IntColumn(blockSize);
+            case Double:
+                return new DoubleColumn(blockSize);
+            case Character:
+                return new StringColumn(blockSize);
+            default:
+                return new VectorColumn(what.createEmptySameType(blockSize, RDataFactory.COMPLETE_VECTOR), naCheck);
+        }
+    }
+
+    /**
+     * Collects the values of one column of the result of {@code scan}, growing its buffer as
+     * needed, and converts the items directly from the {@link ScanTokenizer} where possible.
+     */
+    private abstract static class Column {
+        protected int length;
+        protected boolean complete = true;
+
+        /**
+         * Adds the item {@code field} of the current record, or an empty item if the record is
+         * blank.
+         */
+        abstract void add(LocalData data, int field);
+
+        abstract void addEmpty(LocalData data);
+
+        abstract RVector<?> finish();
+
+        /**
+         * Creates an empty column of the same type.
+         */
+        abstract Column createEmpty(int blockSize);
+
+        /**
+         * Appends the values of {@code other}, a column of the same type.
+         */
+        abstract void addAll(Column other);
+
+        protected int newCapacity(int capacity) {
+            return Math.max(capacity * 2, 16);
+        }
+
+        protected int newCapacity(int capacity, int needed) {
+            return Math.max(newCapacity(capacity), needed);
+        }
+    }
+
+    private static final class LogicalColumn extends Column {
+        private byte[] values;
+
+        LogicalColumn(int blockSize) {
+            values = new byte[blockSize];
+        }
+
+        @Override
+        Column createEmpty(int blockSize) {
+            return new LogicalColumn(blockSize);
+        }
+
+        @Override
+        void addAll(Column other) {
+            LogicalColumn o = (LogicalColumn) other;
+            if (length + o.length > values.length) {
+                values = Arrays.copyOf(values, newCapacity(length, length + o.length));
+            }
+            System.arraycopy(o.values, 0, values, length, o.length);
+            length += o.length;
+            complete &= o.complete;
+        }
+
+        @Override
+        void add(LocalData data, int field) {
+            ScanTokenizer tokenizer = data.tokenizer;
+            if (tokenizer.getFieldCount() == 0 || isNumericNaField(tokenizer, field, data)) {
+                addEmpty(data);
+            } else {
+                append(RRuntime.string2logicalNoCheck(tokenizer.getString(field)));
+            }
+        }
+
+        @Override
+        void addEmpty(LocalData data) {
+            append(RRuntime.LOGICAL_NA);
+        }
+
+        private void append(byte value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, newCapacity(length));
+            }
+            complete &= !RRuntime.isNA(value);
+            values[length++] = value;
+        }
+
+        @Override
+        RVector<?> finish() {
+            return RDataFactory.createLogicalVector(length == values.length ? values : Arrays.copyOf(values, length), complete);
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private int[] values;
+
+        IntColumn(int blockSize) {
+            values = new int[blockSize];
+        }
+
+        @Override
+        Column createEmpty(int blockSize) {
+            return new IntColumn(blockSize);
+        }
+
+        @Override
+        void addAll(Column other) {
+            IntColumn o = (IntColumn) other;
+            if (length + o.length > values.length) {
+                values = Arrays.copyOf(values, newCapacity(length, length + o.length));
+            }
+            System.arraycopy(o.values, 0, values, length, o.length);
+            length += o.length;
+            complete &= o.complete;
+        }
+
+        @Override
+        void add(LocalData data, int field) {
+            ScanTokenizer tokenizer = data.tokenizer;
+            if (tokenizer.getFieldCount() == 0 || isNumericNaField(tokenizer, field, data)) {
+                addEmpty(data);
+            } else {
+                append(tokenizer.getInt(field));
+            }
+        }
+
+        @Override
+        void addEmpty(LocalData data) {
+            append(RRuntime.INT_NA);
+        }
+
+        private void append(int value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, newCapacity(length));
+            }
+            complete &= !RRuntime.isNA(value);
+            values[length++] = value;
+        }
+
+        @Override
+        RVector<?> finish() {
+            return RDataFactory.createIntVector(length == values.length ? values : Arrays.copyOf(values, length), complete);
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values;
+
+        DoubleColumn(int blockSize) {
+            values = new double[blockSize];
+        }
+
+        @Override
+        Column createEmpty(int blockSize) {
+            return new DoubleColumn(blockSize);
+        }
+
+        @Override
+        void addAll(Column other) {
+            DoubleColumn o = (DoubleColumn) other;
+            if (length + o.length > values.length) {
+                values = Arrays.copyOf(values, newCapacity(length, length + o.length));
+            }
+            System.arraycopy(o.values, 0, values, length, o.length);
+            length += o.length;
+            complete &= o.complete;
+        }
+
+        @Override
+        void add(LocalData data, int field) {
+            ScanTokenizer tokenizer = data.tokenizer;
+            if (tokenizer.getFieldCount() == 0 || isNumericNaField(tokenizer, field, data)) {
+                addEmpty(data);
+            } else {
+                String s = tokenizer.getString(field);
+                if (data.decchar != '.') {
+                    s = s.replace(data.decchar, '.');
+                }
+                append(RRuntime.string2doubleNoCheck(s));
+            }
+        }
+
+        @Override
+        void addEmpty(LocalData data) {
+            append(RRuntime.DOUBLE_NA);
+        }
+
+        private void append(double value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, newCapacity(length));
+            }
+            complete &= !RRuntime.isNA(value);
+            values[length++] = value;
+        }
+
+        @Override
+        RVector<?> finish() {
+            return RDataFactory.createDoubleVector(length == values.length ? values : Arrays.copyOf(values, length), complete);
+        }
+    }
+
+    private static final class StringColumn extends Column {
+        private String[] values;
+
+        StringColumn(int blockSize) {
+            values = new String[blockSize];
+        }
+
+        @Override
+        Column createEmpty(int blockSize) {
+            return new StringColumn(blockSize);
+        }
+
+        @Override
+        void addAll(Column other) {
+            StringColumn o = (StringColumn) other;
+            if (length + o.length > values.length) {
+                values = Arrays.copyOf(values, newCapacity(length, length + o.length));
+            }
+            System.arraycopy(o.values, 0, values, length, o.length);
+            length += o.length;
+            complete &= o.complete;
+        }
+
+        @Override
+        void add(LocalData data, int field) {
+            ScanTokenizer tokenizer = data.tokenizer;
+            if (tokenizer.getFieldCount() == 0) {
+                addEmpty(data);
+            } else {
+                append(isNaField(tokenizer, field, 1, data) ? RRuntime.STRING_NA : tokenizer.getString(field));
+            }
+        }
+
+        @Override
+        void addEmpty(LocalData data) {
+            append(isNaString("", 1, data) ? RRuntime.STRING_NA : "");
+        }
+
+        private void append(String value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, newCapacity(length));
+            }
+            complete &= !RRuntime.isNA(value);
+            values[length++] = value;
+        }
+
+        @Override
+        RVector<?> finish() {
+            return RDataFactory.createStringVector(length == values.length ? values : Arrays.copyOf(values, length), complete);
+        }
+    }
+
+    /**
+     * A column of any other type, using {@link #extractItem}.
+     */
+    private static final class VectorColumn extends Column {
+        private final NACheck naCheck;
+        private RVector<?> vec;
+
+        VectorColumn(RVector<?> vec, NACheck naCheck) {
+            this.vec = vec;
+            this.naCheck = naCheck;
+        }
+
+        @Override
+        Column createEmpty(int blockSize) {
+            return new VectorColumn(vec.createEmptySameType(blockSize, RDataFactory.COMPLETE_VECTOR), naCheck);
+        }
+
+        @Override
+        void addAll(Column other) {
+            // not read in parallel
+            throw RInternalError.shouldNotReachHere();
+        }
+
+        @Override
+        void add(LocalData data, int field) {
+            ScanTokenizer tokenizer = data.tokenizer;
+            if (tokenizer.getFieldCount() == 0) {
+                addEmpty(data);
+            } else {
+                tokenizer.strip(field);
+                append(data, tokenizer.getString(field));
+            }
+        }
+
+        @Override
+        void addEmpty(LocalData data) {
+            append(data, "");
+        }
+
+        private void append(LocalData data, String item) {
+            if (length == vec.getLength()) {
+                vec = vec.copyResized(newCapacity(length), false);
+            }
+            vec.updateDataAtAsObject(length++, extractItem(vec, item, data), naCheck);
+        }
+
+        @Override
+        RVector<?> finish() {
+            return vec.getLength() > length ? vec.copyResized(length, false) : vec;
+        }
     }
 
     // If mode = 0 use for numeric fields where "" is NA
     // If mode = 1 use for character fields where "" is verbatim unless
     // na.strings includes ""
+    private static boolean isNaField(ScanTokenizer tokenizer, int field, int mode, LocalData data) {
+        if (mode == 0 && tokenizer.isEmpty(field)) {
+            return true;
+        }
+        for (int i = 0; i < data.naBytes.length; i++) {
+            if (tokenizer.fieldEquals(field, data.naBytes[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the blanks of a numeric field, which are only kept for character fields (see
+     * {@link ScanTokenizer#strip}), and checks if it is NA.
+     */
+    private static boolean isNumericNaField(ScanTokenizer tokenizer, int field, LocalData data) {
+        tokenizer.strip(field);
+        return isNaField(tokenizer, field, 0, data);
+    }
+
     private static boolean isNaString(String buffer, int mode, LocalData data) {
         int i;
 
@@ -72,11 +72,12 @@ public class SerializeFunctions {
     protected static Object doSerializeToConnBase(RBaseNode node, Object object, int connIndex, int type, @SuppressWarnings("unused") byte xdrLogical, @SuppressWarnings("unused") RNull version,
                     @SuppressWarnings("unused") RNull refhook) {
         // xdr is only relevant if ascii is false
-        try (RConnection openConn = RConnection.fromIndex(connIndex).forceOpen(type != RSerialize.XDR ? "wt" : "wb")) {
+        boolean binary = type != RSerialize.ASCII && type != RSerialize.ASCII_HEX;
+        try (RConnection openConn = RConnection.fromIndex(connIndex).forceOpen(binary ? "wb" : "wt")) {
             if (!openConn.canWrite()) {
                 throw node.error(RError.Message.CONNECTION_NOT_OPEN_WRITE);
             }
-            if (type == RSerialize.XDR && openConn.isTextMode()) {
+            if (binary && openConn.isTextMode()) {
                 throw node.error(RError.Message.BINARY_CONNECTION_REQUIRED);
             }
             RSerialize.serialize(openConn, object, type, RSerialize.DEFAULT_VERSION, null);
@@ -196,10 +197,8 @@ public class SerializeFunctions {
 
         @Specialization
         protected Object serializeB(Object object, int conn, byte xdrLogical, RNull version, RNull refhook) {
-            if (!RRuntime.fromLogical(xdrLogical)) {
-                throw RError.nyi(this, "xdr==FALSE");
-            }
-            return doSerializeToConnBase(this, object, conn, RRuntime.LOGICAL_FALSE, xdrLogical, version, refhook);
+            int type = RRuntime.fromLogical(xdrLogical) ? RSerialize.XDR : RSerialize.BINARY;
+            return doSerializeToConnBase(this, object, conn, type, xdrLogical, version, refhook);
         }
     }
 }
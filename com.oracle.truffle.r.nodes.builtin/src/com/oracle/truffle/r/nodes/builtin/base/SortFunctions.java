@@ -44,6 +44,7 @@ import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.r.nodes.builtin.NodeWithArgumentCasts.Casts;
 import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
+import com.oracle.truffle.r.nodes.unary.CastToVectorNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
@@ -60,6 +61,7 @@ import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractListVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 
 /**
  * The internal functions mandated by {@code base/sort.R}. N.B. We use the standard JDK sorting
@@ -264,12 +266,14 @@ public class SortFunctions {
     /**
      * This a helper function for the code in sort.R. It does NOT return the input vectors sorted,
      * but returns an {@link RIntVector} of indices (positions) indicating the sort order (Or
-     * {@link RNull#instance} if no vectors). In short it is a special variant of {@code order}. For
-     * now we delegate to {@code order} and do not implement the {@code retgrp} argument.
+     * {@link RNull#instance} if no vectors). In short it is a special variant of {@code order}. The
+     * actual work is done by {@link RadixOrder}. If {@code retgrp} is {@code TRUE}, the result also
+     * carries the {@code starts} and {@code maxgrpn} attributes describing the groups of equal
+     * elements.
      */
     @RBuiltin(name = "radixsort", kind = INTERNAL, parameterNames = {"na.last", "decreasing", "retgrp", "sortstr", "..."}, behavior = PURE)
     public abstract static class RadixSort extends RBuiltinNode.Arg5 {
-        @Child private Order orderNode = OrderNodeGen.create();
+        @Child private CastToVectorNode castVector = CastToVectorNode.create();
 
         static {
             Casts casts = new Casts(RadixSort.class);
@@ -279,14 +283,8 @@ public class SortFunctions {
             casts.arg("sortstr").asLogicalVector().findFirst().map(toBoolean());
         }
 
-        @SuppressWarnings("unused")
         @Specialization
         protected Object radixSort(byte naLast, RAbstractLogicalVector decreasingVec, boolean retgrp, boolean sortstr, RArgsValuesAndNames zz) {
-            // Partial implementation just to get startup to work
-            if (retgrp) {
-                // sortstr only has an effect when retrgrp == true
-                throw RError.nyi(this, "radixsort: retgrp == TRUE not implemented");
-            }
             int nargs = zz.getLength();
             if (nargs == 0) {
                 return RNull.instance;
@@ -294,25 +292,36 @@ public class SortFunctions {
             if (nargs != decreasingVec.getLength()) {
                 throw error(RError.Message.RADIX_SORT_DEC_MATCH);
             }
-            /*
-             * Order takes a single decreasing argument that applies to all the vectors. We
-             * potentially have a different value for each vector, so we have to process one by one.
-             * However, OrderNode can't yet handle that, so we abort if nargs > 1 and the decreasing
-             * values don't match.
-             */
-            byte lastdb = RRuntime.LOGICAL_NA;
+            boolean[] decreasing = new boolean[nargs];
             for (int i = 0; i < nargs; i++) {
                 byte db = decreasingVec.getDataAt(i);
                 if (RRuntime.isNA(db)) {
                     throw error(RError.Message.RADIX_SORT_DEC_NOT_LOGICAL);
                 }
-                if (lastdb != RRuntime.LOGICAL_NA && db != lastdb) {
-                    throw RError.nyi(this, "radixsort: args > 1 with differing 'decreasing' values not implemented");
+                decreasing[i] = RRuntime.fromLogical(db);
+            }
+            RAbstractVector[] vectors = new RAbstractVector[nargs];
+            for (int i = 0; i < nargs; i++) {
+                Object v = castVector.doCast(zz.getArgument(i));
+                if (!(v instanceof RAbstractIntVector || v instanceof RAbstractDoubleVector || v instanceof RAbstractLogicalVector || v instanceof RAbstractStringVector ||
+                                v instanceof RAbstractComplexVector)) {
+                    throw error(RError.Message.UNIMPLEMENTED_TYPE_IN_FUNCTION, ((RAbstractVector) v).getRType().getName(), "radixsort");
                 }
-                lastdb = db;
+                vectors[i] = (RAbstractVector) v;
+                if (vectors[i].getLength() != vectors[0].getLength()) {
+                    throw error(RError.Message.ARGUMENT_LENGTHS_DIFFER);
+                }
+            }
+            RadixOrder radixOrder = new RadixOrder(vectors, decreasing, naLast, retgrp, sortstr);
+            int[] order = radixOrder.execute();
+            for (int i = 0; i < order.length; i++) {
+                order[i]++;
+            }
+            RIntVector result = RDataFactory.createIntVector(order, RDataFactory.COMPLETE_VECTOR);
+            if (retgrp) {
+                result.setAttr("starts", RDataFactory.createIntVector(radixOrder.getStarts(), RDataFactory.COMPLETE_VECTOR));
+                result.setAttr("maxgrpn", radixOrder.getMaxGroupSize());
             }
-            boolean decreasing = RRuntime.fromLogical(decreasingVec.getDataAt(0));
-            Object result = orderNode.execute(naLast, decreasing, zz);
             return result;
         }
     }
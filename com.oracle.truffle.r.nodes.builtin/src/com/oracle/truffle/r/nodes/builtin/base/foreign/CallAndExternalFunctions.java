@@ -15,6 +15,7 @@ import static com.oracle.truffle.r.runtime.RVisibility.CUSTOM;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.COMPLEX;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -36,6 +37,8 @@ import com.oracle.truffle.r.library.methods.SlotFactory.R_getSlotNodeGen;
 import com.oracle.truffle.r.library.methods.SlotFactory.R_setSlotNodeGen;
 import com.oracle.truffle.r.library.methods.SubstituteDirectNodeGen;
 import com.oracle.truffle.r.library.parallel.ParallelFunctionsFactory.MCIsChildNodeGen;
+import com.oracle.truffle.r.library.parallel.ParallelFunctionsFactory.NextStreamNodeGen;
+import com.oracle.truffle.r.library.parallel.ParallelFunctionsFactory.NextSubStreamNodeGen;
 import com.oracle.truffle.r.library.stats.BinDist;
 import com.oracle.truffle.r.library.stats.CdistNodeGen;
 import com.oracle.truffle.r.library.stats.CompleteCases;
@@ -631,6 +634,10 @@ public class CallAndExternalFunctions {
                 // parallel
                 case "mc_is_child":
                     return MCIsChildNodeGen.create();
+                case "nextStream":
+                    return NextStreamNodeGen.create();
+                case "nextSubStream":
+                    return NextSubStreamNodeGen.create();
                 default:
                     return null;
             }
@@ -675,10 +682,46 @@ public class CallAndExternalFunctions {
             return callRFFINode.execute(nativeCallInfo, args.getArguments());
         }
 
+        protected NativeCallInfo lookupCallInfo(String symbol, DLL.RFindSymbolNode findSymbolNode) {
+            return lookupCallInfo(symbol, null, findSymbolNode);
+        }
+
+        protected NativeCallInfo lookupCallInfo(String symbol, String packageName, DLL.RFindSymbolNode findSymbolNode) {
+            return findNativeCallInfo(symbol, packageName, CallNST, "Call", findSymbolNode);
+        }
+
+        /**
+         * {@code .NAME = string}, no package specified, with the symbol resolved once per call site
+         * (until DLLs change, e.g., by {@code dyn.unload}).
+         */
+        @SuppressWarnings("unused")
+        @Specialization(limit = "2", guards = {"cachedSymbol.equals(symbol)", "symbolsUnchanged == getSymbolsUnchangedAssumption()"}, assumptions = "symbolsUnchanged")
+        protected Object callCachedFunction(String symbol, RArgsValuesAndNames args, RMissing packageName,
+                        @Cached("symbol") String cachedSymbol,
+                        @Cached("getSymbolsUnchangedAssumption()") Assumption symbolsUnchanged,
+                        @Cached("create()") DLL.RFindSymbolNode findSymbolNode,
+                        @Cached("lookupCallInfo(symbol, findSymbolNode)") NativeCallInfo nativeCallInfo) {
+            return callRFFINode.execute(nativeCallInfo, args.getArguments());
+        }
+
+        /**
+         * {@code .NAME = string, .PACKAGE = package}, with the symbol resolved once per call site.
+         */
+        @SuppressWarnings("unused")
+        @Specialization(limit = "2", guards = {"cachedSymbol.equals(symbol)", "cachedPackage.equals(packageName)", "symbolsUnchanged == getSymbolsUnchangedAssumption()"}, assumptions = "symbolsUnchanged")
+        protected Object callCachedFunctionWithPackage(String symbol, RArgsValuesAndNames args, String packageName,
+                        @Cached("symbol") String cachedSymbol,
+                        @Cached("packageName") String cachedPackage,
+                        @Cached("getSymbolsUnchangedAssumption()") Assumption symbolsUnchanged,
+                        @Cached("create()") DLL.RFindSymbolNode findSymbolNode,
+                        @Cached("lookupCallInfo(symbol, packageName, findSymbolNode)") NativeCallInfo nativeCallInfo) {
+            return callRFFINode.execute(nativeCallInfo, args.getArguments());
+        }
+
         /**
          * {@code .NAME = string}, no package specified.
          */
-        @Specialization
+        @Specialization(replaces = "callCachedFunction")
         protected Object callNamedFunction(String symbol, RArgsValuesAndNames args, @SuppressWarnings("unused") RMissing packageName,
                         @Cached("createRegisteredNativeSymbol(CallNST)") DLL.RegisteredNativeSymbol rns,
                         @Cached("create()") DLL.RFindSymbolNode findSymbolNode) {
@@ -689,7 +732,7 @@ public class CallAndExternalFunctions {
          * {@code .NAME = string, .PACKAGE = package}. An error if package provided and it does not
          * define that symbol.
          */
-        @Specialization
+        @Specialization(replaces = "callCachedFunctionWithPackage")
         protected Object callNamedFunctionWithPackage(String symbol, RArgsValuesAndNames args, String packageName,
                         @Cached("createRegisteredNativeSymbol(CallNST)") DLL.RegisteredNativeSymbol rns,
                         @Cached("create()") DLL.RFindSymbolNode findSymbolNode) {
@@ -793,14 +836,45 @@ public class CallAndExternalFunctions {
             return callRFFINode.execute(nativeCallInfo, new Object[]{list});
         }
 
-        @Specialization
+        protected NativeCallInfo lookupExternalInfo(String symbol, DLL.RFindSymbolNode findSymbolNode) {
+            return lookupExternalInfo(symbol, null, findSymbolNode);
+        }
+
+        protected NativeCallInfo lookupExternalInfo(String symbol, String packageName, DLL.RFindSymbolNode findSymbolNode) {
+            return findNativeCallInfo(symbol, packageName, ExternalNST, "External", findSymbolNode);
+        }
+
+        @SuppressWarnings("unused")
+        @Specialization(limit = "2", guards = {"cachedSymbol.equals(symbol)", "symbolsUnchanged == getSymbolsUnchangedAssumption()"}, assumptions = "symbolsUnchanged")
+        protected Object callCachedFunction(String symbol, RArgsValuesAndNames args, RMissing packageName,
+                        @Cached("symbol") String cachedSymbol,
+                        @Cached("getSymbolsUnchangedAssumption()") Assumption symbolsUnchanged,
+                        @Cached("create()") DLL.RFindSymbolNode findSymbolNode,
+                        @Cached("lookupExternalInfo(symbol, findSymbolNode)") NativeCallInfo nativeCallInfo) {
+            Object list = encodeArgumentPairList(args, symbol);
+            return callRFFINode.execute(nativeCallInfo, new Object[]{list});
+        }
+
+        @SuppressWarnings("unused")
+        @Specialization(limit = "2", guards = {"cachedSymbol.equals(symbol)", "cachedPackage.equals(packageName)", "symbolsUnchanged == getSymbolsUnchangedAssumption()"}, assumptions = "symbolsUnchanged")
+        protected Object callCachedFunctionWithPackage(String symbol, RArgsValuesAndNames args, String packageName,
+                        @Cached("symbol") String cachedSymbol,
+                        @Cached("packageName") String cachedPackage,
+                        @Cached("getSymbolsUnchangedAssumption()") Assumption symbolsUnchanged,
+                        @Cached("create()") DLL.RFindSymbolNode findSymbolNode,
+                        @Cached("lookupExternalInfo(symbol, packageName, findSymbolNode)") NativeCallInfo nativeCallInfo) {
+            Object list = encodeArgumentPairList(args, symbol);
+            return callRFFINode.execute(nativeCallInfo, new Object[]{list});
+        }
+
+        @Specialization(replaces = "callCachedFunction")
         protected Object callNamedFunction(String symbol, RArgsValuesAndNames args, @SuppressWarnings("unused") RMissing packageName,
                         @Cached("createRegisteredNativeSymbol(ExternalNST)") DLL.RegisteredNativeSymbol rns,
                         @Cached("create()") DLL.RFindSymbolNode findSymbolNode) {
             return callNamedFunctionWithPackage(symbol, args, null, rns, findSymbolNode);
         }
 
-        @Specialization
+        @Specialization(replaces = "callCachedFunctionWithPackage")
         protected Object callNamedFunctionWithPackage(String symbol, RArgsValuesAndNames args, String packageName,
                         @Cached("createRegisteredNativeSymbol(ExternalNST)") DLL.RegisteredNativeSymbol rns,
                         @Cached("create()") DLL.RFindSymbolNode findSymbolNode) {
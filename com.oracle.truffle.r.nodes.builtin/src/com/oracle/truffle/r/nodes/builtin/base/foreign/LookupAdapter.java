@@ -22,6 +22,7 @@
  */
 package com.oracle.truffle.r.nodes.builtin.base.foreign;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -178,6 +179,24 @@ abstract class LookupAdapter extends RBuiltinNode.Arg3 implements Lookup {
     protected static final int CallNST = DLL.NativeSymbolType.Call.ordinal();
     protected static final int ExternalNST = DLL.NativeSymbolType.External.ordinal();
 
+    protected static Assumption getSymbolsUnchangedAssumption() {
+        return DLL.getSymbolsUnchangedAssumption();
+    }
+
+    /**
+     * Finds the native routine {@code symbol} of the given type, in package {@code packageName} or
+     * in all packages if it is {@code null}, for the call sites that cache the result while
+     * {@link DLL#getSymbolsUnchangedAssumption()} holds.
+     */
+    protected final NativeCallInfo findNativeCallInfo(String symbol, String packageName, int nstOrd, String kind, DLL.RFindSymbolNode findSymbolNode) {
+        DLL.RegisteredNativeSymbol rns = createRegisteredNativeSymbol(nstOrd);
+        DLL.SymbolHandle func = findSymbolNode.execute(symbol, packageName, rns);
+        if (func == DLL.SYMBOL_NOT_FOUND) {
+            throw error(RError.Message.SYMBOL_NOT_IN_TABLE, symbol, kind, packageName);
+        }
+        return new NativeCallInfo(symbol, func, rns.getDllInfo());
+    }
+
     public static DLL.RegisteredNativeSymbol createRegisteredNativeSymbol(int nstOrd) {
         // DSL cannot resolve DLL.DLL.NativeSymbolType
         DLL.NativeSymbolType nst = DLL.NativeSymbolType.values()[nstOrd];
@@ -22,6 +22,7 @@ import com.oracle.truffle.r.nodes.builtin.RExternalBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RError.Message;
 import com.oracle.truffle.r.runtime.conn.RConnection;
+import com.oracle.truffle.r.runtime.conn.ScanTokenizer;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 
@@ -42,40 +43,24 @@ public abstract class ReadTableHead extends RExternalBuiltinNode.Arg7 {
     @TruffleBoundary
     public RAbstractStringVector read(int con, int nlines, String commentChar, boolean blankLinesSkip,
                     String quote, String sep, boolean skipNull) {
-        // TODO This is quite incomplete and just uses readLines, which works for some inputs
-        try (RConnection openConn = RConnection.fromIndex(con).forceOpen("r")) {
+        RConnection conn = RConnection.fromIndex(con);
+        boolean wasOpen = conn.isOpen();
+        try (RConnection openConn = conn.forceOpen("r")) {
+            int sepChar = sep.isEmpty() ? 0 : sep.charAt(0);
+            int comChar = commentChar.isEmpty() ? -1 : commentChar.charAt(0);
+            ScanTokenizer tokenizer = new ScanTokenizer(openConn, wasOpen, sepChar, quote, comChar, false, skipNull);
             List<String> lines = new ArrayList<>(nlines);
-            int totalLines = 0;
-            while (totalLines < nlines) {
-                String[] readLines = openConn.readLines(nlines - totalLines, true, skipNull);
-                if (readLines.length == 0) {
+            while (lines.size() < nlines) {
+                String line = tokenizer.readRawRecord(blankLinesSkip);
+                if (line == null) {
                     break;
                 }
-
-                for (int i = 0; i < readLines.length; i++) {
-                    postprocessLine(lines, readLines[i], commentChar, blankLinesSkip, quote, sep);
-                }
-                totalLines += lines.size();
+                lines.add(line);
             }
-
+            tokenizer.finish();
             return RDataFactory.createStringVector(lines.toArray(new String[0]), RDataFactory.COMPLETE_VECTOR);
         } catch (IOException ex) {
             throw error(RError.Message.ERROR_READING_CONNECTION, ex.getMessage());
         }
     }
-
-    private static void postprocessLine(List<String> lines, String string, String commentChar, boolean blankLinesSkip, @SuppressWarnings("unused") String quote,
-                    @SuppressWarnings("unused") String sep) {
-        // TODO quote, sep
-        if (blankLinesSkip && string.isEmpty()) {
-            return;
-        }
-
-        if (commentChar != null && !commentChar.isEmpty() && string.startsWith(commentChar)) {
-            return;
-        }
-
-        // no reason why not to add
-        lines.add(string);
-    }
 }
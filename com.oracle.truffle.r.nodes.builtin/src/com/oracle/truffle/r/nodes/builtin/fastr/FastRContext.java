@@ -50,6 +50,7 @@ import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RSource;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.context.ChildContextInfo;
+import com.oracle.truffle.r.runtime.context.ContextPool;
 import com.oracle.truffle.r.runtime.context.EvalThread;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.context.RContext.ConsoleIO;
@@ -59,9 +60,11 @@ import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RMissing;
 import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.rng.RRNG;
 
 /**
  * The FastR builtins that allow multiple "virtual" R sessions potentially executing in parallel.
@@ -97,6 +100,23 @@ public class FastRContext {
         }
     }
 
+    /**
+     * Returns the id and the kind of the current context and whether only shared contexts (i.e.,
+     * {@link ContextKind#SHARE_ALL}) may be created, see {@link FastROptions#SharedContexts}.
+     */
+    @RBuiltin(name = ".fastr.context.info", kind = PRIMITIVE, parameterNames = {}, behavior = READS_STATE)
+    public abstract static class Info extends RBuiltinNode.Arg0 {
+        private static final RStringVector NAMES = RDataFactory.createStringVector(new String[]{"id", "kind", "sharedContexts"}, RDataFactory.COMPLETE_VECTOR);
+
+        @Specialization
+        @TruffleBoundary
+        protected RList info() {
+            RContext context = RContext.getInstance();
+            Object[] data = new Object[]{context.getId(), context.getKind().name(), RRuntime.asLogical(FastROptions.SharedContexts.getBooleanValue())};
+            return RDataFactory.createList(data, NAMES);
+        }
+    }
+
     private static void handleSharedContexts(ContextKind contextKind) {
         if (contextKind == ContextKind.SHARE_ALL && EvalThread.threadCnt.get() == 0) {
             RContext current = RContext.getInstance();
@@ -144,7 +164,7 @@ public class FastRContext {
             // first, create context infos
             ChildContextInfo[] childContextInfos = new ChildContextInfo[length];
             for (int i = 0; i < length; i++) {
-                childContextInfos[i] = createContextInfo(contextKind);
+                childContextInfos[i] = createContextInfo(contextKind, !FastROptions.SpawnUsesPolyglot.getBooleanValue());
                 data[i] = childContextInfos[i].getId();
                 multiSlotIndices[i] = childContextInfos[i].getMultiSlotInd();
             }
@@ -210,6 +230,25 @@ public class FastRContext {
         }
     }
 
+    /**
+     * Returns the statistics of the {@link ContextPool} of the current context: the number of
+     * contexts taken from the pool ("hits") and of the requests for which it had no idle context
+     * ("misses"), the number of child contexts created and the total time (in seconds) their
+     * creation and initialization took, and the number of idle contexts in the pool.
+     */
+    @RBuiltin(name = ".fastr.context.pool.stats", kind = PRIMITIVE, parameterNames = {}, behavior = READS_STATE)
+    public abstract static class PoolStats extends RBuiltinNode.Arg0 {
+        private static final RStringVector NAMES = RDataFactory.createStringVector(new String[]{"hits", "misses", "created", "creationTime", "idle"}, RDataFactory.COMPLETE_VECTOR);
+
+        @Specialization
+        @TruffleBoundary
+        protected RList poolStats() {
+            ContextPool pool = RContext.getInstance().contextPool;
+            Object[] data = new Object[]{(double) pool.getHits(), (double) pool.getMisses(), (double) pool.getCreated(), pool.getCreationNanos() / 1e9, pool.getIdle()};
+            return RDataFactory.createList(data, NAMES);
+        }
+    }
+
     /**
      * Evaluate expressions in {@code pc} new contexts of type {@code kind}, with the expression
      * taken from the expression in the usual R repeating mode. The invoking context (thread) waits
@@ -246,15 +285,15 @@ public class FastRContext {
             int length = exprs.getLength();
             Object[] results = new Object[length];
             if (length == 1) {
-                ChildContextInfo info = createContextInfo(contextKind);
-                TruffleContext truffleContext = info.createTruffleContext();
+                ChildContextInfo info = createContextInfo(contextKind, true);
+                TruffleContext truffleContext = info.getOrCreateTruffleContext();
                 results[0] = EvalThread.run(truffleContext, info, RSource.fromTextInternalInvisible(exprs.getDataAt(0), RSource.Internal.CONTEXT_EVAL));
             } else {
                 // separate threads that run in parallel; invoking thread waits for completion
                 EvalThread[] threads = new EvalThread[length];
                 int[] multiSlotIndices = new int[length];
                 for (int i = 0; i < length; i++) {
-                    ChildContextInfo info = createContextInfo(contextKind);
+                    ChildContextInfo info = createContextInfo(contextKind, true);
                     threads[i] = new EvalThread(RContext.getInstance().threads, info, RSource.fromTextInternalInvisible(exprs.getDataAt(i % exprs.getLength()), RSource.Internal.CONTEXT_EVAL), false);
                     multiSlotIndices[i] = info.getMultiSlotInd();
                 }
@@ -353,10 +392,22 @@ public class FastRContext {
         return result;
     }
 
-    private static ChildContextInfo createContextInfo(RContext.ContextKind contextKind) {
+    /**
+     * If the current generator is L'Ecuyer-CMRG, every child context gets its own stream (see
+     * {@link RRNG#nextChildStream()}), so that parallel simulations are reproducible.
+     *
+     * @param poolable whether an idle context from the {@link ContextPool} may be used (only
+     *            possible if the context is going to be used via its {@link TruffleContext})
+     */
+    private static ChildContextInfo createContextInfo(RContext.ContextKind contextKind, boolean poolable) {
         RContext context = RContext.getInstance();
-        ConsoleIO console = context.getConsole();
-        return ChildContextInfo.createNoRestore(Client.RSCRIPT, null, contextKind, context, console.getStdin(), console.getStdout(), console.getStderr());
+        ChildContextInfo info = poolable ? context.contextPool.acquire(contextKind) : null;
+        if (info == null) {
+            ConsoleIO console = context.getConsole();
+            info = ChildContextInfo.createNoRestore(Client.RSCRIPT, null, contextKind, context, console.getStdin(), console.getStdout(), console.getStderr());
+        }
+        info.setRNGStream(RRNG.nextChildStream());
+        return info;
     }
 
     @RBuiltin(name = ".fastr.channel.create", kind = PRIMITIVE, parameterNames = {"key"}, behavior = COMPLEX)
@@ -94,6 +94,7 @@ import com.oracle.truffle.r.runtime.interop.ForeignArray2R;
 import com.oracle.truffle.r.runtime.interop.ForeignArray2RNodeGen;
 import com.oracle.truffle.r.runtime.interop.R2Foreign;
 import com.oracle.truffle.r.runtime.interop.R2ForeignNodeGen;
+import com.oracle.truffle.r.runtime.interop.VectorExport;
 
 public class FastRInterop {
 
@@ -585,46 +586,59 @@ public class FastRInterop {
 
         @Specialization
         @TruffleBoundary
-        public Object toArray(RAbstractLogicalVector vec, @SuppressWarnings("unused") RMissing className, boolean flat,
-                        @Cached("createR2Foreign()") R2Foreign r2Foreign) {
-            return toArray(vec, flat, boolean.class, (array, i) -> Array.set(array, i, r2Foreign.execute(vec.getDataAt(i))));
+        public Object toArray(RAbstractLogicalVector vec, @SuppressWarnings("unused") RMissing className, boolean flat) {
+            return toPrimitiveArray(vec, flat, boolean.class);
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractLogicalVector vec, String className, boolean flat,
                         @Cached("createR2Foreign()") R2Foreign r2Foreign) {
-            return toArray(vec, flat, getClazz(className), (array, i) -> Array.set(array, i, r2Foreign.execute(vec.getDataAt(i))));
+            Class<?> clazz = getClazz(className);
+            if (clazz.isPrimitive()) {
+                return toPrimitiveArray(vec, flat, clazz);
+            }
+            return toArray(vec, flat, clazz, (array, i) -> Array.set(array, i, r2Foreign.execute(vec.getDataAt(i))));
         }
 
         @Specialization
         @TruffleBoundary
-        public Object toArray(RAbstractIntVector vec, @SuppressWarnings("unused") RMissing className, boolean flat,
-                        @Cached("createR2Foreign()") R2Foreign r2Foreign) {
-            return toArray(vec, flat, int.class, (array, i) -> Array.set(array, i, r2Foreign.execute(vec.getDataAt(i))));
+        public Object toArray(RAbstractIntVector vec, @SuppressWarnings("unused") RMissing className, boolean flat) {
+            return toPrimitiveArray(vec, flat, int.class);
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractIntVector vec, String className, boolean flat) {
-            return toArray(vec, flat, getClazz(className), (array, i) -> Array.set(array, i, vec.getDataAt(i)));
+            Class<?> clazz = getClazz(className);
+            if (clazz.isPrimitive()) {
+                return toPrimitiveArray(vec, flat, clazz);
+            }
+            return toArray(vec, flat, clazz, (array, i) -> Array.set(array, i, vec.getDataAt(i)));
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractDoubleVector vec, @SuppressWarnings("unused") RMissing className, boolean flat) {
-            return toArray(vec, flat, double.class, (array, i) -> Array.set(array, i, vec.getDataAt(i)));
+            return toPrimitiveArray(vec, flat, double.class);
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractDoubleVector vec, String className, boolean flat) {
-            return toArray(vec, flat, getClazz(className), (array, i) -> Array.set(array, i, vec.getDataAt(i)));
+            Class<?> clazz = getClazz(className);
+            if (clazz.isPrimitive()) {
+                return toPrimitiveArray(vec, flat, clazz);
+            }
+            return toArray(vec, flat, clazz, (array, i) -> Array.set(array, i, vec.getDataAt(i)));
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractStringVector vec, @SuppressWarnings("unused") RMissing className, boolean flat) {
+            if (isOneDimensional(flat, vec)) {
+                return JavaInterop.asTruffleObject(VectorExport.toJavaArray(vec));
+            }
             return toArray(vec, flat, String.class, (array, i) -> Array.set(array, i, vec.getDataAt(i)));
         }
 
@@ -637,13 +651,17 @@ public class FastRInterop {
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractRawVector vec, @SuppressWarnings("unused") RMissing className, boolean flat) {
-            return toArray(vec, flat, byte.class, (array, i) -> Array.set(array, i, vec.getDataAt(i).getValue()));
+            return toPrimitiveArray(vec, flat, byte.class);
         }
 
         @Specialization
         @TruffleBoundary
         public Object toArray(RAbstractRawVector vec, String className, boolean flat) {
-            return toArray(vec, flat, getClazz(className), (array, i) -> Array.set(array, i, vec.getDataAt(i).getValue()));
+            Class<?> clazz = getClazz(className);
+            if (clazz.isPrimitive()) {
+                return toPrimitiveArray(vec, flat, clazz);
+            }
+            return toArray(vec, flat, clazz, (array, i) -> Array.set(array, i, vec.getDataAt(i).getValue()));
         }
 
         @Specialization(guards = "!isJavaLikeVector(vec)")
@@ -693,17 +711,30 @@ public class FastRInterop {
             return dims;
         }
 
+        /**
+         * One-dimensional arrays of the vector's own element type are copied in bulk by
+         * {@link VectorExport#toJavaArray(RAbstractVector)}.
+         */
+        private static boolean isOneDimensional(boolean flat, RAbstractVector vec) {
+            return getDim(flat, vec).length == 1;
+        }
+
+        /**
+         * Converts a double, integer, logical or raw vector to an array of a primitive type without
+         * boxing the elements, see {@link VectorExport#toJavaArray(RAbstractVector, Class, int[])}.
+         */
+        private static Object toPrimitiveArray(RAbstractVector vec, boolean flat, Class<?> clazz) {
+            return JavaInterop.asTruffleObject(VectorExport.toJavaArray(vec, clazz, getDim(flat, vec)));
+        }
+
         private static Object toArray(RAbstractVector vec, boolean flat, Class<?> clazz, VecElementToArray vecToArray) throws IllegalArgumentException, ArrayIndexOutOfBoundsException {
             int[] dims = getDim(flat, vec);
-            final Object array = Array.newInstance(clazz, dims);
-            for (int d = 0; d < dims.length; d++) {
-                int dim = dims[d];
-                // TODO works only for flat
-                for (int i = 0; i < dim; i++) {
-                    vecToArray.toArray(array, i);
-                }
+            // the elements are set in R's order and rearranged for more than one dimension
+            final Object array = Array.newInstance(clazz, vec.getLength());
+            for (int i = 0; i < vec.getLength(); i++) {
+                vecToArray.toArray(array, i);
             }
-            return JavaInterop.asTruffleObject(array);
+            return JavaInterop.asTruffleObject(VectorExport.reshape(array, clazz, dims));
         }
 
         private interface VecElementToArray {
@@ -760,6 +791,28 @@ public class FastRInterop {
         }
     }
 
+    @RBuiltin(name = "as.java.buffer", visibility = ON, kind = PRIMITIVE, parameterNames = {"x"}, behavior = COMPLEX)
+    public abstract static class ToJavaBuffer extends RBuiltinNode.Arg1 {
+
+        static {
+            Casts.noCasts(ToJavaBuffer.class);
+        }
+
+        @Specialization(guards = "isBufferable(vec)")
+        public Object toBuffer(RAbstractVector vec) {
+            return JavaInterop.asTruffleObject(VectorExport.asReadOnlyBuffer(vec));
+        }
+
+        protected static boolean isBufferable(RAbstractVector vec) {
+            return VectorExport.isBufferable(vec);
+        }
+
+        @Fallback
+        public Object toBuffer(@SuppressWarnings("unused") Object x) {
+            throw error(RError.Message.GENERIC, "unsupported type");
+        }
+    }
+
     @ImportStatic({Message.class, RRuntime.class})
     @RBuiltin(name = ".fastr.interop.fromArray", visibility = ON, kind = PRIMITIVE, parameterNames = {"array"}, behavior = COMPLEX)
     public abstract static class FromForeignArray extends RBuiltinNode.Arg1 {
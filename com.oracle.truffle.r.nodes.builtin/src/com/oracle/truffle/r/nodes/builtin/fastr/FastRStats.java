@@ -26,6 +26,7 @@ import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.stringValue;
 import static com.oracle.truffle.r.nodes.builtin.CastBuilder.Predef.toBoolean;
 import static com.oracle.truffle.r.runtime.RVisibility.OFF;
 import static com.oracle.truffle.r.runtime.builtins.RBehavior.COMPLEX;
+import static com.oracle.truffle.r.runtime.builtins.RBehavior.READS_STATE;
 import static com.oracle.truffle.r.runtime.builtins.RBuiltinKind.PRIMITIVE;
 
 import java.io.FileOutputStream;
@@ -47,12 +48,15 @@ import com.oracle.truffle.r.nodes.builtin.RBuiltinNode;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.RegExpCache;
 import com.oracle.truffle.r.runtime.builtins.RBuiltin;
 import com.oracle.truffle.r.runtime.context.RContext;
 import com.oracle.truffle.r.runtime.data.AttributeTracer;
 import com.oracle.truffle.r.runtime.data.AttributeTracer.Change;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.data.RTypedValue;
 import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
@@ -435,4 +439,21 @@ public class FastRStats {
             }
         }
     }
+
+    /**
+     * Returns the number of hits and misses of the compiled regular expression cache of the
+     * current context (see {@link RegExpCache}) and the number of patterns it holds.
+     */
+    @RBuiltin(name = ".fastr.stats.regexp", kind = PRIMITIVE, parameterNames = {}, behavior = READS_STATE)
+    public abstract static class FastRStatsRegExp extends RBuiltinNode.Arg0 {
+        private static final RStringVector NAMES = RDataFactory.createStringVector(new String[]{"hits", "misses", "size"}, RDataFactory.COMPLETE_VECTOR);
+
+        @Specialization
+        @TruffleBoundary
+        protected RList regExpStats() {
+            RegExpCache cache = RContext.getInstance().regExpCache;
+            Object[] data = new Object[]{(double) cache.getHits(), (double) cache.getMisses(), cache.getSize()};
+            return RDataFactory.createList(data, NAMES);
+        }
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.ffi.impl.managed;
+
+import java.util.Random;
+
+/**
+ * Times the blocked Java LAPACK factorizations on random {@code n x n} matrices, e.g.
+ * {@code mx java -cp <classpath> com.oracle.truffle.r.ffi.impl.managed.JavaLapackBenchmark 2000 5}
+ * prints the times of {@code dgesv}, {@code dpotrf} and {@code dgeqp3} for {@code n = 2000} in five
+ * iterations (the first ones include the warmup).
+ */
+public final class JavaLapackBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Random random = new Random(42);
+        double[] a = new double[n * n];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextGaussian();
+        }
+        // A^T * A + n * I is positive definite
+        double[] spd = new double[n * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i <= j; i++) {
+                double x = 0;
+                for (int k = 0; k < n; k++) {
+                    x += a[i * n + k] * a[j * n + k];
+                }
+                spd[j * n + i] = x;
+                spd[i * n + j] = x;
+            }
+            spd[j * n + j] += n;
+        }
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = random.nextGaussian();
+        }
+        for (int i = 0; i < iterations; i++) {
+            double[] lu = a.clone();
+            long start = System.nanoTime();
+            JavaLapack.dgesv(n, 1, lu, n, new int[n], b.clone(), n);
+            long dgesv = System.nanoTime() - start;
+            double[] chol = spd.clone();
+            start = System.nanoTime();
+            JavaLapack.dpotrf('U', n, chol, n);
+            long dpotrf = System.nanoTime() - start;
+            double[] qr = a.clone();
+            double[] work = new double[3 * n + 1];
+            start = System.nanoTime();
+            JavaLapackQR.dgeqp3(n, n, qr, n, new int[n], new double[n], work, work.length);
+            long dgeqp3 = System.nanoTime() - start;
+            System.out.printf("%dx%d: dgesv %d ms, dpotrf %d ms, dgeqp3 %d ms%n", n, n, dgesv / 1000000, dpotrf / 1000000, dgeqp3 / 1000000);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.ffi.impl.managed;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the Java LAPACK routines of the managed RFFI against known results. All matrices are
+ * stored in column-major order, as in LAPACK.
+ */
+public class JavaLapackTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void testLinearSystems() {
+        // 2x + y + z = 5, 4x - 6y = -2, -2x + 7y + 2z = 9 with solutions (1, 1, 2) and (1, 2, 3)
+        double[] a = {2, 4, -2, 1, -6, 7, 1, 0, 2};
+        double[] b = {5, -2, 9, 7, -8, 18};
+        int[] ipiv = new int[3];
+        assertEquals(0, JavaLapack.dgesv(3, 2, a, 3, ipiv, b, 3));
+        assertArrayEquals(new double[]{1, 1, 2, 1, 2, 3}, b, DELTA);
+        // the largest element of the first column is the pivot
+        assertEquals(2, ipiv[0]);
+
+        // the second pivot of a singular matrix is exactly zero
+        double[] singular = {1, 2, 2, 4};
+        assertEquals(2, JavaLapack.dgetrf(2, 2, singular.clone(), 2, new int[2]));
+        assertEquals(2, JavaLapack.dgesv(2, 1, singular, 2, new int[2], new double[]{1, 2}, 2));
+    }
+
+    @Test
+    public void testTriangular() {
+        double[] a = {2, 0, 1, 4};
+        double[] b = {4, 8};
+        assertEquals(0, JavaLapack.dtrtrs('U', 'N', 'N', 2, 1, a, 2, b, 2));
+        assertArrayEquals(new double[]{1, 2}, b, DELTA);
+        b = new double[]{2, 9};
+        assertEquals(0, JavaLapack.dtrtrs('U', 'T', 'N', 2, 1, a, 2, b, 2));
+        assertArrayEquals(new double[]{1, 2}, b, DELTA);
+        assertEquals(2, JavaLapack.dtrtrs('U', 'N', 'N', 2, 1, new double[]{2, 0, 1, 0}, 2, new double[]{4, 8}, 2));
+    }
+
+    @Test
+    public void testCholesky() {
+        double[] upper = {4, 2, 2, 3};
+        assertEquals(0, JavaLapack.dpotrf('U', 2, upper, 2));
+        assertEquals(2, upper[0], DELTA);
+        assertEquals(1, upper[2], DELTA);
+        assertEquals(Math.sqrt(2), upper[3], DELTA);
+        // the inverse is (3, -2; -2, 4) / 8
+        assertEquals(0, JavaLapack.dpotri('U', 2, upper, 2));
+        assertEquals(0.375, upper[0], DELTA);
+        assertEquals(-0.25, upper[2], DELTA);
+        assertEquals(0.5, upper[3], DELTA);
+
+        double[] lower = {4, 2, 2, 3};
+        assertEquals(0, JavaLapack.dpotrf('L', 2, lower, 2));
+        assertEquals(2, lower[0], DELTA);
+        assertEquals(1, lower[1], DELTA);
+        assertEquals(Math.sqrt(2), lower[3], DELTA);
+
+        // not positive definite, the eigenvalues are 3 and -1
+        assertEquals(2, JavaLapack.dpotrf('U', 2, new double[]{1, 2, 2, 1}, 2));
+    }
+
+    @Test
+    public void testPivotedCholesky() {
+        // positive semidefinite of rank 1, the larger diagonal element is the first pivot
+        double[] a = {1, 2, 2, 4};
+        int[] piv = new int[2];
+        int[] rank = new int[1];
+        assertEquals(1, JavaLapack.dpstrf('U', 2, a, 2, piv, rank, -1, new double[4]));
+        assertEquals(1, rank[0]);
+        assertArrayEquals(new int[]{2, 1}, piv);
+        assertEquals(2, a[0], DELTA);
+        assertEquals(1, a[2], DELTA);
+    }
+
+    @Test
+    public void testNormAndCondition() {
+        double[] a = {1, 3, -2, 4};
+        double[] work = new double[2];
+        assertEquals(4, JavaLapack.dlange('M', 2, 2, a, 2, work), 0);
+        assertEquals(6, JavaLapack.dlange('O', 2, 2, a, 2, work), 0);
+        assertEquals(7, JavaLapack.dlange('I', 2, 2, a, 2, work), 0);
+        assertEquals(Math.sqrt(30), JavaLapack.dlange('F', 2, 2, a, 2, work), DELTA);
+
+        double[] diagonal = {2, 0, 0, 0.5};
+        double anorm = JavaLapack.dlange('O', 2, 2, diagonal, 2, work);
+        assertEquals(0, JavaLapack.dgetrf(2, 2, diagonal, 2, new int[2]));
+        double[] rcond = new double[1];
+        assertEquals(0, JavaLapack.dgecon('O', 2, diagonal, 2, anorm, rcond, new double[8], new int[2]));
+        assertEquals(0.25, rcond[0], DELTA);
+    }
+
+    @Test
+    public void testSymmetricEigen() {
+        double[] a = {2, 1, 1, 2};
+        int[] m = new int[1];
+        double[] w = new double[2];
+        double[] z = new double[4];
+        double[] work = new double[1];
+        int[] iwork = new int[1];
+        assertEquals(0, JavaLapackEigen.dsyevr('V', 'A', 'L', 2, a, 2, 0, 0, 0, 0, 0, m, w, z, 2, new int[4], work, -1, iwork, -1));
+        assertEquals(52, work[0], 0);
+        assertEquals(20, iwork[0]);
+
+        work = new double[52];
+        iwork = new int[20];
+        assertEquals(0, JavaLapackEigen.dsyevr('V', 'A', 'L', 2, a.clone(), 2, 0, 0, 0, 0, 0, m, w, z, 2, new int[4], work, 52, iwork, 20));
+        assertEquals(2, m[0]);
+        assertArrayEquals(new double[]{1, 3}, w, DELTA);
+        checkRealEigenvector(2, a, w[0], z, 0);
+        checkRealEigenvector(2, a, w[1], z, 2);
+
+        assertEquals(0, JavaLapackEigen.dsyevr('N', 'I', 'U', 2, a.clone(), 2, 0, 0, 2, 2, 0, m, w, z, 2, new int[4], work, 52, iwork, 20));
+        assertEquals(1, m[0]);
+        assertEquals(3, w[0], DELTA);
+        assertEquals(0, JavaLapackEigen.dsyevr('N', 'V', 'U', 2, a.clone(), 2, 0, 2, 0, 0, 0, m, w, z, 2, new int[4], work, 52, iwork, 20));
+        assertEquals(1, m[0]);
+        assertEquals(1, w[0], DELTA);
+    }
+
+    @Test
+    public void testGeneralEigen() {
+        double[] work = new double[1];
+        assertEquals(0, JavaLapackEigen.dgeev('N', 'V', 3, new double[9], 3, new double[3], new double[3], null, 1, new double[9], 3, work, -1));
+        assertEquals(12, work[0], 0);
+        assertEquals(0, JavaLapackEigen.dgeev('N', 'N', 3, new double[9], 3, new double[3], new double[3], null, 1, null, 1, work, -1));
+        assertEquals(9, work[0], 0);
+
+        // non-symmetric with the real eigenvalues 1 and 3
+        double[] wr = checkGeneralEigen(2, new double[]{1, 0, 2, 3});
+        Arrays.sort(wr);
+        assertArrayEquals(new double[]{1, 3}, wr, DELTA);
+
+        // rotation by 90 degrees, the eigenvalues are i and -i
+        double[] rotation = {0, 1, -1, 0};
+        double[] wi = new double[2];
+        wr = new double[2];
+        assertEquals(0, JavaLapackEigen.dgeev('N', 'V', 2, rotation.clone(), 2, wr, wi, null, 1, new double[4], 2, new double[8], 8));
+        assertArrayEquals(new double[]{0, 0}, wr, DELTA);
+        assertArrayEquals(new double[]{1, -1}, wi, DELTA);
+        checkGeneralEigen(2, rotation);
+
+        // the eigenvalues 1 + 2i, 1 - 2i and 3
+        checkGeneralEigen(3, new double[]{1, -2, 0, 2, 1, 0, 0, 0, 3});
+
+        Random random = new Random(42);
+        double[] a = new double[50 * 50];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextGaussian();
+        }
+        checkGeneralEigen(50, a);
+    }
+
+    @Test
+    public void testPivotedQR() {
+        double[] work = new double[1];
+        assertEquals(0, JavaLapackQR.dgeqp3(4, 3, new double[12], 4, new int[3], new double[3], work, -1));
+        assertEquals(10, work[0], 0);
+        assertEquals(0, JavaLapackQR.dormqr('L', 'N', 4, 2, 3, new double[12], 4, new double[3], new double[8], 4, work, -1));
+        assertEquals(2, work[0], 0);
+        assertEquals(0, JavaLapackQR.dormqr('R', 'N', 4, 3, 3, new double[9], 3, new double[3], new double[12], 4, work, -1));
+        assertEquals(4, work[0], 0);
+
+        // the second column is twice the first one, and has the larger norm
+        double[] deficient = {1, 2, 3, 2, 4, 6};
+        int[] jpvt = checkPivotedQR(3, 2, deficient);
+        assertArrayEquals(new int[]{2, 1}, jpvt);
+        assertEquals(Math.sqrt(56), Math.abs(deficient[0]), DELTA);
+        assertEquals(0, deficient[4], DELTA);
+
+        Random random = new Random(42);
+        double[] a = new double[20 * 7];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextGaussian();
+        }
+        checkPivotedQR(20, 7, a);
+    }
+
+    /**
+     * Factorizes {@code a} with {@code dgeqp3} and checks that {@code Q * R} reproduces the
+     * permuted columns of {@code a}, and that {@code Q^T} takes them back to {@code R}.
+     */
+    private static int[] checkPivotedQR(int m, int n, double[] a) {
+        double[] original = a.clone();
+        int[] jpvt = new int[n];
+        double[] tau = new double[Math.min(m, n)];
+        double[] work = new double[3 * n + 1 + m];
+        assertEquals(0, JavaLapackQR.dgeqp3(m, n, a, m, jpvt, tau, work, work.length));
+        double[] permuted = new double[m * n];
+        double[] r = new double[m * n];
+        for (int j = 0; j < n; j++) {
+            System.arraycopy(original, (jpvt[j] - 1) * m, permuted, j * m, m);
+            for (int i = 0; i <= j && i < m; i++) {
+                r[j * m + i] = a[j * m + i];
+            }
+        }
+        double[] c = r.clone();
+        assertEquals(0, JavaLapackQR.dormqr('L', 'N', m, n, tau.length, a, m, tau, c, m, work, work.length));
+        assertArrayEquals(permuted, c, 1e-10);
+        c = permuted.clone();
+        assertEquals(0, JavaLapackQR.dormqr('L', 'T', m, n, tau.length, a, m, tau, c, m, work, work.length));
+        assertArrayEquals(r, c, 1e-10);
+        return jpvt;
+    }
+
+    /**
+     * Computes the eigenvalues and right eigenvectors of {@code a} with {@code dgeev} and checks
+     * that {@code A * v = lambda * v} for all of them, and that the eigenvectors have unit norm.
+     * Returns the real parts of the eigenvalues.
+     */
+    private static double[] checkGeneralEigen(int n, double[] a) {
+        double[] wr = new double[n];
+        double[] wi = new double[n];
+        double[] vr = new double[n * n];
+        double[] work = new double[4 * n];
+        assertEquals(0, JavaLapackEigen.dgeev('N', 'V', n, a.clone(), n, wr, wi, null, 1, vr, n, work, work.length));
+        for (int j = 0; j < n; j++) {
+            if (wi[j] == 0) {
+                checkRealEigenvector(n, a, wr[j], vr, j * n);
+            } else {
+                // a complex conjugate pair, with the positive imaginary part first
+                assertTrue(wi[j] > 0);
+                assertEquals(wr[j], wr[j + 1], 0);
+                assertEquals(-wi[j], wi[j + 1], 0);
+                double[] re = Arrays.copyOfRange(vr, j * n, (j + 1) * n);
+                double[] im = Arrays.copyOfRange(vr, (j + 1) * n, (j + 2) * n);
+                double[] are = multiply(n, a, re);
+                double[] aim = multiply(n, a, im);
+                double norm = 0;
+                for (int i = 0; i < n; i++) {
+                    assertEquals(wr[j] * re[i] - wi[j] * im[i], are[i], 1e-10);
+                    assertEquals(wr[j] * im[i] + wi[j] * re[i], aim[i], 1e-10);
+                    norm += re[i] * re[i] + im[i] * im[i];
+                }
+                assertEquals(1, norm, 1e-10);
+                j++;
+            }
+        }
+        return wr;
+    }
+
+    private static void checkRealEigenvector(int n, double[] a, double lambda, double[] v, int off) {
+        double[] x = Arrays.copyOfRange(v, off, off + n);
+        double[] ax = multiply(n, a, x);
+        double norm = 0;
+        for (int i = 0; i < n; i++) {
+            assertEquals(lambda * x[i], ax[i], 1e-10);
+            norm += x[i] * x[i];
+        }
+        assertEquals(1, norm, 1e-10);
+    }
+
+    private static double[] multiply(int n, double[] a, double[] x) {
+        double[] result = new double[n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                result[i] += a[j * n + i] * x[j];
+            }
+        }
+        return result;
+    }
+}
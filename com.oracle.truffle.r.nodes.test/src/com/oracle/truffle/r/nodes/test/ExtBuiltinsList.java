@@ -45,6 +45,8 @@ public class ExtBuiltinsList {
                     com.oracle.truffle.r.library.utils.Crc64NodeGen.class,
                     com.oracle.truffle.r.library.utils.CountFields.class,
                     com.oracle.truffle.r.library.parallel.ParallelFunctionsFactory.MCIsChildNodeGen.class,
+                    com.oracle.truffle.r.library.parallel.ParallelFunctionsFactory.NextStreamNodeGen.class,
+                    com.oracle.truffle.r.library.parallel.ParallelFunctionsFactory.NextSubStreamNodeGen.class,
                     com.oracle.truffle.r.nodes.builtin.base.foreign.WriteTableNodeGen.class,
                     com.oracle.truffle.r.nodes.builtin.base.foreign.ReadTableHeadNodeGen.class,
                     com.oracle.truffle.r.nodes.builtin.base.foreign.MakeQuartzDefault.class,
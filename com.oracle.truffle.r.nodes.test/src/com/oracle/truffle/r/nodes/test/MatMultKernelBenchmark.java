@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.test;
+
+import java.util.Random;
+
+import com.oracle.truffle.r.nodes.builtin.base.MatMultKernel;
+
+/**
+ * Times the sequential and the parallel matrix multiplication kernel on random matrices, e.g.
+ * {@code mx java -cp <classpath> com.oracle.truffle.r.nodes.test.MatMultKernelBenchmark 2000 5}
+ * multiplies two {@code 2000 x 2000} matrices five times with each kernel. An optional third
+ * argument sets the number of rows of the left matrix, e.g. {@code 2000 5 32} for a wide product.
+ */
+public final class MatMultKernelBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : n;
+        Random random = new Random(42);
+        double[] a = new double[rows * n];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextGaussian();
+        }
+        double[] b = new double[n * n];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = random.nextGaussian();
+        }
+        for (int i = 0; i < iterations; i++) {
+            double[] result = new double[rows * n];
+            long start = System.nanoTime();
+            MatMultKernel.multiplySequential(a, b, result, rows, n, n, 1, rows, 1, n, false);
+            long sequential = System.nanoTime() - start;
+            result = new double[rows * n];
+            start = System.nanoTime();
+            MatMultKernel.multiplyParallel(a, b, result, rows, n, n, 1, rows, 1, n, false);
+            long parallel = System.nanoTime() - start;
+            System.out.printf("%dx%d * %dx%d: sequential %d ms, parallel %d ms%n", rows, n, n, n, sequential / 1000000, parallel / 1000000);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.nodes.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.nodes.builtin.base.MatMultKernel;
+import com.oracle.truffle.r.runtime.FastROptions;
+
+/**
+ * Checks that the parallel matrix multiplication kernel computes bit-identical results to the
+ * sequential blocked loop, and that both agree with the textbook triple loop.
+ */
+public class MatMultKernelTest {
+
+    private static double[] random(Random random, int length) {
+        double[] result = new double[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = random.nextGaussian();
+        }
+        return result;
+    }
+
+    /**
+     * Checks {@code result} against the naive product of the {@code aRows x aCols} matrix
+     * {@code a} (given with strides) and the {@code aCols x bCols} matrix {@code b}, up to the
+     * rounding errors of a different summation order. Only the upper triangle is checked for
+     * {@code mirrored} products.
+     */
+    private static void assertNaive(double[] a, double[] b, double[] result, int aRows, int aCols, int bCols, int aRowStride, int aColStride, int bRowStride, int bColStride, boolean mirrored) {
+        for (int col = 0; col < bCols; col++) {
+            for (int row = 0; row < (mirrored ? col + 1 : aRows); row++) {
+                double x = 0;
+                double magnitude = 0;
+                for (int k = 0; k < aCols; k++) {
+                    double product = a[row * aRowStride + k * aColStride] * b[k * bRowStride + col * bColStride];
+                    x += product;
+                    magnitude += Math.abs(product);
+                }
+                assertEquals(x, result[col * aRows + row], 1e-14 * aCols * magnitude);
+            }
+        }
+    }
+
+    @Test
+    public void testMultiply() {
+        Random random = new Random(42);
+        // including wide products with fewer rows than a block, which are split into column panels
+        int[][] sizes = {{65, 1, 65}, {100, 200, 3}, {257, 130, 199}, {640, 64, 128}, {300, 400, 500}, {1, 300, 700}, {40, 250, 1000}};
+        for (int[] size : sizes) {
+            int aRows = size[0];
+            int aCols = size[1];
+            int bCols = size[2];
+            double[] a = random(random, aRows * aCols);
+            double[] b = random(random, aCols * bCols);
+            double[] sequential = new double[aRows * bCols];
+            double[] parallel = new double[aRows * bCols];
+            MatMultKernel.multiplySequential(a, b, sequential, aRows, aCols, bCols, 1, aRows, 1, aCols, false);
+            MatMultKernel.multiplyParallel(a, b, parallel, aRows, aCols, bCols, 1, aRows, 1, aCols, false);
+            assertArrayEquals(sequential, parallel, 0);
+            assertNaive(a, b, parallel, aRows, aCols, bCols, 1, aRows, 1, aCols, false);
+        }
+    }
+
+    @Test
+    public void testCrossprod() {
+        Random random = new Random(42);
+        int rows = 150;
+        int cols = 333;
+        // crossprod(x) == t(x) %*% x, only the upper triangle is computed
+        double[] x = random(random, rows * cols);
+        double[] sequential = new double[cols * cols];
+        double[] parallel = new double[cols * cols];
+        MatMultKernel.multiplySequential(x, x, sequential, cols, rows, cols, rows, 1, 1, rows, true);
+        MatMultKernel.multiplyParallel(x, x, parallel, cols, rows, cols, rows, 1, 1, rows, true);
+        assertArrayEquals(sequential, parallel, 0);
+        assertNaive(x, x, parallel, cols, rows, cols, rows, 1, 1, rows, true);
+    }
+
+    @Test
+    public void testUseParallel() {
+        int threshold = FastROptions.MatMultParallelThreshold.getNonNegativeIntValue();
+        FastROptions.setValue("MatMultParallelThreshold", 1);
+        try {
+            boolean parallel = ForkJoinPool.getCommonPoolParallelism() > 1;
+            assertEquals(parallel, MatMultKernel.useParallel(1000, 1000, 1));
+            assertEquals(parallel, MatMultKernel.useParallel(8, 1000, 1000));
+            // a single block cannot be split
+            assertEquals(false, MatMultKernel.useParallel(64, 10000, 64));
+        } finally {
+            FastROptions.setValue("MatMultParallelThreshold", threshold);
+        }
+    }
+}
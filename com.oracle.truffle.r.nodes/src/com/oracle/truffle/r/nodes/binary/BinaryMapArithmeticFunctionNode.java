@@ -28,6 +28,7 @@ import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector.BinaryOperation;
 import com.oracle.truffle.r.runtime.data.RDoubleSequence;
 import com.oracle.truffle.r.runtime.data.RIntSequence;
 import com.oracle.truffle.r.runtime.data.RSequence;
@@ -72,6 +73,21 @@ public final class BinaryMapArithmeticFunctionNode extends BinaryMapNAFunctionNo
         return null;
     }
 
+    @Override
+    public BinaryOperation getDeferredOperation() {
+        // these cannot raise errors or warnings on doubles
+        if (arithmetic instanceof Add) {
+            return BinaryOperation.ADD;
+        } else if (arithmetic instanceof Subtract) {
+            return BinaryOperation.SUBTRACT;
+        } else if (arithmetic instanceof Multiply) {
+            return BinaryOperation.MULTIPLY;
+        } else if (arithmetic instanceof Div) {
+            return BinaryOperation.DIVIDE;
+        }
+        return null;
+    }
+
     private boolean isSequenceMulArithmetic() {
         return arithmetic instanceof Multiply || arithmetic instanceof IntegerDiv || arithmetic instanceof Div;
     }
@@ -24,6 +24,8 @@ package com.oracle.truffle.r.nodes.primitive;
 
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector.BinaryOperation;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 
@@ -94,6 +96,14 @@ public abstract class BinaryMapFunctionNode extends RBaseNode {
         return null;
     }
 
+    /**
+     * Returns the operation on doubles that an {@link RDoubleExpressionVector} may compute in place
+     * of this node, or <code>null</code> if the result cannot be deferred.
+     */
+    public BinaryOperation getDeferredOperation() {
+        return null;
+    }
+
     /**
      * Enables the node for the two operation. Invoked once for each BinaryMap operation invocation.
      */
@@ -32,12 +32,15 @@ import com.oracle.truffle.r.nodes.attributes.HasFixedAttributeNode;
 import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.GetDimAttributeNode;
 import com.oracle.truffle.r.nodes.primitive.BinaryMapNodeFactory.VectorMapBinaryInternalNodeGen;
 import com.oracle.truffle.r.nodes.profile.VectorLengthProfile;
+import com.oracle.truffle.r.runtime.FastROptions;
 import com.oracle.truffle.r.runtime.RError;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.Utils;
 import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector.BinaryOperation;
 import com.oracle.truffle.r.runtime.data.RRaw;
 import com.oracle.truffle.r.runtime.data.RScalarVector;
 import com.oracle.truffle.r.runtime.data.RShareable;
@@ -57,6 +60,8 @@ import com.oracle.truffle.r.runtime.nodes.RBaseNode;
  * is provided using a {@link BinaryMapFunctionNode}.
  *
  * The implementation tries to share input vectors if they are implementing {@link RShareable}.
+ * Large double results may be computed lazily, see {@link FastROptions#DeferredArithmeticThreshold}
+ * and {@link RDoubleExpressionVector}.
  */
 public final class BinaryMapNode extends RBaseNode {
 
@@ -80,6 +85,8 @@ public final class BinaryMapNode extends RBaseNode {
     private final ConditionProfile seenEmpty = ConditionProfile.createBinaryProfile();
     private final ConditionProfile shareLeft;
     private final ConditionProfile shareRight;
+    private final ConditionProfile deferProfile;
+    private final BinaryOperation deferredOperation;
     private final RType argumentType;
     private final RType resultType;
 
@@ -89,6 +96,7 @@ public final class BinaryMapNode extends RBaseNode {
     private final boolean mayFoldConstantTime;
     private final boolean mayShareLeft;
     private final boolean mayShareRight;
+    private final int deferThreshold;
 
     private BinaryMapNode(BinaryMapFunctionNode function, RAbstractVector left, RAbstractVector right, RType argumentType, RType resultType, boolean copyAttributes) {
         this.function = function;
@@ -105,11 +113,14 @@ public final class BinaryMapNode extends RBaseNode {
         this.argumentType = argumentType;
         this.resultType = resultType;
         this.maxLengthProfile = ConditionProfile.createBinaryProfile();
+        this.deferredOperation = resultType == RType.Double && argumentType == RType.Double && !scalarTypes ? function.getDeferredOperation() : null;
+        this.deferThreshold = deferredOperation != null ? FastROptions.DeferredArithmeticThreshold.getNonNegativeIntValue() : 0;
 
         // lazily create profiles only if needed to avoid unnecessary allocations
         this.shareLeft = mayShareLeft ? ConditionProfile.createBinaryProfile() : null;
         this.shareRight = mayShareRight ? ConditionProfile.createBinaryProfile() : null;
         this.dimensionsProfile = mayContainMetadata ? ConditionProfile.createBinaryProfile() : null;
+        this.deferProfile = deferThreshold > 0 ? ConditionProfile.createBinaryProfile() : null;
 
         this.copyAttributes = mayContainMetadata ? CopyAttributesNodeGen.create(copyAttributes) : null;
     }
@@ -251,6 +262,10 @@ public final class BinaryMapNode extends RBaseNode {
         }
         if (target == null) {
             int maxLength = maxLengthProfile.profile(leftLength >= rightLength) ? leftLength : rightLength;
+            if (deferThreshold > 0 && deferProfile.profile(canDefer(left, leftLength, right, rightLength, maxLength))) {
+                // no attributes to copy
+                return RDoubleExpressionVector.createBinary(deferredOperation, left, (RAbstractDoubleVector) leftCast, leftLength, right, (RAbstractDoubleVector) rightCast, rightLength, maxLength);
+            }
             target = createOrShareVector(leftLength, left, rightLength, right, maxLength);
             Object store = target.getInternalStore();
 
@@ -270,11 +285,19 @@ public final class BinaryMapNode extends RBaseNode {
         return target;
     }
 
+    private boolean canDefer(RAbstractVector left, int leftLength, RAbstractVector right, int rightLength, int maxLength) {
+        return maxLength >= deferThreshold && (leftLength == rightLength || leftLength == 1 || rightLength == 1) && left.getAttributes() == null && right.getAttributes() == null &&
+                        Math.max(RDoubleExpressionVector.depthOf(left), RDoubleExpressionVector.depthOf(right)) < RDoubleExpressionVector.MAX_DEPTH;
+    }
+
     private RAbstractVector createOrShareVector(int leftLength, RAbstractVector left, int rightLength, RAbstractVector right, int maxLength) {
         if (mayShareLeft && left.getRType() == resultType && shareLeft.profile(leftLength == maxLength && ((RShareable) left).isTemporary())) {
+            // the result is written through the store
+            ((RVector<?>) left).dropNativeMirror();
             return left;
         }
         if (mayShareRight && right.getRType() == resultType && shareRight.profile(rightLength == maxLength && ((RShareable) right).isTemporary())) {
+            ((RVector<?>) right).dropNativeMirror();
             return right;
         }
         return resultType.create(maxLength, false);
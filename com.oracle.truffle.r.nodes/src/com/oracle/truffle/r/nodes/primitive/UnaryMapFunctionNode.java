@@ -24,6 +24,8 @@ package com.oracle.truffle.r.nodes.primitive;
 
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector.UnaryOperation;
 import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
 import com.oracle.truffle.r.runtime.nodes.RBaseNode;
 
@@ -38,6 +40,14 @@ public abstract class UnaryMapFunctionNode extends RBaseNode {
         return null;
     }
 
+    /**
+     * Returns the operation on doubles that an {@link RDoubleExpressionVector} may compute in place
+     * of this node, or <code>null</code> if the result cannot be deferred.
+     */
+    public UnaryOperation getDeferredOperation() {
+        return null;
+    }
+
     /**
      * Enables all NA checks for the given input vectors.
      */
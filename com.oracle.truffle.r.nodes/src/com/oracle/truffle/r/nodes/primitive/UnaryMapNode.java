@@ -36,9 +36,12 @@ import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.GetNames
 import com.oracle.truffle.r.nodes.attributes.SpecialAttributesFunctions.SetDimAttributeNode;
 import com.oracle.truffle.r.nodes.primitive.UnaryMapNodeFactory.MapUnaryVectorInternalNodeGen;
 import com.oracle.truffle.r.nodes.profile.VectorLengthProfile;
+import com.oracle.truffle.r.runtime.FastROptions;
 import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RType;
 import com.oracle.truffle.r.runtime.data.RComplex;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector.UnaryOperation;
 import com.oracle.truffle.r.runtime.data.RScalarVector;
 import com.oracle.truffle.r.runtime.data.RShareable;
 import com.oracle.truffle.r.runtime.data.RVector;
@@ -64,12 +67,15 @@ public final class UnaryMapNode extends RBaseNode {
     private final ConditionProfile operandIsNAProfile = ConditionProfile.createBinaryProfile();
     private final BranchProfile hasAttributesProfile;
     private final ConditionProfile shareOperand;
+    private final ConditionProfile deferProfile;
+    private final UnaryOperation deferredOperation;
 
     // compile-time optimization flags
     private final boolean scalarType;
     private final boolean mayContainMetadata;
     private final boolean mayFoldConstantTime;
     private final boolean mayShareOperand;
+    private final int deferThreshold;
 
     private UnaryMapNode(UnaryMapFunctionNode scalarNode, RAbstractVector operand, RType argumentType, RType resultType) {
         this.scalarNode = scalarNode;
@@ -80,10 +86,13 @@ public final class UnaryMapNode extends RBaseNode {
         this.mayContainMetadata = operandVector;
         this.mayFoldConstantTime = scalarNode.mayFoldConstantTime(operandClass);
         this.mayShareOperand = operandVector;
+        this.deferredOperation = resultType == RType.Double && argumentType == RType.Double && !scalarType ? scalarNode.getDeferredOperation() : null;
+        this.deferThreshold = deferredOperation != null ? FastROptions.DeferredArithmeticThreshold.getNonNegativeIntValue() : 0;
 
         // lazily create profiles only if needed to avoid unnecessary allocations
         this.shareOperand = operandVector ? ConditionProfile.createBinaryProfile() : null;
         this.hasAttributesProfile = mayContainMetadata ? BranchProfile.create() : null;
+        this.deferProfile = deferThreshold > 0 ? ConditionProfile.createBinaryProfile() : null;
     }
 
     public static UnaryMapNode create(UnaryMapFunctionNode scalarNode, RAbstractVector operand, RType argumentType, RType resultType) {
@@ -150,6 +159,10 @@ public final class UnaryMapNode extends RBaseNode {
             target = scalarNode.tryFoldConstantTime(operandCast, operandLength);
         }
         if (target == null) {
+            if (deferThreshold > 0 && deferProfile.profile(canDefer(operand, operandLength))) {
+                // no attributes to copy
+                return RDoubleExpressionVector.createUnary(deferredOperation, operand, (RAbstractDoubleVector) operandCast, operandLength);
+            }
             target = createOrShareVector(operandLength, operand);
             Object store = target.getInternalStore();
             vectorNode.apply(scalarNode, store, operandCast, operandLength);
@@ -162,9 +175,15 @@ public final class UnaryMapNode extends RBaseNode {
         return target;
     }
 
+    private boolean canDefer(RAbstractVector operand, int operandLength) {
+        return operandLength >= deferThreshold && operand.getAttributes() == null && RDoubleExpressionVector.depthOf(operand) < RDoubleExpressionVector.MAX_DEPTH;
+    }
+
     private RAbstractVector createOrShareVector(int operandLength, RAbstractVector operand) {
         RType resultType = getResultType();
         if (mayShareOperand && operand.getRType() == resultType && shareOperand.profile(((RShareable) operand).isTemporary())) {
+            // the result is written through the store
+            ((RVector<?>) operand).dropNativeMirror();
             return operand;
         }
         return resultType.create(operandLength, false);
@@ -27,6 +27,7 @@ import com.oracle.truffle.r.nodes.primitive.UnaryMapNAFunctionNode;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector.UnaryOperation;
 import com.oracle.truffle.r.runtime.data.RDoubleSequence;
 import com.oracle.truffle.r.runtime.data.RIntSequence;
 import com.oracle.truffle.r.runtime.data.RSequence;
@@ -72,6 +73,11 @@ public class ScalarUnaryArithmeticNode extends UnaryMapNAFunctionNode {
         return false;
     }
 
+    @Override
+    public UnaryOperation getDeferredOperation() {
+        return arithmetic instanceof Negate ? UnaryOperation.NEGATE : null;
+    }
+
     @Override
     public final double applyDouble(double operand) {
         if (operandNACheck.check(operand)) {
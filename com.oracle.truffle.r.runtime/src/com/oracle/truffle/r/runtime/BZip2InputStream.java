@@ -0,0 +1,457 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A streaming bzip2 decompressor. Only one block (at most 900k of data) is held in memory at a
+ * time. Concatenated streams, as produced by, e.g., appending to a {@code bzfile} connection, are
+ * decompressed as one.
+ *
+ * The format is the one of the {@code bzip2} reference implementation: each block is Huffman and
+ * move-to-front coded and the Burrows-Wheeler transform of the run-length encoded data, see
+ * {@link BZip2OutputStream}.
+ */
+public final class BZip2InputStream extends InputStream {
+
+    static final long BLOCK_MAGIC = 0x314159265359L;
+    static final long END_MAGIC = 0x177245385090L;
+    static final int RUNA = 0;
+    static final int RUNB = 1;
+    static final int GROUP_SIZE = 50;
+    static final int MAX_GROUPS = 6;
+    static final int MAX_CODE_LENGTH = 20;
+    static final int MAX_SELECTORS = 18002;
+
+    static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int c = i << 24;
+            for (int j = 0; j < 8; j++) {
+                c = (c & 0x80000000) != 0 ? (c << 1) ^ 0x04c11db7 : c << 1;
+            }
+            CRC_TABLE[i] = c;
+        }
+    }
+
+    static int updateCRC(int crc, int b) {
+        return (crc << 8) ^ CRC_TABLE[(crc >>> 24) ^ (b & 0xff)];
+    }
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int bufferPos;
+    private int bufferLength;
+    private int bitBuffer;
+    private int bitCount;
+
+    private int blockSize;
+    private boolean eof;
+    private int streamCRC;
+
+    // the block being decoded: the inverse BWT links (upper 24 bits) and bytes (lower 8 bits)
+    private int[] tt;
+    private boolean inBlock;
+    private int tPos;
+    private int blockRemaining;
+    private int storedBlockCRC;
+    private int blockCRC;
+    // run length decoding state
+    private int lastChar;
+    private int sameCount;
+    private int repeatRemaining;
+
+    public BZip2InputStream(InputStream in) throws IOException {
+        this.in = in;
+        if (!readStreamHeader()) {
+            throw new IOException("not a bzip2 stream");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < len) {
+            if (repeatRemaining > 0) {
+                int count = Math.min(repeatRemaining, len - n);
+                for (int i = 0; i < count; i++) {
+                    b[off + n++] = (byte) lastChar;
+                    blockCRC = updateCRC(blockCRC, lastChar);
+                }
+                repeatRemaining -= count;
+                continue;
+            }
+            if (blockRemaining == 0) {
+                if (eof || !nextBlock()) {
+                    break;
+                }
+                continue;
+            }
+            tPos = tt[tPos];
+            int ch = tPos & 0xff;
+            tPos >>>= 8;
+            blockRemaining--;
+            if (sameCount == 4) {
+                // the byte after four equal ones is the number of further repetitions
+                repeatRemaining = ch;
+                sameCount = 0;
+                continue;
+            }
+            if (ch == lastChar) {
+                sameCount++;
+            } else {
+                lastChar = ch;
+                sameCount = 1;
+            }
+            b[off + n++] = (byte) ch;
+            blockCRC = updateCRC(blockCRC, ch);
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        tt = null;
+        in.close();
+    }
+
+    private int readByte() throws IOException {
+        if (bufferPos == bufferLength) {
+            bufferLength = in.read(buffer, 0, buffer.length);
+            bufferPos = 0;
+            if (bufferLength <= 0) {
+                bufferLength = 0;
+                return -1;
+            }
+        }
+        return buffer[bufferPos++] & 0xff;
+    }
+
+    /**
+     * Reads {@code n} (at most 24) bits.
+     */
+    private int readBits(int n) throws IOException {
+        while (bitCount < n) {
+            int b = readByte();
+            if (b < 0) {
+                throw new EOFException("unexpected end of bzip2 stream");
+            }
+            bitBuffer = (bitBuffer << 8) | b;
+            bitCount += 8;
+        }
+        bitCount -= n;
+        return (bitBuffer >>> bitCount) & ((1 << n) - 1);
+    }
+
+    private boolean readBit() throws IOException {
+        return readBits(1) != 0;
+    }
+
+    private int readInt() throws IOException {
+        return (readBits(16) << 16) | readBits(16);
+    }
+
+    private long readMagic() throws IOException {
+        return ((long) readBits(24) << 24) | readBits(24);
+    }
+
+    /**
+     * Reads the "BZh" header of a (further) stream, returns {@code false} if the input is at its
+     * end.
+     */
+    private boolean readStreamHeader() throws IOException {
+        int b = readByte();
+        if (b < 0) {
+            return false;
+        }
+        if (b != 'B' || readByte() != 'Z' || readByte() != 'h') {
+            throw new IOException("not a bzip2 stream");
+        }
+        int level = readByte() - '0';
+        if (level < 1 || level > 9) {
+            throw new IOException("invalid bzip2 block size");
+        }
+        blockSize = level * 100000;
+        streamCRC = 0;
+        bitBuffer = 0;
+        bitCount = 0;
+        return true;
+    }
+
+    /**
+     * Finishes the current block and decodes the next one, returns {@code false} at the end of
+     * the input.
+     */
+    private boolean nextBlock() throws IOException {
+        if (inBlock) {
+            inBlock = false;
+            if (~blockCRC != storedBlockCRC) {
+                throw new IOException("bzip2 block CRC error");
+            }
+            streamCRC = ((streamCRC << 1) | (streamCRC >>> 31)) ^ storedBlockCRC;
+        }
+        while (true) {
+            long magic = readMagic();
+            if (magic == BLOCK_MAGIC) {
+                decodeBlock();
+                return true;
+            } else if (magic == END_MAGIC) {
+                int storedStreamCRC = readInt();
+                if (storedStreamCRC != streamCRC) {
+                    throw new IOException("bzip2 stream CRC error");
+                }
+                // streams are byte aligned, check for a concatenated one
+                if (!readStreamHeader()) {
+                    eof = true;
+                    tt = null;
+                    return false;
+                }
+            } else {
+                throw new IOException("bzip2 data corrupt");
+            }
+        }
+    }
+
+    private void decodeBlock() throws IOException {
+        storedBlockCRC = readInt();
+        if (readBit()) {
+            throw new IOException("randomised bzip2 blocks are not supported");
+        }
+        int origPtr = readBits(24);
+
+        // the symbols in use
+        byte[] seqToUnseq = new byte[256];
+        int nInUse = 0;
+        int inUse16 = readBits(16);
+        for (int i = 0; i < 16; i++) {
+            if ((inUse16 & (0x8000 >>> i)) != 0) {
+                int inUse = readBits(16);
+                for (int j = 0; j < 16; j++) {
+                    if ((inUse & (0x8000 >>> j)) != 0) {
+                        seqToUnseq[nInUse++] = (byte) (i * 16 + j);
+                    }
+                }
+            }
+        }
+        if (nInUse == 0) {
+            throw new IOException("bzip2 data corrupt");
+        }
+        int alphaSize = nInUse + 2;
+
+        // the selectors
+        int nGroups = readBits(3);
+        int nSelectors = readBits(15);
+        if (nGroups < 2 || nGroups > MAX_GROUPS || nSelectors < 1) {
+            throw new IOException("bzip2 data corrupt");
+        }
+        byte[] selectors = new byte[Math.min(nSelectors, MAX_SELECTORS)];
+        byte[] pos = new byte[MAX_GROUPS];
+        for (int i = 0; i < nGroups; i++) {
+            pos[i] = (byte) i;
+        }
+        for (int i = 0; i < nSelectors; i++) {
+            int j = 0;
+            while (readBit()) {
+                j++;
+                if (j >= nGroups) {
+                    throw new IOException("bzip2 data corrupt");
+                }
+            }
+            byte v = pos[j];
+            System.arraycopy(pos, 0, pos, 1, j);
+            pos[0] = v;
+            if (i < MAX_SELECTORS) {
+                selectors[i] = v;
+            }
+        }
+        nSelectors = selectors.length;
+
+        // the coding tables
+        int[][] limit = new int[nGroups][MAX_CODE_LENGTH + 2];
+        int[][] base = new int[nGroups][MAX_CODE_LENGTH + 2];
+        int[][] perm = new int[nGroups][alphaSize];
+        int[] minLengths = new int[nGroups];
+        byte[] length = new byte[alphaSize];
+        for (int t = 0; t < nGroups; t++) {
+            int curr = readBits(5);
+            int minLen = 32;
+            int maxLen = 0;
+            for (int i = 0; i < alphaSize; i++) {
+                while (true) {
+                    if (curr < 1 || curr > MAX_CODE_LENGTH) {
+                        throw new IOException("bzip2 data corrupt");
+                    }
+                    if (!readBit()) {
+                        break;
+                    }
+                    curr += readBit() ? -1 : 1;
+                }
+                length[i] = (byte) curr;
+                minLen = Math.min(minLen, curr);
+                maxLen = Math.max(maxLen, curr);
+            }
+            createDecodeTables(limit[t], base[t], perm[t], length, minLen, maxLen, alphaSize);
+            minLengths[t] = minLen;
+        }
+
+        // the move-to-front and run length coded symbols
+        if (tt == null || tt.length < blockSize) {
+            tt = new int[blockSize];
+        }
+        int[] unzftab = new int[256];
+        byte[] yy = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            yy[i] = (byte) i;
+        }
+        int eob = nInUse + 1;
+        int nblock = 0;
+        int groupNo = -1;
+        int groupPos = 0;
+        int runLength = 0;
+        int runWeight = 1;
+        int[] gLimit = null;
+        int[] gBase = null;
+        int[] gPerm = null;
+        int gMinLen = 0;
+        while (true) {
+            if (groupPos == 0) {
+                if (++groupNo >= nSelectors) {
+                    throw new IOException("bzip2 data corrupt");
+                }
+                groupPos = GROUP_SIZE;
+                int g = selectors[groupNo];
+                gLimit = limit[g];
+                gBase = base[g];
+                gPerm = perm[g];
+                gMinLen = minLengths[g];
+            }
+            groupPos--;
+            int zn = gMinLen;
+            int zvec = readBits(zn);
+            while (zvec > gLimit[zn]) {
+                if (++zn > MAX_CODE_LENGTH) {
+                    throw new IOException("bzip2 data corrupt");
+                }
+                zvec = (zvec << 1) | readBits(1);
+            }
+            int index = zvec - gBase[zn];
+            if (index < 0 || index >= alphaSize) {
+                throw new IOException("bzip2 data corrupt");
+            }
+            int sym = gPerm[index];
+
+            if (sym == RUNA || sym == RUNB) {
+                runLength += (sym == RUNA ? 1 : 2) * runWeight;
+                runWeight <<= 1;
+                if (runLength > blockSize) {
+                    throw new IOException("bzip2 data corrupt");
+                }
+                continue;
+            }
+            if (runLength > 0) {
+                int uc = seqToUnseq[yy[0] & 0xff] & 0xff;
+                if (nblock + runLength > blockSize) {
+                    throw new IOException("bzip2 data corrupt");
+                }
+                unzftab[uc] += runLength;
+                while (runLength-- > 0) {
+                    tt[nblock++] = uc;
+                }
+                runLength = 0;
+                runWeight = 1;
+            }
+            if (sym == eob) {
+                break;
+            }
+            if (nblock >= blockSize) {
+                throw new IOException("bzip2 data corrupt");
+            }
+            int j = sym - 1;
+            byte v = yy[j];
+            System.arraycopy(yy, 0, yy, 1, j);
+            yy[0] = v;
+            int uc = seqToUnseq[v & 0xff] & 0xff;
+            unzftab[uc]++;
+            tt[nblock++] = uc;
+        }
+        if (origPtr >= nblock) {
+            throw new IOException("bzip2 data corrupt");
+        }
+
+        // inverse Burrows-Wheeler transform
+        int[] cftab = new int[257];
+        for (int i = 0; i < 256; i++) {
+            cftab[i + 1] = cftab[i] + unzftab[i];
+        }
+        for (int i = 0; i < nblock; i++) {
+            int uc = tt[i] & 0xff;
+            tt[cftab[uc]++] |= i << 8;
+        }
+        tPos = tt[origPtr] >>> 8;
+        blockRemaining = nblock;
+        inBlock = true;
+        blockCRC = -1;
+        lastChar = -1;
+        sameCount = 0;
+        repeatRemaining = 0;
+    }
+
+    private static void createDecodeTables(int[] limit, int[] base, int[] perm, byte[] length, int minLen, int maxLen, int alphaSize) {
+        int pp = 0;
+        for (int i = minLen; i <= maxLen; i++) {
+            for (int j = 0; j < alphaSize; j++) {
+                if (length[j] == i) {
+                    perm[pp++] = j;
+                }
+            }
+        }
+        for (int i = 0; i < alphaSize; i++) {
+            base[length[i] + 1]++;
+        }
+        for (int i = 1; i < base.length; i++) {
+            base[i] += base[i - 1];
+        }
+        int vec = 0;
+        for (int i = minLen; i <= maxLen; i++) {
+            vec += base[i + 1] - base[i];
+            limit[i] = vec - 1;
+            vec <<= 1;
+        }
+        for (int i = minLen + 1; i <= maxLen; i++) {
+            base[i] = ((limit[i - 1] + 1) << 1) - base[i];
+        }
+    }
+}
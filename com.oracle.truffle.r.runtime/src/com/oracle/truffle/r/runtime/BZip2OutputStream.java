@@ -0,0 +1,684 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import static com.oracle.truffle.r.runtime.BZip2InputStream.GROUP_SIZE;
+import static com.oracle.truffle.r.runtime.BZip2InputStream.MAX_GROUPS;
+import static com.oracle.truffle.r.runtime.BZip2InputStream.RUNA;
+import static com.oracle.truffle.r.runtime.BZip2InputStream.RUNB;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A streaming bzip2 compressor producing the format of the {@code bzip2} reference implementation
+ * (and readable by it and by {@link BZip2InputStream}).
+ *
+ * The input is run-length encoded and cut into blocks of at most {@code blockSize100k * 100000}
+ * bytes. Each block is compressed independently (Burrows-Wheeler transform, move-to-front and
+ * Huffman coding) into a sequence of bits, so up to the given number of blocks are compressed in
+ * parallel in the common {@link ForkJoinPool} while the stream keeps reading its input. The
+ * compressed blocks are written in order, their bit sequences are concatenated as bzip2 blocks are
+ * not byte aligned.
+ */
+public final class BZip2OutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final int blockSize100k;
+    private final int maxBlockLength;
+    private final int maxPending;
+    private final BitWriter writer = new BitWriter();
+    private final ArrayDeque<Future<CompressedBlock>> pending = new ArrayDeque<>();
+
+    private byte[] block;
+    private int blockLength;
+    private int blockCRC = -1;
+    private int streamCRC;
+    // run length encoding state
+    private int runChar = -1;
+    private int runLength;
+    private boolean closed;
+
+    public BZip2OutputStream(OutputStream out) throws IOException {
+        this(out, 9, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Creates a stream with blocks of {@code blockSize100k * 100000} bytes that compresses up to
+     * {@code threads} blocks at a time.
+     */
+    public BZip2OutputStream(OutputStream out, int blockSize100k, int threads) throws IOException {
+        if (blockSize100k < 1 || blockSize100k > 9) {
+            throw new IllegalArgumentException("invalid block size: " + blockSize100k);
+        }
+        this.out = out;
+        this.blockSize100k = blockSize100k;
+        // leaves room for a run that is written when the limit is reached, as bzip2 does
+        this.maxBlockLength = blockSize100k * 100000 - 19;
+        this.maxPending = threads > 1 ? threads : 0;
+        this.block = new byte[blockSize100k * 100000];
+        out.write(new byte[]{'B', 'Z', 'h', (byte) ('0' + blockSize100k)});
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        int ch = b & 0xff;
+        if (ch == runChar && runLength < 255) {
+            runLength++;
+        } else {
+            if (runLength > 0) {
+                writeRun();
+            }
+            runChar = ch;
+            runLength = 1;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            write(b[i]);
+        }
+    }
+
+    /**
+     * Adds the current run to the block: up to four bytes and, if there are four, the number of
+     * further repetitions.
+     */
+    private void writeRun() throws IOException {
+        int ch = runChar;
+        for (int i = 0; i < runLength; i++) {
+            blockCRC = BZip2InputStream.updateCRC(blockCRC, ch);
+        }
+        byte[] data = block;
+        int n = blockLength;
+        switch (runLength) {
+            case 1:
+                data[n++] = (byte) ch;
+                break;
+            case 2:
+                data[n++] = (byte) ch;
+                data[n++] = (byte) ch;
+                break;
+            case 3:
+                data[n++] = (byte) ch;
+                data[n++] = (byte) ch;
+                data[n++] = (byte) ch;
+                break;
+            default:
+                data[n++] = (byte) ch;
+                data[n++] = (byte) ch;
+                data[n++] = (byte) ch;
+                data[n++] = (byte) ch;
+                data[n++] = (byte) (runLength - 4);
+                break;
+        }
+        blockLength = n;
+        runLength = 0;
+        runChar = -1;
+        if (blockLength >= maxBlockLength) {
+            endBlock();
+        }
+    }
+
+    private void endBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+        CompressedBlock task = new CompressedBlock(block, blockLength, ~blockCRC);
+        block = new byte[blockSize100k * 100000];
+        blockLength = 0;
+        blockCRC = -1;
+        if (maxPending == 0) {
+            task.compress();
+            writeBlock(task);
+        } else {
+            pending.add(ForkJoinPool.commonPool().submit(task::compress, task));
+            while (pending.size() > maxPending) {
+                writeBlock(pending.remove());
+            }
+        }
+    }
+
+    private void writeBlock(Future<CompressedBlock> future) throws IOException {
+        try {
+            writeBlock(future.get());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void writeBlock(CompressedBlock compressed) throws IOException {
+        streamCRC = ((streamCRC << 1) | (streamCRC >>> 31)) ^ compressed.crc;
+        writer.append(compressed.bits);
+        writer.flushBytes(out);
+    }
+
+    /**
+     * Writes all data and the end of stream marker without closing the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (runLength > 0) {
+            writeRun();
+        }
+        endBlock();
+        while (!pending.isEmpty()) {
+            writeBlock(pending.remove());
+        }
+        writer.writeBits(24, (int) (BZip2InputStream.END_MAGIC >>> 24));
+        writer.writeBits(24, (int) (BZip2InputStream.END_MAGIC & 0xffffff));
+        writer.writeInt(streamCRC);
+        writer.align();
+        writer.flushBytes(out);
+        block = null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * A growable sequence of bits.
+     */
+    private static final class BitWriter {
+        private byte[] data = new byte[1024];
+        private int length;
+        private long bitBuffer;
+        private int bitCount;
+
+        void writeBits(int n, int value) {
+            bitBuffer = (bitBuffer << n) | (value & ((1L << n) - 1));
+            bitCount += n;
+            while (bitCount >= 8) {
+                bitCount -= 8;
+                if (length == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                data[length++] = (byte) (bitBuffer >>> bitCount);
+            }
+        }
+
+        void writeInt(int value) {
+            writeBits(16, value >>> 16);
+            writeBits(16, value);
+        }
+
+        void append(BitWriter other) {
+            for (int i = 0; i < other.length; i++) {
+                writeBits(8, other.data[i]);
+            }
+            if (other.bitCount > 0) {
+                writeBits(other.bitCount, (int) other.bitBuffer);
+            }
+        }
+
+        void align() {
+            if (bitCount > 0) {
+                writeBits(8 - bitCount, 0);
+            }
+        }
+
+        /**
+         * Writes the complete bytes to {@code out}, the remaining bits stay in the buffer.
+         */
+        void flushBytes(OutputStream os) throws IOException {
+            os.write(data, 0, length);
+            length = 0;
+        }
+    }
+
+    /**
+     * One block of run length encoded data and, once {@link #compress() compressed}, its bits.
+     */
+    private static final class CompressedBlock {
+        private byte[] data;
+        private final int length;
+        private final int crc;
+        private BitWriter bits;
+
+        CompressedBlock(byte[] data, int length, int crc) {
+            this.data = data;
+            this.length = length;
+            this.crc = crc;
+        }
+
+        void compress() {
+            BitWriter w = new BitWriter();
+            int[] ptr = sortRotations(data, length);
+            int origPtr = -1;
+            for (int i = 0; i < length; i++) {
+                if (ptr[i] == 0) {
+                    origPtr = i;
+                    break;
+                }
+            }
+            w.writeBits(24, (int) (BZip2InputStream.BLOCK_MAGIC >>> 24));
+            w.writeBits(24, (int) (BZip2InputStream.BLOCK_MAGIC & 0xffffff));
+            w.writeInt(crc);
+            w.writeBits(1, 0);
+            w.writeBits(24, origPtr);
+            writeMTFValues(w, ptr);
+            data = null;
+            bits = w;
+        }
+
+        private void writeMTFValues(BitWriter w, int[] ptr) {
+            // the mapping of the bytes in use to symbols
+            boolean[] inUse = new boolean[256];
+            for (int i = 0; i < length; i++) {
+                inUse[data[i] & 0xff] = true;
+            }
+            byte[] unseqToSeq = new byte[256];
+            int nInUse = 0;
+            for (int i = 0; i < 256; i++) {
+                if (inUse[i]) {
+                    unseqToSeq[i] = (byte) nInUse++;
+                }
+            }
+            int alphaSize = nInUse + 2;
+            int eob = nInUse + 1;
+
+            // move-to-front and run length coding of the transformed block, reuses ptr
+            int[] mtfFreq = new int[alphaSize];
+            char[] mtfv = new char[length + 1];
+            byte[] yy = new byte[256];
+            for (int i = 0; i < nInUse; i++) {
+                yy[i] = (byte) i;
+            }
+            int wr = 0;
+            int zPend = 0;
+            for (int i = 0; i < length; i++) {
+                int j = ptr[i] - 1;
+                if (j < 0) {
+                    j += length;
+                }
+                byte ll = unseqToSeq[data[j] & 0xff];
+                if (yy[0] == ll) {
+                    zPend++;
+                } else {
+                    if (zPend > 0) {
+                        wr = writeZeroRun(mtfv, wr, mtfFreq, zPend);
+                        zPend = 0;
+                    }
+                    int k = 1;
+                    while (yy[k] != ll) {
+                        k++;
+                    }
+                    System.arraycopy(yy, 0, yy, 1, k);
+                    yy[0] = ll;
+                    mtfv[wr++] = (char) (k + 1);
+                    mtfFreq[k + 1]++;
+                }
+            }
+            if (zPend > 0) {
+                wr = writeZeroRun(mtfv, wr, mtfFreq, zPend);
+            }
+            mtfv[wr++] = (char) eob;
+            mtfFreq[eob]++;
+            int nMTF = wr;
+
+            // the initial coding tables, each covering a range of symbols
+            int nGroups = nMTF < 200 ? 2 : nMTF < 600 ? 3 : nMTF < 1200 ? 4 : nMTF < 2400 ? 5 : 6;
+            byte[][] len = new byte[nGroups][alphaSize];
+            int nPart = nGroups;
+            int remF = nMTF;
+            int gs = 0;
+            while (nPart > 0) {
+                int tFreq = remF / nPart;
+                int ge = gs - 1;
+                int aFreq = 0;
+                while (aFreq < tFreq && ge < alphaSize - 1) {
+                    ge++;
+                    aFreq += mtfFreq[ge];
+                }
+                if (ge > gs && nPart != nGroups && nPart != 1 && ((nGroups - nPart) % 2 == 1)) {
+                    aFreq -= mtfFreq[ge];
+                    ge--;
+                }
+                for (int v = 0; v < alphaSize; v++) {
+                    len[nPart - 1][v] = (byte) (v >= gs && v <= ge ? 0 : 15);
+                }
+                nPart--;
+                gs = ge + 1;
+                remF -= aFreq;
+            }
+
+            // refine the tables: choose the best one for each group of symbols and recompute them
+            int maxSelectors = (nMTF + GROUP_SIZE - 1) / GROUP_SIZE;
+            byte[] selectors = new byte[maxSelectors];
+            int[][] rfreq = new int[nGroups][alphaSize];
+            int[] cost = new int[nGroups];
+            for (int iter = 0; iter < 4; iter++) {
+                for (int t = 0; t < nGroups; t++) {
+                    Arrays.fill(rfreq[t], 0);
+                }
+                int nSelectors = 0;
+                for (gs = 0; gs < nMTF; gs += GROUP_SIZE) {
+                    int ge = Math.min(gs + GROUP_SIZE, nMTF);
+                    Arrays.fill(cost, 0);
+                    for (int i = gs; i < ge; i++) {
+                        int icv = mtfv[i];
+                        for (int t = 0; t < nGroups; t++) {
+                            cost[t] += len[t][icv];
+                        }
+                    }
+                    int bt = 0;
+                    for (int t = 1; t < nGroups; t++) {
+                        if (cost[t] < cost[bt]) {
+                            bt = t;
+                        }
+                    }
+                    selectors[nSelectors++] = (byte) bt;
+                    for (int i = gs; i < ge; i++) {
+                        rfreq[bt][mtfv[i]]++;
+                    }
+                }
+                for (int t = 0; t < nGroups; t++) {
+                    makeCodeLengths(len[t], rfreq[t], alphaSize, 17);
+                }
+            }
+
+            int[][] code = new int[nGroups][alphaSize];
+            for (int t = 0; t < nGroups; t++) {
+                assignCodes(code[t], len[t], alphaSize);
+            }
+
+            // the mapping table
+            int inUse16 = 0;
+            for (int i = 0; i < 16; i++) {
+                for (int j = 0; j < 16; j++) {
+                    if (inUse[i * 16 + j]) {
+                        inUse16 |= 0x8000 >>> i;
+                        break;
+                    }
+                }
+            }
+            w.writeBits(16, inUse16);
+            for (int i = 0; i < 16; i++) {
+                if ((inUse16 & (0x8000 >>> i)) != 0) {
+                    int bits = 0;
+                    for (int j = 0; j < 16; j++) {
+                        if (inUse[i * 16 + j]) {
+                            bits |= 0x8000 >>> j;
+                        }
+                    }
+                    w.writeBits(16, bits);
+                }
+            }
+
+            // the move-to-front coded selectors
+            w.writeBits(3, nGroups);
+            w.writeBits(15, maxSelectors);
+            byte[] pos = new byte[MAX_GROUPS];
+            for (int i = 0; i < nGroups; i++) {
+                pos[i] = (byte) i;
+            }
+            for (int i = 0; i < maxSelectors; i++) {
+                byte sel = selectors[i];
+                int j = 0;
+                while (pos[j] != sel) {
+                    j++;
+                }
+                System.arraycopy(pos, 0, pos, 1, j);
+                pos[0] = sel;
+                for (int k = 0; k < j; k++) {
+                    w.writeBits(1, 1);
+                }
+                w.writeBits(1, 0);
+            }
+
+            // the delta coded code lengths
+            for (int t = 0; t < nGroups; t++) {
+                int curr = len[t][0];
+                w.writeBits(5, curr);
+                for (int i = 0; i < alphaSize; i++) {
+                    while (curr < len[t][i]) {
+                        w.writeBits(2, 2);
+                        curr++;
+                    }
+                    while (curr > len[t][i]) {
+                        w.writeBits(2, 3);
+                        curr--;
+                    }
+                    w.writeBits(1, 0);
+                }
+            }
+
+            // the data
+            int selCtr = 0;
+            for (gs = 0; gs < nMTF; gs += GROUP_SIZE) {
+                int ge = Math.min(gs + GROUP_SIZE, nMTF);
+                byte[] l = len[selectors[selCtr]];
+                int[] c = code[selectors[selCtr]];
+                for (int i = gs; i < ge; i++) {
+                    int v = mtfv[i];
+                    w.writeBits(l[v], c[v]);
+                }
+                selCtr++;
+            }
+        }
+
+        private static int writeZeroRun(char[] mtfv, int start, int[] mtfFreq, int zPend) {
+            int wr = start;
+            int z = zPend - 1;
+            while (true) {
+                int sym = (z & 1) != 0 ? RUNB : RUNA;
+                mtfv[wr++] = (char) sym;
+                mtfFreq[sym]++;
+                if (z < 2) {
+                    break;
+                }
+                z = (z - 2) / 2;
+            }
+            return wr;
+        }
+
+        /**
+         * Sorts the rotations of {@code data[0 .. n - 1]} by prefix doubling with radix sorts,
+         * returns the start index of each rotation in sorted order. Equal rotations (of periodic
+         * data) are left in some order, which does not change the transform.
+         */
+        static int[] sortRotations(byte[] data, int n) {
+            int[] sa = new int[n];
+            int[] rank = new int[n];
+            int[] tmp = new int[n];
+            int[] count = new int[Math.max(256, n) + 1];
+            for (int i = 0; i < n; i++) {
+                count[(data[i] & 0xff) + 1]++;
+            }
+            for (int i = 1; i <= 256; i++) {
+                count[i] += count[i - 1];
+            }
+            for (int i = 0; i < n; i++) {
+                sa[count[data[i] & 0xff]++] = i;
+            }
+            int classes = 1;
+            rank[sa[0]] = 0;
+            for (int i = 1; i < n; i++) {
+                if (data[sa[i]] != data[sa[i - 1]]) {
+                    classes++;
+                }
+                rank[sa[i]] = classes - 1;
+            }
+            for (int k = 1; k < n && classes < n; k <<= 1) {
+                // sa is sorted by the first k bytes, so this is sorted by the second k bytes
+                for (int i = 0; i < n; i++) {
+                    int p = sa[i] - k;
+                    tmp[i] = p < 0 ? p + n : p;
+                }
+                Arrays.fill(count, 0, classes + 1, 0);
+                for (int i = 0; i < n; i++) {
+                    count[rank[tmp[i]] + 1]++;
+                }
+                for (int i = 1; i <= classes; i++) {
+                    count[i] += count[i - 1];
+                }
+                for (int i = 0; i < n; i++) {
+                    int p = tmp[i];
+                    sa[count[rank[p]]++] = p;
+                }
+                int[] newRank = tmp;
+                classes = 1;
+                newRank[sa[0]] = 0;
+                for (int i = 1; i < n; i++) {
+                    int cur = sa[i];
+                    int prev = sa[i - 1];
+                    int cur2 = cur + k >= n ? cur + k - n : cur + k;
+                    int prev2 = prev + k >= n ? prev + k - n : prev + k;
+                    if (rank[cur] != rank[prev] || rank[cur2] != rank[prev2]) {
+                        classes++;
+                    }
+                    newRank[cur] = classes - 1;
+                }
+                tmp = rank;
+                rank = newRank;
+            }
+            return sa;
+        }
+
+        private static void makeCodeLengths(byte[] len, int[] freq, int alphaSize, int maxLen) {
+            int[] heap = new int[alphaSize + 2];
+            int[] weight = new int[alphaSize * 2];
+            int[] parent = new int[alphaSize * 2];
+            for (int i = 0; i < alphaSize; i++) {
+                weight[i + 1] = (freq[i] == 0 ? 1 : freq[i]) << 8;
+            }
+            while (true) {
+                int nNodes = alphaSize;
+                int nHeap = 0;
+                heap[0] = 0;
+                weight[0] = 0;
+                parent[0] = -2;
+                for (int i = 1; i <= alphaSize; i++) {
+                    parent[i] = -1;
+                    heap[++nHeap] = i;
+                    upHeap(heap, weight, nHeap);
+                }
+                while (nHeap > 1) {
+                    int n1 = heap[1];
+                    heap[1] = heap[nHeap--];
+                    downHeap(heap, weight, nHeap, 1);
+                    int n2 = heap[1];
+                    heap[1] = heap[nHeap--];
+                    downHeap(heap, weight, nHeap, 1);
+                    nNodes++;
+                    parent[n1] = nNodes;
+                    parent[n2] = nNodes;
+                    // the weight in the upper bits, the depth in the lowest 8 bits
+                    weight[nNodes] = ((weight[n1] & 0xffffff00) + (weight[n2] & 0xffffff00)) | (1 + Math.max(weight[n1] & 0xff, weight[n2] & 0xff));
+                    parent[nNodes] = -1;
+                    heap[++nHeap] = nNodes;
+                    upHeap(heap, weight, nHeap);
+                }
+                boolean tooLong = false;
+                for (int i = 1; i <= alphaSize; i++) {
+                    int j = 0;
+                    int k = i;
+                    while (parent[k] >= 0) {
+                        k = parent[k];
+                        j++;
+                    }
+                    len[i - 1] = (byte) j;
+                    if (j > maxLen) {
+                        tooLong = true;
+                    }
+                }
+                if (!tooLong) {
+                    break;
+                }
+                for (int i = 1; i <= alphaSize; i++) {
+                    int j = weight[i] >> 8;
+                    j = 1 + (j / 2);
+                    weight[i] = j << 8;
+                }
+            }
+        }
+
+        private static void upHeap(int[] heap, int[] weight, int z) {
+            int zz = z;
+            int tmp = heap[zz];
+            while (weight[tmp] < weight[heap[zz >> 1]]) {
+                heap[zz] = heap[zz >> 1];
+                zz >>= 1;
+            }
+            heap[zz] = tmp;
+        }
+
+        private static void downHeap(int[] heap, int[] weight, int nHeap, int z) {
+            int zz = z;
+            int tmp = heap[zz];
+            while (true) {
+                int yy = zz << 1;
+                if (yy > nHeap) {
+                    break;
+                }
+                if (yy < nHeap && weight[heap[yy + 1]] < weight[heap[yy]]) {
+                    yy++;
+                }
+                if (weight[tmp] < weight[heap[yy]]) {
+                    break;
+                }
+                heap[zz] = heap[yy];
+                zz = yy;
+            }
+            heap[zz] = tmp;
+        }
+
+        private static void assignCodes(int[] code, byte[] length, int alphaSize) {
+            int minLen = 32;
+            int maxLen = 0;
+            for (int i = 0; i < alphaSize; i++) {
+                minLen = Math.min(minLen, length[i]);
+                maxLen = Math.max(maxLen, length[i]);
+            }
+            int vec = 0;
+            for (int n = minLen; n <= maxLen; n++) {
+                for (int i = 0; i < alphaSize; i++) {
+                    if (length[i] == n) {
+                        code[i] = vec++;
+                    }
+                }
+                vec <<= 1;
+            }
+        }
+    }
+}
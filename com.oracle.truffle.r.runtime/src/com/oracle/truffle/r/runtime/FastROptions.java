@@ -61,6 +61,11 @@ public enum FastROptions {
     EmitTmpDir("The directory where to allocate temporary files with deparsed source code.", null, true),
     EmitTmpHashed("Use an SHA-256 hash as file name to reduce temporary file creation.", true),
     SpawnUsesPolyglot("use PolyglotEngine for .fastr.context.spwan", false),
+    ContextPoolSize("Maximal number of idle SHARE_NOTHING child contexts kept for reuse by .fastr.context.spawn/eval, 0 disables", "0", true),
+    ChannelQueueCapacity("Number of messages a .fastr.channel can hold in each direction before the sender blocks", "1", true),
+    RegExpCacheSize("Maximal number of compiled regular expressions cached per context by the grep family of builtins, 0 disables", "256", true),
+    LazyDBValueCache("Cache immutable values fetched from package lazy-load databases, shared by all contexts", false),
+    DeferredArithmeticThreshold("Minimal length of a double vector computed lazily by arithmetic, fusing chains of operations into a single loop, 0 disables", "0", true),
 
     // Promises optimizations
     EagerEval("If enabled, overrides all other EagerEval switches (see EagerEvalHelper)", false),
@@ -70,6 +75,11 @@ public enum FastROptions {
     EagerEvalExpressions("Enables optimistic eager evaluation of trivial expressions", false),
     PromiseCacheSize("Enables inline caches for promises evaluation", "3", true),
 
+    // Parallel kernels
+    MatMultParallelThreshold("Minimal size (in millions of floating point operations) of a double matrix product computed in parallel, 0 disables", "64", true),
+    ScanParallelThreshold("Minimal size (in megabytes) of a file that scan reads in parallel chunks, 0 disables", "16", true),
+    CompressionThreads("Number of threads compressing gzfile, bzfile and xzfile output in parallel blocks, 0 uses one per processor (at most 4), 1 disables", "0", true),
+
     // Miscellaneous
 
     StartupTiming("Records and prints various timestamps during initialization", false);
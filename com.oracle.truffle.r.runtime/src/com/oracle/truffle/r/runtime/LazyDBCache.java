@@ -23,35 +23,152 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.r.runtime.context.RContext;
+import com.oracle.truffle.r.runtime.data.RAttributable;
+import com.oracle.truffle.r.runtime.data.RAttributesLayout;
+import com.oracle.truffle.r.runtime.data.RAttributesLayout.RAttribute;
+import com.oracle.truffle.r.runtime.data.RSharingAttributeStorage;
+import com.oracle.truffle.r.runtime.data.model.RAbstractAtomicVector;
 
+/**
+ * Caches the lazy-load databases ({@code .rdb} files) of packages for {@code lazyLoadDBfetch}.
+ *
+ * A database is mapped into memory read-only and the mapping is shared by all contexts of the VM,
+ * so that the databases of packages loaded in many contexts (e.g., {@code stats} or
+ * {@code methods}) are neither read nor kept on the heap once per context. Each context remembers
+ * the databases it used, a file is only checked for changes when a context accesses it for the
+ * first time or after {@code lazyLoadDBflush}.
+ *
+ * If {@link FastROptions#LazyDBValueCache} is enabled, values that cannot change once
+ * unserialized, i.e., atomic vectors with atomic attribute values, are also cached VM-wide and
+ * returned (marked as shared permanently) to all contexts fetching them.
+ */
 public class LazyDBCache {
 
-    public static final class ContextStateImpl implements RContext.ContextState {
-        private final Map<String, byte[]> dbCache = new HashMap<>();
-
-        public byte[] getData(String dbPath) {
-            byte[] dbData = dbCache.get(dbPath);
-            if (dbData == null) {
-                try {
-                    dbData = Files.readAllBytes(FileSystems.getDefault().getPath(dbPath));
-                } catch (IOException ex) {
-                    // unexpected
-                    throw RInternalError.shouldNotReachHere(ex);
+    private static final class Database {
+        private final ByteBuffer data;
+        private final long size;
+        private final long lastModified;
+        private final ConcurrentHashMap<Integer, Object> values = new ConcurrentHashMap<>();
+
+        Database(ByteBuffer data, long size, long lastModified) {
+            this.data = data;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static final Map<String, Database> databases = new HashMap<>();
+
+    private static synchronized Database getDatabase(String dbPath) {
+        Path path = FileSystems.getDefault().getPath(dbPath);
+        try {
+            long size = Files.size(path);
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            Database db = databases.get(dbPath);
+            if (db == null || db.size != size || db.lastModified != lastModified) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    // the mapping stays valid after the channel is closed
+                    db = new Database(channel.map(MapMode.READ_ONLY, 0, size), size, lastModified);
                 }
-                dbCache.put(dbPath, dbData);
+                databases.put(dbPath, db);
+            }
+            return db;
+        } catch (IOException ex) {
+            // unexpected
+            throw RInternalError.shouldNotReachHere(ex);
+        }
+    }
+
+    private static synchronized void removeDatabase(String dbPath) {
+        // contexts still using the database keep their mapping
+        databases.remove(dbPath);
+    }
+
+    private static boolean isImmutable(Object value) {
+        if (!(value instanceof RAbstractAtomicVector && value instanceof RSharingAttributeStorage)) {
+            return false;
+        }
+        DynamicObject attributes = ((RAttributable) value).getAttributes();
+        if (attributes != null) {
+            for (RAttribute attr : RAttributesLayout.asIterable(attributes)) {
+                Object attrValue = attr.getValue();
+                if (!(attrValue instanceof RAbstractAtomicVector && attrValue instanceof RSharingAttributeStorage) || ((RAttributable) attrValue).getAttributes() != null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void makeSharedPermanent(RSharingAttributeStorage value) {
+        value.makeSharedPermanent();
+        DynamicObject attributes = value.getAttributes();
+        if (attributes != null) {
+            for (RAttribute attr : RAttributesLayout.asIterable(attributes)) {
+                ((RSharingAttributeStorage) attr.getValue()).makeSharedPermanent();
+            }
+        }
+    }
+
+    public static final class ContextStateImpl implements RContext.ContextState {
+        private final Map<String, Database> dbCache = new HashMap<>();
+
+        private Database get(String dbPath) {
+            Database db = dbCache.get(dbPath);
+            if (db == null) {
+                db = getDatabase(dbPath);
+                dbCache.put(dbPath, db);
+            }
+            return db;
+        }
+
+        /**
+         * Returns the content of the database as a read-only buffer, which is a view of the
+         * mapping shared with other contexts, i.e., reading the data does not copy it.
+         */
+        public ByteBuffer getData(String dbPath) {
+            // a duplicate, as the position of a buffer cannot be shared between threads
+            return get(dbPath).data.duplicate();
+        }
+
+        /**
+         * Returns the cached value stored at {@code offset} in the database, or {@code null}.
+         */
+        public Object getValue(String dbPath, int offset) {
+            if (!FastROptions.LazyDBValueCache.getBooleanValue()) {
+                return null;
+            }
+            return get(dbPath).values.get(offset);
+        }
+
+        /**
+         * Offers the value unserialized from {@code offset} in the database to the value cache, it
+         * is only cached if it is immutable.
+         */
+        public void putValue(String dbPath, int offset, Object value) {
+            if (FastROptions.LazyDBValueCache.getBooleanValue() && isImmutable(value)) {
+                makeSharedPermanent((RSharingAttributeStorage) value);
+                get(dbPath).values.putIfAbsent(offset, value);
             }
-            return dbData;
         }
 
         public void remove(String dbPath) {
             // no an error if missing
             dbCache.remove(dbPath);
+            removeDatabase(dbPath);
         }
 
         public static ContextStateImpl newContextState() {
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * An output stream that cuts its data into chunks and compresses each of them independently into a
+ * complete gzip member or xz stream, up to {@code threads} chunks at a time in the common
+ * {@link ForkJoinPool}. The compressed chunks are written in order, and as both formats allow
+ * concatenation, the result is a standard gzip (multi-member) or xz (multi-stream) file that GNU R
+ * and the {@code gzip}/{@code xz} tools read like one produced serially.
+ *
+ * Output that fits into a single chunk is compressed by the writing thread when the stream is
+ * closed, so small files are the same as without parallel compression.
+ */
+public final class ParallelCompressedOutputStream extends OutputStream {
+
+    private static final int GZIP_CHUNK_SIZE = 1 << 20;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    @FunctionalInterface
+    private interface Compressor {
+        byte[] compress(byte[] data, int length) throws IOException;
+    }
+
+    private final OutputStream out;
+    private final int chunkSize;
+    private final int threads;
+    private final Compressor compressor;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] chunk;
+    private int chunkLength;
+    private int chunks;
+    private boolean closed;
+
+    private ParallelCompressedOutputStream(OutputStream out, int chunkSize, int threads, Compressor compressor) {
+        this.out = out;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.compressor = compressor;
+        // grows up to the chunk size, small outputs do not need a large buffer
+        this.chunk = new byte[Math.min(chunkSize, STREAM_BUFFER_SIZE)];
+    }
+
+    /**
+     * Creates a stream writing gzip members of (at most) 1MB of uncompressed data each.
+     */
+    public static ParallelCompressedOutputStream gzip(OutputStream out, int threads) {
+        return new ParallelCompressedOutputStream(out, GZIP_CHUNK_SIZE, threads, (data, length) -> {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(length / 2 + 64);
+            try (GZIPOutputStream gz = new GZIPOutputStream(bos, STREAM_BUFFER_SIZE)) {
+                gz.write(data, 0, length);
+            }
+            return bos.toByteArray();
+        });
+    }
+
+    /**
+     * Creates a stream writing xz streams of (at most) three times the dictionary size of
+     * uncompressed data each, which is also the block size {@code xz --threads} uses.
+     */
+    public static ParallelCompressedOutputStream xz(OutputStream out, LZMA2Options options, int check, int threads) {
+        return new ParallelCompressedOutputStream(out, 3 * options.getDictSize(), threads, (data, length) -> {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(length / 4 + 64);
+            try (XZOutputStream xz = new XZOutputStream(bos, options, check)) {
+                xz.write(data, 0, length);
+            }
+            return bos.toByteArray();
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureSpace();
+        chunk[chunkLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int pos = off;
+        int remaining = len;
+        while (remaining > 0) {
+            ensureSpace();
+            int n = Math.min(remaining, chunk.length - chunkLength);
+            System.arraycopy(b, pos, chunk, chunkLength, n);
+            chunkLength += n;
+            pos += n;
+            remaining -= n;
+        }
+    }
+
+    private void ensureSpace() throws IOException {
+        if (chunkLength == chunk.length) {
+            if (chunk.length < chunkSize) {
+                chunk = Arrays.copyOf(chunk, (int) Math.min(chunkSize, 2L * chunk.length));
+            } else {
+                endChunk();
+            }
+        }
+    }
+
+    private void endChunk() throws IOException {
+        byte[] data = chunk;
+        int length = chunkLength;
+        chunk = new byte[chunkSize];
+        chunkLength = 0;
+        chunks++;
+        pending.add(ForkJoinPool.commonPool().submit((Callable<byte[]>) () -> compressor.compress(data, length)));
+        // write what is done, and wait if all threads are busy
+        while (!pending.isEmpty() && (pending.size() > threads || pending.peek().isDone())) {
+            writePending();
+        }
+    }
+
+    private void writePending() throws IOException {
+        try {
+            out.write(pending.remove().get());
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (chunks == 0) {
+                // also writes the header and trailer of empty output
+                out.write(compressor.compress(chunk, chunkLength));
+            } else {
+                if (chunkLength > 0) {
+                    endChunk();
+                }
+                while (!pending.isEmpty()) {
+                    writePending();
+                }
+            }
+            chunk = null;
+        } finally {
+            out.close();
+        }
+    }
+}
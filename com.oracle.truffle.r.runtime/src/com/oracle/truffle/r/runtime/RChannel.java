@@ -22,9 +22,10 @@
  */
 package com.oracle.truffle.r.runtime;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.Semaphore;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.RootCallTarget;
@@ -55,118 +56,119 @@ import com.oracle.truffle.r.runtime.nodes.RSyntaxElement;
 /**
  * Implementation of a channel abstraction used for communication between parallel contexts in
  * shared memory space.
+ *
+ * Values that can be shared between contexts, most notably atomic vectors, are handed over by
+ * reference (after being made permanently shared, so that neither side modifies them in place),
+ * only environments, connections and language objects are serialized. The table of channels is
+ * replaced as a whole whenever a channel is created or closed, so that sending and receiving, which
+ * look up the channel by its id, do not need any locking.
  */
 public class RChannel {
 
-    // TODO: cheaper way of serializing data (re-usable buffer?)
-
     private static final int INITIAL_CHANNEL_NUM = 4;
     private static final int CHANNEL_NUM_GROW_FACTOR = 2;
-    private static final int QUEUE_CAPACITY = 1;
 
-    private static int[] keys = new int[INITIAL_CHANNEL_NUM];
-    private static RChannel[] channels = new RChannel[INITIAL_CHANNEL_NUM];
+    /**
+     * Serialization buffers larger than this are not kept for reuse.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1 << 20;
 
     private static final int CLOSED_CHANNEL_KEY = -1;
 
+    /**
+     * Marks the slots of closed channels, which are not reused.
+     */
+    private static final RChannel CLOSED_CHANNEL = new RChannel(CLOSED_CHANNEL_KEY, 1);
+
     /*
-     * Used to mediate access to the semaphore instances
+     * Index 0 is never used as we need ids that have distinguishable positive and negative value.
      */
-    private static final Semaphore create = new Semaphore(1, true);
+    private static volatile RChannel[] channels = new RChannel[INITIAL_CHANNEL_NUM];
+
+    /*
+     * Used to serialize the updates of the channels table
+     */
+    private static final Object channelsLock = new Object();
+
+    private static final ThreadLocal<ByteArrayOutputStream> serializationBuffer = ThreadLocal.withInitial(ByteArrayOutputStream::new);
 
-    private final ArrayBlockingQueue<Object> masterToClient = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
-    private final ArrayBlockingQueue<Object> clientToMaster = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final int key;
+    private final ArrayBlockingQueue<Object> masterToClient;
+    private final ArrayBlockingQueue<Object> clientToMaster;
+
+    private RChannel(int key, int capacity) {
+        this.key = key;
+        this.masterToClient = new ArrayBlockingQueue<>(capacity);
+        this.clientToMaster = new ArrayBlockingQueue<>(capacity);
+    }
 
     public static int createChannel(int key) {
         if (key <= 0) {
             throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel's key must be positive");
         }
-        try {
-            create.acquire();
-            while (true) {
-                int freeSlot = -1;
-                // start from one as we need slots that have distinguishable positive and negative
-                // value
-                for (int i = 1; i < keys.length; i++) {
-                    if (keys[i] == key) {
-                        throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel with specified key already exists");
-                    }
-                    if (keys[i] == 0 && freeSlot == -1) {
+        synchronized (channelsLock) {
+            RChannel[] current = channels;
+            int freeSlot = -1;
+            for (int i = 1; i < current.length; i++) {
+                RChannel channel = current[i];
+                if (channel == null) {
+                    if (freeSlot == -1) {
                         freeSlot = i;
                     }
-                }
-                if (freeSlot != -1) {
-                    keys[freeSlot] = key;
-                    channels[freeSlot] = new RChannel();
-                    return freeSlot;
-                } else {
-                    int[] keysTmp = new int[keys.length * CHANNEL_NUM_GROW_FACTOR];
-                    RChannel[] channelsTmp = new RChannel[channels.length * CHANNEL_NUM_GROW_FACTOR];
-                    for (int i = 1; i < keys.length; i++) {
-                        keysTmp[i] = keys[i];
-                        channelsTmp[i] = channels[i];
-                    }
-                    keys = keysTmp;
-                    channels = channelsTmp;
+                } else if (channel.key == key) {
+                    throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel with specified key already exists");
                 }
             }
-        } catch (InterruptedException x) {
-            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error creating a channel");
-        } finally {
-            create.release();
+            RChannel[] newChannels;
+            if (freeSlot != -1) {
+                newChannels = current.clone();
+            } else {
+                newChannels = Arrays.copyOf(current, current.length * CHANNEL_NUM_GROW_FACTOR);
+                freeSlot = current.length;
+            }
+            newChannels[freeSlot] = new RChannel(key, Math.max(1, FastROptions.ChannelQueueCapacity.getNonNegativeIntValue()));
+            channels = newChannels;
+            return freeSlot;
         }
     }
 
     public static int getChannel(int key) {
-        try {
-            create.acquire();
-            for (int i = 1; i < keys.length; i++) {
-                if (keys[i] == key) {
-                    return -i;
-                }
+        RChannel[] current = channels;
+        for (int i = 1; i < current.length; i++) {
+            RChannel channel = current[i];
+            if (channel != null && channel.key == key) {
+                return -i;
             }
-        } catch (InterruptedException x) {
-            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error accessing channel");
-        } finally {
-            create.release();
         }
         throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel does not exist");
     }
 
     public static void closeChannel(int id) {
         int actualId = Math.abs(id);
-        try {
-            create.acquire();
-            if (actualId == 0 || actualId >= channels.length || channels[actualId] == null) {
-                // closing an already closed channel does not necessarily have to be an error (and
-                // makes parallell package's worker script work unchanged)
-                if (keys[actualId] != CLOSED_CHANNEL_KEY) {
-                    throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel with specified id does not exist");
-                }
+        synchronized (channelsLock) {
+            RChannel[] current = channels;
+            RChannel channel = actualId < current.length ? current[actualId] : null;
+            if (channel == null) {
+                throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel with specified id does not exist");
+            }
+            // closing an already closed channel does not necessarily have to be an error (and
+            // makes parallell package's worker script work unchanged)
+            if (channel != CLOSED_CHANNEL) {
+                RChannel[] newChannels = current.clone();
+                newChannels[actualId] = CLOSED_CHANNEL;
+                channels = newChannels;
             }
-            keys[actualId] = CLOSED_CHANNEL_KEY;
-            channels[actualId] = null;
-        } catch (InterruptedException x) {
-            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error closing channel");
-        } finally {
-            create.release();
         }
     }
 
     private static RChannel getChannelFromId(int id) {
         int actualId = Math.abs(id);
-        try {
-            create.acquire();
-            if (actualId == 0 || actualId >= channels.length || channels[actualId] == null) {
-                throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel with specified id does not exist");
-            }
-            RChannel channel = channels[actualId];
-            return channel;
-        } catch (InterruptedException x) {
-            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "error transmitting through channel");
-        } finally {
-            create.release();
+        RChannel[] current = channels;
+        RChannel channel = actualId < current.length ? current[actualId] : null;
+        if (channel == null || channel == CLOSED_CHANNEL) {
+            throw RError.error(RError.SHOW_CALLER2, RError.Message.GENERIC, "channel with specified id does not exist");
         }
+        return channel;
     }
 
     public static void send(int id, Object data) {
@@ -201,6 +203,19 @@ public class RChannel {
         return null;
     }
 
+    /**
+     * Serializes {@code obj} into the calling thread's serialization buffer, which is reused by
+     * subsequent messages unless it has grown too large.
+     */
+    private static byte[] serialize(Object obj) {
+        ByteArrayOutputStream buffer = serializationBuffer.get();
+        byte[] result = RSerialize.serialize(obj, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null, buffer);
+        if (buffer.size() > MAX_POOLED_BUFFER_SIZE) {
+            serializationBuffer.remove();
+        }
+        return result;
+    }
+
     private static class TransmitterCommon extends RSerialize.RefCounter {
 
         protected static class SerializedRef {
@@ -472,7 +487,7 @@ public class RChannel {
                 // them - should we define a new method to be used here?
                 attributable.initAttributes(null);
             }
-            byte[] serializedAttributable = RSerialize.serialize(attributable, RSerialize.XDR, RSerialize.DEFAULT_VERSION, null);
+            byte[] serializedAttributable = serialize(attributable);
             if (attributes != null) {
                 attributable.initAttributes(attributes);
                 attributes = createShareableSlow(attributes, true);
@@ -23,17 +23,16 @@
 package com.oracle.truffle.r.runtime;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ProcessBuilder.Redirect;
-import java.nio.file.Files;
-import java.nio.file.OpenOption;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.tukaani.xz.LZMA2InputStream;
 
@@ -41,9 +40,12 @@ import com.oracle.truffle.r.runtime.ffi.ZipRFFI;
 
 /**
  * Abstracts the implementation of the various forms of compression used in R. Since the C API for
- * LZMA is very complex (as used by GnuR), we use an 'xz' subprocess to do the work.
+ * LZMA is very complex (as used by GnuR), we use an 'xz' subprocess to do the work. bzip2 is
+ * implemented in-process by {@link BZip2InputStream} and {@link BZip2OutputStream}.
  */
 public class RCompression {
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     public enum Type {
         NONE('0'),
         GZIP('1'),
@@ -112,7 +114,7 @@ public class RCompression {
             case GZIP:
                 return gzipUncompress(udata, cdata);
             case BZIP2:
-                throw RInternalError.unimplemented("BZIP2 compression");
+                return bzipUncompress(udata, new ByteArrayInputStream(cdata));
             case XZ:
                 return lzmaUncompress(udata, cdata);
             default:
@@ -121,6 +123,70 @@ public class RCompression {
         }
     }
 
+    /**
+     * Like {@link #uncompress(Type, byte[], byte[])}, but reads the compressed data from the
+     * remaining bytes of {@code cdata}, e.g., a slice of a memory mapped file, without copying it to
+     * the heap as a whole.
+     */
+    public static boolean uncompress(Type type, byte[] udata, ByteBuffer cdata) {
+        switch (type) {
+            case NONE:
+                cdata.get(udata, 0, Math.min(udata.length, cdata.remaining()));
+                return true;
+            case GZIP:
+                Inflater inflater = new Inflater();
+                try {
+                    return readFully(new InflaterInputStream(new ByteBufferInputStream(cdata), inflater, STREAM_BUFFER_SIZE), udata);
+                } finally {
+                    inflater.end();
+                }
+            case BZIP2:
+                return bzipUncompress(udata, new ByteBufferInputStream(cdata));
+            case XZ:
+                int dictSize = udata.length < LZMA2InputStream.DICT_SIZE_MIN ? LZMA2InputStream.DICT_SIZE_MIN : udata.length;
+                return readFully(new LZMA2InputStream(new ByteBufferInputStream(cdata), dictSize), udata);
+            default:
+                assert false;
+                return false;
+        }
+    }
+
+    private static boolean readFully(InputStream is, byte[] udata) {
+        try (InputStream stream = is) {
+            int totalRead = 0;
+            int n;
+            while (totalRead < udata.length && (n = stream.read(udata, totalRead, udata.length - totalRead)) > 0) {
+                totalRead += n;
+            }
+            return totalRead == udata.length;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+
     /**
      * Uncompress for internal use in {@code LazyLoadDBInsertValue} where size of uncompressed data
      * is known.
@@ -138,7 +204,12 @@ public class RCompression {
             case GZIP:
                 return gzipCompress(udata, cdata);
             case BZIP2:
-                throw RInternalError.unimplemented("BZIP2 compression");
+                byte[] bzipData = bzipCompress(udata);
+                if (bzipData.length > cdata.length) {
+                    return false;
+                }
+                System.arraycopy(bzipData, 0, cdata, 0, bzipData.length);
+                return true;
             case XZ:
                 return lzmaCompress(udata, cdata);
             default:
@@ -199,54 +270,25 @@ public class RCompression {
         }
     }
 
-    public static byte[] bzipUncompressFromFile(String path) throws IOException {
-        String[] command = new String[]{"bzip2", "-dc", path};
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectError(Redirect.INHERIT);
-        Process p = pb.start();
-        InputStream is = p.getInputStream();
-        ProcessOutputManager.OutputThreadVariable readThread = new ProcessOutputManager.OutputThreadVariable(command[0], is);
-        readThread.start();
+    private static boolean bzipUncompress(byte[] udata, InputStream cdata) {
         try {
-            int rc = p.waitFor();
-            if (rc == 0) {
-                readThread.join();
-                return Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
-            } else {
-                throw new IOException("bzip2 error code: " + rc);
-            }
-        } catch (InterruptedException ex) {
-            // fall through
+            return readFully(new BZip2InputStream(cdata), udata);
+        } catch (IOException ex) {
+            return false;
         }
-        throw new IOException();
     }
 
-    public static void bzipCompressToFile(byte[] data, String path, boolean append) throws IOException {
-        String[] command = new String[]{"bzip2", "-zc"};
-        int rc;
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectError(Redirect.INHERIT);
-        Process p = pb.start();
-        InputStream is = p.getInputStream();
-        OutputStream os = p.getOutputStream();
-        ProcessOutputManager.OutputThreadVariable readThread = new ProcessOutputManager.OutputThreadVariable(command[0], is);
-        readThread.start();
-        os.write(data);
-        os.close();
-        try {
-            rc = p.waitFor();
-            if (rc == 0) {
-                readThread.join();
-                byte[] cData = Arrays.copyOf(readThread.getData(), readThread.getTotalRead());
-                OpenOption[] openOptions = append ? new OpenOption[]{StandardOpenOption.APPEND} : new OpenOption[0];
-                Files.write(Paths.get(path), cData, openOptions);
-                return;
-            } else {
-                throw new IOException("bzip2 error code: " + rc);
-            }
-        } catch (InterruptedException ex) {
-            // fall through
+    /**
+     * Compresses {@code udata} with the in-process bzip2 codec, the result has the exact length of
+     * the compressed data.
+     */
+    public static byte[] bzipCompress(byte[] udata) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(udata.length / 4 + 64);
+        try (BZip2OutputStream bz = new BZip2OutputStream(bos)) {
+            bz.write(udata);
+        } catch (IOException ex) {
+            throw RInternalError.shouldNotReachHere(ex);
         }
-        throw new IOException();
+        return bos.toByteArray();
     }
 }
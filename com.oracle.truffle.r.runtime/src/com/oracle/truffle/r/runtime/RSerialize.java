@@ -18,6 +18,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
@@ -54,10 +58,12 @@ import com.oracle.truffle.r.runtime.data.RAttributable;
 import com.oracle.truffle.r.runtime.data.RAttributesLayout;
 import com.oracle.truffle.r.runtime.data.RComplex;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
 import com.oracle.truffle.r.runtime.data.REmpty;
 import com.oracle.truffle.r.runtime.data.RExpression;
 import com.oracle.truffle.r.runtime.data.RExternalPtr;
 import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RLanguage;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RMissing;
@@ -288,6 +294,12 @@ public class RSerialize {
 
     public static final int DEFAULT_VERSION = 2;
 
+    /**
+     * The number of elements of vectors that are converted at once when they are not stored as
+     * arrays of the serialized element type, e.g., logicals.
+     */
+    private static final int BULK_CHUNK_SIZE = 4096;
+
     /**
      * Lazily read in case set during execution for debugging purposes. This is necessary because
      * setting the option on startup will trace all the standard library functions as they are
@@ -379,10 +391,12 @@ public class RSerialize {
             is.read(buf);
             switch (buf[0]) {
                 case 'A':
-                case 'B':
                     throw formatError(buf[0], true);
+                case 'B':
+                    stream = new XdrInputFormat(is, ByteOrder.nativeOrder());
+                    break;
                 case 'X':
-                    stream = new XdrInputFormat(is);
+                    stream = new XdrInputFormat(is, ByteOrder.BIG_ENDIAN);
                     break;
                 case '\n':
                     // special case in 'A'
@@ -710,13 +724,13 @@ public class RSerialize {
                 case INTSXP: {
                     int len = stream.readInt();
                     int[] data = new int[len];
+                    stream.readInts(data, 0, len);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
-                        int intVal = stream.readInt();
-                        if (intVal == RRuntime.INT_NA) {
+                        if (data[i] == RRuntime.INT_NA) {
                             complete = false;
+                            break;
                         }
-                        data[i] = intVal;
                     }
                     result = RDataFactory.createIntVector(data, complete);
                     break;
@@ -725,14 +739,19 @@ public class RSerialize {
                 case LGLSXP: {
                     int len = stream.readInt();
                     byte[] data = new byte[len];
+                    int[] chunk = new int[Math.min(len, BULK_CHUNK_SIZE)];
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
-                    for (int i = 0; i < len; i++) {
-                        int intVal = stream.readInt();
-                        if (intVal == RRuntime.INT_NA) {
-                            complete = false;
-                            data[i] = RRuntime.LOGICAL_NA;
-                        } else {
-                            data[i] = (byte) intVal;
+                    for (int start = 0; start < len; start += chunk.length) {
+                        int n = Math.min(chunk.length, len - start);
+                        stream.readInts(chunk, 0, n);
+                        for (int i = 0; i < n; i++) {
+                            int intVal = chunk[i];
+                            if (intVal == RRuntime.INT_NA) {
+                                complete = false;
+                                data[start + i] = RRuntime.LOGICAL_NA;
+                            } else {
+                                data[start + i] = (byte) intVal;
+                            }
                         }
                     }
                     result = RDataFactory.createLogicalVector(data, complete);
@@ -742,13 +761,13 @@ public class RSerialize {
                 case REALSXP: {
                     int len = stream.readInt();
                     double[] data = new double[len];
+                    stream.readDoubles(data, 0, len);
                     boolean complete = RDataFactory.COMPLETE_VECTOR;
                     for (int i = 0; i < len; i++) {
-                        double doubleVal = stream.readDouble();
-                        if (RRuntime.isNA(doubleVal)) {
+                        if (RRuntime.isNA(data[i])) {
                             complete = false;
+                            break;
                         }
-                        data[i] = doubleVal;
                     }
                     result = RDataFactory.createDoubleVector(data, complete);
                     break;
@@ -1048,6 +1067,23 @@ public class RSerialize {
 
         abstract void readRaw(byte[] data) throws IOException;
 
+        /**
+         * Reads {@code length} ints into {@code data} starting at {@code offset}.
+         */
+        void readInts(int[] data, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                data[i] = readInt();
+            }
+        }
+
+        /**
+         * Reads {@code length} doubles into {@code data} starting at {@code offset}.
+         */
+        void readDoubles(double[] data, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                data[i] = readDouble();
+            }
+        }
     }
 
     @SuppressWarnings("unused")
@@ -1064,10 +1100,17 @@ public class RSerialize {
         }
     }
 
+    /**
+     * Reads the XDR format and, with the native byte order, the binary format, which only differs
+     * in the byte order of ints and doubles.
+     */
     private static final class XdrInputFormat extends PInputStream {
 
         private static final int READ_BUFFER_SIZE = 32 * 1024;
 
+        private final ByteOrder order;
+        private final boolean bigEndian;
+
         private final class Buffer {
             private final byte[] buf;
             private int size;
@@ -1078,13 +1121,24 @@ public class RSerialize {
             }
 
             int readInt() {
-                return ((buf[offset++] & 0xff) << 24 | (buf[offset++] & 0xff) << 16 | (buf[offset++] & 0xff) << 8 | (buf[offset++] & 0xff));
+                int val = ((buf[offset++] & 0xff) << 24 | (buf[offset++] & 0xff) << 16 | (buf[offset++] & 0xff) << 8 | (buf[offset++] & 0xff));
+                return bigEndian ? val : Integer.reverseBytes(val);
             }
 
             double readDouble() {
                 long val = ((long) (buf[offset++] & 0xff) << 56 | (long) (buf[offset++] & 0xff) << 48 | (long) (buf[offset++] & 0xff) << 40 | (long) (buf[offset++] & 0xff) << 32 |
                                 (long) (buf[offset++] & 0xff) << 24 | (long) (buf[offset++] & 0xff) << 16 | (long) (buf[offset++] & 0xff) << 8 | buf[offset++] & 0xff);
-                return Double.longBitsToDouble(val);
+                return Double.longBitsToDouble(bigEndian ? val : Long.reverseBytes(val));
+            }
+
+            /**
+             * A view of the (whole) elements of the given size available in the buffer.
+             */
+            ByteBuffer view(int elementSize, int maxElements) {
+                int n = Math.min(maxElements, (size - offset) / elementSize);
+                ByteBuffer result = ByteBuffer.wrap(buf, offset, n * elementSize).order(order);
+                offset += n * elementSize;
+                return result;
             }
 
             @SuppressWarnings("deprecation")
@@ -1153,8 +1207,10 @@ public class RSerialize {
 
         private final WeakHashMap<String, WeakReference<String>> strings = RContext.getInstance().stringMap;
 
-        XdrInputFormat(InputStream is) {
+        XdrInputFormat(InputStream is, ByteOrder order) {
             super(is);
+            this.order = order;
+            this.bigEndian = order == ByteOrder.BIG_ENDIAN;
             if (is instanceof PByteArrayInputStream) {
                 // we already have the data and we have read the beginning
                 PByteArrayInputStream pbis = (PByteArrayInputStream) is;
@@ -1188,6 +1244,31 @@ public class RSerialize {
             ensureData(data.length).readRaw(data);
         }
 
+        @Override
+        void readInts(int[] data, int offset, int length) throws IOException {
+            int i = offset;
+            int end = offset + length;
+            while (i < end) {
+                // decodes what is in the buffer at once, refilling it as needed
+                IntBuffer view = ensureData(4).view(4, end - i).asIntBuffer();
+                int n = view.remaining();
+                view.get(data, i, n);
+                i += n;
+            }
+        }
+
+        @Override
+        void readDoubles(double[] data, int offset, int length) throws IOException {
+            int i = offset;
+            int end = offset + length;
+            while (i < end) {
+                DoubleBuffer view = ensureData(8).view(8, end - i).asDoubleBuffer();
+                int n = view.remaining();
+                view.get(data, i, n);
+                i += n;
+            }
+        }
+
         private Buffer ensureData(int n) throws IOException {
             Buffer usedBuffer;
             if (n > defaultBuffer.buf.length) {
@@ -1278,22 +1359,49 @@ public class RSerialize {
 
         abstract void flush() throws IOException;
 
+        /**
+         * Writes the ints {@code values[from .. to - 1]}.
+         */
+        void writeInts(int[] values, int from, int to) throws IOException {
+            for (int i = from; i < to; i++) {
+                writeInt(values[i]);
+            }
+        }
+
+        /**
+         * Writes the doubles {@code values[from .. to - 1]}.
+         */
+        void writeDoubles(double[] values, int from, int to) throws IOException {
+            for (int i = from; i < to; i++) {
+                writeDouble(values[i]);
+            }
+        }
     }
 
+    /**
+     * Writes the XDR format and, with the native byte order, the binary format.
+     */
     private static class XdrOutputFormat extends POutputStream {
+        private static final int WRITE_BUFFER_SIZE = 32 * 1024;
+
         private final byte[] buf;
+        private final ByteOrder order;
+        private final boolean bigEndian;
         private int offset;
 
-        XdrOutputFormat(OutputStream os) {
+        XdrOutputFormat(OutputStream os, ByteOrder order, char header) {
             super(os);
-            buf = new byte[8192];
-            buf[offset++] = 'X';
+            this.order = order;
+            this.bigEndian = order == ByteOrder.BIG_ENDIAN;
+            buf = new byte[WRITE_BUFFER_SIZE];
+            buf[offset++] = (byte) header;
             buf[offset++] = '\n';
         }
 
         @Override
-        void writeInt(int value) throws IOException {
+        void writeInt(int v) throws IOException {
             ensureSpace(4);
+            int value = bigEndian ? v : Integer.reverseBytes(v);
             buf[offset++] = (byte) (value >>> 24);
             buf[offset++] = (byte) (value >> 16);
             buf[offset++] = (byte) (value >> 8);
@@ -1350,7 +1458,7 @@ public class RSerialize {
         @Override
         void writeDouble(double value) throws IOException {
             ensureSpace(8);
-            long valueBits = Double.doubleToRawLongBits(value);
+            long valueBits = bigEndian ? Double.doubleToRawLongBits(value) : Long.reverseBytes(Double.doubleToRawLongBits(value));
             buf[offset++] = (byte) (valueBits >>> 56);
             buf[offset++] = (byte) ((valueBits >> 48) & 0xff);
             buf[offset++] = (byte) ((valueBits >> 40) & 0xff);
@@ -1361,6 +1469,31 @@ public class RSerialize {
             buf[offset++] = (byte) (valueBits & 0xff);
         }
 
+        @Override
+        void writeInts(int[] values, int from, int to) throws IOException {
+            int i = from;
+            while (i < to) {
+                // encodes as many values as fit into the buffer at once
+                ensureSpace(4);
+                int n = Math.min(to - i, (buf.length - offset) / 4);
+                ByteBuffer.wrap(buf, offset, n * 4).order(order).asIntBuffer().put(values, i, n);
+                offset += n * 4;
+                i += n;
+            }
+        }
+
+        @Override
+        void writeDoubles(double[] values, int from, int to) throws IOException {
+            int i = from;
+            while (i < to) {
+                ensureSpace(8);
+                int n = Math.min(to - i, (buf.length - offset) / 8);
+                ByteBuffer.wrap(buf, offset, n * 8).order(order).asDoubleBuffer().put(values, i, n);
+                offset += n * 8;
+                i += n;
+            }
+        }
+
         private void ensureSpace(int n) throws IOException {
             if (offset + n > buf.length) {
                 flushBuffer();
@@ -1399,10 +1532,12 @@ public class RSerialize {
             switch (format) {
                 case ASCII:
                 case ASCII_HEX:
-                case BINARY:
                     throw formatError((byte) format, true);
+                case BINARY:
+                    stream = new XdrOutputFormat(os, ByteOrder.nativeOrder(), 'B');
+                    break;
                 default:
-                    stream = new XdrOutputFormat(os);
+                    stream = new XdrOutputFormat(os, ByteOrder.BIG_ENDIAN, 'X');
                     break;
             }
         }
@@ -1558,6 +1693,10 @@ public class RSerialize {
                                 if (obj instanceof Integer) {
                                     stream.writeInt(1);
                                     stream.writeInt((int) obj);
+                                } else if (obj instanceof RIntVector) {
+                                    int[] data = ((RIntVector) obj).getDataWithoutCopying();
+                                    stream.writeInt(data.length);
+                                    stream.writeInts(data, 0, data.length);
                                 } else {
                                     RAbstractIntVector vec = (RAbstractIntVector) obj;
                                     stream.writeInt(vec.getLength());
@@ -1572,6 +1711,10 @@ public class RSerialize {
                                 if (obj instanceof Double) {
                                     stream.writeInt(1);
                                     stream.writeDouble((double) obj);
+                                } else if (obj instanceof RDoubleVector) {
+                                    double[] data = ((RDoubleVector) obj).getDataWithoutCopying();
+                                    stream.writeInt(data.length);
+                                    stream.writeDoubles(data, 0, data.length);
                                 } else {
                                     RAbstractDoubleVector vec = (RAbstractDoubleVector) obj;
                                     stream.writeInt(vec.getLength());
@@ -1589,9 +1732,15 @@ public class RSerialize {
                                     stream.writeInt(RRuntime.logical2int((byte) obj));
                                 } else {
                                     RAbstractLogicalVector vec = (RAbstractLogicalVector) obj;
-                                    stream.writeInt(vec.getLength());
-                                    for (int i = 0; i < vec.getLength(); i++) {
-                                        stream.writeInt(RRuntime.logical2int(vec.getDataAt(i)));
+                                    int len = vec.getLength();
+                                    stream.writeInt(len);
+                                    int[] chunk = new int[Math.min(len, BULK_CHUNK_SIZE)];
+                                    for (int start = 0; start < len; start += chunk.length) {
+                                        int n = Math.min(chunk.length, len - start);
+                                        for (int i = 0; i < n; i++) {
+                                            chunk[i] = RRuntime.logical2int(vec.getDataAt(start + i));
+                                        }
+                                        stream.writeInts(chunk, 0, n);
                                     }
                                 }
                                 break;
@@ -2205,11 +2354,20 @@ public class RSerialize {
      */
     @TruffleBoundary
     public static byte[] serialize(Object obj, int type, int version, Object refhook) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        return serialize(obj, type, version, refhook, new ByteArrayOutputStream());
+    }
+
+    /**
+     * Like {@link #serialize(Object, int, int, Object)}, but uses the given (reusable) buffer,
+     * which is reset first.
+     */
+    @TruffleBoundary
+    public static byte[] serialize(Object obj, int type, int version, Object refhook, ByteArrayOutputStream buffer) {
+        buffer.reset();
         try {
-            Output output = new Output(out, type, version, (CallHook) refhook);
+            Output output = new Output(buffer, type, version, (CallHook) refhook);
             output.serialize(obj);
-            return out.toByteArray();
+            return buffer.toByteArray();
         } catch (IOException ex) {
             throw RInternalError.shouldNotReachHere();
         }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.ffi.PCRERFFI;
+
+/**
+ * A bounded LRU cache of compiled regular expressions, used by the {@code grep} family of builtins
+ * so that applying the same pattern to many strings (or in many calls) does not translate and
+ * compile it over and over. There is one cache per context, holding at most
+ * {@link FastROptions#RegExpCacheSize} entries ({@code 0} disables it).
+ *
+ * R patterns are cached as the {@link Pattern} they translate to (see
+ * {@link RegExp#checkPreDefinedClasses(String)}), {@code perl = TRUE} patterns as the result of the
+ * PCRE compilation. {@code fixed = TRUE} patterns are not compiled at all and therefore not cached.
+ */
+public final class RegExpCache {
+
+    private static final class Key {
+        private final String pattern;
+        private final boolean perl;
+        private final boolean ignoreCase;
+
+        Key(String pattern, boolean perl, boolean ignoreCase) {
+            this.pattern = pattern;
+            this.perl = perl;
+            this.ignoreCase = ignoreCase;
+        }
+
+        @Override
+        public int hashCode() {
+            return pattern.hashCode() * 31 + (perl ? 2 : 0) + (ignoreCase ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return perl == other.perl && ignoreCase == other.ignoreCase && pattern.equals(other.pattern);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            return size() > capacity();
+        }
+    };
+
+    private long hits;
+    private long misses;
+
+    private static int capacity() {
+        return FastROptions.RegExpCacheSize.getNonNegativeIntValue();
+    }
+
+    /**
+     * Returns the Java {@link Pattern} for the R regular expression {@code pattern}, translating and
+     * compiling it if it is not in the cache.
+     *
+     * @throws java.util.regex.PatternSyntaxException if the pattern is invalid
+     */
+    @TruffleBoundary
+    public Pattern getJavaPattern(String pattern, boolean ignoreCase) {
+        Key key = new Key(pattern, false, ignoreCase);
+        Pattern result = (Pattern) get(key);
+        if (result == null) {
+            result = Pattern.compile(RegExp.checkPreDefinedClasses(pattern), ignoreCase ? Pattern.CASE_INSENSITIVE : 0);
+            put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cached PCRE compilation of {@code pattern}, or {@code null} if it has to be
+     * compiled (and then {@link #putPerlPattern added}).
+     */
+    @TruffleBoundary
+    public PCRERFFI.Result getPerlPattern(String pattern, boolean ignoreCase) {
+        return (PCRERFFI.Result) get(new Key(pattern, true, ignoreCase));
+    }
+
+    @TruffleBoundary
+    public void putPerlPattern(String pattern, boolean ignoreCase, PCRERFFI.Result pcre) {
+        put(new Key(pattern, true, ignoreCase), pcre);
+    }
+
+    private synchronized Object get(Key key) {
+        Object result = entries.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    private synchronized void put(Key key, Object value) {
+        if (capacity() > 0) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Counts a lookup that was served by a node-local cache of the last pattern used.
+     */
+    @TruffleBoundary
+    public synchronized void inlineHit() {
+        hits++;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+}
@@ -688,6 +688,44 @@ public class ConnectionSupport {
             }
         }
 
+        /**
+         * Returns {@code true} if the data of this open connection can be read as bytes, i.e., by
+         * {@link #getc()} and {@link #readBin}, and {@code false} if it is only available as lines
+         * (see {@link #readLines}), e.g., for text connections. Push back lines are not included
+         * in either case.
+         */
+        public boolean canReadBytes() {
+            return theConnection != null && theConnection.canReadBytes();
+        }
+
+        /**
+         * Returns {@code true} if the bytes of this open connection can be read in chunks with
+         * {@link #readBuffered}, directly from the read buffer that {@link #getc()} uses.
+         */
+        public boolean canReadBuffered() {
+            return theConnection != null && theConnection.canReadBuffered();
+        }
+
+        /**
+         * Reads at most {@code len} bytes from the read buffer of the connection, refilling it if
+         * it is empty, and returns their number or {@code -1} at the end of the input. Push back
+         * lines are not included.
+         */
+        public int readBuffered(byte[] b, int off, int len) throws IOException {
+            checkOpen();
+            return theConnection.readBuffered(b, off, len);
+        }
+
+        /**
+         * Returns the last {@code n} bytes obtained by {@link #readBuffered} to the read buffer, so
+         * that they are read again by the next read operation. Nothing else may have been read from
+         * the connection in between.
+         */
+        public void unreadBuffered(int n) {
+            checkOpen();
+            theConnection.unreadBuffered(n);
+        }
+
         /**
          * Return value for "can read" for {@code summary.connection}.
          */
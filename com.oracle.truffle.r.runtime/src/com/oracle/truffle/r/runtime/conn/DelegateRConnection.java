@@ -531,6 +531,46 @@ abstract class DelegateRConnection implements RConnection, ByteChannel {
         return false;
     }
 
+    /**
+     * Returns the position of the next byte to be read from the channel, which has to be
+     * seekable, i.e., the position of the channel minus the data read ahead into the cache.
+     */
+    long readPosition() throws IOException {
+        long position = ((SeekableByteChannel) getChannel()).position();
+        return readCache && cache != null ? position - cache.remaining() : position;
+    }
+
+    /**
+     * See {@link BaseRConnection#canReadBuffered()}.
+     */
+    boolean canReadBuffered() {
+        return readCache && cache != null;
+    }
+
+    /**
+     * See {@link BaseRConnection#readBuffered(byte[], int, int)}.
+     */
+    int readBuffered(byte[] b, int off, int len) throws IOException {
+        assert canReadBuffered();
+        if (!cache.hasRemaining()) {
+            ensureDataAvailable(1);
+            if (!cache.hasRemaining()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, cache.remaining());
+        cache.get(b, off, n);
+        return n;
+    }
+
+    /**
+     * See {@link BaseRConnection#unreadBuffered(int)}.
+     */
+    void unreadBuffered(int n) {
+        assert canReadBuffered() && n <= cache.position();
+        cache.position(cache.position() - n);
+    }
+
     /**
      * Invalidates the read cache by dropping cached data.<br>
      * <p>
@@ -586,6 +626,13 @@ abstract class DelegateRConnection implements RConnection, ByteChannel {
         return true;
     }
 
+    /**
+     * See {@link BaseRConnection#canReadBytes()}.
+     */
+    public boolean canReadBytes() {
+        return canRead();
+    }
+
     @Override
     public boolean canWrite() {
         return true;
@@ -22,8 +22,6 @@
  */
 package com.oracle.truffle.r.runtime.conn;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -47,6 +45,10 @@ import org.tukaani.xz.XZInputStream;
 import org.tukaani.xz.XZOutputStream;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.BZip2InputStream;
+import com.oracle.truffle.r.runtime.BZip2OutputStream;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.ParallelCompressedOutputStream;
 import com.oracle.truffle.r.runtime.RCompression;
 import com.oracle.truffle.r.runtime.RCompression.Type;
 import com.oracle.truffle.r.runtime.RError;
@@ -87,6 +89,27 @@ public class FileConnections {
             return internal;
         }
 
+        /**
+         * Returns the path of the file if the connection is open for reading only and its content
+         * is what the connection reads, i.e., it is not decompressed on the fly, {@code null}
+         * otherwise.
+         */
+        public String getPlainPath() {
+            if (!isOpen() || !getConnectionClass().equals(ConnectionClass.File.getPrintName())) {
+                return null;
+            }
+            AbstractOpenMode openMode = getOpenMode().abstractOpenMode;
+            return openMode == AbstractOpenMode.Read || openMode == AbstractOpenMode.ReadBinary ? path : null;
+        }
+
+        /**
+         * Returns the offset in the {@link #getPlainPath() plain file} of the next byte read from
+         * the connection, not counting pushed back lines.
+         */
+        public long getPlainPosition() throws IOException {
+            return theConnection.readPosition();
+        }
+
         @Override
         @TruffleBoundary
         protected void createDelegateConnection() throws IOException {
@@ -166,6 +189,31 @@ public class FileConnections {
         return delegate;
     }
 
+    /**
+     * The default number of threads compressing output. Each of them holds a chunk of input and its
+     * compressed output, so the memory used by a compressed connection grows with the number of
+     * threads.
+     */
+    private static final int MAX_DEFAULT_COMPRESSION_THREADS = 4;
+
+    /**
+     * The number of threads compressing output, see {@link FastROptions#CompressionThreads}.
+     */
+    private static int compressionThreads() {
+        int threads = FastROptions.CompressionThreads.getNonNegativeIntValue();
+        return threads == 0 ? Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_COMPRESSION_THREADS) : threads;
+    }
+
+    private static OutputStream createGZIPOutputStream(OutputStream os) throws IOException {
+        int threads = compressionThreads();
+        return threads > 1 ? ParallelCompressedOutputStream.gzip(os, threads) : new GZIPOutputStream(os, GZIP_BUFFER_SIZE);
+    }
+
+    private static OutputStream createXZOutputStream(OutputStream os) throws IOException {
+        int threads = compressionThreads();
+        return threads > 1 ? ParallelCompressedOutputStream.xz(os, new LZMA2Options(), XZ.CHECK_CRC32, threads) : new XZOutputStream(os, new LZMA2Options(), XZ.CHECK_CRC32);
+    }
+
     private static DelegateRConnection createGZIPDelegateConnection(BasePathRConnection base) throws IOException {
 
         switch (base.getOpenMode().abstractOpenMode) {
@@ -174,10 +222,10 @@ public class FileConnections {
                 return new CompressedInputRConnection(base, new GZIPInputStream(new FileInputStream(base.path), GZIP_BUFFER_SIZE));
             case Append:
             case AppendBinary:
-                return new CompressedOutputRConnection(base, new GZIPOutputStream(new FileOutputStream(base.path, true), GZIP_BUFFER_SIZE), true);
+                return new CompressedOutputRConnection(base, createGZIPOutputStream(new FileOutputStream(base.path, true)), true);
             case Write:
             case WriteBinary:
-                return new CompressedOutputRConnection(base, new GZIPOutputStream(new FileOutputStream(base.path, false), GZIP_BUFFER_SIZE), true);
+                return new CompressedOutputRConnection(base, createGZIPOutputStream(new FileOutputStream(base.path, false)), true);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
@@ -191,10 +239,10 @@ public class FileConnections {
                 return new CompressedInputRConnection(base, new XZInputStream(new FileInputStream(base.path)));
             case Append:
             case AppendBinary:
-                return new CompressedOutputRConnection(base, new XZOutputStream(new FileOutputStream(base.path, true), new LZMA2Options(), XZ.CHECK_CRC32), false);
+                return new CompressedOutputRConnection(base, createXZOutputStream(new FileOutputStream(base.path, true)), false);
             case Write:
             case WriteBinary:
-                return new CompressedOutputRConnection(base, new XZOutputStream(new FileOutputStream(base.path, false), new LZMA2Options(), XZ.CHECK_CRC32), false);
+                return new CompressedOutputRConnection(base, createXZOutputStream(new FileOutputStream(base.path, false)), false);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
@@ -205,14 +253,13 @@ public class FileConnections {
         switch (base.getOpenMode().abstractOpenMode) {
             case Read:
             case ReadBinary:
-                byte[] bzipUdata = RCompression.bzipUncompressFromFile(base.path);
-                return new ByteStreamCompressedInputRConnection(base, new ByteArrayInputStream(bzipUdata));
+                return new CompressedInputRConnection(base, new BZip2InputStream(new FileInputStream(base.path)));
             case Append:
             case AppendBinary:
-                return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), true);
+                return new CompressedOutputRConnection(base, new BZip2OutputStream(new FileOutputStream(base.path, true), 9, compressionThreads()), false);
             case Write:
             case WriteBinary:
-                return new BZip2OutputRConnection(base, new ByteArrayOutputStream(), false);
+                return new CompressedOutputRConnection(base, new BZip2OutputStream(new FileOutputStream(base.path, false), 9, compressionThreads()), false);
             default:
                 throw RError.nyi(RError.SHOW_CALLER2, "open mode: " + base.getOpenMode());
         }
@@ -377,6 +424,12 @@ public class FileConnections {
             }
         }
 
+        @Override
+        boolean canReadBuffered() {
+            // reads have to update the read offset
+            return false;
+        }
+
         @Override
         public int getc() throws IOException {
             setReadPosition();
@@ -548,6 +601,12 @@ public class FileConnections {
             }
         }
 
+        @Override
+        boolean canReadBuffered() {
+            // reads have to update the read offset
+            return false;
+        }
+
         @Override
         public int getc() throws IOException {
             setReadPosition();
@@ -701,12 +760,6 @@ public class FileConnections {
         }
     }
 
-    private static class ByteStreamCompressedInputRConnection extends CompressedInputRConnection {
-        ByteStreamCompressedInputRConnection(BasePathRConnection base, ByteArrayInputStream is) {
-            super(base, is);
-        }
-    }
-
     private static class CompressedOutputRConnection extends DelegateWriteRConnection {
         protected ByteChannel channel;
         private final boolean seekable;
@@ -751,23 +804,4 @@ public class FileConnections {
             throw RError.nyi(RError.SHOW_CALLER, "truncating compressed file not");
         }
     }
-
-    private static class BZip2OutputRConnection extends CompressedOutputRConnection {
-        private final ByteArrayOutputStream bos;
-        private final boolean append;
-
-        BZip2OutputRConnection(BasePathRConnection base, ByteArrayOutputStream os, boolean append) {
-            super(base, os, false);
-            this.bos = os;
-            this.append = append;
-        }
-
-        @Override
-        public void close() throws IOException {
-            flush();
-            // Now actually do the compression using sub-process
-            byte[] data = bos.toByteArray();
-            RCompression.bzipCompressToFile(data, ((BasePathRConnection) base).path, append);
-        }
-    }
 }
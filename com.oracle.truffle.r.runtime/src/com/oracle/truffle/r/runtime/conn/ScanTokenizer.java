@@ -0,0 +1,635 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.conn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.conn.ConnectionSupport.BaseRConnection;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+
+/**
+ * Splits the data of a connection into records and fields, as needed by {@code scan},
+ * {@code count.fields} and {@code readTableHead}. The input is processed as bytes in chunks, the
+ * fields of a record are collected in a reused buffer and only turned into strings (or numbers) on
+ * request, so that no per-line objects are created.
+ *
+ * A record is a line, or several lines if a quoted field contains newlines. Fields are separated
+ * by the separator character or, if there is none, by runs of white space. A quote character opens
+ * a quoted section at the start of a field or after a blank, within a quoted section separators,
+ * comment characters and newlines are part of the field and, if there is a separator, a doubled
+ * quote character stands for itself. Blanks around the fields are removed, except for the fields
+ * of unquoted text if there is a separator and {@code strip.white} is {@code FALSE}, as in GnuR.
+ * These keep their blanks, the callers that convert them to numbers {@link #strip} them first.
+ *
+ * The separator, quote and comment characters must be ASCII characters, other characters are
+ * ignored. The data is read as bytes from the connection if its encoding is compatible with ASCII,
+ * and as lines (see {@link RConnection#readLines}) otherwise and for connections that can only
+ * provide lines, e.g., text connections. Lines pushed back to the connection are read first.
+ *
+ * If the connection stays open after the tokenizer is done, i.e., if it was already open, the input
+ * is read through the {@link BaseRConnection#canReadBuffered() read buffer} of the connection if it
+ * has one and {@link #finish()} returns any unconsumed input to it. Otherwise, it is read at most up
+ * to the end of the current line and {@link #finish()} pushes the rest of the line back to the
+ * connection.
+ */
+public final class ScanTokenizer {
+
+    public static final int EOF = -1;
+    private static final int BLANK_LINE = -2;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int LINES_PER_CHUNK = 1000;
+
+    private final RConnection conn;
+    private final BaseRConnection base;
+    private final boolean keepOpen;
+    private final boolean readBytes;
+    /** Whether the input is read through the read buffer of the connection. */
+    private final boolean buffered;
+    private final Charset charset;
+    private final boolean skipNul;
+    private InputStream in;
+
+    /** The file read directly, for a tokenizer over a range of a file. */
+    private final FileChannel channel;
+    private long position;
+    private final long end;
+
+    private final int sep;
+    private final boolean[] quotes = new boolean[128];
+    private final int comment;
+    /** Whether unquoted fields keep their leading and trailing blanks. */
+    private final boolean keepBlanks;
+
+    private byte[] input = new byte[256];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    /** Whether the input buffer holds pushed back lines rather than data of the connection. */
+    private boolean pushedBack;
+
+    private byte[] data = new byte[256];
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] strippedStarts = new int[16];
+    private int[] strippedEnds = new int[16];
+    private int fieldCount;
+    private int lines;
+    private boolean unterminatedQuote;
+
+    /**
+     * @param conn the open connection to read from
+     * @param keepOpen {@code true} if the connection stays open after the tokenizer is done
+     * @param sep the field separator, {@code 0} if fields are separated by white space
+     * @param quoteSet the quote characters
+     * @param comment the comment character, a value outside of the ASCII range for none
+     * @param stripWhite whether blanks are removed from unquoted fields if there is a separator
+     * @param skipNul whether nul bytes are ignored
+     */
+    public ScanTokenizer(RConnection conn, boolean keepOpen, int sep, String quoteSet, int comment, boolean stripWhite, boolean skipNul) {
+        this.conn = conn;
+        this.base = conn instanceof BaseRConnection ? (BaseRConnection) conn : null;
+        this.keepOpen = keepOpen;
+        this.skipNul = skipNul;
+        Charset encoding = base == null ? null : base.getEncoding();
+        boolean asciiCompatible = isAsciiCompatible(encoding);
+        this.charset = asciiCompatible ? encoding : StandardCharsets.UTF_8;
+        this.readBytes = asciiCompatible && base.canReadBytes();
+        this.buffered = keepOpen && readBytes && base.canReadBuffered();
+        this.channel = null;
+        this.end = 0;
+        this.sep = sep > 0 && sep < 128 ? sep : 0;
+        this.comment = initQuotes(quoteSet, comment);
+        this.keepBlanks = this.sep != 0 && !stripWhite;
+    }
+
+    /**
+     * Creates a tokenizer for the bytes from {@code start} to {@code end} of a file, which is
+     * read directly and not through its connection. Used to read a file in several chunks in
+     * parallel, the range has to start at the beginning of a line.
+     *
+     * @param charset the encoding of the file, which has to be {@link #isAsciiCompatible ASCII
+     *            compatible}
+     */
+    public ScanTokenizer(FileChannel channel, long start, long end, Charset charset, int sep, String quoteSet, int comment, boolean stripWhite, boolean skipNul) {
+        assert isAsciiCompatible(charset);
+        this.conn = null;
+        this.base = null;
+        this.keepOpen = false;
+        this.skipNul = skipNul;
+        this.charset = charset;
+        this.readBytes = true;
+        this.buffered = false;
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.sep = sep > 0 && sep < 128 ? sep : 0;
+        this.comment = initQuotes(quoteSet, comment);
+        this.keepBlanks = this.sep != 0 && !stripWhite;
+    }
+
+    /**
+     * Whether data in the given encoding can be split into fields as bytes.
+     */
+    public static boolean isAsciiCompatible(Charset encoding) {
+        return encoding != null && (encoding.equals(StandardCharsets.UTF_8) || encoding.newEncoder().maxBytesPerChar() == 1);
+    }
+
+    private int initQuotes(String quoteSet, int commentChar) {
+        for (int i = 0; i < quoteSet.length(); i++) {
+            char c = quoteSet.charAt(i);
+            if (c < 128) {
+                quotes[c] = true;
+            }
+        }
+        return commentChar >= 0 && commentChar < 128 ? commentChar : -1;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Encodes a string for comparison with {@link #fieldEquals}.
+     */
+    public byte[] toBytes(String s) {
+        return s.getBytes(charset);
+    }
+
+    /**
+     * Reads the next record and returns the number of its fields, {@code 0} for a blank line
+     * (unless these are skipped) or {@link #EOF}.
+     */
+    public int readRecord(boolean blankLinesSkip) throws IOException {
+        int skippedLines = 0;
+        while (true) {
+            int result = scanRecord();
+            if (result == BLANK_LINE) {
+                if (blankLinesSkip) {
+                    skippedLines++;
+                    continue;
+                }
+                fieldCount = 0;
+                result = 0;
+            }
+            lines += skippedLines;
+            return result;
+        }
+    }
+
+    /**
+     * Reads the next record without splitting it into fields and returns it as it is in the input,
+     * except for comments, or {@code null} at the end of the input. Records consisting of blanks
+     * only are skipped if {@code blankLinesSkip} is {@code true}.
+     */
+    public String readRawRecord(boolean blankLinesSkip) throws IOException {
+        while (true) {
+            length = 0;
+            lines = 1;
+            int c = read();
+            if (c == EOF) {
+                return null;
+            }
+            boolean blank = true;
+            int quote = -1;
+            int prev = -1;
+            while (c != EOF) {
+                if (quote >= 0) {
+                    if (c == quote) {
+                        quote = -1;
+                    } else if (c == '\n') {
+                        lines++;
+                    }
+                } else if (c == '\n') {
+                    break;
+                } else if (c == comment) {
+                    c = skipComment();
+                    continue;
+                } else if (isQuoteStart(c, prev)) {
+                    quote = c;
+                }
+                if (!isBlank(c)) {
+                    blank = false;
+                }
+                append(c);
+                prev = c;
+                c = read();
+            }
+            unterminatedQuote = quote >= 0;
+            if (!blank || !blankLinesSkip) {
+                return new String(data, 0, length, charset);
+            }
+        }
+    }
+
+    /**
+     * Skips {@code n} lines of input.
+     */
+    public void skipLines(int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            int c;
+            do {
+                c = read();
+            } while (c != '\n' && c != EOF);
+            if (c == EOF) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The number of fields of the last record.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * The number of input lines the last record consisted of, including skipped blank lines.
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    /**
+     * Whether the input ended within a quoted section of the last record.
+     */
+    public boolean hasUnterminatedQuote() {
+        return unterminatedQuote;
+    }
+
+    /**
+     * Removes the leading and trailing blanks of an unquoted field, which it only has if there is a
+     * separator and {@code stripWhite} is {@code false}. Numeric fields are always stripped.
+     */
+    public void strip(int field) {
+        starts[field] = strippedStarts[field];
+        ends[field] = strippedEnds[field];
+    }
+
+    public boolean isEmpty(int field) {
+        return starts[field] == ends[field];
+    }
+
+    public String getString(int field) {
+        return new String(data, starts[field], ends[field] - starts[field], charset);
+    }
+
+    public boolean fieldEquals(int field, byte[] bytes) {
+        int start = starts[field];
+        if (ends[field] - start != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (data[start + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the field to an integer like {@link RRuntime#string2intNoCheck(String)}, but
+     * without creating a string for the common case of a plain decimal number.
+     */
+    public int getInt(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (data[i] == '-' || data[i] == '+')) {
+            negative = data[i] == '-';
+            i++;
+        }
+        if (i < end && end - i <= 9) {
+            int value = 0;
+            for (; i < end; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+            }
+            if (i == end) {
+                return negative ? -value : value;
+            }
+        }
+        return RRuntime.string2intNoCheck(getString(field));
+    }
+
+    /**
+     * Returns the input that was read from the connection but not consumed back to it, if it stays
+     * open.
+     */
+    public void finish() {
+        if (keepOpen && pos < limit && base != null) {
+            if (buffered && !pushedBack) {
+                base.unreadBuffered(limit - pos);
+            } else {
+                base.pushBack(RDataFactory.createStringVectorFromScalar(new String(input, pos, limit - pos, charset)), false);
+            }
+            pos = limit;
+        }
+    }
+
+    /**
+     * Returns the number of bytes that were read from the connection but not consumed yet, or
+     * {@code -1} if there are unconsumed pushed back lines or the connection is read as lines.
+     * Together with the position of the connection, this gives the position in the data at which
+     * the next record starts.
+     */
+    public long getUnconsumedBytes() {
+        if (!readBytes || (base != null && base.pushBackLength() > 0)) {
+            return -1;
+        } else if (pushedBack) {
+            return pos < limit ? -1 : 0;
+        } else {
+            return limit - pos;
+        }
+    }
+
+    /**
+     * Drops all input read so far and treats the input as completely consumed, used when the rest
+     * of the data was read by other means.
+     */
+    public void discardInput() {
+        pos = limit;
+        eof = true;
+    }
+
+    private int scanRecord() throws IOException {
+        fieldCount = 0;
+        length = 0;
+        lines = 1;
+        unterminatedQuote = false;
+        int c = read();
+        if (c == EOF) {
+            return EOF;
+        }
+        while (isBlank(c)) {
+            // the blanks belong to the first field if these are kept
+            append(c);
+            c = read();
+        }
+        if (c == comment) {
+            c = skipComment();
+        }
+        if (c == '\n' || c == EOF) {
+            return BLANK_LINE;
+        }
+        int start = 0;
+        while (true) {
+            // c is the first character of a field, which starts at start
+            int strippedStart = -1;
+            int strippedEnd = length;
+            int prev = -1;
+            while (true) {
+                if (c == '\n' || c == EOF) {
+                    addField(start, length, strippedStart, strippedEnd);
+                    return fieldCount;
+                } else if (c == comment) {
+                    c = skipComment();
+                } else if (sep != 0 ? c == sep : isBlank(c)) {
+                    break;
+                } else if (isQuoteStart(c, prev)) {
+                    if (strippedStart < 0) {
+                        strippedStart = length;
+                    }
+                    c = readQuoted(c);
+                    strippedEnd = length;
+                    prev = -1;
+                } else {
+                    append(c);
+                    if (!isBlank(c)) {
+                        if (strippedStart < 0) {
+                            strippedStart = length - 1;
+                        }
+                        strippedEnd = length;
+                    }
+                    prev = c;
+                    c = read();
+                }
+            }
+            addField(start, length, strippedStart, strippedEnd);
+            start = length;
+            c = read();
+            if (sep == 0) {
+                while (isBlank(c)) {
+                    c = read();
+                }
+                if (c == comment) {
+                    c = skipComment();
+                }
+                if (c == '\n' || c == EOF) {
+                    return fieldCount;
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the quoted section started by {@code quote} to the current field and returns the
+     * character following it.
+     */
+    private int readQuoted(int quote) throws IOException {
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                unterminatedQuote = true;
+                return EOF;
+            } else if (c == quote) {
+                if (sep != 0 && peek() == quote) {
+                    read();
+                } else {
+                    return read();
+                }
+            } else if (c == '\n') {
+                lines++;
+            }
+            append(c);
+        }
+    }
+
+    private boolean isQuoteStart(int c, int prev) {
+        return c < 128 && quotes[c] && (prev == -1 || isBlank(prev) || prev == sep);
+    }
+
+    private static boolean isBlank(int c) {
+        return c == ' ' || c == '\t' || c == '\f' || c == 0x0B;
+    }
+
+    private int skipComment() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != '\n' && c != EOF);
+        return c;
+    }
+
+    private void append(int c) {
+        if (length == data.length) {
+            data = Arrays.copyOf(data, length * 2);
+        }
+        data[length++] = (byte) c;
+    }
+
+    /**
+     * Adds a field, {@code strippedStart} is {@code -1} if it consists of blanks only.
+     */
+    private void addField(int start, int end, int strippedStart, int strippedEnd) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            strippedStarts = Arrays.copyOf(strippedStarts, fieldCount * 2);
+            strippedEnds = Arrays.copyOf(strippedEnds, fieldCount * 2);
+        }
+        strippedStarts[fieldCount] = strippedStart < 0 ? strippedEnd : strippedStart;
+        strippedEnds[fieldCount] = strippedEnd;
+        starts[fieldCount] = keepBlanks ? start : strippedStarts[fieldCount];
+        ends[fieldCount] = keepBlanks ? end : strippedEnd;
+        fieldCount++;
+    }
+
+    /**
+     * Returns the next byte of input, with line endings normalized to {@code '\n'}.
+     */
+    private int read() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return EOF;
+            }
+            int c = input[pos++] & 0xFF;
+            if (c == '\r') {
+                if (peek() == '\n') {
+                    pos++;
+                }
+                return '\n';
+            } else if (c == 0 && skipNul) {
+                continue;
+            }
+            return c;
+        }
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return EOF;
+        }
+        return input[pos] & 0xFF;
+    }
+
+    /**
+     * Reads more input, returns {@code false} at the end of the input. Only called once all input
+     * was consumed.
+     */
+    private boolean fill() throws IOException {
+        assert pos == limit;
+        pos = 0;
+        limit = 0;
+        pushedBack = false;
+        if (eof) {
+            return false;
+        }
+        if (channel != null) {
+            ensureInput(CHUNK_SIZE);
+            int n = (int) Math.min(input.length, end - position);
+            if (n > 0) {
+                n = channel.read(ByteBuffer.wrap(input, 0, n), position);
+            }
+            if (n <= 0) {
+                eof = true;
+            } else {
+                position += n;
+                limit = n;
+            }
+        } else if (base != null && base.pushBackLength() > 0) {
+            appendLines(base.readLines(1, false, skipNul));
+            pushedBack = true;
+        } else if (!readBytes) {
+            String[] newLines = conn.readLines(keepOpen ? 1 : LINES_PER_CHUNK, false, skipNul);
+            if (newLines.length == 0) {
+                eof = true;
+            }
+            appendLines(newLines);
+        } else if (buffered) {
+            ensureInput(CHUNK_SIZE);
+            int n = base.readBuffered(input, 0, input.length);
+            if (n <= 0) {
+                eof = true;
+            } else {
+                limit = n;
+            }
+        } else if (keepOpen) {
+            // do not read beyond the end of the line, to not take more from the connection than
+            // needed
+            int c;
+            while ((c = conn.getc()) >= 0) {
+                ensureInput(1);
+                input[limit++] = (byte) c;
+                if (c == '\n') {
+                    break;
+                }
+            }
+            if (c < 0) {
+                eof = true;
+            }
+        } else {
+            if (in == null) {
+                // text mode connections refuse readBin, but the stream gives the same bytes
+                in = conn.getInputStream();
+            }
+            ensureInput(CHUNK_SIZE);
+            int n = in.read(input, 0, input.length);
+            if (n <= 0) {
+                eof = true;
+            } else {
+                limit = n;
+            }
+        }
+        return limit > 0;
+    }
+
+    private void appendLines(String[] newLines) {
+        for (String line : newLines) {
+            byte[] bytes = line.getBytes(charset);
+            ensureInput(bytes.length + 1);
+            System.arraycopy(bytes, 0, input, limit, bytes.length);
+            limit += bytes.length;
+            input[limit++] = '\n';
+        }
+    }
+
+    private void ensureInput(int n) {
+        if (input.length - limit < n) {
+            input = Arrays.copyOf(input, Math.max(input.length * 2, limit + n));
+        }
+    }
+}
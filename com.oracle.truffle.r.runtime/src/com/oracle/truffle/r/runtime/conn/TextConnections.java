@@ -127,6 +127,11 @@ public class TextConnections {
             return false;
         }
 
+        @Override
+        public boolean canReadBytes() {
+            return false;
+        }
+
         @Override
         public ByteChannel getChannel() {
             throw RInternalError.shouldNotReachHere();
@@ -83,11 +83,18 @@ public final class ChildContextInfo {
     private final InputStream stdin;
     private final OutputStream stdout;
     private final OutputStream stderr;
-    private final int id;
+    /**
+     * Identifies an evaluation in this context, e.g., for {@code .fastr.context.join}; a context
+     * taken from the {@link ContextPool} gets a new one for each evaluation.
+     */
+    private volatile int id;
     private final int multiSlotInd;
     private TruffleContext truffleContext;
     private PolyglotEngine vm;
     public Executor executor;
+    private int[] rngStream;
+    private boolean reused;
+    private Object resetFunction;
 
     private ChildContextInfo(RStartParams startParams, String[] env, ContextKind kind, RContext parent, InputStream stdin, OutputStream stdout, OutputStream stderr, TimeZone systemTimeZone, int id,
                     int multiSlotInd) {
@@ -213,6 +220,51 @@ public final class ChildContextInfo {
         return multiSlotInd;
     }
 
+    /**
+     * The seeds (in the format of {@code .Random.seed}) of the L'Ecuyer-CMRG stream the context
+     * should start with, or {@code null} if it should seed its generator as usual.
+     */
+    public int[] getRNGStream() {
+        return rngStream;
+    }
+
+    public void setRNGStream(int[] rngStream) {
+        this.rngStream = rngStream;
+    }
+
+    /**
+     * Whether this is a context taken from the {@link ContextPool} of its parent, i.e., its
+     * {@link #getTruffleContext() truffle context} exists and is already initialized.
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    void setReused() {
+        this.reused = true;
+        this.id = contextInfoIds.incrementAndGet();
+    }
+
+    /**
+     * The function taken by {@link ContextPool#snapshot(ChildContextInfo)} that restores the state
+     * of the new context, or {@code null}.
+     */
+    Object getResetFunction() {
+        return resetFunction;
+    }
+
+    void setResetFunction(Object resetFunction) {
+        this.resetFunction = resetFunction;
+    }
+
+    /**
+     * Returns the existing truffle context if this context is {@link #isReused() reused}, creates a
+     * new one otherwise.
+     */
+    public TruffleContext getOrCreateTruffleContext() {
+        return reused ? truffleContext : createTruffleContext();
+    }
+
     public TruffleContext getTruffleContext() {
         return truffleContext;
     }
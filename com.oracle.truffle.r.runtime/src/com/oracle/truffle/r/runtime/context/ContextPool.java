@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.context;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RCaller;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RSource;
+import com.oracle.truffle.r.runtime.context.Engine.ParseException;
+import com.oracle.truffle.r.runtime.context.RContext.ContextKind;
+import com.oracle.truffle.r.runtime.data.RFunction;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.env.REnvironment.PutException;
+
+/**
+ * A bounded pool of idle child contexts of an {@link RContext}, which {@code .fastr.context.spawn}
+ * and {@code .fastr.context.eval} reuse instead of creating and initializing a new context for
+ * every evaluation. At most {@link FastROptions#ContextPoolSize} idle contexts are kept per
+ * {@link ContextKind}, {@code 0} (the default) disables the pool.
+ *
+ * Only {@link ContextKind#SHARE_NOTHING} contexts are pooled, as these are the ones that run the
+ * whole package initialization. The other kinds share (parts of) their state with the parent and
+ * their bookkeeping assumes that they end with their evaluation.
+ *
+ * Before the first evaluation in a new context, a {@link #snapshot(ChildContextInfo) snapshot} of
+ * its state is taken. When an evaluation finishes normally, the options, the RNG kind and the open
+ * connections are restored to that snapshot, the variables in the global environment (including
+ * {@code .Random.seed}) are removed, and the context is kept for the next evaluation. An evaluation
+ * that attached or loaded packages leaves a context that cannot be restored cheaply, it is closed
+ * like the contexts that were quit or that failed with an internal error.
+ */
+public final class ContextPool {
+
+    /**
+     * Records the state of a fresh context and evaluates to a function that restores it and returns
+     * {@code TRUE}, or returns {@code FALSE} if the search path or the loaded namespaces changed.
+     */
+    private static final String SNAPSHOT = "local({\n" +
+                    "    searchPath <- search(); namespaces <- loadedNamespaces(); opts <- options(); rngKind <- RNGkind(); connections <- getAllConnections()\n" +
+                    "    function() tryCatch({\n" +
+                    "        if (!identical(search(), searchPath) || !setequal(loadedNamespaces(), namespaces)) return(FALSE)\n" +
+                    "        added <- vector('list', 0L); for (name in setdiff(names(options()), names(opts))) added[name] <- list(NULL)\n" +
+                    "        options(c(opts, added))\n" +
+                    "        do.call(RNGkind, as.list(rngKind))\n" +
+                    "        for (con in setdiff(getAllConnections(), connections)) close(getConnection(con))\n" +
+                    "        TRUE\n" +
+                    "    }, error = function(e) FALSE)\n" +
+                    "})";
+
+    private final EnumMap<ContextKind, ArrayDeque<ChildContextInfo>> idle = new EnumMap<>(ContextKind.class);
+
+    private long hits;
+    private long misses;
+    private long created;
+    private long creationNanos;
+
+    public static boolean isPoolable(ContextKind kind) {
+        return kind == ContextKind.SHARE_NOTHING;
+    }
+
+    private static int capacity() {
+        return FastROptions.ContextPoolSize.getNonNegativeIntValue();
+    }
+
+    /**
+     * Takes the snapshot of the state of the new context of {@code info}, which must be entered and
+     * not have evaluated anything yet, if it may be pooled.
+     */
+    @TruffleBoundary
+    static void snapshot(ChildContextInfo info) throws ParseException {
+        if (isPoolable(info.getKind()) && capacity() > 0) {
+            Source source = RSource.fromTextInternalInvisible(SNAPSHOT, RSource.Internal.CONTEXT_EVAL);
+            info.setResetFunction(RContext.getEngine().parseAndEval(source, REnvironment.baseEnv().getFrame(), false));
+        }
+    }
+
+    /**
+     * Takes an idle context of the given kind out of the pool, or returns {@code null} if there is
+     * none (or pooling is disabled for the kind) and a new one has to be created. The result is
+     * {@link ChildContextInfo#isReused() reused}.
+     */
+    public synchronized ChildContextInfo acquire(ContextKind kind) {
+        if (!isPoolable(kind) || capacity() == 0) {
+            return null;
+        }
+        ArrayDeque<ChildContextInfo> contexts = idle.get(kind);
+        ChildContextInfo info = contexts == null ? null : contexts.pollFirst();
+        if (info == null) {
+            misses++;
+        } else {
+            hits++;
+            info.setReused();
+        }
+        return info;
+    }
+
+    /**
+     * Offers the context of {@code info}, in which an evaluation has just finished normally, to
+     * the pool. Must be called while the context is still entered, as it is reset first. Returns
+     * {@code false} if the context was not taken, in which case the caller has to close it.
+     */
+    boolean release(ChildContextInfo info) {
+        if (!isPoolable(info.getKind()) || !(info.getResetFunction() instanceof RFunction) || !hasRoom(info.getKind())) {
+            return false;
+        }
+        try {
+            if (!reset((RFunction) info.getResetFunction())) {
+                return false;
+            }
+        } catch (PutException | RError e) {
+            // e.g., a locked binding
+            return false;
+        }
+        synchronized (this) {
+            if (!hasRoom(info.getKind())) {
+                return false;
+            }
+            idle.computeIfAbsent(info.getKind(), k -> new ArrayDeque<>()).addFirst(info);
+            return true;
+        }
+    }
+
+    private synchronized boolean hasRoom(ContextKind kind) {
+        ArrayDeque<ChildContextInfo> contexts = idle.get(kind);
+        return (contexts == null ? 0 : contexts.size()) < capacity();
+    }
+
+    @TruffleBoundary
+    private static boolean reset(RFunction resetFunction) throws PutException {
+        Object restored = RContext.getEngine().evalFunction(resetFunction, REnvironment.baseEnv().getFrame(), RCaller.createInvalid(null), true, null);
+        if (restored instanceof RAbstractLogicalVector) {
+            RAbstractLogicalVector vector = (RAbstractLogicalVector) restored;
+            restored = vector.getLength() == 1 ? vector.getDataAt(0) : RRuntime.LOGICAL_NA;
+        }
+        if (!(restored instanceof Byte) || (byte) restored != RRuntime.LOGICAL_TRUE) {
+            return false;
+        }
+        REnvironment globalEnv = REnvironment.globalEnv();
+        RStringVector names = globalEnv.ls(true, null, false);
+        for (int i = 0; i < names.getLength(); i++) {
+            globalEnv.rm(names.getDataAt(i));
+        }
+    }
+
+    /**
+     * Records that a child context was created and initialized, which took {@code nanos}.
+     */
+    synchronized void contextCreated(long nanos) {
+        created++;
+        creationNanos += nanos;
+    }
+
+    /**
+     * Closes all idle contexts, used when the owning context is destroyed.
+     */
+    void closeAll() {
+        List<ChildContextInfo> contexts = new ArrayList<>();
+        synchronized (this) {
+            for (ArrayDeque<ChildContextInfo> deque : idle.values()) {
+                contexts.addAll(deque);
+                deque.clear();
+            }
+        }
+        for (ChildContextInfo info : contexts) {
+            TruffleContext truffleContext = info.getTruffleContext();
+            if (truffleContext != null) {
+                truffleContext.close();
+            }
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The number of child contexts created (pooled or not).
+     */
+    public synchronized long getCreated() {
+        return created;
+    }
+
+    /**
+     * The total time spent creating and initializing child contexts.
+     */
+    public synchronized long getCreationNanos() {
+        return creationNanos;
+    }
+
+    public synchronized int getIdle() {
+        int result = 0;
+        for (ArrayDeque<ChildContextInfo> deque : idle.values()) {
+            result += deque.size();
+        }
+        return result;
+    }
+}
@@ -40,6 +40,7 @@ import com.oracle.truffle.r.runtime.context.Engine.ParseException;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RList;
 import com.oracle.truffle.r.runtime.data.RNull;
+import com.oracle.truffle.r.runtime.rng.RRNG;
 
 /**
  * A thread for performing an evaluation (used by {@code .fastr} builtins).
@@ -48,6 +49,7 @@ public class EvalThread extends Thread {
 
     private final Source source;
     private final ChildContextInfo info;
+    private final int id;
     private final TruffleContext truffleContext;
     private final boolean usePolyglot;
     private RList evalResult;
@@ -64,12 +66,14 @@ public class EvalThread extends Thread {
     public EvalThread(Map<Integer, Thread> threadMap, ChildContextInfo info, Source source, boolean usePolyglot) {
         this.threadMap = threadMap;
         this.info = info;
+        // the id of a pooled context changes when it is handed out again
+        this.id = info.getId();
         this.source = source;
         threadCnt.incrementAndGet();
-        threadMap.put(info.getId(), this);
-        idToMultiSlotTable.put(info.getId(), info.getMultiSlotInd());
+        threadMap.put(id, this);
+        idToMultiSlotTable.put(id, info.getMultiSlotInd());
         this.usePolyglot = usePolyglot;
-        this.truffleContext = usePolyglot ? null : info.createTruffleContext();
+        this.truffleContext = usePolyglot ? null : info.getOrCreateTruffleContext();
     }
 
     @Override
@@ -83,7 +87,7 @@ public class EvalThread extends Thread {
                 evalResult = run(truffleContext, info, source);
             }
         } finally {
-            threadMap.remove(info.getId());
+            threadMap.remove(id);
             threadCnt.decrementAndGet();
         }
     }
@@ -101,34 +105,47 @@ public class EvalThread extends Thread {
     }
 
     /**
-     * Convenience method for {@code .fastr.context.eval} in same thread.
+     * Convenience method for {@code .fastr.context.eval} in same thread. If the context can be
+     * reused, it is returned to the {@link ContextPool} of its parent instead of being closed.
      */
     public static RList run(TruffleContext truffleContext, ChildContextInfo info, Source source) {
         RList result = null;
         Object parent = null;
+        boolean reusable = false;
         try {
             parent = truffleContext.enter();
+            if (!info.isReused()) {
+                ContextPool.snapshot(info);
+            } else if (info.getRNGStream() != null) {
+                RRNG.setStream(info.getRNGStream());
+            }
             // this is the engine for the new child context
             Engine rEngine = RContext.getEngine();
             // Object eval = rEngine.eval(rEngine.parse(source), rEngine.getGlobalFrame());
             Object evalResult = rEngine.parseAndEval(source, rEngine.getGlobalFrame(), false);
             result = createEvalResult(evalResult == null ? RNull.instance : evalResult, false);
+            reusable = true;
         } catch (ParseException e) {
             e.report(info.getStdout());
             result = createErrorResult(e.getMessage());
+            reusable = true;
         } catch (ExitException e) {
             // termination, treat this as "success"
             result = RDataFactory.createList(new Object[]{e.getStatus()});
         } catch (RError e) {
             // nothing to do
             result = RDataFactory.createList(new Object[]{RNull.instance});
+            reusable = true;
         } catch (Throwable t) {
             // some internal error
             RInternalError.reportErrorAndConsoleLog(t, info.getId());
             result = createErrorResult(t.getClass().getSimpleName());
         } finally {
+            boolean pooled = reusable && info.getParent().contextPool.release(info);
             truffleContext.leave(parent);
-            truffleContext.close();
+            if (!pooled) {
+                truffleContext.close();
+            }
         }
         return result;
     }
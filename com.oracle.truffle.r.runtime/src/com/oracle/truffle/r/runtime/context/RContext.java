@@ -85,6 +85,7 @@ import com.oracle.truffle.r.runtime.RProfile;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RRuntimeASTAccess;
 import com.oracle.truffle.r.runtime.RSerialize;
+import com.oracle.truffle.r.runtime.RegExpCache;
 import com.oracle.truffle.r.runtime.TempPathName;
 import com.oracle.truffle.r.runtime.builtins.RBuiltinDescriptor;
 import com.oracle.truffle.r.runtime.builtins.RBuiltinKind;
@@ -264,6 +265,19 @@ public final class RContext implements RTruffleObject {
      */
     private boolean loadingBase;
 
+    /**
+     * Whether interop treats {@code RNull} as {@code null}, which it must not while native code of
+     * this context runs. The FFI implementations either switch this off explicitly, see
+     * {@link RForeignAccessFactory#setIsNull}, or count their active down calls in
+     * {@link #nativeCallDepth}, which is cheaper for every call.
+     */
+    private boolean rNullIsNull = true;
+
+    /**
+     * The number of active (possibly nested) native calls that use {@link #enterNativeCall()}.
+     */
+    private int nativeCallDepth;
+
     /**
      * At most one shared child.
      */
@@ -355,6 +369,14 @@ public final class RContext implements RTruffleObject {
     public final WeakHashMap<Path, REnvironment> srcfileEnvironments = new WeakHashMap<>();
     public final List<String> libraryPaths = new ArrayList<>(1);
     public final Map<Integer, Thread> threads = new ConcurrentHashMap<>();
+    public final ContextPool contextPool = new ContextPool();
+    public final RegExpCache regExpCache = new RegExpCache();
+
+    /**
+     * When the creation of this context started, used to report the time the creation and
+     * initialization took to the {@link ContextPool} of the parent.
+     */
+    private final long creationStartNanos = System.nanoTime();
 
     private final AllocationReporter allocationReporter;
 
@@ -388,6 +410,7 @@ public final class RContext implements RTruffleObject {
         }
 
         Object initialInfo = env.getConfig().get(ChildContextInfo.CONFIG_KEY);
+        int[] rngStream = null;
         if (initialInfo == null) {
             /*
              * This implies that FastR is being invoked initially from another Truffle language or
@@ -417,6 +440,7 @@ public final class RContext implements RTruffleObject {
             this.multiSlotIndex = info.getMultiSlotInd();
             this.truffleContext = info.getTruffleContext();
             this.executor = info.executor;
+            rngStream = info.getRNGStream();
         }
 
         outputWelcomeMessage(startParameters);
@@ -435,7 +459,7 @@ public final class RContext implements RTruffleObject {
         this.stateREnvironment = REnvironment.ContextStateImpl.newContextState(this);
         this.stateRErrorHandling = RErrorHandling.ContextStateImpl.newContextState();
         this.stateRConnection = ConnectionSupport.ContextStateImpl.newContextState();
-        this.stateRNG = RRNG.ContextStateImpl.newContextState();
+        this.stateRNG = RRNG.ContextStateImpl.newContextState(rngStream);
         this.stateRSerialize = RSerialize.ContextStateImpl.newContextState();
         this.stateLazyDBCache = LazyDBCache.ContextStateImpl.newContextState();
         this.stateInstrumentation = InstrumentationState.newContextState(instrumenter);
@@ -522,6 +546,9 @@ public final class RContext implements RTruffleObject {
         if (initial && !embedded) {
             initialContextInitialized = true;
         }
+        if (parentContext != null) {
+            parentContext.contextPool.contextCreated(System.nanoTime() - creationStartNanos);
+        }
         return this;
     }
 
@@ -565,6 +592,12 @@ public final class RContext implements RTruffleObject {
      */
     public synchronized void destroy() {
         if (!state.contains(State.DESTROYED)) {
+            contextPool.closeAll();
+            // spawned contexts that were never joined, e.g., the warm workers of mclapply, are
+            // typically waiting for a message from this context, which will not come anymore
+            for (Thread thread : threads.values()) {
+                thread.interrupt();
+            }
             if (state.contains(State.INITIALIZED)) {
                 for (ContextState contextState : contextStates()) {
                     contextState.beforeDestroy(this);
@@ -777,6 +810,37 @@ public final class RContext implements RTruffleObject {
         loadingBase = b;
     }
 
+    public boolean getRNullIsNull() {
+        return rNullIsNull && nativeCallDepth == 0;
+    }
+
+    /**
+     * Sets whether interop treats {@code RNull} as {@code null} outside of native calls and returns
+     * the previous setting.
+     */
+    public boolean setRNullIsNull(boolean value) {
+        boolean prev = rNullIsNull;
+        rNullIsNull = value;
+        return prev;
+    }
+
+    /**
+     * Records the start of a native call, which also stops interop from treating {@code RNull} as
+     * {@code null}, and returns the number of native calls that were already active.
+     */
+    public int enterNativeCall() {
+        return nativeCallDepth++;
+    }
+
+    public int getNativeCallDepth() {
+        return nativeCallDepth;
+    }
+
+    public void exitNativeCall() {
+        assert nativeCallDepth > 0;
+        nativeCallDepth--;
+    }
+
     public boolean getLoadingBase() {
         return loadingBase;
     }
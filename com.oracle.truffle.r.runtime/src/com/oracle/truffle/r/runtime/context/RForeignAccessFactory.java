@@ -35,7 +35,7 @@ public interface RForeignAccessFactory {
     /**
      * Changes the interpretation of {@RNull} as {@code null} to {@code value}. This allows the
      * {@code FFI} implementations to prevent {@RNull} being converted across the {@code FFI}
-     * interface, which would be incorrect.
+     * interface, which would be incorrect. The setting is per context.
      *
      * @return the previous setting
      */
@@ -0,0 +1,559 @@
+/*
+ * Copyright (c) 2013, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.data;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.RType;
+import com.oracle.truffle.r.runtime.data.model.RAbstractContainer;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * A double vector whose elements are the result of an element-wise operation on other vectors, but
+ * are only computed when they are first needed (see
+ * {@link FastROptions#DeferredArithmeticThreshold}). Then all elements are computed in one loop and
+ * kept, and the operands are released.
+ *
+ * If an operand is itself a not yet evaluated expression vector, its elements are computed on the
+ * fly (see {@link #valueAt(RAbstractDoubleVector, int)}), so that a chain of operations like
+ * {@code a * b + c * d - e} is fused into a single loop. The operands are protected from in-place
+ * modification by incrementing their reference count until the expression is evaluated. As a
+ * nested expression may still be referenced elsewhere, the elements computed for it in that loop
+ * are kept as its values, so that it is evaluated together with the outer expression and its
+ * operands are released, too. The operands of an expression that is collected without being
+ * evaluated are released the next time an expression is created. Like {@link RSequence}, an
+ * expression vector has no attributes and {@link #materialize()} returns a new vector.
+ *
+ * The operations are given as {@link BinaryOperation} or {@link UnaryOperation}, which do not
+ * depend on the node that created the expression, as it may be evaluated anywhere. An expression
+ * may be read by several threads (e.g. from {@code SHARE_ALL} contexts), so its evaluation and the
+ * release of its operands are guarded by one global lock.
+ */
+public abstract class RDoubleExpressionVector implements RAbstractDoubleVector {
+
+    /**
+     * Maximal nesting of not yet evaluated expressions, deeper chains (e.g. from a loop updating a
+     * vector) should evaluate their operands first.
+     */
+    public static final int MAX_DEPTH = 16;
+
+    /**
+     * An element-wise operation on two doubles that can be deferred, with the {@code NA} handling
+     * of the arithmetic nodes.
+     */
+    public enum BinaryOperation {
+        ADD {
+            @Override
+            protected double op(double left, double right) {
+                return left + right;
+            }
+        },
+        SUBTRACT {
+            @Override
+            protected double op(double left, double right) {
+                return left - right;
+            }
+        },
+        MULTIPLY {
+            @Override
+            protected double op(double left, double right) {
+                return left * right;
+            }
+        },
+        DIVIDE {
+            @Override
+            protected double op(double left, double right) {
+                return left / right;
+            }
+        };
+
+        protected abstract double op(double left, double right);
+
+        public final double apply(double left, double right) {
+            if (RRuntime.isNA(left)) {
+                return RRuntime.DOUBLE_NA;
+            } else if (RRuntime.isNA(right)) {
+                // NaN op NA == NaN
+                return Double.isNaN(left) ? left : RRuntime.DOUBLE_NA;
+            }
+            return op(left, right);
+        }
+    }
+
+    /**
+     * An element-wise operation on a double that can be deferred.
+     */
+    public enum UnaryOperation {
+        NEGATE;
+
+        public final double apply(double operand) {
+            return RRuntime.isNA(operand) ? RRuntime.DOUBLE_NA : -operand;
+        }
+    }
+
+    private static final Object LOCK = new Object();
+
+    private static final ReferenceQueue<RDoubleExpressionVector> collected = new ReferenceQueue<>();
+    private static final Set<Sources> unevaluated = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * The protected operands of an expression, which are released when it is evaluated or
+     * collected.
+     */
+    private static final class Sources extends PhantomReference<RDoubleExpressionVector> {
+        private RAbstractVector[] vectors;
+
+        Sources(RDoubleExpressionVector expression, RAbstractVector[] vectors) {
+            super(expression, collected);
+            this.vectors = vectors;
+        }
+
+        /**
+         * Must be called with {@link RDoubleExpressionVector#LOCK} held.
+         */
+        void release() {
+            if (vectors != null) {
+                for (RAbstractVector source : vectors) {
+                    if (source instanceof RShareable && !((RShareable) source).isSharedPermanent()) {
+                        ((RShareable) source).decRefCount();
+                    }
+                }
+                vectors = null;
+                unevaluated.remove(this);
+                clear();
+            }
+        }
+    }
+
+    private final int length;
+    private final int depth;
+    private final Sources sources;
+
+    private volatile double[] data;
+    private boolean complete;
+
+    /**
+     * The values of a nested expression while an outer one is evaluated, see
+     * {@link #valueAt(RAbstractDoubleVector, int)}.
+     */
+    private double[] pending;
+    private boolean pendingIncomplete;
+
+    /**
+     * @param sources the original operands, which are protected until the expression is evaluated
+     *            or collected
+     */
+    protected RDoubleExpressionVector(int length, int depth, RAbstractVector... sources) {
+        assert depth <= MAX_DEPTH;
+        this.length = length;
+        this.depth = depth;
+        releaseCollected();
+        synchronized (LOCK) {
+            for (RAbstractVector source : sources) {
+                if (source instanceof RShareable && !((RShareable) source).isSharedPermanent()) {
+                    ((RShareable) source).incRefCount();
+                }
+            }
+        }
+        this.sources = new Sources(this, sources);
+        unevaluated.add(this.sources);
+    }
+
+    @TruffleBoundary
+    public static RDoubleExpressionVector createBinary(BinaryOperation operation, RAbstractVector originalLeft, RAbstractDoubleVector left, int leftLength, RAbstractVector originalRight,
+                    RAbstractDoubleVector right, int rightLength, int length) {
+        return new Binary(operation, originalLeft, left, leftLength, originalRight, right, rightLength, length);
+    }
+
+    @TruffleBoundary
+    public static RDoubleExpressionVector createUnary(UnaryOperation operation, RAbstractVector originalOperand, RAbstractDoubleVector operand, int length) {
+        return new Unary(operation, originalOperand, operand, length);
+    }
+
+    /**
+     * The result of an operation on operands that have either the same length or length 1.
+     */
+    private static final class Binary extends RDoubleExpressionVector {
+        private final BinaryOperation operation;
+        private RAbstractDoubleVector left;
+        private RAbstractDoubleVector right;
+        private final boolean leftScalar;
+        private final boolean rightScalar;
+
+        Binary(BinaryOperation operation, RAbstractVector originalLeft, RAbstractDoubleVector left, int leftLength, RAbstractVector originalRight, RAbstractDoubleVector right, int rightLength,
+                        int length) {
+            super(length, 1 + Math.max(depthOf(left), depthOf(right)), originalLeft, originalRight);
+            this.operation = operation;
+            this.left = left;
+            this.right = right;
+            this.leftScalar = leftLength == 1;
+            this.rightScalar = rightLength == 1;
+        }
+
+        @Override
+        protected double computeAt(int index) {
+            return operation.apply(valueAt(left, leftScalar ? 0 : index), valueAt(right, rightScalar ? 0 : index));
+        }
+
+        @Override
+        protected void clearOperands() {
+            left = null;
+            right = null;
+        }
+    }
+
+    private static final class Unary extends RDoubleExpressionVector {
+        private final UnaryOperation operation;
+        private RAbstractDoubleVector operand;
+
+        Unary(UnaryOperation operation, RAbstractVector originalOperand, RAbstractDoubleVector operand, int length) {
+            super(length, 1 + depthOf(operand), originalOperand);
+            this.operation = operation;
+            this.operand = operand;
+        }
+
+        @Override
+        protected double computeAt(int index) {
+            return operation.apply(valueAt(operand, index));
+        }
+
+        @Override
+        protected void clearOperands() {
+            operand = null;
+        }
+    }
+
+    private static void releaseCollected() {
+        Sources ref = (Sources) collected.poll();
+        if (ref != null) {
+            synchronized (LOCK) {
+                do {
+                    ref.release();
+                } while ((ref = (Sources) collected.poll()) != null);
+            }
+        }
+    }
+
+    /**
+     * Computes the element at {@code index} from the operands, only called before evaluation.
+     */
+    protected abstract double computeAt(int index);
+
+    /**
+     * Drops the references to the operands after evaluation.
+     */
+    protected abstract void clearOperands();
+
+    /**
+     * Returns the nesting depth of not yet evaluated expressions in {@code vector}, {@code 0} for
+     * any other vector.
+     */
+    public static int depthOf(RAbstractVector vector) {
+        if (vector instanceof RDoubleExpressionVector) {
+            RDoubleExpressionVector expression = (RDoubleExpressionVector) vector;
+            return expression.data == null ? expression.depth : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Reads an element of an operand, computing it without evaluating the operand if it is an
+     * expression itself.
+     */
+    protected static double valueAt(RAbstractDoubleVector operand, int index) {
+        if (operand instanceof RDoubleExpressionVector) {
+            RDoubleExpressionVector expression = (RDoubleExpressionVector) operand;
+            if (expression.data == null) {
+                double value = expression.computeAt(index);
+                double[] target = expression.pending;
+                if (target != null) {
+                    target[index] = value;
+                    expression.pendingIncomplete |= RRuntime.isNA(value);
+                }
+                return value;
+            }
+        }
+        return operand.getDataAt(index);
+    }
+
+    public final boolean isEvaluated() {
+        return data != null;
+    }
+
+    private double[] getData() {
+        double[] result = data;
+        if (result == null) {
+            result = evaluate();
+        }
+        return result;
+    }
+
+    @TruffleBoundary
+    private double[] evaluate() {
+        synchronized (LOCK) {
+            if (data != null) {
+                // evaluated by another thread or as a nested expression
+                return data;
+            }
+            double[] result = new double[length];
+            boolean resultComplete = true;
+            startNested();
+            for (int i = 0; i < length; i++) {
+                double value = computeAt(i);
+                resultComplete &= !RRuntime.isNA(value);
+                result[i] = value;
+            }
+            complete = resultComplete;
+            data = result;
+            finishNested();
+            releaseSources();
+            return result;
+        }
+    }
+
+    private void startNested() {
+        for (RAbstractVector source : sources.vectors) {
+            if (source instanceof RDoubleExpressionVector) {
+                RDoubleExpressionVector nested = (RDoubleExpressionVector) source;
+                if (nested.data == null && nested.pending == null) {
+                    nested.pending = new double[nested.length];
+                    nested.startNested();
+                }
+            }
+        }
+    }
+
+    private void finishNested() {
+        for (RAbstractVector source : sources.vectors) {
+            if (source instanceof RDoubleExpressionVector) {
+                RDoubleExpressionVector nested = (RDoubleExpressionVector) source;
+                if (nested.data == null && nested.pending != null) {
+                    nested.complete = !nested.pendingIncomplete;
+                    nested.data = nested.pending;
+                    nested.pending = null;
+                    nested.finishNested();
+                    nested.releaseSources();
+                }
+            }
+        }
+    }
+
+    private void releaseSources() {
+        sources.release();
+        clearOperands();
+    }
+
+    @Override
+    public final double getDataAt(int index) {
+        assert index >= 0 && index < length;
+        return getData()[index];
+    }
+
+    @Override
+    public final int getLength() {
+        return length;
+    }
+
+    @Override
+    public RAbstractContainer resize(int size) {
+        return materialize().resize(size);
+    }
+
+    @Override
+    public final boolean isComplete() {
+        // unknown before evaluation
+        return data != null && complete;
+    }
+
+    @Override
+    public void setComplete(boolean newComplete) {
+        // completeness is determined by the evaluation
+    }
+
+    @Override
+    public RAbstractVector castSafe(RType type, ConditionProfile isNAProfile, boolean keepAttributes) {
+        if (type == RType.Double) {
+            return this;
+        }
+        return materialize().castSafe(type, isNAProfile, keepAttributes);
+    }
+
+    @Override
+    public final RDoubleVector materialize() {
+        double[] values = getData();
+        RDoubleVector result = RDataFactory.createDoubleVector(Arrays.copyOf(values, values.length), complete);
+        MemoryCopyTracer.reportCopying(this, result);
+        return result;
+    }
+
+    @Override
+    public RDoubleVector copyResized(int size, boolean fillNA) {
+        double[] values = getData();
+        double[] newData = Arrays.copyOf(values, size);
+        RDoubleVector.resizeData(newData, values, length, fillNA);
+        return RDataFactory.createDoubleVector(newData, complete && !(fillNA && size > length));
+    }
+
+    @Override
+    public RVector<?> copyResizedWithDimensions(int[] newDimensions, boolean fillNA) {
+        return copyResized(newDimensions[0] * newDimensions[1], fillNA).copyWithNewDimensions(newDimensions);
+    }
+
+    @Override
+    public RDoubleVector createEmptySameType(int newLength, boolean newIsComplete) {
+        return RDataFactory.createDoubleVector(new double[newLength], newIsComplete);
+    }
+
+    @Override
+    public final boolean hasDimensions() {
+        return false;
+    }
+
+    @Override
+    public final int[] getDimensions() {
+        return null;
+    }
+
+    @Override
+    public void setDimensions(int[] newDimensions) {
+        // should only be used on materialized expression
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final RAbstractVector copy() {
+        return materialize();
+    }
+
+    @Override
+    public final RAbstractVector copyDropAttributes() {
+        return materialize();
+    }
+
+    @Override
+    public final RAbstractVector copyWithNewDimensions(int[] newDimensions) {
+        return materialize().copyWithNewDimensions(newDimensions);
+    }
+
+    @Override
+    public final RStringVector getNames() {
+        return null;
+    }
+
+    @Override
+    public void setNames(RStringVector newNames) {
+        // should only be used on materialized expression
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final RList getDimNames() {
+        return null;
+    }
+
+    @Override
+    public void setDimNames(RList newDimNames) {
+        // should only be used on materialized expression
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final Object getRowNames() {
+        return RNull.instance;
+    }
+
+    @Override
+    public void setRowNames(RAbstractVector rowNames) {
+        // should only be used on materialized expression
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final DynamicObject initAttributes() {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final void initAttributes(DynamicObject newAttributes) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public final DynamicObject getAttributes() {
+        return null;
+    }
+
+    @Override
+    public final boolean isMatrix() {
+        return false;
+    }
+
+    @Override
+    public final boolean isArray() {
+        return false;
+    }
+
+    @Override
+    public final boolean isObject() {
+        return false;
+    }
+
+    @Override
+    public final RTypedValue getNonShared() {
+        return materialize();
+    }
+
+    @Override
+    public int getTypedValueInfo() {
+        return 0;
+    }
+
+    @Override
+    public void setTypedValueInfo(int value) {
+        throw RInternalError.shouldNotReachHere();
+    }
+
+    @Override
+    public boolean isS4() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        CompilerAsserts.neverPartOfCompilation();
+        return data == null ? "[deferred expression of length " + length + "]" : Arrays.toString(data);
+    }
+}
@@ -79,6 +79,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
     @Override
     public void setDataAt(Object store, int index, double value) {
         assert data == store;
+        dropNativeMirror();
         ((double[]) store)[index] = value;
     }
 
@@ -139,6 +140,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
      */
     @Override
     public double[] getDataWithoutCopying() {
+        dropNativeMirror();
         return data;
     }
 
@@ -149,6 +151,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
 
     public RDoubleVector updateDataAt(int i, double right, NACheck valueNACheck) {
         assert !this.isShared();
+        dropNativeMirror();
         data[i] = right;
         if (valueNACheck.check(right)) {
             complete = false;
@@ -202,6 +205,7 @@ public final class RDoubleVector extends RVector<double[]> implements RAbstractD
     @Override
     public void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex) {
         RAbstractDoubleVector other = (RAbstractDoubleVector) fromVector;
+        dropNativeMirror();
         data[toIndex] = other.getDataAt(fromIndex);
     }
 
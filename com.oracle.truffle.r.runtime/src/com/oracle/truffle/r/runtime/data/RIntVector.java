@@ -85,6 +85,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
     @Override
     public void setDataAt(Object store, int index, int value) {
         assert data == store;
+        dropNativeMirror();
         ((int[]) store)[index] = value;
     }
 
@@ -139,6 +140,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
      */
     @Override
     public int[] getDataWithoutCopying() {
+        dropNativeMirror();
         return data;
     }
 
@@ -149,6 +151,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
 
     public RIntVector updateDataAt(int i, int right, NACheck valueNACheck) {
         assert !this.isShared();
+        dropNativeMirror();
         data[i] = right;
         if (valueNACheck.check(right)) {
             setComplete(false);
@@ -201,6 +204,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
     @Override
     public void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex) {
         RAbstractIntVector other = (RAbstractIntVector) fromVector;
+        dropNativeMirror();
         data[toIndex] = other.getDataAt(fromIndex);
     }
 
@@ -211,6 +215,7 @@ public final class RIntVector extends RVector<int[]> implements RAbstractIntVect
 
     @Override
     public void setElement(int i, Object value) {
+        dropNativeMirror();
         data[i] = (int) value;
     }
 }
@@ -76,6 +76,7 @@ public final class RLogicalVector extends RVector<byte[]> implements RAbstractLo
     @Override
     public void setDataAt(Object store, int index, byte value) {
         assert data == store;
+        dropNativeMirror();
         ((byte[]) store)[index] = value;
     }
 
@@ -132,6 +133,7 @@ public final class RLogicalVector extends RVector<byte[]> implements RAbstractLo
 
     private RLogicalVector updateDataAt(int index, byte right, NACheck valueNACheck) {
         assert !this.isShared();
+        dropNativeMirror();
         data[index] = right;
         if (valueNACheck.check(right)) {
             setComplete(false);
@@ -176,6 +178,7 @@ public final class RLogicalVector extends RVector<byte[]> implements RAbstractLo
     @Override
     public void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex) {
         RAbstractLogicalVector other = (RAbstractLogicalVector) fromVector;
+        dropNativeMirror();
         data[toIndex] = other.getDataAt(fromIndex);
     }
 
@@ -190,6 +193,7 @@ public final class RLogicalVector extends RVector<byte[]> implements RAbstractLo
      */
     @Override
     public byte[] getDataWithoutCopying() {
+        dropNativeMirror();
         return data;
     }
 
@@ -85,6 +85,7 @@ public final class RRawVector extends RVector<byte[]> implements RAbstractRawVec
     @Override
     public void setRawDataAt(Object store, int index, byte value) {
         assert data == store;
+        dropNativeMirror();
         ((byte[]) store)[index] = value;
     }
 
@@ -124,6 +125,7 @@ public final class RRawVector extends RVector<byte[]> implements RAbstractRawVec
      */
     @Override
     public byte[] getDataWithoutCopying() {
+        dropNativeMirror();
         return data;
     }
 
@@ -139,6 +141,7 @@ public final class RRawVector extends RVector<byte[]> implements RAbstractRawVec
 
     public RRawVector updateDataAt(int i, RRaw right) {
         assert !this.isShared();
+        dropNativeMirror();
         data[i] = right.getValue();
         return this;
     }
@@ -173,6 +176,7 @@ public final class RRawVector extends RVector<byte[]> implements RAbstractRawVec
     @Override
     public void transferElementSameType(int toIndex, RAbstractVector fromVector, int fromIndex) {
         RAbstractRawVector other = (RAbstractRawVector) fromVector;
+        dropNativeMirror();
         data[toIndex] = other.getRawDataAt(fromIndex);
     }
 
@@ -67,6 +67,33 @@ public abstract class RVector<ArrayT> extends RSharingAttributeStorage implement
         this.complete = complete;
     }
 
+    /**
+     * An off-heap copy of the data that the FFI implementation keeps while native code may access
+     * it, so that repeated native calls on the same vector do not need to copy it again. It is
+     * dropped by any write through the Java API (and by {@link #getDataWithoutCopying()}, whose
+     * callers might write), so a non-null mirror is always in sync with the Java data outside of
+     * native calls.
+     */
+    private Object nativeMirror;
+
+    public final Object getNativeMirror() {
+        return nativeMirror;
+    }
+
+    public final void setNativeMirror(Object nativeMirror) {
+        this.nativeMirror = nativeMirror;
+    }
+
+    /**
+     * Must be called before writing to the array returned by {@link #getInternalStore()}, which
+     * bypasses the write paths that keep the mirror in sync.
+     */
+    public final void dropNativeMirror() {
+        if (nativeMirror != null) {
+            nativeMirror = null;
+        }
+    }
+
     private int[] getDimensionsFromAttrs() {
         if (attributes == null) {
             return null;
@@ -55,6 +55,7 @@ import com.oracle.truffle.r.runtime.env.frame.FrameSlotChangeMonitor;
 import com.oracle.truffle.r.runtime.env.frame.NSBaseMaterializedFrame;
 import com.oracle.truffle.r.runtime.env.frame.REnvEmptyFrameAccess;
 import com.oracle.truffle.r.runtime.env.frame.REnvFrameAccess;
+import com.oracle.truffle.r.runtime.env.frame.REnvHashFrameAccess;
 import com.oracle.truffle.r.runtime.env.frame.REnvTruffleFrameAccess;
 
 /**
@@ -751,14 +752,18 @@ public abstract class REnvironment extends RAttributeStorage {
      * An environment associated with an already materialized frame.
      */
     private REnvironment(String name, MaterializedFrame frame) {
-        this(name, new REnvTruffleFrameAccess(frame));
+        this(name, frame, new REnvTruffleFrameAccess(frame));
+    }
+
+    private REnvironment(String name, MaterializedFrame frame, REnvFrameAccess frameAccess) {
+        this(name, frameAccess);
 
         // Associate frame with the environment
         RArguments.setEnvironment(frame, this);
     }
 
     public REnvironment getParent() {
-        MaterializedFrame enclosingFrame = RArguments.getEnclosingFrame(getFrame());
+        MaterializedFrame enclosingFrame = RArguments.getEnclosingFrame(getArgumentsFrame());
         return enclosingFrame == null ? emptyEnv : frameToEnvironment(enclosingFrame);
     }
 
@@ -768,7 +773,7 @@ public abstract class REnvironment extends RAttributeStorage {
      */
     public void setParent(REnvironment env) {
         if (getParent() != env) {
-            RArguments.setEnclosingFrame(getFrame(), env.getFrame(), true);
+            RArguments.setEnclosingFrame(getArgumentsFrame(), env.getFrame(), true);
         }
     }
 
@@ -828,6 +833,15 @@ public abstract class REnvironment extends RAttributeStorage {
         return frameAccessProfile.profile(frameAccess).getFrame();
     }
 
+    /**
+     * Return the {@link MaterializedFrame} of this environment only for access to its
+     * {@link RArguments}, e.g. to set the enclosing frame of a new environment, see
+     * {@link REnvFrameAccess#getArgumentsFrame()}.
+     */
+    public MaterializedFrame getArgumentsFrame() {
+        return frameAccess.getArgumentsFrame();
+    }
+
     public void lock(boolean bindings) {
         locked = true;
         if (bindings) {
@@ -1063,10 +1077,10 @@ public abstract class REnvironment extends RAttributeStorage {
     /**
      * An environment explicitly created with, typically, {@code new.env}, but also used internally.
      * Such environments are always {@link #UNNAMED} but can later be given a name as an attribute.
-     * This is the class used by the {@code new.env} function. We record but do not interpret the
-     * {@code hash} input, as we always use a hashmap, for possible use by the serialization code
-     * (GnuR generates different output format for hash environments).
-     *
+     * This is the class used by the {@code new.env} function. For {@code hash = TRUE}, the bindings
+     * are kept in a {@link REnvHashFrameAccess} table until the frame is needed. The {@code hash}
+     * input is also recorded for possible use by the serialization code (GnuR generates different
+     * output format for hash environments).
      */
     public static final class NewEnv extends REnvironment {
         private boolean hashed;
@@ -1079,6 +1093,15 @@ public abstract class REnvironment extends RAttributeStorage {
             }
         }
 
+        public NewEnv(MaterializedFrame frame, String name, boolean hashed, int initialSize) {
+            super(UNNAMED, frame, hashed ? new REnvHashFrameAccess(frame, initialSize) : new REnvTruffleFrameAccess(frame));
+            if (name != null) {
+                setAttr(NAME_ATTR_KEY, name);
+            }
+            this.hashed = hashed;
+            this.initialSize = initialSize;
+        }
+
         public boolean isHashed() {
             return hashed;
         }
@@ -170,6 +170,9 @@ public final class FrameSlotChangeMonitor {
      * object. For function environments, one frame descriptor corresponds to many actual
      * environments, while for manually created environment, there is always one frame descriptor
      * for one environment.
+     *
+     * The mutable state of a FrameDescriptorMetaData object, and the slots of its frame descriptor,
+     * are guarded by the object itself. No code holds more than one of these locks at a time.
      */
     private static final class FrameDescriptorMetaData {
         private final String name; // name for debug purposes
@@ -191,6 +194,13 @@ public final class FrameSlotChangeMonitor {
         private Assumption enclosingFrameDescriptorAssumption = Truffle.getRuntime().createAssumption("enclosing frame descriptor");
         private final Assumption containsNoActiveBindingAssumption = Truffle.getRuntime().createAssumption("contains no active binding");
 
+        /**
+         * Incremented at the start and at the end of every change to the layout (slots and
+         * enclosing frame descriptor) of this descriptor, see {@link #lookup(Frame, Object)}.
+         */
+        private int layoutVersion;
+        private int layoutChangesInProgress;
+
         private FrameDescriptorMetaData(String name, MaterializedFrame singletonFrame) {
             this.name = name;
             this.singletonFrame = singletonFrame == null ? null : new WeakReference<>(singletonFrame);
@@ -220,31 +230,148 @@ public final class FrameSlotChangeMonitor {
         }
     }
 
-    private static final WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> frameDescriptors = new WeakHashMap<>();
+    /**
+     * The metadata of all frame descriptors, spread over a fixed number of weak maps by the
+     * identity hash code of the descriptor, each guarded by its own lock, so that threads of
+     * different contexts rarely contend when registering or querying descriptors.
+     */
+    private static final int METADATA_STRIPES = 64;
+    @SuppressWarnings({"unchecked", "rawtypes"}) private static final WeakHashMap<FrameDescriptor, FrameDescriptorMetaData>[] frameDescriptors = new WeakHashMap[METADATA_STRIPES];
+
+    static {
+        for (int i = 0; i < METADATA_STRIPES; i++) {
+            frameDescriptors[i] = new WeakHashMap<>();
+        }
+    }
+
+    /*
+     * Changes to the layout of a descriptor (new slots and enclosing frame descriptors) are marked
+     * as in progress in its metadata, and change its layout version, before and after invalidating
+     * the affected lookups. A lookup, which only locks one descriptor at a time while it walks the
+     * hierarchy, records the versions of the descriptors it visits and gives up if a change is in
+     * progress in any of them. After publishing its result, it checks that none of them changed
+     * since and that its previous lookups are still recorded in all of them, and otherwise
+     * invalidates the result. Any later change will find (and invalidate) the result by these
+     * previous lookups. Changes in unrelated hierarchies, e.g., of other contexts, do not interfere.
+     */
+    private static final int MAX_LOOKUP_ATTEMPTS = 3;
+
+    private static void beginLayoutChange(FrameDescriptorMetaData metaData) {
+        synchronized (metaData) {
+            metaData.layoutChangesInProgress++;
+            metaData.layoutVersion++;
+        }
+    }
+
+    private static void endLayoutChange(FrameDescriptorMetaData metaData) {
+        synchronized (metaData) {
+            metaData.layoutChangesInProgress--;
+            metaData.layoutVersion++;
+        }
+    }
+
+    /**
+     * The descriptors visited by a lookup, with their layout versions at the time.
+     */
+    private static final class LookupPath {
+        private FrameDescriptorMetaData[] visited = new FrameDescriptorMetaData[8];
+        private int[] versions = new int[8];
+        private int size;
+        private boolean changeInProgress;
+
+        /**
+         * Must be called while holding the lock of {@code metaData}.
+         */
+        void visit(FrameDescriptorMetaData metaData) {
+            if (metaData.layoutChangesInProgress != 0) {
+                changeInProgress = true;
+            }
+            if (size == visited.length) {
+                visited = Arrays.copyOf(visited, size * 2);
+                versions = Arrays.copyOf(versions, size * 2);
+            }
+            visited[size] = metaData;
+            versions[size] = metaData.layoutVersion;
+            size++;
+        }
+
+        boolean isUnchanged(Object identifier) {
+            for (int i = 0; i < size; i++) {
+                FrameDescriptorMetaData metaData = visited[i];
+                synchronized (metaData) {
+                    if (metaData.layoutChangesInProgress != 0 || metaData.layoutVersion != versions[i] || !metaData.previousLookups.contains(identifier)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
 
     /**
      * This function tries to fulfill the lookup for the given name in the given frame based only on
      * the static knowledge about the frame descriptor hierarchy and stable bindings. Returns
      * {@code null} in case this was not possible.
+     *
+     * Under contention, i.e., if layout changes of the visited descriptors keep overlapping with
+     * the lookup for {@link #MAX_LOOKUP_ATTEMPTS} attempts, it also returns {@code null}. Nothing is
+     * published then, so this does not disable caching for the name: the caller (see
+     * {@code ReadVariableNode}) builds this one lookup from the frame levels and their assumptions
+     * instead, which is as correct but invalidated by more changes, and the next lookup of the name
+     * tries again. Such lookups are reported with {@link FastROptions#PrintComplexLookups}.
      */
-    public static synchronized LookupResult lookup(Frame frame, Object identifier) {
+    public static LookupResult lookup(Frame frame, Object identifier) {
         CompilerAsserts.neverPartOfCompilation();
         FrameDescriptorMetaData metaData = getMetaData(frame);
-        WeakReference<LookupResult> weakResult = metaData.lookupResults.get(identifier);
+        WeakReference<LookupResult> weakResult;
+        synchronized (metaData) {
+            weakResult = metaData.lookupResults.get(identifier);
+        }
         LookupResult result = weakResult == null ? null : weakResult.get();
         if (result != null && result.isValid()) {
             return result;
         }
+        for (int attempt = 0; attempt < MAX_LOOKUP_ATTEMPTS; attempt++) {
+            LookupPath path = new LookupPath();
+            result = lookupWithoutCache(frame, metaData, identifier, path);
+            if (result != null) {
+                if (path.isUnchanged(identifier)) {
+                    return result;
+                }
+                // the result may have been missed by a concurrent change
+                result.invalidate();
+            } else if (path.changeInProgress) {
+                Thread.yield();
+            } else {
+                return null;
+            }
+        }
+        if (FastROptions.PrintComplexLookups.getBooleanValue()) {
+            System.out.println(identifier + " gave up after " + MAX_LOOKUP_ATTEMPTS + " attempts that overlapped with layout changes");
+        }
+        return null;
+    }
+
+    private static LookupResult lookupWithoutCache(Frame frame, FrameDescriptorMetaData metaData, Object identifier, LookupPath path) {
         Frame current = frame;
         while (true) {
-            FrameSlot slot = current.getFrameDescriptor().findFrameSlot(identifier);
+            FrameDescriptorMetaData currentMetaData = getMetaData(current);
+            FrameSlot slot;
+            synchronized (currentMetaData) {
+                slot = current.getFrameDescriptor().findFrameSlot(identifier);
+                // recorded before a result is published, so that changes can find it
+                currentMetaData.previousLookups.add(identifier);
+                path.visit(currentMetaData);
+            }
+            if (path.changeInProgress) {
+                return null;
+            }
             if (slot != null) {
                 LookupResult lookupResult;
                 StableValue<Object> stableValue = getFrameSlotInfo(slot).stableValue;
                 if (stableValue != null) {
                     lookupResult = new StableValueLookupResult(identifier.toString(), stableValue);
                 } else {
-                    FrameDescriptorMetaData currentMetaData = getMetaData(current);
                     if (currentMetaData.singletonFrame == null) {
                         // no stable value and no singleton frame
                         return null;
@@ -253,9 +380,7 @@ public final class FrameSlotChangeMonitor {
                         lookupResult = new FrameAndSlotLookupResult(identifier.toString(), currentMetaData.singletonFrame.get(), slot);
                     }
                 }
-                addPreviousLookups(frame, current, identifier);
-                metaData.lookupResults.put(identifier, new WeakReference<>(lookupResult));
-                return lookupResult;
+                return publishLookup(metaData, identifier, lookupResult);
             }
             Frame next = RArguments.getEnclosingFrame(current);
             assert isEnclosingFrameDescriptor(current, next) : "the enclosing frame descriptor assumptions do not match the actual enclosing frame descriptor: " + getMetaData(current).name + " -> " +
@@ -267,33 +392,36 @@ public final class FrameSlotChangeMonitor {
             current = next;
         }
         // not frame slot found: missing value
-        addPreviousLookups(frame, current, identifier);
-        LookupResult lookupResult = new MissingLookupResult(identifier.toString());
-        metaData.lookupResults.put(identifier, new WeakReference<>(lookupResult));
-        return lookupResult;
+        return publishLookup(metaData, identifier, new MissingLookupResult(identifier.toString()));
     }
 
-    private static void addPreviousLookups(Frame from, Frame to, Object identifier) {
-        Frame mark = from;
-        while (true) {
-            FrameDescriptorMetaData lookupMetaData = getMetaData(mark);
-            lookupMetaData.previousLookups.add(identifier);
-            if (mark == to) {
-                break;
-            }
-            mark = RArguments.getEnclosingFrame(mark);
+    private static LookupResult publishLookup(FrameDescriptorMetaData metaData, Object identifier, LookupResult lookupResult) {
+        synchronized (metaData) {
+            metaData.lookupResults.put(identifier, new WeakReference<>(lookupResult));
         }
+        return lookupResult;
     }
 
     private static boolean isEnclosingFrameDescriptor(Frame current, Frame next) {
         assert current != null;
         FrameDescriptorMetaData metaData = getMetaData(current);
         FrameDescriptor nextDesc = next == null ? null : handleBaseNamespaceEnv(next);
-        return metaData.getEnclosingFrameDescriptor() == nextDesc;
+        synchronized (metaData) {
+            return metaData.getEnclosingFrameDescriptor() == nextDesc;
+        }
     }
 
-    private static synchronized void invalidateNames(FrameDescriptorMetaData metaData, Collection<Object> identifiers) {
-        if (metaData.previousLookups.removeAll(identifiers)) {
+    /**
+     * Invalidates the lookups of {@code identifiers} that went across the descriptor of
+     * {@code metaData}, must be called within {@link #beginLayoutChange} and
+     * {@link #endLayoutChange} of {@code metaData}.
+     */
+    private static void invalidateNames(FrameDescriptorMetaData metaData, Collection<Object> identifiers) {
+        FrameDescriptor[] subDescriptors;
+        synchronized (metaData) {
+            if (!metaData.previousLookups.removeAll(identifiers)) {
+                return;
+            }
             for (Object identifier : identifiers) {
                 WeakReference<LookupResult> result = metaData.lookupResults.remove(identifier);
                 if (result != null) {
@@ -303,10 +431,11 @@ public final class FrameSlotChangeMonitor {
                     }
                 }
             }
-            for (FrameDescriptor descriptor : metaData.subDescriptors) {
-                FrameDescriptorMetaData sub = getMetaData(descriptor);
-                invalidateNames(sub, identifiers);
-            }
+            subDescriptors = metaData.subDescriptors.toArray(new FrameDescriptor[0]);
+        }
+        for (FrameDescriptor descriptor : subDescriptors) {
+            FrameDescriptorMetaData sub = getMetaData(descriptor);
+            invalidateNames(sub, identifiers);
         }
     }
 
@@ -317,9 +446,27 @@ public final class FrameSlotChangeMonitor {
         return frame == null ? null : frame instanceof NSBaseMaterializedFrame ? ((NSBaseMaterializedFrame) frame).getMarkerFrameDescriptor() : frame.getFrameDescriptor();
     }
 
-    private static synchronized FrameDescriptorMetaData getMetaData(FrameDescriptor descriptor) {
+    private static WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> getStripe(FrameDescriptor descriptor) {
+        return frameDescriptors[System.identityHashCode(descriptor) & (METADATA_STRIPES - 1)];
+    }
+
+    private static FrameDescriptorMetaData findMetaData(FrameDescriptor descriptor) {
+        WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> stripe = getStripe(descriptor);
+        synchronized (stripe) {
+            return stripe.get(descriptor);
+        }
+    }
+
+    private static void putMetaData(FrameDescriptor descriptor, FrameDescriptorMetaData metaData) {
+        WeakHashMap<FrameDescriptor, FrameDescriptorMetaData> stripe = getStripe(descriptor);
+        synchronized (stripe) {
+            stripe.put(descriptor, metaData);
+        }
+    }
+
+    private static FrameDescriptorMetaData getMetaData(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        FrameDescriptorMetaData result = frameDescriptors.get(descriptor);
+        FrameDescriptorMetaData result = findMetaData(descriptor);
         assert result != null : "null metadata for " + descriptor;
         return result;
     }
@@ -335,120 +482,203 @@ public final class FrameSlotChangeMonitor {
         return target;
     }
 
-    public static synchronized boolean isEnclosingFrameDescriptor(FrameDescriptor descriptor, Frame newEnclosingFrame) {
+    public static boolean isEnclosingFrameDescriptor(FrameDescriptor descriptor, Frame newEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
         FrameDescriptorMetaData target = getDescriptorMetaData(descriptor);
         FrameDescriptor newEnclosingDescriptor = handleBaseNamespaceEnv(newEnclosingFrame);
-        return target.getEnclosingFrameDescriptor() == newEnclosingDescriptor;
+        synchronized (target) {
+            return target.getEnclosingFrameDescriptor() == newEnclosingDescriptor;
+        }
     }
 
-    public static synchronized void initializeEnclosingFrame(FrameDescriptor descriptor, Frame newEnclosingFrame) {
+    public static void initializeEnclosingFrame(FrameDescriptor descriptor, Frame newEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
         FrameDescriptorMetaData target = getDescriptorMetaData(descriptor);
 
         FrameDescriptor newEnclosingDescriptor = handleBaseNamespaceEnv(newEnclosingFrame);
 
-        // this function can be called multiple times with the same enclosing descriptor
-        if (target.getEnclosingFrameDescriptor() != newEnclosingDescriptor) {
-            assert target.getEnclosingFrameDescriptor() == null : "existing enclosing descriptor while initializing " + target.name;
-            assert target.lookupResults.isEmpty() : "existing lookup results while initializing " + target.name;
+        beginLayoutChange(target);
+        try {
+            synchronized (target) {
+                // this function can be called multiple times with the same enclosing descriptor
+                if (target.getEnclosingFrameDescriptor() == newEnclosingDescriptor) {
+                    return;
+                }
+                assert target.getEnclosingFrameDescriptor() == null : "existing enclosing descriptor while initializing " + target.name;
+                assert target.lookupResults.isEmpty() : "existing lookup results while initializing " + target.name;
 
-            target.updateEnclosingFrameDescriptor(newEnclosingDescriptor);
+                target.updateEnclosingFrameDescriptor(newEnclosingDescriptor);
+            }
             if (newEnclosingDescriptor != null) {
                 FrameDescriptorMetaData newEnclosing = getMetaData(newEnclosingDescriptor);
-                newEnclosing.subDescriptors.add(descriptor);
+                synchronized (newEnclosing) {
+                    newEnclosing.subDescriptors.add(descriptor);
+                }
             }
+        } finally {
+            endLayoutChange(target);
         }
     }
 
-    public static synchronized void initializeEnclosingFrame(Frame frame, Frame newEnclosingFrame) {
+    public static void initializeEnclosingFrame(Frame frame, Frame newEnclosingFrame) {
         initializeEnclosingFrame(handleBaseNamespaceEnv(frame), newEnclosingFrame);
     }
 
-    private static synchronized void setEnclosingFrame(FrameDescriptor descriptor, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
+    private static void setEnclosingFrame(FrameDescriptor descriptor, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
         FrameDescriptorMetaData target = getMetaData(descriptor);
         assert target != null : "frame descriptor wasn't registered properly for " + descriptor;
 
-        // invalidate existing lookups
-        invalidateAllNames(target);
-
-        FrameDescriptor oldEnclosingDescriptor = target.getEnclosingFrameDescriptor();
-        FrameDescriptor newEnclosingDescriptor = handleBaseNamespaceEnv(newEnclosingFrame);
-        assert newEnclosingDescriptor == oldEnclosingDescriptor || (oldEnclosingDescriptor == null) == (oldEnclosingFrame == null) : "mismatch " + oldEnclosingDescriptor + " / " + oldEnclosingFrame;
+        beginLayoutChange(target);
+        try {
+            // invalidate existing lookups
+            invalidateAllNames(target);
+
+            FrameDescriptor oldEnclosingDescriptor;
+            FrameDescriptor newEnclosingDescriptor = handleBaseNamespaceEnv(newEnclosingFrame);
+            synchronized (target) {
+                oldEnclosingDescriptor = target.getEnclosingFrameDescriptor();
+                assert newEnclosingDescriptor == oldEnclosingDescriptor || (oldEnclosingDescriptor == null) == (oldEnclosingFrame == null) : "mismatch " + oldEnclosingDescriptor + " / " +
+                                oldEnclosingFrame;
+                target.updateEnclosingFrameDescriptor(newEnclosingDescriptor);
+            }
 
-        if (oldEnclosingDescriptor != null) {
-            assert newEnclosingDescriptor == oldEnclosingDescriptor || oldEnclosingDescriptor == oldEnclosingFrame.getFrameDescriptor() : "mismatch " + oldEnclosingDescriptor + " / " +
-                            oldEnclosingFrame.getFrameDescriptor();
-            FrameDescriptorMetaData oldEnclosing = getMetaData(oldEnclosingDescriptor);
-            oldEnclosing.subDescriptors.remove(descriptor);
-        }
-        target.updateEnclosingFrameDescriptor(newEnclosingDescriptor);
+            if (oldEnclosingDescriptor != null) {
+                assert newEnclosingDescriptor == oldEnclosingDescriptor || oldEnclosingDescriptor == oldEnclosingFrame.getFrameDescriptor() : "mismatch " + oldEnclosingDescriptor + " / " +
+                                oldEnclosingFrame.getFrameDescriptor();
+                FrameDescriptorMetaData oldEnclosing = getMetaData(oldEnclosingDescriptor);
+                synchronized (oldEnclosing) {
+                    oldEnclosing.subDescriptors.remove(descriptor);
+                }
+            }
 
-        if (newEnclosingDescriptor != null) {
-            FrameDescriptorMetaData newEnclosing = getMetaData(newEnclosingDescriptor);
-            assert !newEnclosing.name.equals("global") || !target.name.equals("base");
-            newEnclosing.subDescriptors.add(descriptor);
+            if (newEnclosingDescriptor != null) {
+                FrameDescriptorMetaData newEnclosing = getMetaData(newEnclosingDescriptor);
+                assert !newEnclosing.name.equals("global") || !target.name.equals("base");
+                synchronized (newEnclosing) {
+                    newEnclosing.subDescriptors.add(descriptor);
+                }
+            }
+        } finally {
+            endLayoutChange(target);
         }
     }
 
-    public static synchronized void setEnclosingFrame(Frame frame, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
+    public static void setEnclosingFrame(Frame frame, MaterializedFrame newEnclosingFrame, MaterializedFrame oldEnclosingFrame) {
         setEnclosingFrame(handleBaseNamespaceEnv(frame), newEnclosingFrame, oldEnclosingFrame);
     }
 
     private static void invalidateAllNames(FrameDescriptorMetaData target) {
-        for (Map.Entry<Object, WeakReference<LookupResult>> entry : target.lookupResults.entrySet()) {
-            LookupResult lookup = entry.getValue().get();
-            if (lookup != null) {
-                lookup.invalidate();
+        FrameDescriptor[] subDescriptors = null;
+        synchronized (target) {
+            for (Map.Entry<Object, WeakReference<LookupResult>> entry : target.lookupResults.entrySet()) {
+                LookupResult lookup = entry.getValue().get();
+                if (lookup != null) {
+                    lookup.invalidate();
+                }
+            }
+            target.lookupResults.clear();
+            if (!target.previousLookups.isEmpty()) {
+                target.previousLookups.clear();
+                subDescriptors = target.subDescriptors.toArray(new FrameDescriptor[0]);
             }
         }
-        target.lookupResults.clear();
-        if (!target.previousLookups.isEmpty()) {
-            target.previousLookups.clear();
-            for (FrameDescriptor sub : target.subDescriptors) {
+        if (subDescriptors != null) {
+            for (FrameDescriptor sub : subDescriptors) {
                 invalidateAllNames(getMetaData(sub));
             }
         }
     }
 
-    public static synchronized void detach(Frame frame) {
-        CompilerAsserts.neverPartOfCompilation();
-        FrameDescriptorMetaData position = getMetaData(frame);
-        FrameDescriptor oldEnclosingDescriptor = position.getEnclosingFrameDescriptor();
-        FrameDescriptorMetaData oldEnclosing = getMetaData(oldEnclosingDescriptor);
-        FrameDescriptor newEnclosingDescriptor = oldEnclosing.getEnclosingFrameDescriptor();
-        FrameDescriptorMetaData newEnclosing = getMetaData(newEnclosingDescriptor);
+    /*
+     * Attaching and detaching changes several descriptors at once, these rare operations are
+     * serialized among themselves.
+     */
+    private static final Object attachLock = new Object();
 
-        invalidateNames(oldEnclosing, oldEnclosingDescriptor.getIdentifiers());
+    public static void detach(Frame frame) {
+        CompilerAsserts.neverPartOfCompilation();
+        synchronized (attachLock) {
+            FrameDescriptorMetaData position = getMetaData(frame);
+            FrameDescriptor oldEnclosingDescriptor;
+            synchronized (position) {
+                oldEnclosingDescriptor = position.getEnclosingFrameDescriptor();
+            }
+            FrameDescriptorMetaData oldEnclosing = getMetaData(oldEnclosingDescriptor);
+            FrameDescriptor newEnclosingDescriptor;
+            synchronized (oldEnclosing) {
+                newEnclosingDescriptor = oldEnclosing.getEnclosingFrameDescriptor();
+            }
+            FrameDescriptorMetaData newEnclosing = getMetaData(newEnclosingDescriptor);
+            beginLayoutChange(position);
+            beginLayoutChange(oldEnclosing);
+            beginLayoutChange(newEnclosing);
+            try {
+                invalidateNames(oldEnclosing, oldEnclosingDescriptor.getIdentifiers());
 
-        position.updateEnclosingFrameDescriptor(newEnclosingDescriptor);
-        oldEnclosing.updateEnclosingFrameDescriptor(null);
-        oldEnclosing.subDescriptors.remove(frame.getFrameDescriptor());
-        newEnclosing.subDescriptors.remove(oldEnclosingDescriptor);
-        newEnclosing.subDescriptors.add(frame.getFrameDescriptor());
+                synchronized (position) {
+                    position.updateEnclosingFrameDescriptor(newEnclosingDescriptor);
+                }
+                synchronized (oldEnclosing) {
+                    oldEnclosing.updateEnclosingFrameDescriptor(null);
+                    oldEnclosing.subDescriptors.remove(frame.getFrameDescriptor());
+                }
+                synchronized (newEnclosing) {
+                    newEnclosing.subDescriptors.remove(oldEnclosingDescriptor);
+                    newEnclosing.subDescriptors.add(frame.getFrameDescriptor());
+                }
+            } finally {
+                endLayoutChange(newEnclosing);
+                endLayoutChange(oldEnclosing);
+                endLayoutChange(position);
+            }
+        }
     }
 
-    public static synchronized void attach(Frame frame, Frame newEnclosingFrame) {
+    public static void attach(Frame frame, Frame newEnclosingFrame) {
         CompilerAsserts.neverPartOfCompilation();
-        FrameDescriptorMetaData position = getMetaData(frame);
-        FrameDescriptorMetaData newEnclosing = getMetaData(newEnclosingFrame);
-        FrameDescriptor oldEnclosingDescriptor = position.getEnclosingFrameDescriptor();
-        FrameDescriptorMetaData oldEnclosing = getMetaData(oldEnclosingDescriptor);
-
-        invalidateAllNames(newEnclosing);
-        invalidateNames(position, newEnclosingFrame.getFrameDescriptor().getIdentifiers());
-
-        newEnclosing.previousLookups.clear();
-        newEnclosing.previousLookups.addAll(oldEnclosing.previousLookups);
+        synchronized (attachLock) {
+            FrameDescriptorMetaData position = getMetaData(frame);
+            FrameDescriptorMetaData newEnclosing = getMetaData(newEnclosingFrame);
+            FrameDescriptor oldEnclosingDescriptor;
+            synchronized (position) {
+                oldEnclosingDescriptor = position.getEnclosingFrameDescriptor();
+            }
+            FrameDescriptorMetaData oldEnclosing = getMetaData(oldEnclosingDescriptor);
+            beginLayoutChange(position);
+            beginLayoutChange(oldEnclosing);
+            beginLayoutChange(newEnclosing);
+            try {
+                invalidateAllNames(newEnclosing);
+                invalidateNames(position, newEnclosingFrame.getFrameDescriptor().getIdentifiers());
 
-        position.updateEnclosingFrameDescriptor(newEnclosingFrame.getFrameDescriptor());
-        newEnclosing.updateEnclosingFrameDescriptor(oldEnclosingDescriptor);
-        assert frame.getFrameDescriptor() == handleBaseNamespaceEnv(frame);
-        assert !newEnclosing.name.equals("global") || !position.name.equals("base");
-        newEnclosing.subDescriptors.add(frame.getFrameDescriptor());
-        oldEnclosing.subDescriptors.remove(frame.getFrameDescriptor());
-        oldEnclosing.subDescriptors.add(newEnclosingFrame.getFrameDescriptor());
+                Set<Object> oldPreviousLookups;
+                synchronized (oldEnclosing) {
+                    oldPreviousLookups = new HashSet<>(oldEnclosing.previousLookups);
+                }
+                synchronized (newEnclosing) {
+                    newEnclosing.previousLookups.clear();
+                    newEnclosing.previousLookups.addAll(oldPreviousLookups);
+                    newEnclosing.updateEnclosingFrameDescriptor(oldEnclosingDescriptor);
+                }
+                synchronized (position) {
+                    position.updateEnclosingFrameDescriptor(newEnclosingFrame.getFrameDescriptor());
+                }
+                assert frame.getFrameDescriptor() == handleBaseNamespaceEnv(frame);
+                assert !newEnclosing.name.equals("global") || !position.name.equals("base");
+                synchronized (newEnclosing) {
+                    newEnclosing.subDescriptors.add(frame.getFrameDescriptor());
+                }
+                synchronized (oldEnclosing) {
+                    oldEnclosing.subDescriptors.remove(frame.getFrameDescriptor());
+                    oldEnclosing.subDescriptors.add(newEnclosingFrame.getFrameDescriptor());
+                }
+            } finally {
+                endLayoutChange(newEnclosing);
+                endLayoutChange(oldEnclosing);
+                endLayoutChange(position);
+            }
+        }
     }
 
     private static final int MAX_INVALIDATION_COUNT = 2;
@@ -715,17 +945,36 @@ public final class FrameSlotChangeMonitor {
         return findOrAddFrameSlot(fd, (Object) identifier, initialKind);
     }
 
-    private static synchronized FrameSlot findOrAddFrameSlot(FrameDescriptor fd, Object identifier, FrameSlotKind initialKind) {
+    /**
+     * Only synchronizes on the metadata of {@code fd}, so that contexts running in parallel do not
+     * contend when their frames gain new variables.
+     */
+    private static FrameSlot findOrAddFrameSlot(FrameDescriptor fd, Object identifier, FrameSlotKind initialKind) {
         CompilerAsserts.neverPartOfCompilation();
         assert identifier instanceof String || identifier instanceof RFrameSlot;
-        FrameSlot frameSlot = fd.findFrameSlot(identifier);
-        if (frameSlot != null) {
-            return frameSlot;
-        } else {
-            FrameDescriptorMetaData metaData = getMetaData(fd);
+        FrameDescriptorMetaData metaData = getMetaData(fd);
+        synchronized (metaData) {
+            FrameSlot frameSlot = fd.findFrameSlot(identifier);
+            if (frameSlot != null) {
+                return frameSlot;
+            }
+        }
+        beginLayoutChange(metaData);
+        try {
+            FrameSlot frameSlot;
+            synchronized (metaData) {
+                frameSlot = fd.findFrameSlot(identifier);
+                if (frameSlot != null) {
+                    // added concurrently
+                    return frameSlot;
+                }
+                frameSlot = fd.addFrameSlot(identifier, new FrameSlotInfoImpl(metaData.singletonFrame != null, "global".equals(metaData.name), identifier, metaData.name.startsWith("<new-env-")),
+                                initialKind);
+            }
             invalidateNames(metaData, Arrays.asList(identifier));
-            return fd.addFrameSlot(identifier, new FrameSlotInfoImpl(metaData.singletonFrame != null, "global".equals(metaData.name), identifier, metaData.name.startsWith("<new-env-")),
-                            initialKind);
+            return frameSlot;
+        } finally {
+            endLayoutChange(metaData);
         }
     }
 
@@ -889,28 +1138,31 @@ public final class FrameSlotChangeMonitor {
      * Initializes the internal data structures for a newly created frame descriptor that is
      * intended to be used for a non-function frame (and thus will only ever be used for one frame).
      */
-    public static synchronized void initializeNonFunctionFrameDescriptor(String name, MaterializedFrame frame) {
+    public static void initializeNonFunctionFrameDescriptor(String name, MaterializedFrame frame) {
         CompilerAsserts.neverPartOfCompilation();
-        frameDescriptors.put(handleBaseNamespaceEnv(frame), new FrameDescriptorMetaData(name, frame));
+        putMetaData(handleBaseNamespaceEnv(frame), new FrameDescriptorMetaData(name, frame));
     }
 
-    public static synchronized FrameDescriptor initializeFunctionFrameDescriptor(String name, FrameDescriptor frameDescriptor) {
+    public static FrameDescriptor initializeFunctionFrameDescriptor(String name, FrameDescriptor frameDescriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        frameDescriptors.put(frameDescriptor, new FrameDescriptorMetaData(name, null));
+        putMetaData(frameDescriptor, new FrameDescriptorMetaData(name, null));
         return frameDescriptor;
     }
 
-    public static synchronized Assumption getEnclosingFrameDescriptorAssumption(FrameDescriptor descriptor) {
+    public static Assumption getEnclosingFrameDescriptorAssumption(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        return frameDescriptors.get(descriptor).getEnclosingFrameDescriptorAssumption();
+        FrameDescriptorMetaData metaData = findMetaData(descriptor);
+        synchronized (metaData) {
+            return metaData.getEnclosingFrameDescriptorAssumption();
+        }
     }
 
-    public static synchronized Assumption getContainsNoActiveBindingAssumption(FrameDescriptor descriptor) {
+    public static Assumption getContainsNoActiveBindingAssumption(FrameDescriptor descriptor) {
         CompilerAsserts.neverPartOfCompilation();
-        return frameDescriptors.get(descriptor).getContainsNoActiveBindingAssumption();
+        return findMetaData(descriptor).getContainsNoActiveBindingAssumption();
     }
 
-    public static synchronized StableValue<Object> getStableValueAssumption(FrameDescriptor descriptor, FrameSlot frameSlot, Object value) {
+    public static StableValue<Object> getStableValueAssumption(FrameDescriptor descriptor, FrameSlot frameSlot, Object value) {
         CompilerAsserts.neverPartOfCompilation();
         StableValue<Object> stableValue = getFrameSlotInfo(frameSlot).getStableValue();
         if (stableValue != null) {
@@ -921,13 +1173,13 @@ public final class FrameSlotChangeMonitor {
         return stableValue;
     }
 
-    public static synchronized MaterializedFrame getSingletonFrame(FrameDescriptor descriptor) {
+    public static MaterializedFrame getSingletonFrame(FrameDescriptor descriptor) {
         WeakReference<MaterializedFrame> singleton = getMetaData(descriptor).singletonFrame;
         return singleton == null ? null : singleton.get();
     }
 
     public static boolean isValidFrameDescriptor(FrameDescriptor frameDesc) {
-        return getMetaData(frameDesc) != null;
+        return findMetaData(frameDesc) != null;
     }
 
     /*
@@ -25,6 +25,7 @@ package com.oracle.truffle.r.runtime.env.frame;
 import java.util.regex.Pattern;
 
 import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.r.runtime.RArguments;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.runtime.env.REnvironment;
 import com.oracle.truffle.r.runtime.env.REnvironment.PutException;
@@ -77,4 +78,12 @@ public abstract class REnvFrameAccess {
 
     public abstract MaterializedFrame getFrame();
 
+    /**
+     * Return the frame only for access to its {@link RArguments}, e.g. the enclosing frame. Unlike
+     * {@link #getFrame()}, this does not require the bindings to be stored in the frame.
+     */
+    public MaterializedFrame getArgumentsFrame() {
+        return getFrame();
+    }
+
 }
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2014, 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.env.frame;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.MaterializedFrame;
+import com.oracle.truffle.r.runtime.RArguments;
+import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RStringVector;
+import com.oracle.truffle.r.runtime.env.REnvironment;
+import com.oracle.truffle.r.runtime.env.REnvironment.PutException;
+
+/**
+ * Variant of {@link REnvFrameAccess} for environments created by {@code new.env(hash = TRUE)},
+ * which are often used as mutable hash maps with many keys. The bindings are kept in an open
+ * addressing (linear probing) table, so that adding a binding does not add a slot to the frame
+ * descriptor. The frame itself only records the {@link RArguments}, e.g. the enclosing frame.
+ *
+ * As soon as the frame is requested by {@link #getFrame()}, e.g. to evaluate code in the
+ * environment or to use it as the enclosing environment of another one, all bindings are moved
+ * into the frame and all further calls are delegated to a {@link REnvTruffleFrameAccess}.
+ */
+public final class REnvHashFrameAccess extends REnvFrameAccess {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private final MaterializedFrame frame;
+
+    private String[] keys;
+    private Object[] values;
+    private int size;
+    /**
+     * Records which bindings are locked, allocated lazily.
+     */
+    private Set<String> lockedBindings;
+
+    /**
+     * The access to the frame after the bindings were moved there, {@code null} before.
+     */
+    private REnvTruffleFrameAccess frameAccess;
+
+    public REnvHashFrameAccess(MaterializedFrame frame, int initialSize) {
+        this.frame = frame;
+        int capacity = MIN_CAPACITY;
+        // keep the table at most half full
+        while (capacity < 2L * initialSize && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+    }
+
+    @Override
+    public MaterializedFrame getFrame() {
+        if (frameAccess == null) {
+            moveToFrame();
+        }
+        return frame;
+    }
+
+    @Override
+    public MaterializedFrame getArgumentsFrame() {
+        return frame;
+    }
+
+    /**
+     * Returns {@code true} if the bindings are still held in the table.
+     */
+    public boolean isHashed() {
+        return frameAccess == null;
+    }
+
+    @TruffleBoundary
+    private void moveToFrame() {
+        REnvTruffleFrameAccess access = new REnvTruffleFrameAccess(frame);
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    access.put(keys[i], values[i]);
+                }
+            }
+        } catch (PutException e) {
+            // no binding is locked yet
+            throw RInternalError.shouldNotReachHere(e);
+        }
+        if (lockedBindings != null) {
+            for (String key : lockedBindings) {
+                access.lockBinding(key);
+            }
+        }
+        keys = null;
+        values = null;
+        lockedBindings = null;
+        frameAccess = access;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the index of {@code key} in the table or {@code -1}.
+     */
+    private int find(String key) {
+        String[] table = keys;
+        int mask = table.length - 1;
+        int index = hash(key) & mask;
+        while (true) {
+            String k = table[index];
+            if (k == null) {
+                return -1;
+            } else if (k == key || k.equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void insert(String key, Object value) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != null) {
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at {@code index}, shifting back the following entries of its probe
+     * sequence so that no deletion markers are needed.
+     */
+    private void removeAt(int index) {
+        String[] table = keys;
+        int mask = table.length - 1;
+        int hole = index;
+        int i = index;
+        while (true) {
+            i = (i + 1) & mask;
+            String k = table[i];
+            if (k == null) {
+                break;
+            }
+            int home = hash(k) & mask;
+            // the entry can move into the hole if the hole is on its probe sequence
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                table[hole] = k;
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        table[hole] = null;
+        values[hole] = null;
+        size--;
+    }
+
+    @Override
+    public Object get(String key) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (frameAccess != null) {
+            return frameAccess.get(key);
+        }
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        Object value = values[index];
+        // special treatment for active binding: call bound function
+        if (ActiveBinding.isActiveBinding(value)) {
+            return ((ActiveBinding) value).readValue();
+        }
+        return value;
+    }
+
+    @Override
+    public void put(String key, Object value) throws PutException {
+        CompilerAsserts.neverPartOfCompilation();
+        assert key != null;
+        assert value != null;
+        if (frameAccess != null) {
+            frameAccess.put(key, value);
+            return;
+        }
+        if (lockedBindings != null && lockedBindings.contains(key)) {
+            throw new PutException(RError.Message.ENV_CHANGE_BINDING, key);
+        }
+        int index = find(key);
+        if (index < 0) {
+            insert(key, value);
+        } else if (ActiveBinding.isActiveBinding(values[index])) {
+            ((ActiveBinding) values[index]).writeValue(value);
+        } else {
+            values[index] = value;
+        }
+    }
+
+    @Override
+    public void rm(String key) throws PutException {
+        CompilerAsserts.neverPartOfCompilation();
+        assert key != null;
+        if (frameAccess != null) {
+            frameAccess.rm(key);
+            return;
+        }
+        if (lockedBindings != null) {
+            lockedBindings.remove(key);
+        }
+        int index = find(key);
+        if (index < 0) {
+            throw new PutException(RError.Message.UNKNOWN_OBJECT, key);
+        }
+        removeAt(index);
+    }
+
+    /**
+     * Lists the names in table order if not {@code sorted}.
+     */
+    @Override
+    @TruffleBoundary
+    public RStringVector ls(boolean allNames, Pattern pattern, boolean sorted) {
+        if (frameAccess != null) {
+            return frameAccess.ls(allNames, pattern, sorted);
+        }
+        String[] data = new String[size];
+        int count = 0;
+        for (String key : keys) {
+            if (key != null && REnvironment.includeName(key, allNames, pattern)) {
+                data[count++] = key;
+            }
+        }
+        if (count < data.length) {
+            data = Arrays.copyOf(data, count);
+        }
+        if (sorted) {
+            Arrays.sort(data);
+        }
+        return RDataFactory.createStringVector(data, RDataFactory.COMPLETE_VECTOR);
+    }
+
+    @Override
+    @TruffleBoundary
+    public boolean bindingIsLocked(String key) {
+        if (frameAccess != null) {
+            return frameAccess.bindingIsLocked(key);
+        }
+        return lockedBindings != null && lockedBindings.contains(key);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void lockBindings() {
+        if (frameAccess != null) {
+            frameAccess.lockBindings();
+            return;
+        }
+        for (String key : keys) {
+            if (key != null) {
+                lockBinding(key);
+            }
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void lockBinding(String key) {
+        if (frameAccess != null) {
+            frameAccess.lockBinding(key);
+            return;
+        }
+        if (lockedBindings == null) {
+            lockedBindings = new HashSet<>();
+        }
+        lockedBindings.add(key);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void unlockBinding(String key) {
+        if (frameAccess != null) {
+            frameAccess.unlockBinding(key);
+        } else if (lockedBindings != null) {
+            lockedBindings.remove(key);
+        }
+    }
+}
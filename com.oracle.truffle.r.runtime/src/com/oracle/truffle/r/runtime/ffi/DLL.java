@@ -15,6 +15,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -78,6 +79,19 @@ public class DLL {
         private RContext context;
         private static DLLInfo libRdllInfo;
 
+        /**
+         * The state that owns {@link #list}, i.e., this one or that of the parent for contexts
+         * that share the DLLs of their parent.
+         */
+        private ContextStateImpl owner;
+
+        /**
+         * Valid as long as symbols that were found in {@link #list} still exist and resolve the
+         * same way, i.e., no DLL was unloaded and no symbol registration changed since. Allows call
+         * sites to cache the result of symbol lookups. Only used in the {@link #owner}.
+         */
+        private volatile Assumption symbolsUnchanged;
+
         public static ContextStateImpl newContextState() {
             return new ContextStateImpl();
         }
@@ -86,8 +100,11 @@ public class DLL {
         public ContextState initialize(RContext contextArg) {
             this.context = contextArg;
             if (isShareDLLKind(context.getKind())) {
-                list = context.getParent().stateDLL.list;
+                owner = context.getParent().stateDLL.owner;
+                list = owner.list;
             } else {
+                owner = this;
+                symbolsUnchanged = Truffle.getRuntime().createAssumption("DLL symbols unchanged");
                 list = new ArrayList<>();
                 if (!context.isInitial()) {
                     assert list.isEmpty();
@@ -104,10 +121,18 @@ public class DLL {
                     DLLInfo dllInfo = list.get(i);
                     DLLRFFI.DLCloseRootNode.create().getCallTarget().call(dllInfo.handle);
                 }
+                // only call sites that cached symbols of this context depend on it
+                symbolsUnchanged.invalidate();
             }
             list = null;
         }
 
+        private synchronized void invalidateSymbols() {
+            Assumption old = symbolsUnchanged;
+            symbolsUnchanged = Truffle.getRuntime().createAssumption("DLL symbols unchanged");
+            old.invalidate();
+        }
+
         private static boolean isShareDLLKind(RContext.ContextKind kind) {
             return kind == ContextKind.SHARE_PARENT_RW || kind == ContextKind.SHARE_ALL;
         }
@@ -128,6 +153,19 @@ public class DLL {
      */
     private static final AtomicInteger ID = new AtomicInteger();
 
+    /**
+     * Returns the assumption that the symbols found in the DLLs of the current context still
+     * resolve the same way. Each context (or group of contexts sharing their DLLs) has its own, so
+     * loading and unloading DLLs in one context does not affect the call sites of the others.
+     */
+    public static Assumption getSymbolsUnchangedAssumption() {
+        return getContextState().owner.symbolsUnchanged;
+    }
+
+    private static void invalidateSymbols() {
+        getContextState().owner.invalidateSymbols();
+    }
+
     public enum NativeSymbolType {
         C,
         Call,
@@ -208,6 +246,7 @@ public class DLL {
 
         public void setNativeSymbols(int nstOrd, DotSymbol[] symbols) {
             nativeSymbols[nstOrd] = symbols;
+            invalidateSymbols();
         }
 
         public DotSymbol[] getNativeSymbols(NativeSymbolType nst) {
@@ -521,6 +560,7 @@ public class DLL {
                         throw new DLLException(null, RError.Message.DLL_LOAD_ERROR, path, "");
                     }
                     contextState.list.remove(info);
+                    invalidateSymbols();
                     return;
                 }
             }
@@ -741,12 +781,14 @@ public class DLL {
     public static int useDynamicSymbols(DLLInfo dllInfo, int value) {
         int old = dllInfo.dynamicLookup ? 1 : 0;
         dllInfo.dynamicLookup = value == 0 ? false : true;
+        invalidateSymbols();
         return old;
     }
 
     public static int forceSymbols(DLLInfo dllInfo, int value) {
         int old = dllInfo.forceSymbols ? 1 : 0;
         dllInfo.forceSymbols = value == 0 ? false : true;
+        invalidateSymbols();
         return old;
     }
 
@@ -22,6 +22,7 @@
  */
 package com.oracle.truffle.r.runtime.interop;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,6 +42,7 @@ import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.interop.java.JavaInterop;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.r.runtime.RError;
+import com.oracle.truffle.r.runtime.RInternalError;
 import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
 import com.oracle.truffle.r.runtime.data.RNull;
@@ -68,6 +70,25 @@ public abstract class ForeignArray2R extends RBaseNode {
 
     public abstract Object execute(Object obj, boolean recursive);
 
+    @Specialization(guards = {"isJavaArray(obj)"})
+    @TruffleBoundary
+    protected RAbstractVector doJavaArray(TruffleObject obj, boolean recursive) {
+        Object array = JavaInterop.asJavaObject(Object.class, obj);
+        if (Array.getLength(array) == 0) {
+            return RDataFactory.createList();
+        }
+        if (array.getClass().getComponentType().isPrimitive()) {
+            return primitiveArray2R(array);
+        }
+        try {
+            CollectedElements ce = new CollectedElements();
+            collectJavaArrayElements(ce, (Object[]) array, recursive);
+            return asAbstractVector(ce);
+        } catch (UnsupportedMessageException e) {
+            throw error(RError.Message.GENERIC, "error while converting array: " + e.getMessage());
+        }
+    }
+
     @Specialization(guards = {"isForeignArray(obj)"})
     @TruffleBoundary
     public RAbstractVector doArray(TruffleObject obj, boolean recursive,
@@ -123,6 +144,89 @@ public abstract class ForeignArray2R extends RBaseNode {
         }
     }
 
+    /**
+     * Reads the elements of a host object array directly instead of sending a {@code READ} message
+     * for each of them. Elements that are not interop primitives are wrapped like {@code READ}
+     * would do.
+     */
+    private void collectJavaArrayElements(CollectedElements ce, Object[] array, boolean recursive) throws UnsupportedMessageException {
+        Object[] elements = array.clone();
+        for (int i = 0; i < elements.length; i++) {
+            Object element = elements[i];
+            if (element != null && !isInteropPrimitive(element)) {
+                element = JavaInterop.asTruffleObject(element);
+            }
+            if (recursive && (isForeignArray(element, hasSize) || isJavaIterable(element))) {
+                recurse(ce, element);
+            } else {
+                ce.elements.add(element2R(element, ce));
+            }
+        }
+    }
+
+    private static boolean isInteropPrimitive(Object value) {
+        return value instanceof Boolean || value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long || value instanceof Float ||
+                        value instanceof Double || value instanceof Character || value instanceof String;
+    }
+
+    /**
+     * Converts a non-empty host primitive array with the same element mapping as
+     * {@link InteropTypeCheck}. A {@code double[]} or {@code int[]} is not copied but becomes the
+     * store of the resulting vector, which is shared permanently so that R copies it before the
+     * first modification and never writes into the host array. As the host can still change the
+     * array, such a vector is not marked complete.
+     */
+    private static RAbstractVector primitiveArray2R(Object array) {
+        if (array instanceof double[]) {
+            return (RAbstractVector) RDataFactory.createDoubleVector((double[]) array, RDataFactory.INCOMPLETE_VECTOR).makeSharedPermanent();
+        } else if (array instanceof int[]) {
+            return (RAbstractVector) RDataFactory.createIntVector((int[]) array, RDataFactory.INCOMPLETE_VECTOR).makeSharedPermanent();
+        } else if (array instanceof byte[]) {
+            byte[] a = (byte[]) array;
+            int[] ints = new int[a.length];
+            for (int i = 0; i < a.length; i++) {
+                ints[i] = a[i];
+            }
+            return RDataFactory.createIntVector(ints, RDataFactory.COMPLETE_VECTOR);
+        } else if (array instanceof short[]) {
+            short[] a = (short[]) array;
+            int[] ints = new int[a.length];
+            for (int i = 0; i < a.length; i++) {
+                ints[i] = a[i];
+            }
+            return RDataFactory.createIntVector(ints, RDataFactory.COMPLETE_VECTOR);
+        } else if (array instanceof long[]) {
+            long[] a = (long[]) array;
+            double[] doubles = new double[a.length];
+            for (int i = 0; i < a.length; i++) {
+                doubles[i] = a[i];
+            }
+            return RDataFactory.createDoubleVector(doubles, RDataFactory.COMPLETE_VECTOR);
+        } else if (array instanceof float[]) {
+            float[] a = (float[]) array;
+            double[] doubles = new double[a.length];
+            for (int i = 0; i < a.length; i++) {
+                doubles[i] = a[i];
+            }
+            return RDataFactory.createDoubleVector(doubles, RDataFactory.COMPLETE_VECTOR);
+        } else if (array instanceof boolean[]) {
+            boolean[] a = (boolean[]) array;
+            byte[] bytes = new byte[a.length];
+            for (int i = 0; i < a.length; i++) {
+                bytes[i] = RRuntime.asLogical(a[i]);
+            }
+            return RDataFactory.createLogicalVector(bytes, RDataFactory.COMPLETE_VECTOR);
+        } else if (array instanceof char[]) {
+            char[] a = (char[]) array;
+            String[] strings = new String[a.length];
+            for (int i = 0; i < a.length; i++) {
+                strings[i] = String.valueOf(a[i]);
+            }
+            return RDataFactory.createStringVector(strings, RDataFactory.COMPLETE_VECTOR);
+        }
+        throw RInternalError.shouldNotReachHere("unexpected primitive array " + array.getClass().getName());
+    }
+
     private CollectedElements getIterableElements(CollectedElements ce, TruffleObject obj, boolean recursive, Node execute)
                     throws UnknownIdentifierException, ArityException, UnsupportedMessageException, UnsupportedTypeException {
         if (read == null) {
@@ -204,28 +308,28 @@ public abstract class ForeignArray2R extends RBaseNode {
                 byte[] bytes = new byte[size];
                 for (int i = 0; i < size; i++) {
                     bytes[i] = ((Number) ce.elements.get(i)).byteValue();
-                    complete &= RRuntime.isNA(bytes[i]);
+                    complete &= !RRuntime.isNA(bytes[i]);
                 }
                 return RDataFactory.createLogicalVector(bytes, complete);
             case DOUBLE:
                 double[] doubles = new double[size];
                 for (int i = 0; i < size; i++) {
                     doubles[i] = ((Number) ce.elements.get(i)).doubleValue();
-                    complete &= RRuntime.isNA(doubles[i]);
+                    complete &= !RRuntime.isNA(doubles[i]);
                 }
                 return RDataFactory.createDoubleVector(doubles, complete);
             case INTEGER:
                 int[] ints = new int[size];
                 for (int i = 0; i < size; i++) {
                     ints[i] = ((Number) ce.elements.get(i)).intValue();
-                    complete &= RRuntime.isNA(ints[i]);
+                    complete &= !RRuntime.isNA(ints[i]);
                 }
                 return RDataFactory.createIntVector(ints, complete);
             case STRING:
                 String[] strings = new String[size];
                 for (int i = 0; i < size; i++) {
                     strings[i] = String.valueOf(ce.elements.get(i));
-                    complete &= RRuntime.isNA(strings[i]);
+                    complete &= !RRuntime.isNA(strings[i]);
                 }
                 return RDataFactory.createStringVector(strings, complete);
             default:
@@ -249,6 +353,14 @@ public abstract class ForeignArray2R extends RBaseNode {
         return RRuntime.isForeignObject(obj) && ForeignAccess.sendHasSize(hasSize, (TruffleObject) obj);
     }
 
+    public static boolean isJavaArray(Object obj) {
+        if (RRuntime.isForeignObject(obj) && JavaInterop.isJavaObject((TruffleObject) obj)) {
+            Object o = JavaInterop.asJavaObject(Object.class, (TruffleObject) obj);
+            return o != null && o.getClass().isArray();
+        }
+        return false;
+    }
+
     public static boolean isJavaIterable(Object obj) {
         return RRuntime.isForeignObject(obj) && JavaInterop.isJavaObject(Iterable.class, (TruffleObject) obj);
     }
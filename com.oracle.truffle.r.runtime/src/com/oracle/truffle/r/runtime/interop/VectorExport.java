@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.runtime.interop;
+
+import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.RVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractIntVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractLogicalVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractRawVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractStringVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractVector;
+
+/**
+ * Bulk access to the contents of atomic vectors for Java code, which would otherwise have to read
+ * them element by element via {@code READ} messages. R vectors are passed to other languages as
+ * they are, so an embedder that receives a vector can use these methods directly; R code can use
+ * the {@code as.java.array} and {@code as.java.buffer} builtins.
+ */
+public final class VectorExport {
+
+    private VectorExport() {
+        // no instances
+    }
+
+    /**
+     * Returns {@code true} if {@link #asReadOnlyBuffer(RAbstractVector)} supports the vector.
+     */
+    public static boolean isBufferable(Object vec) {
+        return vec instanceof RAbstractDoubleVector || vec instanceof RAbstractIntVector || vec instanceof RAbstractLogicalVector || vec instanceof RAbstractRawVector;
+    }
+
+    /**
+     * Copies the elements of an atomic vector into a new Java array: a {@code double[]},
+     * {@code int[]}, {@code byte[]} or {@code String[]} for double, integer, raw and character
+     * vectors, and a {@code boolean[]} for logical vectors, where {@code NA} becomes {@code false}
+     * like in a conversion of a single logical value.
+     */
+    @TruffleBoundary
+    public static Object toJavaArray(RAbstractVector vec) {
+        if (vec instanceof RAbstractDoubleVector) {
+            return ((RAbstractDoubleVector) vec).materialize().getDataCopy();
+        } else if (vec instanceof RAbstractIntVector) {
+            return ((RAbstractIntVector) vec).materialize().getDataCopy();
+        } else if (vec instanceof RAbstractRawVector) {
+            return ((RAbstractRawVector) vec).materialize().getDataCopy();
+        } else if (vec instanceof RAbstractStringVector) {
+            return ((RAbstractStringVector) vec).materialize().getDataCopy();
+        } else if (vec instanceof RAbstractLogicalVector) {
+            RAbstractLogicalVector logical = (RAbstractLogicalVector) vec;
+            boolean[] result = new boolean[logical.getLength()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = RRuntime.fromLogical(logical.getDataAt(i));
+            }
+            return result;
+        }
+        throw new IllegalArgumentException("unsupported vector type " + vec.getRType().getName());
+    }
+
+    /**
+     * Converts a double, integer, logical or raw vector into a Java array with the primitive
+     * component type {@code componentType} and the dimensions {@code dims}, whose product has to be
+     * the vector length. The values are converted like by a Java cast, logical values are
+     * {@code 1} and {@code 0} ({@code NA} is {@code false} like in
+     * {@link #toJavaArray(RAbstractVector)}) and raw values are signed bytes.
+     *
+     * The element {@code [i][j]...} of a multi-dimensional result is the vector element
+     * {@code [i + 1, j + 1, ...]}. The values are converted directly into row-major order, so that
+     * the innermost arrays can then be filled by block copies.
+     */
+    @TruffleBoundary
+    public static Object toJavaArray(RAbstractVector vec, Class<?> componentType, int[] dims) {
+        assert componentType.isPrimitive();
+        int[] order = dims.length > 1 ? rowMajorOrder(dims) : null;
+        Object values;
+        if (vec instanceof RAbstractDoubleVector) {
+            values = convert(((RAbstractDoubleVector) vec).materialize().getDataWithoutCopying(), order, componentType);
+        } else {
+            values = convert(asInts(vec), order, componentType);
+        }
+        return toDimensions(values, componentType, dims);
+    }
+
+    /**
+     * Turns a one-dimensional array with the elements of a vector in R's (column-major) order into
+     * an array with the dimensions {@code dims}, see
+     * {@link #toJavaArray(RAbstractVector, Class, int[])}.
+     */
+    @TruffleBoundary
+    public static Object reshape(Object values, Class<?> componentType, int[] dims) {
+        if (dims.length <= 1) {
+            return values;
+        }
+        int[] order = rowMajorOrder(dims);
+        Object rowMajor = Array.newInstance(componentType, order.length);
+        if (values instanceof Object[]) {
+            Object[] from = (Object[]) values;
+            Object[] to = (Object[]) rowMajor;
+            for (int i = 0; i < order.length; i++) {
+                to[i] = from[order[i]];
+            }
+        } else {
+            for (int i = 0; i < order.length; i++) {
+                Array.set(rowMajor, i, Array.get(values, order[i]));
+            }
+        }
+        return toDimensions(rowMajor, componentType, dims);
+    }
+
+    /**
+     * Computes the R (column-major) index of each element of an array with the dimensions
+     * {@code dims} in row-major order.
+     */
+    private static int[] rowMajorOrder(int[] dims) {
+        int[] strides = new int[dims.length];
+        int length = 1;
+        for (int d = 0; d < dims.length; d++) {
+            strides[d] = length;
+            length *= dims[d];
+        }
+        int[] order = new int[length];
+        int[] index = new int[dims.length];
+        int offset = 0;
+        for (int i = 0; i < length; i++) {
+            order[i] = offset;
+            for (int d = dims.length - 1; d >= 0; d--) {
+                offset += strides[d];
+                if (++index[d] < dims[d]) {
+                    break;
+                }
+                offset -= strides[d] * dims[d];
+                index[d] = 0;
+            }
+        }
+        return order;
+    }
+
+    private static Object toDimensions(Object rowMajor, Class<?> componentType, int[] dims) {
+        if (dims.length <= 1) {
+            return rowMajor;
+        }
+        Object result = Array.newInstance(componentType, dims);
+        copyRows((Object[]) result, 0, dims, rowMajor, 0);
+        return result;
+    }
+
+    private static void copyRows(Object[] arrays, int level, int[] dims, Object rowMajor, int offset) {
+        int blockSize = 1;
+        for (int d = level + 1; d < dims.length; d++) {
+            blockSize *= dims[d];
+        }
+        for (int i = 0; i < arrays.length; i++) {
+            if (level == dims.length - 2) {
+                System.arraycopy(rowMajor, offset + i * blockSize, arrays[i], 0, blockSize);
+            } else {
+                copyRows((Object[]) arrays[i], level + 1, dims, rowMajor, offset + i * blockSize);
+            }
+        }
+    }
+
+    private static int[] asInts(RAbstractVector vec) {
+        if (vec instanceof RAbstractIntVector) {
+            return ((RAbstractIntVector) vec).materialize().getDataWithoutCopying();
+        }
+        int[] result = new int[vec.getLength()];
+        if (vec instanceof RAbstractLogicalVector) {
+            RAbstractLogicalVector logical = (RAbstractLogicalVector) vec;
+            for (int i = 0; i < result.length; i++) {
+                result[i] = RRuntime.fromLogical(logical.getDataAt(i)) ? 1 : 0;
+            }
+        } else if (vec instanceof RAbstractRawVector) {
+            RAbstractRawVector raw = (RAbstractRawVector) vec;
+            for (int i = 0; i < result.length; i++) {
+                result[i] = raw.getRawDataAt(i);
+            }
+        } else {
+            throw new IllegalArgumentException("unsupported vector type " + vec.getRType().getName());
+        }
+        return result;
+    }
+
+    /**
+     * Converts {@code values}, taking them in the given {@code order} if it is not {@code null}.
+     */
+    private static Object convert(double[] values, int[] order, Class<?> componentType) {
+        int length = order == null ? values.length : order.length;
+        if (componentType == double.class) {
+            if (order == null) {
+                return Arrays.copyOf(values, length);
+            }
+            double[] result = new double[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = values[order[i]];
+            }
+            return result;
+        } else if (componentType == float.class) {
+            float[] result = new float[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (float) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == long.class) {
+            long[] result = new long[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (long) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == int.class) {
+            int[] result = new int[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (int) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == short.class) {
+            short[] result = new short[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (short) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == byte.class) {
+            byte[] result = new byte[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (byte) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == char.class) {
+            char[] result = new char[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (char) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == boolean.class) {
+            boolean[] result = new boolean[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = values[order == null ? i : order[i]] != 0;
+            }
+            return result;
+        }
+        throw new IllegalArgumentException("unsupported component type " + componentType.getName());
+    }
+
+    /**
+     * Converts {@code values}, taking them in the given {@code order} if it is not {@code null}.
+     */
+    private static Object convert(int[] values, int[] order, Class<?> componentType) {
+        int length = order == null ? values.length : order.length;
+        if (componentType == int.class) {
+            if (order == null) {
+                return Arrays.copyOf(values, length);
+            }
+            int[] result = new int[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = values[order[i]];
+            }
+            return result;
+        } else if (componentType == double.class) {
+            double[] result = new double[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == float.class) {
+            float[] result = new float[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == long.class) {
+            long[] result = new long[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == short.class) {
+            short[] result = new short[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (short) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == byte.class) {
+            byte[] result = new byte[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (byte) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == char.class) {
+            char[] result = new char[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = (char) values[order == null ? i : order[i]];
+            }
+            return result;
+        } else if (componentType == boolean.class) {
+            boolean[] result = new boolean[length];
+            for (int i = 0; i < length; i++) {
+                result[i] = values[order == null ? i : order[i]] != 0;
+            }
+            return result;
+        }
+        throw new IllegalArgumentException("unsupported component type " + componentType.getName());
+    }
+
+    /**
+     * Returns a read-only buffer over the data of a double, integer, raw or logical vector: a
+     * {@link DoubleBuffer}, an {@link IntBuffer} or a {@link ByteBuffer} holding the raw bytes or
+     * the logical values in R's encoding ({@code 0}, {@code 1} and {@link RRuntime#LOGICAL_NA}).
+     *
+     * The buffer is a view of the vector's data, not a copy. To keep its content from changing,
+     * the vector is made permanently shared, so that R copies it before any modification.
+     */
+    @TruffleBoundary
+    public static Buffer asReadOnlyBuffer(RAbstractVector vec) {
+        if (!isBufferable(vec)) {
+            throw new IllegalArgumentException("unsupported vector type " + vec.getRType().getName());
+        }
+        RVector<?> v = vec.materialize();
+        if (!v.isSharedPermanent()) {
+            v.makeSharedPermanent();
+        }
+        Object store = v.getInternalStore();
+        if (store instanceof double[]) {
+            return DoubleBuffer.wrap((double[]) store).asReadOnlyBuffer();
+        } else if (store instanceof int[]) {
+            return IntBuffer.wrap((int[]) store).asReadOnlyBuffer();
+        } else {
+            return ByteBuffer.wrap((byte[]) store).asReadOnlyBuffer();
+        }
+    }
+}
@@ -36,6 +36,18 @@ import com.oracle.truffle.r.runtime.rng.RandomNumberGenerator;
 public class RandomFunctions {
     public abstract static class RandFunction3_Double extends RBaseNode {
         public abstract double execute(double a, double b, double c, RandomNumberProvider rand);
+
+        /**
+         * Fills {@code dst[from..to)} with random values for the given scalar parameters, consuming
+         * the random numbers exactly like the same number of invocations of {@link #execute}
+         * would, so that the results are identical. Returns {@code false} if this function does
+         * not support bulk generation for the parameters, in which case {@code dst} is left
+         * unchanged and the caller falls back to {@link #execute}.
+         */
+        @SuppressWarnings("unused")
+        public boolean executeBulk(double a, double b, double c, double[] dst, int from, int to, RandomNumberProvider rand) {
+            return false;
+        }
     }
 
     public abstract static class RandFunction2_Double extends RandFunction3_Double {
@@ -45,6 +57,16 @@ public class RandomFunctions {
         public final double execute(double a, double b, double c, RandomNumberProvider rand) {
             return execute(a, b, rand);
         }
+
+        @SuppressWarnings("unused")
+        public boolean executeBulk(double a, double b, double[] dst, int from, int to, RandomNumberProvider rand) {
+            return false;
+        }
+
+        @Override
+        public final boolean executeBulk(double a, double b, double c, double[] dst, int from, int to, RandomNumberProvider rand) {
+            return executeBulk(a, b, dst, from, to, rand);
+        }
     }
 
     public abstract static class RandFunction1_Double extends RandFunction2_Double {
@@ -54,6 +76,16 @@ public class RandomFunctions {
         public final double execute(double a, double b, RandomNumberProvider rand) {
             return execute(a, rand);
         }
+
+        @SuppressWarnings("unused")
+        public boolean executeBulk(double a, double[] dst, int from, int to, RandomNumberProvider rand) {
+            return false;
+        }
+
+        @Override
+        public final boolean executeBulk(double a, double b, double[] dst, int from, int to, RandomNumberProvider rand) {
+            return executeBulk(a, dst, from, to, rand);
+        }
     }
 
     /**
@@ -80,10 +112,30 @@ public class RandomFunctions {
             return generator.genrandDouble();
         }
 
+        /**
+         * Fills {@code dst[from..to)} with the values of as many {@link #unifRand()} calls.
+         */
+        public void unifRand(double[] dst, int from, int to) {
+            generator.fillDoubles(dst, from, to);
+        }
+
         public double normRand() {
             return SNorm.normRand(generator, normKind);
         }
 
+        /**
+         * Fills {@code dst[from..to)} with the values of as many {@link #normRand()} calls, if the
+         * current {@link NormKind} uses a fixed number of uniform random numbers per value.
+         * Returns {@code false} (leaving {@code dst} unchanged) otherwise.
+         */
+        public boolean normRand(double[] dst, int from, int to) {
+            if (normKind != NormKind.INVERSION) {
+                return false;
+            }
+            SNorm.normRandInversion(generator, dst, from, to);
+            return true;
+        }
+
         public double expRand() {
             return SExp.expRand(generator);
         }
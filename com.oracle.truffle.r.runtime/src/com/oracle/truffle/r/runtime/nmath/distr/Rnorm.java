@@ -11,6 +11,8 @@
  */
 package com.oracle.truffle.r.runtime.nmath.distr;
 
+import java.util.Arrays;
+
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.profiles.ValueProfile;
@@ -38,4 +40,24 @@ public final class Rnorm extends RandFunction2_Double {
             return mu + sigma * rand.normRand();
         }
     }
+
+    @Override
+    public boolean executeBulk(double muIn, double sigmaIn, double[] dst, int from, int to, RandomNumberProvider rand) {
+        double sigma = sigmaValueProfile.profile(sigmaIn);
+        double mu = muValueProfile.profile(muIn);
+        if (Double.isNaN(mu) || !Double.isFinite(sigma) || sigma < 0.) {
+            return false;
+        }
+        if (zeroSigmaProfile.profile(sigma == 0. || !Double.isFinite(mu))) {
+            Arrays.fill(dst, from, to, mu);
+            return true;
+        }
+        if (!rand.normRand(dst, from, to)) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            dst[i] = mu + sigma * dst[i];
+        }
+        return true;
+    }
 }
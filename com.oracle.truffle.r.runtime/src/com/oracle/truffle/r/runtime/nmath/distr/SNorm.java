@@ -111,6 +111,29 @@ public final class SNorm {
         // only static members
     }
 
+    /**
+     * Size of the chunks of uniform random numbers generated at once by
+     * {@link #normRandInversion}.
+     */
+    private static final int INVERSION_CHUNK = 1024;
+
+    /**
+     * Fills {@code dst[from..to)} with the same values as repeated calls to {@link #normRand} with
+     * {@link NormKind#INVERSION} would produce, each of which takes exactly two uniform random
+     * numbers.
+     */
+    public static void normRandInversion(RandomNumberGenerator rand, double[] dst, int from, int to) {
+        double[] u = new double[2 * Math.min(INVERSION_CHUNK, to - from)];
+        for (int chunk = from; chunk < to; chunk += INVERSION_CHUNK) {
+            int count = Math.min(INVERSION_CHUNK, to - chunk);
+            rand.fillDoubles(u, 0, 2 * count);
+            for (int i = 0; i < count; i++) {
+                double u1 = (int) (BIG * u[2 * i]) + u[2 * i + 1];
+                dst[chunk + i] = Qnorm.qnorm(u1 / BIG, 0.0, 1.0, true, false);
+            }
+        }
+    }
+
     public static double normRand(RandomNumberGenerator rand, NormKind normKind) {
         double s;
         double u1;
@@ -11,6 +11,8 @@
  */
 package com.oracle.truffle.r.runtime.nmath.distr;
 
+import java.util.Arrays;
+
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.api.profiles.ConditionProfile;
 import com.oracle.truffle.api.profiles.ValueProfile;
@@ -47,6 +49,25 @@ public final class Unif {
             }
             return min + rand.unifRand() * (max - min);
         }
+
+        @Override
+        public boolean executeBulk(double minIn, double maxIn, double[] dst, int from, int to, RandomNumberProvider rand) {
+            double min = minValueProfile.profile(minIn);
+            double max = maxValueProfile.profile(maxIn);
+            if (!RRuntime.isFinite(min) || !RRuntime.isFinite(max) || max < min) {
+                return false;
+            }
+            if (minEqualsMaxProfile.profile(min == max)) {
+                Arrays.fill(dst, from, to, min);
+                return true;
+            }
+            rand.unifRand(dst, from, to);
+            double range = max - min;
+            for (int i = from; i < to; i++) {
+                dst[i] = min + dst[i] * range;
+            }
+            return true;
+        }
     }
 
     public static final class PUnif implements Function3_2 {
@@ -23,14 +23,15 @@ import com.oracle.truffle.r.runtime.data.RMissing;
 import com.oracle.truffle.r.runtime.data.RNull;
 import com.oracle.truffle.r.runtime.data.RTypedValue;
 import com.oracle.truffle.r.runtime.ffi.BaseRFFI;
+import com.oracle.truffle.r.runtime.rng.lecuyer.LecuyerCMRG;
 import com.oracle.truffle.r.runtime.rng.mm.MarsagliaMulticarry;
 import com.oracle.truffle.r.runtime.rng.mt.MersenneTwister;
 import com.oracle.truffle.r.runtime.rng.user.UserRNG;
 
 /**
  * Facade class to the R random number generators, (see src/main/RNG.c in GnuR). The individual
- * generators are implemented in their own class. Currently there are only two implemented, the
- * default, {@link MersenneTwister} and {@link MarsagliaMulticarry}.
+ * generators are implemented in their own class. Currently there are only three implemented, the
+ * default, {@link MersenneTwister}, {@link MarsagliaMulticarry} and {@link LecuyerCMRG}.
  *
  * The fact that the R programmer can set {@code .Random.seed} explicitly, as opposed to the
  * recommended approach of calling {@code set.seed}, is something of a pain as it changes the
@@ -55,7 +56,7 @@ public class RRNG {
         KNUTH_TAOCP(),
         USER_UNIF(UserRNG::new),
         KNUTH_TAOCP2(),
-        LECUYER_CMRG();
+        LECUYER_CMRG(LecuyerCMRG::new);
 
         @CompilationFinal(dimensions = 1) static final Kind[] VALUES = values();
 
@@ -112,13 +113,31 @@ public class RRNG {
          */
         public Object currentSeeds = RMissing.instance;
 
-        private ContextStateImpl() {
+        /**
+         * The {@link LecuyerCMRG} seeds this context was started with, see
+         * {@link RRNG#nextChildStream()}.
+         */
+        private final int[] initialStream;
+
+        /**
+         * The seeds of the stream last handed out to a child context by
+         * {@link RRNG#nextChildStream()}, {@code null} if none was handed out since the generator
+         * was last seeded.
+         */
+        private int[] lastChildStream;
+
+        private ContextStateImpl(int[] initialStream) {
             this.currentNormKind = DEFAULT_NORM_KIND;
             this.allGenerators = new RandomNumberGenerator[Kind.VALUES.length];
+            this.initialStream = initialStream;
         }
 
         @Override
         public RContext.ContextState initialize(RContext context) {
+            if (initialStream != null) {
+                initStream(initialStream);
+                return this;
+            }
             int seed = timeToSeed();
             RandomNumberGenerator rng = DEFAULT_KIND.create();
             initGenerator(rng, seed);
@@ -127,6 +146,16 @@ public class RRNG {
             return this;
         }
 
+        private void initStream(int[] stream) {
+            RandomNumberGenerator rng = Kind.LECUYER_CMRG.create();
+            rng.setISeed(stream);
+            this.currentGenerator = rng;
+            this.allGenerators[rng.getKind().ordinal()] = rng;
+            this.currentNormKind = NormKind.VALUES[stream[0] / 100];
+            this.currentSeeds = stream;
+            this.lastChildStream = null;
+        }
+
         /*
          * Similar to GNUR's RNGkind function.
          */
@@ -174,8 +203,13 @@ public class RRNG {
             }
         }
 
-        public static ContextStateImpl newContextState() {
-            return new ContextStateImpl();
+        /**
+         * Creates the state of a context that starts with the {@link LecuyerCMRG} generator seeded
+         * with {@code stream} (in the format of {@code .Random.seed}), or with a time based seed
+         * of the default generator if {@code stream} is {@code null}.
+         */
+        public static ContextStateImpl newContextState(int[] stream) {
+            return new ContextStateImpl(stream);
         }
     }
 
@@ -237,6 +271,7 @@ public class RRNG {
 
     @TruffleBoundary
     private static void changeKindsAndInitGenerator(Integer newSeed, int kindAsInt, int normKindAsInt) {
+        getContextState().lastChildStream = null;
         RandomNumberGenerator rng;
         if (kindAsInt != NO_KIND_CHANGE) {
             if (kindAsInt == DEFAULT_KIND_CHANGE) {
@@ -370,6 +405,38 @@ public class RRNG {
         getContextState().updateCurrentNormKind(newNormKind, false);
     }
 
+    /**
+     * Makes the current context continue with the L'Ecuyer-CMRG stream {@code stream} (in the
+     * format of {@code .Random.seed}), as if it had been created with it. Used for contexts reused
+     * from a {@link com.oracle.truffle.r.runtime.context.ContextPool}.
+     */
+    @TruffleBoundary
+    public static void setStream(int[] stream) {
+        getContextState().initStream(stream);
+        putRNGState();
+    }
+
+    /**
+     * Returns the seeds (in the format of {@code .Random.seed}) for a new child context if the
+     * current generator is {@link LecuyerCMRG}, or {@code null} otherwise. The first child gets
+     * the stream following the current state of the generator and every further child the stream
+     * following the one of the previous child (as {@code parallel::nextRNGStream} does), so the
+     * children generate independent sequences that only depend on the seed the generator was last
+     * set to. The random numbers generated by this context are not affected.
+     */
+    @TruffleBoundary
+    public static int[] nextChildStream() {
+        getRNGState();
+        if (currentKind() != Kind.LECUYER_CMRG) {
+            return null;
+        }
+        ContextStateImpl state = getContextState();
+        int[] current = state.lastChildStream != null ? state.lastChildStream : currentGenerator().getSeeds();
+        current[0] = currentKind().ordinal() + 100 * currentNormKind().ordinal();
+        state.lastChildStream = LecuyerCMRG.nextStream(current);
+        return state.lastChildStream.clone();
+    }
+
     /**
      * Loads the state of RNG from global environment variable {@code .Random.seed}. This should be
      * invoked before any random numbers generation as the user may have directly changed the
@@ -5,7 +5,7 @@
  *
  * Copyright (c) 1995-2012, The R Core Team
  * Copyright (c) 2003, The R Foundation
- * Copyright (c) 2014, 2016, Oracle and/or its affiliates
+ * Copyright (c) 2014, 2017, Oracle and/or its affiliates
  *
  * All rights reserved.
  */
@@ -29,6 +29,17 @@ public interface RandomNumberGenerator {
 
     double genrandDouble();
 
+    /**
+     * Fills {@code dst[from..to)} with random doubles, the result and the state of the generator
+     * afterwards must be the same as if {@link #genrandDouble()} was called {@code to - from}
+     * times. Generators that produce their values in blocks should override this.
+     */
+    default void fillDoubles(double[] dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dst[i] = genrandDouble();
+        }
+    }
+
     Kind getKind();
 
     /**
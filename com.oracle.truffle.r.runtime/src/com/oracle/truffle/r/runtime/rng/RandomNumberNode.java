@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015, 2016, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2015, 2017, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -32,9 +32,7 @@ public final class RandomNumberNode extends RBaseNode {
 
     public double[] executeDouble(int count) {
         double[] result = new double[count];
-        for (int i = 0; i < count; i++) {
-            result[i] = executeSingleDouble();
-        }
+        generatorClassProfile.profile(generatorProfile.profile(RRNG.currentGenerator())).fillDoubles(result, 0, count);
         return result;
     }
 
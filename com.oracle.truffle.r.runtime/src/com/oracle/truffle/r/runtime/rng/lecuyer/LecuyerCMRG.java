@@ -0,0 +1,167 @@
+/*
+ * This material is distributed under the GNU General Public License
+ * Version 2. You may review the terms of this license at
+ * http://www.gnu.org/licenses/gpl-2.0.html
+ *
+ * Copyright (c) 1995-2012, The R Core Team
+ * Copyright (c) 2003, The R Foundation
+ * Copyright (c) 2017, Oracle and/or its affiliates
+ *
+ * All rights reserved.
+ */
+package com.oracle.truffle.r.runtime.rng.lecuyer;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.r.runtime.rng.RNGInitAdapter;
+import com.oracle.truffle.r.runtime.rng.RRNG;
+import com.oracle.truffle.r.runtime.rng.RRNG.Kind;
+
+/**
+ * "L'Ecuyer-CMRG" RNG, the combined multiple-recursive generator MRG32k3a. Transcribed from GnuR
+ * RNG.c, the stream jumps ({@link #nextStream}, {@link #nextSubStream}) from rngstream.c of the
+ * parallel package.
+ */
+public final class LecuyerCMRG extends RNGInitAdapter {
+
+    private static final long M1 = 4294967087L;
+    private static final long M2 = 4294944443L;
+    private static final double NORMC = 2.328306549295727688e-10;
+    private static final long A12 = 1403580;
+    private static final long A13N = 810728;
+    private static final long A21 = 527612;
+    private static final long A23N = 1370589;
+
+    /**
+     * The transition matrices of the two components raised to the power of 2^76, i.e. the length
+     * of a sub-stream.
+     */
+    private static final long[][] A1P76 = {
+                    {82758667L, 1871391091L, 4127413238L},
+                    {3672831523L, 69195019L, 1871391091L},
+                    {3672091415L, 3528743235L, 69195019L}
+    };
+
+    private static final long[][] A2P76 = {
+                    {1511326704L, 3759209742L, 1610795712L},
+                    {4292754251L, 1511326704L, 3889917532L},
+                    {3859662829L, 4292754251L, 3708466080L}
+    };
+
+    /**
+     * The transition matrices raised to the power of 2^127, i.e. the length of a stream.
+     */
+    private static final long[][] A1P127 = {
+                    {2427906178L, 3580155704L, 949770784L},
+                    {226153695L, 1230515664L, 3580155704L},
+                    {1988835001L, 986791581L, 1230515664L}
+    };
+
+    private static final long[][] A2P127 = {
+                    {1464411153L, 277697599L, 1610723613L},
+                    {32183930L, 1464411153L, 1022607788L},
+                    {2824425944L, 32183930L, 2093834863L}
+    };
+
+    @Override
+    @TruffleBoundary
+    public void init(int seedParam) {
+        int seed = seedParam;
+        for (int i = 0; i < getNSeed(); i++) {
+            seed = (69069 * seed + 1);
+            while (Integer.toUnsignedLong(seed) >= M2) {
+                seed = (69069 * seed + 1);
+            }
+            setISeedItem(i, seed);
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void fixupSeeds(boolean initial) {
+        /* first set: not all zero, in [0, m1); second set: not all zero, in [0, m2) */
+        if (!isValidComponent(0, M1) || !isValidComponent(3, M2)) {
+            init(RRNG.timeToSeed());
+        }
+    }
+
+    private boolean isValidComponent(int from, long modulus) {
+        boolean notAllZero = false;
+        for (int i = from; i < from + 3; i++) {
+            long value = Integer.toUnsignedLong(getISeedItem(i));
+            if (value >= modulus) {
+                return false;
+            }
+            notAllZero |= value != 0;
+        }
+        return notAllZero;
+    }
+
+    @Override
+    public double genrandDouble() {
+        long p1 = A12 * Integer.toUnsignedLong(getISeedItem(1)) - A13N * Integer.toUnsignedLong(getISeedItem(0));
+        p1 %= M1;
+        if (p1 < 0) {
+            p1 += M1;
+        }
+        setISeedItem(0, getISeedItem(1));
+        setISeedItem(1, getISeedItem(2));
+        setISeedItem(2, (int) p1);
+
+        long p2 = A21 * Integer.toUnsignedLong(getISeedItem(5)) - A23N * Integer.toUnsignedLong(getISeedItem(3));
+        p2 %= M2;
+        if (p2 < 0) {
+            p2 += M2;
+        }
+        setISeedItem(3, getISeedItem(4));
+        setISeedItem(4, getISeedItem(5));
+        setISeedItem(5, (int) p2);
+
+        return ((p1 > p2) ? (p1 - p2) : (p1 - p2 + M1)) * NORMC;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.LECUYER_CMRG;
+    }
+
+    @Override
+    public int getNSeed() {
+        return 6;
+    }
+
+    /**
+     * Returns the seeds (in the format of {@code .Random.seed}) of the stream following the one
+     * starting at {@code seeds}, which is 2^127 steps ahead.
+     */
+    public static int[] nextStream(int[] seeds) {
+        return jump(seeds, A1P127, A2P127);
+    }
+
+    /**
+     * Returns the seeds (in the format of {@code .Random.seed}) of the sub-stream following the
+     * one starting at {@code seeds}, which is 2^76 steps ahead.
+     */
+    public static int[] nextSubStream(int[] seeds) {
+        return jump(seeds, A1P76, A2P76);
+    }
+
+    private static int[] jump(int[] seeds, long[][] a1, long[][] a2) {
+        int[] result = new int[7];
+        result[0] = seeds[0];
+        multiply(seeds, 1, a1, M1, result);
+        multiply(seeds, 4, a2, M2, result);
+        return result;
+    }
+
+    private static void multiply(int[] seeds, int offset, long[][] a, long modulus, int[] result) {
+        for (int i = 0; i < 3; i++) {
+            long tmp = 0;
+            for (int j = 0; j < 3; j++) {
+                // both factors are below 2^32, so the sum of the product and of tmp < modulus
+                // cannot overflow as an unsigned 64-bit value
+                tmp = Long.remainderUnsigned(tmp + a[i][j] * Integer.toUnsignedLong(seeds[offset + j]), modulus);
+            }
+            result[offset + i] = (int) tmp;
+        }
+    }
+}
@@ -77,6 +77,8 @@ static const R_CallMethodDef CallEntries[] = {
         CALLDEF(test_stringNA, 0),
         CALLDEF(test_captureDotsWithSingleElement, 1),
         CALLDEF(test_evalAndNativeArrays, 3),
+        CALLDEF(test_setVectorElt, 3),
+        CALLDEF(test_getVectorElt, 2),
         {NULL, NULL, 0}
 };
 
@@ -431,3 +431,36 @@ SEXP test_evalAndNativeArrays(SEXP vec, SEXP expr, SEXP env) {
     UNPROTECT(uprotectCount);
     return vec;
 }
+
+SEXP test_setVectorElt(SEXP vec, SEXP index, SEXP value) {
+    int i = Rf_asInteger(index) - 1;
+    switch (TYPEOF(vec)) {
+        case INTSXP:
+            INTEGER(vec)[i] = Rf_asInteger(value);
+            break;
+        case REALSXP:
+            REAL(vec)[i] = Rf_asReal(value);
+            break;
+        case LGLSXP:
+            LOGICAL(vec)[i] = Rf_asLogical(value);
+            break;
+        default:
+            printf("Error: unexpected type");
+    }
+    return vec;
+}
+
+SEXP test_getVectorElt(SEXP vec, SEXP index) {
+    int i = Rf_asInteger(index) - 1;
+    switch (TYPEOF(vec)) {
+        case INTSXP:
+            return ScalarInteger(INTEGER(vec)[i]);
+        case REALSXP:
+            return ScalarReal(REAL(vec)[i]);
+        case LGLSXP:
+            return ScalarLogical(LOGICAL(vec)[i]);
+        default:
+            printf("Error: unexpected type");
+            return R_NilValue;
+    }
+}
@@ -97,3 +97,7 @@ extern SEXP test_stringNA(void);
 extern SEXP test_captureDotsWithSingleElement(SEXP env);
 
 extern SEXP test_evalAndNativeArrays(SEXP vec, SEXP expr, SEXP env);
+
+extern SEXP test_setVectorElt(SEXP vec, SEXP index, SEXP value);
+
+extern SEXP test_getVectorElt(SEXP vec, SEXP index);
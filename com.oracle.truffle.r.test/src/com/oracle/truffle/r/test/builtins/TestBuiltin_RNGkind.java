@@ -37,4 +37,14 @@ public class TestBuiltin_RNGkind extends TestBase {
         // Note: GnuR also prints warning about NAs
         assertEval(Output.IgnoreErrorMessage, ".Internal(RNGkind(NULL, 'abc'))");
     }
+
+    @Test
+    public void testLecuyerCMRG() {
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(123); .Random.seed");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(42); runif(5)");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(42); x <- runif(3); set.seed(42); identical(x, runif(3))");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(1); s <- .Random.seed; parallel::nextRNGStream(s)");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(1); s <- .Random.seed; parallel::nextRNGSubStream(s)");
+        assertEval("RNGkind(\"L'Ecuyer-CMRG\"); set.seed(1); .Random.seed <- parallel::nextRNGStream(.Random.seed); runif(3)");
+    }
 }
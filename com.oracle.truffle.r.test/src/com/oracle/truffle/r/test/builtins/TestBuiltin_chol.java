@@ -35,4 +35,17 @@ public class TestBuiltin_chol extends TestBase {
         // FastR output: Error in chol.default(m) : error code 2 from Lapack routine 'dpotrf'
         assertEval(Output.IgnoreErrorMessage, "{ m <- matrix(c(5,-5,-5,3),2,2) ; chol(m) }");
     }
+
+    @Test
+    public void testCholLapack() {
+        assertEval("{ round(chol(matrix(c(4,2,2,3),2)), digits=5) }");
+        assertEval("{ m <- matrix(c(6,3,1,3,5,2,1,2,4),3); round(crossprod(chol(m)) - m, digits=10) }");
+        assertEval("{ round(chol2inv(chol(matrix(c(4,2,2,3),2))), digits=5) }");
+        // rank deficient, with pivoting
+        assertEval("{ x <- chol(matrix(c(1,1,1,1),2), pivot=TRUE); list(attr(x, 'rank'), attr(x, 'pivot')) }");
+        assertEval("{ m <- matrix(c(4,2,2,1,2,3,1,0,2,1,6,2,1,0,2,1),4); x <- suppressWarnings(chol(m, pivot=TRUE)); attr(x, 'rank') }");
+        // not positive definite, non-square
+        assertEval(Output.IgnoreErrorMessage, "{ chol(matrix(c(1,2,2,1),2)) }");
+        assertEval(Output.IgnoreErrorMessage, "{ chol(matrix(1:6,2)) }");
+    }
 }
@@ -43,4 +43,12 @@ public class TestBuiltin_det extends TestBase {
         assertEval("{ det(matrix(c(1,-3,4,-5),nrow=2)) }");
         assertEval("{ det(matrix(c(1,0,4,NA),nrow=2)) }");
     }
+
+    @Test
+    public void testDetSingular() {
+        assertEval("{ det(matrix(c(1,2,2,4),2)) }");
+        assertEval("{ det(matrix(0,3,3)) }");
+        assertEval("{ round(determinant(matrix(c(2,1,1,3),2))$modulus, digits=5) }");
+        assertEval(Output.IgnoreErrorMessage, "{ det(matrix(1:6,2)) }");
+    }
 }
@@ -0,0 +1,44 @@
+/*
+ * This material is distributed under the GNU General Public License
+ * Version 2. You may review the terms of this license at
+ * http://www.gnu.org/licenses/gpl-2.0.html
+ *
+ * Copyright (c) 2017, Oracle and/or its affiliates
+ *
+ * All rights reserved.
+ */
+package com.oracle.truffle.r.test.builtins;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.test.TestBase;
+
+public class TestBuiltin_eigen extends TestBase {
+
+    @Test
+    public void testEigenSymmetric() {
+        assertEval("{ eigen(matrix(c(2,1,1,2),2), only.values=TRUE)$values }");
+        assertEval("{ m <- matrix(c(4,1,2,1,3,0,2,0,5),3); round(eigen(m)$values, digits=5) }");
+        // the signs of the eigenvectors are not unique
+        assertEval("{ m <- matrix(c(4,1,2,1,3,0,2,0,5),3); round(abs(eigen(m)$vectors), digits=5) }");
+        assertEval("{ m <- matrix(c(4,1,2,1,3,0,2,0,5),3); e <- eigen(m); round(m %*% e$vectors - e$vectors %*% diag(e$values), digits=10) }");
+        assertEval("{ m <- outer(1:6, 1:6, function(i, j) 1 / (i + j - 1)); round(eigen(m, symmetric=TRUE)$values, digits=8) }");
+        // singular
+        assertEval("{ round(eigen(matrix(c(1,2,2,4),2))$values, digits=5) }");
+        assertEval("{ eigen(matrix(0,3,3))$values }");
+    }
+
+    @Test
+    public void testEigenGeneral() {
+        assertEval("{ round(eigen(matrix(c(2,0,0,1,3,0,4,5,6),3))$values, digits=5) }");
+        assertEval("{ m <- matrix(c(2,0,0,1,3,0,4,5,6),3); round(abs(eigen(m)$vectors), digits=5) }");
+        // complex eigenvalues
+        assertEval("{ round(eigen(matrix(c(0,1,-1,0),2))$values, digits=5) }");
+        assertEval("{ m <- matrix(c(1,2,0,-2,1,0,0,0,3),3); round(eigen(m, only.values=TRUE)$values, digits=5) }");
+        assertEval("{ m <- matrix(c(1,2,0,-2,1,0,0,0,3),3); e <- eigen(m); round(m %*% e$vectors - e$vectors %*% diag(e$values), digits=10) }");
+        // singular
+        assertEval("{ round(eigen(matrix(c(1,2,3,2,4,6,1,1,1),3), only.values=TRUE)$values, digits=5) }");
+        // non-square
+        assertEval("{ eigen(matrix(1:6,2)) }");
+    }
+}
@@ -204,4 +204,13 @@ public class TestBuiltin_gsub extends TestBase {
         // FastR output: [1] "axxxxxb"
         assertEval(Ignored.ImplementationError, "{ gsub(pattern = 'Ä*', replacement = 'x', x = 'aÄÄÄÄÄb', perl = TRUE) }");
     }
+
+    @Test
+    public void testRepeatedPatterns() {
+        // the same pattern in different modes must not share a compiled regular expression
+        assertEval("{ x <- c('a.b', 'a+b', 'A.B'); for (perl in c(FALSE, TRUE)) for (fixed in c(FALSE, TRUE)) print(gsub('.', '-', x, perl = perl, fixed = fixed)) }");
+        assertEval("{ x <- c('abc', 'ABC', NA); for (ic in c(FALSE, TRUE)) { print(grepl('b', x, ignore.case = ic)); print(grepl('b', x, ignore.case = ic, perl = TRUE)) } }");
+        assertEval("{ unlist(lapply(1:5, function(i) sub('[[:digit:]]+', 'N', paste0('x', i, 'y', i)))) }");
+        assertEval("{ x <- c('a1b22c', 'd333'); list(regexpr('[0-9]+', x), gregexpr('[0-9]+', x), regexpr('[0-9]+', x, perl = TRUE), strsplit(x, '[0-9]+')) }");
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.builtins;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.test.TestBase;
+
+// Checkstyle: stop line length check
+public class TestBuiltin_lazyLoadDBfetch extends TestBase {
+
+    private static final String INSERT = "f <- tempfile(); h <- function(e) NULL; ins <- function(v, comp = 1L) .Internal(lazyLoadDBinsertValue(v, f, FALSE, comp, h)); ";
+
+    @Test
+    public void testlazyLoadDBfetch() {
+        assertFetch();
+    }
+
+    @Test
+    public void testlazyLoadDBfetchValueCache() {
+        boolean valueCache = FastROptions.LazyDBValueCache.getBooleanValue();
+        FastROptions.setValue("LazyDBValueCache", true);
+        try {
+            assertFetch();
+        } finally {
+            FastROptions.setValue("LazyDBValueCache", valueCache);
+        }
+    }
+
+    private void assertFetch() {
+        // repeated fetches from the same database, in any order
+        assertEval("{ " + INSERT +
+                        "k1 <- ins(1:10); k2 <- ins(list(a='x', b=c(u=2.5))); k3 <- ins(c(m=0.5, n=NA), 3L); r <- list(lazyLoadDBfetch(k2, f, 1L, h), lazyLoadDBfetch(k1, f, 1L, h), lazyLoadDBfetch(k3, f, 3L, h), identical(lazyLoadDBfetch(k1, f, 1L, h), 1:10), lazyLoadDBfetch(k2, f, 1L, h)); unlink(f); r }");
+        // a database written again at the same path is read again after lazyLoadDBflush, the
+        // values are stored at the same offsets
+        assertEval("{ " + INSERT +
+                        "k <- ins(1:3); a <- lazyLoadDBfetch(k, f, 1L, h); unlink(f); k2 <- ins(c('x', 'y', 'z')); .Internal(lazyLoadDBflush(f)); b <- lazyLoadDBfetch(k2, f, 1L, h); unlink(f); list(a, b, k[[1]] == k2[[1]]) }");
+        // modifying a fetched value does not change the values fetched later
+        assertEval("{ " + INSERT +
+                        "k <- ins(c(a=1, b=2)); x <- lazyLoadDBfetch(k, f, 1L, h); x[1] <- 10; names(x)[2] <- 'z'; attr(x, 'foo') <- TRUE; y <- lazyLoadDBfetch(k, f, 1L, h); unlink(f); list(x, y) }");
+        assertEval("{ " + INSERT +
+                        "k <- ins(matrix(1:4, 2)); x <- lazyLoadDBfetch(k, f, 1L, h); dim(x) <- NULL; y <- lazyLoadDBfetch(k, f, 1L, h); y[2, 2] <- 0L; z <- lazyLoadDBfetch(k, f, 1L, h); unlink(f); list(x, y, z) }");
+        assertEval("{ " + INSERT +
+                        "k <- ins(function(x) x + 1); g <- lazyLoadDBfetch(k, f, 1L, h); attr(g, 'foo') <- 1; r <- list(attr(g, 'foo'), attr(lazyLoadDBfetch(k, f, 1L, h), 'foo'), lazyLoadDBfetch(k, f, 1L, h)(1)); unlink(f); r }");
+    }
+}
@@ -37,4 +37,14 @@ public class TestBuiltin_newenv extends TestBase {
         assertEval(Output.ContainsReferences, "parent.env(new.env())");
         assertEval(Output.ContainsReferences, "e <- new.env(); e; parent.env(new.env(TRUE, e))");
     }
+
+    @Test
+    public void testHashedEnv() {
+        assertEval("{ e <- new.env(); for (i in 1:1000) assign(paste0('k', i), i, envir = e); c(length(ls(e)), get('k500', envir = e), exists('k1001', envir = e)) }");
+        assertEval("{ e <- new.env(size = 1L); for (i in 1:100) e[[paste0('k', i)]] <- i; rm(list = paste0('k', seq(1, 100, 2)), envir = e); c(length(ls(e)), sum(unlist(mget(ls(e), envir = e)))) }");
+        assertEval("{ e <- new.env(); e$b <- 2; e$a <- 1; e$.c <- 3; list(ls(e), ls(e, all.names = TRUE), sort(ls(e, sorted = FALSE))) }");
+        assertEval("{ e <- new.env(); e$x <- 1; e$y <- 2; r <- evalq(x + y, e); e$x <- 10; c(r, evalq(x + y, e), get('x', envir = e)) }");
+        assertEval("{ e <- new.env(); e$x <- 1; f <- new.env(parent = e); f$y <- 2; e$z <- 3; c(evalq(x + y + z, f), identical(parent.env(f), e)) }");
+        assertEval("{ e <- new.env(); e$x <- 1; lockBinding('x', e); r <- tryCatch(assign('x', 2, envir = e), error = function(err) 'locked'); c(r, bindingIsLocked('x', e), e$x) }");
+    }
 }
@@ -165,4 +165,17 @@ public class TestBuiltin_order extends TestBase {
 
         assertEval("order(c(1,2,0), decreasing=NA)");
     }
+
+    @Test
+    public void testOrderAdaptive() {
+        assertEval("{ order(1:10) }");
+        assertEval("{ order(10:1) }");
+        assertEval("{ order(c(5, 4, 4, 3, 1, 1), decreasing=TRUE) }");
+        assertEval("{ order(c(5, 4, 4, 3, 1, 1)) }");
+        assertEval("{ order(c(-0, 0, -0, 0)) }");
+        assertEval("{ order(c('b', 'A', 'a', 'B', 'b'), decreasing=TRUE) }");
+        assertEval("{ x <- rep(c(3L, 1L, 2L), 50000); o <- order(x); c(head(o), tail(o), !is.unsorted(x[o])) }");
+        assertEval("{ x <- (200000:1) %% 1000; o <- order(x, decreasing=TRUE); c(head(o), tail(o)) }");
+        assertEval("{ rank(c(3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5)) }");
+    }
 }
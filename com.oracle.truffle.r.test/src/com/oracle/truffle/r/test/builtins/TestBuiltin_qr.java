@@ -65,4 +65,16 @@ public class TestBuiltin_qr extends TestBase {
         assertEval("{ round( qr.solve(qr(c(1,3,4,2)), c(1,2,3,4)), digits=5 ) }");
         assertEval("{ round( qr.solve(c(1,3,4,2), c(1,2,3,4)), digits=5) }");
     }
+
+    @Test
+    public void testQrLapack() {
+        // results that do not depend on the signs chosen by the decomposition
+        assertEval("{ m <- cbind(1, 1:5, c(2,3,5,7,11)); x <- qr(m, LAPACK=TRUE); round(qr.coef(x, c(1,4,2,8,5)), digits=5) }");
+        assertEval("{ m <- cbind(1, 1:5, c(2,3,5,7,11)); x <- qr(m, LAPACK=TRUE); round(qr.fitted(x, c(1,4,2,8,5)), digits=5) }");
+        assertEval("{ m <- cbind(1, 1:5, c(2,3,5,7,11)); x <- qr(m, LAPACK=TRUE); round(abs(diag(qr.R(x))), digits=5) }");
+        assertEval("{ m <- cbind(1, 1:5, c(2,3,5,7,11)); x <- qr(m, LAPACK=TRUE); round(qr.Q(x) %*% qr.R(x) - m[, x$pivot], digits=10) }");
+        assertEval("{ m <- matrix(c(2,1,1,3,2,1,1,1,4),3); round(qr.solve(qr(m, LAPACK=TRUE), c(1,2,3)), digits=5) }");
+        // wide matrix
+        assertEval("{ m <- matrix(c(1,2,3,4,5,7),2); x <- qr(m, LAPACK=TRUE); round(qr.Q(x) %*% qr.R(x) - m[, x$pivot], digits=10) }");
+    }
 }
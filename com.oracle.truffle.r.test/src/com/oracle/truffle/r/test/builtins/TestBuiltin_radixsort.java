@@ -54,4 +54,28 @@ public class TestBuiltin_radixsort extends TestBase {
         // at InternalNode$InternalCallWrapNode.prepareArgs(InternalNode.java:309)
         assertEval(Ignored.ImplementationError, "argv <- list(structure(integer(0), .Label = character(0), class = 'factor'), TRUE, FALSE); .Internal(radixsort(argv[[1]], argv[[2]], argv[[3]]))");
     }
+
+    @Test
+    public void testRadixOrder() {
+        assertEval("order(c(3L, 1L, NA, 2L, 1L), method='radix')");
+        assertEval("order(c(3L, 1L, NA, 2L, 1L), na.last=FALSE, method='radix')");
+        assertEval("order(c(3L, 1L, NA, 2L, 1L), na.last=NA, method='radix')");
+        assertEval("order(c(0.5, -Inf, NaN, -0, 0, NA, 1e300, -1e-300, Inf), method='radix')");
+        assertEval("order(c(0.5, -Inf, NaN, -0, 0, NA, 1e300, -1e-300, Inf), decreasing=TRUE, method='radix')");
+        assertEval("order(c(TRUE, NA, FALSE, TRUE), method='radix')");
+        assertEval("order(c('b', NA, 'B', 'a', 'b'), method='radix')");
+        assertEval("order(c(1L, 2L, 1L, 2L), c('x', 'y', 'z', 'w'), decreasing=c(TRUE, FALSE), method='radix')");
+        assertEval("x <- factor(c('b', 'a', 'c', 'a')); order(x, c(4, 3, 2, 1), method='radix')");
+        assertEval("sort(c(10L, 3L, 7L, NA, 3L), method='radix')");
+        assertEval("sort(c(2.5, 1, NA, -3), method='radix', na.last=TRUE)");
+    }
+
+    @Test
+    public void testRadixGroups() {
+        assertEval(".Internal(radixsort(TRUE, FALSE, TRUE, TRUE, c(3L, 1L, 3L, 2L, 1L, 3L)))");
+        assertEval(".Internal(radixsort(TRUE, c(FALSE, TRUE), TRUE, TRUE, c(1L, 1L, 2L, 2L), c('a', 'b', 'a', 'a')))");
+        assertEval(".Internal(radixsort(TRUE, FALSE, TRUE, FALSE, c('b', 'a', 'b', 'c')))");
+        assertEval(".Internal(radixsort(NA, FALSE, TRUE, TRUE, c(2, NA, 1, 2)))");
+        assertEval(".Internal(radixsort(TRUE, FALSE, TRUE, TRUE, integer(0)))");
+    }
 }
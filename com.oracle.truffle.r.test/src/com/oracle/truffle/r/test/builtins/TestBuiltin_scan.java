@@ -12,6 +12,7 @@ package com.oracle.truffle.r.test.builtins;
 
 import org.junit.Test;
 
+import com.oracle.truffle.r.runtime.FastROptions;
 import com.oracle.truffle.r.test.TestBase;
 import java.io.File;
 import org.junit.After;
@@ -69,6 +70,52 @@ public class TestBuiltin_scan extends TestBase {
 
     }
 
+    @Test
+    public void testScanFields() {
+        assertEval("{ con<-textConnection(c(\"a,\\\"b\", \"c\\\",d\", \"e,f\")); scan(con, what=list(\"\", \"\"), sep=\",\") }");
+        assertEval("{ con<-textConnection(c(\"1,2,\", \"3,,\")); scan(con, what=list(0, 0, 0), sep=\",\") }");
+        assertEval("{ con<-textConnection(c(\"1;2\", \"3\")); scan(con, what=list(0L, 0L), sep=\";\", fill=TRUE) }");
+        assertEval("{ con<-textConnection(c(\"1,5 x\", \"-\", \"2,25\")); scan(con, what=list(0), dec=\",\", na.strings=c(\"x\", \"-\")) }");
+        assertEval("{ con<-textConnection(c(\"TRUE F # comment\", \"NA T\")); scan(con, what=TRUE, comment.char=\"#\") }");
+        assertEval("{ con<-textConnection(c(\"a 'b c' d\", \"\", \"e\")); count.fields(con) }");
+        assertEval("{ con<-textConnection(c(\"a,'b\", \"c',d\", \"e\")); count.fields(con, sep=\",\") }");
+        assertEval("{ con <- textConnection(\"x;y\\n1,5;'a;b'\\n2;c\\n\"); read.table(con, sep=\";\", dec=\",\", header=TRUE) }");
+    }
+
+    @Test
+    public void testScanFile() {
+        // file connections are read as bytes, through the read buffer of the connection if it stays
+        // open (as in read.table)
+        assertEval("{ f <- tempfile(); writeLines(c('1 2 3', '', '4 5'), f); r <- scan(f, quiet=TRUE); unlink(f); r }");
+        assertEval("{ f <- tempfile(); writeLines(c('a ,b ', ' c, d ', '\" e \", f'), f); r <- scan(f, what=list('', ''), sep=',', quiet=TRUE); unlink(f); r }");
+        assertEval("{ f <- tempfile(); writeLines(c('a ,b ', ' c, d ', '\" e \", f'), f); r <- scan(f, what=list('', ''), sep=',', strip.white=TRUE, quiet=TRUE); unlink(f); r }");
+        assertEval("{ f <- tempfile(); writeLines(c('1 , 2.5 ', ' 3,NA ', ',4'), f); r <- scan(f, what=list(0L, 0), sep=',', quiet=TRUE); unlink(f); r }");
+        assertEval("{ f <- tempfile(); writeLines(c('x,y,z', '1, a ,2.5', '3 ,b, 4 '), f); r <- read.table(f, sep=',', header=TRUE); unlink(f); list(r, sapply(r, class)) }");
+        assertEval("{ f <- tempfile(); writeLines(c('x,y,z', '1, a ,2.5', '3 ,b, 4 '), f); r <- read.csv(f, strip.white=TRUE); unlink(f); r }");
+        assertEval("{ f <- tempfile(); writeLines(c('a b \"c d\"', '', 'e,f'), f); r <- list(count.fields(f), count.fields(f, sep=',')); unlink(f); r }");
+        // the input not consumed by scan is returned to an open connection
+        assertEval("{ f <- tempfile(); writeLines(c('1 2', '3 4', 'x y', 'z'), f); con <- file(f, 'r'); r <- list(scan(con, nlines=1, quiet=TRUE), scan(con, what='', n=1, quiet=TRUE), readLines(con, 1), scan(con, what='', quiet=TRUE)); close(con); unlink(f); r }");
+        assertEval("{ f <- tempfile(); writeLines(c('x y', '1 2', '3 4'), f); con <- file(f, 'r'); r <- list(readLines(con, 1), read.table(con), readLines(con)); close(con); unlink(f); r }");
+        // records crossing the boundaries of the read buffer
+        assertEval("{ f <- tempfile(); n <- 5000L; writeLines(paste(seq_len(n), paste0('\"a b', seq_len(n), '\"'), seq_len(n) / 7, sep=','), f); l <- readLines(f); r <- identical(read.csv(f, header=FALSE), read.csv(textConnection(l), header=FALSE)); unlink(f); r }");
+        assertEval("{ f <- tempfile(); n <- 5000L; writeLines(paste(seq_len(n), seq_len(n) * 2), f); con <- file(f, 'r'); a <- scan(con, nlines=3000, quiet=TRUE); b <- readLines(con); close(con); unlink(f); list(length(a), sum(a), length(b), b[1]) }");
+    }
+
+    @Test
+    public void testScanParallel() {
+        // files of at least 1MB are read in parallel chunks, compare with reading the same lines
+        // from a text connection (which is always sequential)
+        int threshold = FastROptions.ScanParallelThreshold.getNonNegativeIntValue();
+        FastROptions.setValue("ScanParallelThreshold", 1);
+        try {
+            String write = "f <- tempfile(); n <- 200000L; writeLines(paste(seq_len(n), paste0('\"n', seq_len(n) %% 7L, ' x\"'), seq_len(n) / 3), f); ";
+            assertEval("{ " + write + "l <- readLines(f); r <- identical(scan(f, what=list(0L, '', 0), quiet=TRUE), scan(textConnection(l), what=list(0L, '', 0), quiet=TRUE)); unlink(f); r }");
+            assertEval("{ " + write + "l <- readLines(f); r <- identical(read.table(f), read.table(textConnection(l))); unlink(f); r }");
+        } finally {
+            FastROptions.setValue("ScanParallelThreshold", threshold);
+        }
+    }
+
     @Test
     public void testReadCsv() {
         String testData = "n1,n2\nv1,\"v5, v5\"\n";
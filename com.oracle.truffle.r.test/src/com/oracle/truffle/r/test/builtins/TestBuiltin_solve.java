@@ -23,4 +23,17 @@ public class TestBuiltin_solve extends TestBase {
         assertEval("argv <- structure(list(a = structure(c(1, 0.5, 0, 0, 0, 0.5,     1, 0.5, 0, 0, 0, 0.5, 1, 0.5, 0, 0, 0, 0.5, 1, 0.5, 0, 0,     0, 0.5, 1), .Dim = c(5L, 5L))), .Names = 'a');" +
                         "do.call('solve', argv)");
     }
+
+    @Test
+    public void testSolve() {
+        assertEval("{ solve(matrix(c(2,1,1,3),2)) }");
+        assertEval("{ solve(matrix(c(4,2,7,6),2), c(1,2)) }");
+        assertEval("{ round(solve(matrix(c(2,-1,0,-1,2,-1,0,-1,2),3), cbind(1:3, 3:1)), digits=5) }");
+        assertEval("{ m <- matrix(c(10,-2,1,3,-7,4,2,1,-5,6,3,-1,1,2,-3,9),4); round(m %*% solve(m), digits=10) }");
+        // singular and non-square
+        assertEval("{ solve(matrix(c(1,2,2,4),2)) }");
+        assertEval("{ solve(matrix(0,3,3)) }");
+        assertEval("{ solve(matrix(1:6,2)) }");
+        assertEval("{ solve(matrix(c(2,1,1,3),2), 1:3) }");
+    }
 }
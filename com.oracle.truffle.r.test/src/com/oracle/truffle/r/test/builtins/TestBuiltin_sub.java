@@ -160,4 +160,12 @@ public class TestBuiltin_sub extends TestBase {
         // FastR output: [1] "axÄÄÄÄb"
         assertEval(Ignored.ImplementationError, "{ sub(pattern = 'Ä*', replacement = 'x', x = 'aÄÄÄÄÄb', perl = TRUE) }");
     }
+
+    @Test
+    public void testSubIgnoreCase() {
+        assertEval("{ sub('A', 'x', 'a', ignore.case = TRUE) }");
+        assertEval("{ sub('A', 'x', c('a', 'bA', 'c'), ignore.case = TRUE) }");
+        assertEval("{ gsub('b', '-', 'aBcbB', ignore.case = TRUE) }");
+        assertEval("{ gsub('B', '-', 'aBcbB', ignore.case = TRUE, perl = TRUE) }");
+    }
 }
@@ -52,6 +52,29 @@ public class TestConnections extends TestRBase {
         }
     }
 
+    // streams written by the reference bzip2 with 100k blocks (-1): 25000 lines 'abcdefghij' in three
+    // blocks, and the numbers seq_len(34600) %% 97 on one line in two blocks
+    private static final String BZIP2_PERIODIC = "425a68313141592653599249ebc3002381410000103ff0200090201a69a029508d0d390150c405435a40a86202a1d405" +
+                    "43b80a86e02a1e40543d80a87d0150e40543f3141592653594eff1f47004702410000103ff0200090201a69a029509a0" +
+                    "d390150c4054330150d405437b40a86202a1dc0543c80a87b0150fa02a1c80a87e6282b24ca6b27371631c00853a8200" +
+                    "00207fe04000e08069a68135509a0d391492612924ca5249a4a493a4a4935b4a493b8a493c8a493d8a493e8a49391492" +
+                    "7e2ee48a70a121dac2401c";
+    private static final String BZIP2_MOD97 = "425a683131415926535917d853e4004bbe980040007fe05004be0007aa000004034d34100d34d04034d3409aaa8d313f" +
+                    "d5014aaa69b537ed549f2853d50a7d229f8453d914f08a7f114f845388a7c22988a7d229f08a622988a7a22988a62298" +
+                    "8a622988a622988a7f114c453114c453f48a622988a622988a622988a78453114c453114c453d914c453114c453114c4" +
+                    "53d914c453114c453114c453c22988a622988a6229fa453114c453114c453114c453f88a622988a6229e88a6229eb114" +
+                    "c453114c453114c45388a6229d40be528b15162a2c5458a8b214d429a85350a750a6a8162a2c5458a8b15162a2c85350" +
+                    "a7da14f08a78453c229e114f08a7d229f48a7da14fb429c45350a7bc453114c453114c453c229a85350a70954b114c45" +
+                    "3d114c453114c453114c45350a6a14f82552c453114c453f48a622988a622988a6a14d429fc2552c453114c453114f64" +
+                    "53114c453114d429a853c12a9622988a622988a6229e114c453114d429a853d8954bf2853114c453114c453114c453e1" +
+                    "14c45350a7a12a97114e229c45388a7114e229c453e114ea14fc12a97114e229c45388a7114e229c453a8539448388a7" +
+                    "114e229c45388a7114ea14ea14e92947f98a0ac9329acc1624e0100003c6c00000820003ff0180052c31a669b7aa8832" +
+                    "89ea1ffaaa01a48d3f6551a71aee3771cbeacf806c640a0d0340a0c81b3189249248f0076aaaab85c901dcb0d81d4b07" +
+                    "00e65818192c15f15ee64d2aa8eb24000a7400524cb6dbc0ccfc5dc914e14242b5d0ef28";
+    // 'Hello', 'wonderful', 'World' compressed by bzip2 -9
+    private static final String BZIP2_HELLO = "425a68393141592653599dbb25e5000001c780001000400080070592802000310340d0200346916211c556f36d863d324f8bb9229c28484edd92f280";
+    private static final String HEX_TO_RAW = "hex <- function(h) as.raw(strtoi(substring(h, seq(1, nchar(h), 2), seq(2, nchar(h), 2)), 16L)); ";
+
     private static TestDir testDir;
     private static Path tempFileGzip;
 
@@ -249,6 +272,31 @@ public class TestConnections extends TestRBase {
         assertEval(Ignored.ImplementationError, "conn <- rawConnection(raw(0), \"w\"); value <- c(1,2,3); save(value, file=conn); rawConnectionValue(conn)");
     }
 
+    @Test
+    public void testBZip2File() {
+        assertEval("{ fn <- tempfile(); zz <- bzfile(fn, 'w'); writeLines(c('Hello', 'wonderful', 'World'), zz); close(zz); zz <- bzfile(fn, 'a'); writeLines(strrep('x', 1000), zz); close(zz); res <- readLines(fn); unlink(fn); c(res[1:3], nchar(res[4])) }");
+        assertEval("{ fn <- tempfile(); x <- rep_len(c(1.5, NA, 3), 100000); saveRDS(x, fn, compress='bzip2'); res <- identical(readRDS(fn), x); unlink(fn); res }");
+    }
+
+    @Test
+    public void testBZip2Reference() {
+        // decode the output of the reference implementation
+        assertEval("{ " + HEX_TO_RAW + "fn <- tempfile(); writeBin(hex('" + BZIP2_HELLO + "'), fn); res <- readLines(bzfile(fn)); unlink(fn); res }");
+        // concatenated streams are read one after the other
+        assertEval("{ " + HEX_TO_RAW + "fn <- tempfile(); writeBin(rep(hex('" + BZIP2_HELLO + "'), 2), fn); res <- readLines(bzfile(fn)); unlink(fn); res }");
+        assertEval("{ " + HEX_TO_RAW + "fn <- tempfile(); writeBin(hex('" + BZIP2_PERIODIC + "'), fn); res <- readLines(bzfile(fn)); unlink(fn); c(length(res), all(res == 'abcdefghij')) }");
+        assertEval("{ " + HEX_TO_RAW + "fn <- tempfile(); writeBin(hex('" + BZIP2_MOD97 + "'), fn); res <- readLines(bzfile(fn)); unlink(fn); c(length(res), identical(res, paste(seq_len(34600) %% 97L, collapse=' '))) }");
+        assertEval("{ " + HEX_TO_RAW + "fn <- tempfile(); writeBin(c(hex('" + BZIP2_MOD97 + "'), hex('" + BZIP2_HELLO + "')), fn); zz <- bzfile(fn, 'rb'); res <- readBin(zz, raw(), 200000); close(zz); unlink(fn); c(length(res), rawToChar(tail(res, 22))) }");
+    }
+
+    @Test
+    public void testCompressedFileBlocks() {
+        // larger than one compressed block, which may be compressed in parallel
+        assertEval("{ fn <- tempfile(); zz <- gzfile(fn, 'w'); writeLines(as.character(1:300000), zz); close(zz); res <- readLines(fn); unlink(fn); c(length(res), res[300000]) }");
+        assertEval("{ fn <- tempfile(); x <- as.double(1:500000); saveRDS(x, fn); res <- identical(readRDS(fn), x); unlink(fn); res }");
+        assertEval("{ fn <- tempfile(); x <- as.double(1:500000); saveRDS(x, fn, compress='xz'); res <- identical(readRDS(fn), x); unlink(fn); res }");
+    }
+
     @Test
     public void testFifoOpenInexisting() {
         assertEval("capabilities(\"fifo\")");
@@ -12,6 +12,7 @@ package com.oracle.truffle.r.test.library.base;
 
 import org.junit.Test;
 
+import com.oracle.truffle.r.runtime.FastROptions;
 import com.oracle.truffle.r.test.ArithmeticWhiteList;
 import com.oracle.truffle.r.test.TestBase;
 
@@ -752,4 +753,25 @@ public class TestSimpleArithmetic extends TestBase {
         assertEval("{ xor(0:2, 2:4) }");
         assertEval("{ xor(0:2, 2:7) }");
     }
+
+    @Test
+    public void testDeferredArithmetic() {
+        // results of at least 4 elements are computed lazily, which must not be observable
+        int threshold = FastROptions.DeferredArithmeticThreshold.getNonNegativeIntValue();
+        FastROptions.setValue("DeferredArithmeticThreshold", 4);
+        try {
+            assertEval("{ a <- c(1, 2, 3, 4, NA, NaN); b <- 6:1 / 2; a * b + a / b - -a }");
+            assertEval("{ a <- c(1, 2, 3, 4, 5); b <- a * 2 + 1; a[1] <- 0; list(b, a) }");
+            assertEval("{ a <- c(1, 2, 3, 4, 5); b <- a * 2; c <- b - 1; b[1] <- 0; list(a, b, c) }");
+            assertEval("{ f <- function(x) { x[2] <- -1; x }; a <- c(1, 2, 3, 4); b <- a / 4; list(f(b), b, f(a), a) }");
+            assertEval("{ a <- c(x=1, y=2, z=3, u=4); b <- c(1, 2, 3, 4); list(a * b + b, b * b + a) }");
+            assertEval("{ m <- matrix(1:8 / 2, 2); m * 2 - m }");
+            assertEval("{ a <- c(1, 2, 3, 4); b <- a + 1; attr(b, 'foo') <- 'bar'; names(b) <- letters[1:4]; list(b, a + 1) }");
+            assertEval("{ a <- seq(0.5, 10, by = 0.5); b <- a * a - a; c(sum(b), mean(b), sum(-b / 2), mean(b + NA)) }");
+            assertEval("{ a <- c(1, NaN, 3, NA, 5, 6); b <- a + NA_real_; list(is.na(b), is.nan(b), anyNA(a * 2), anyNA(a[-4] * 2)) }");
+            assertEval("{ x <- c(1, 2, 3, 4); for (i in 1:40) x <- x * 1.5 - 1; x }");
+        } finally {
+            FastROptions.setValue("DeferredArithmeticThreshold", threshold);
+        }
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.library.fastr;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.FastROptions;
+import com.oracle.truffle.r.test.TestBase;
+
+public class TestContextPool extends TestBase {
+
+    @Test
+    public void testReuse() {
+        boolean sharedContexts = FastROptions.SharedContexts.getBooleanValue();
+        int poolSize = FastROptions.ContextPoolSize.getNonNegativeIntValue();
+        FastROptions.setValue("SharedContexts", false);
+        FastROptions.setValue("ContextPoolSize", 2);
+        try {
+            // the global environment of a reused context is cleared, but the context is not re-created
+            assertEvalFastR("s0 <- .fastr.context.pool.stats(); r <- sapply(1:3, function(i) .fastr.context.eval(paste0('y <- exists(\"x\"); x <- ', i, '; y'), 'SHARE_NOTHING')[[1]][[1]]); " +
+                            "s1 <- .fastr.context.pool.stats(); list(r, s1$hits - s0$hits >= 2, s1$created - s0$created <= 1, s1$idle)",
+                            "list(c(FALSE, FALSE, FALSE), TRUE, TRUE, 1L)");
+            // options, the RNG kind and connections are restored when a context is reused
+            assertEvalFastR("s0 <- .fastr.context.pool.stats(); .fastr.context.eval('options(fastr.pool.test = 1, digits = 3); RNGkind(\"Wichmann-Hill\"); set.seed(1); con <- file(tempfile(), \"w\")', 'SHARE_NOTHING'); " +
+                            "r <- .fastr.context.eval('list(getOption(\"fastr.pool.test\"), getOption(\"digits\"), RNGkind()[[1]], exists(\".Random.seed\"), nrow(showConnections()))', 'SHARE_NOTHING')[[1]][[1]]; " +
+                            "s1 <- .fastr.context.pool.stats(); list(r, s1$hits - s0$hits)",
+                            "list(list(NULL, 7L, 'Mersenne-Twister', FALSE, 0L), 2)");
+            // a context that attached a package is not reused
+            assertEvalFastR(".fastr.context.eval('library(stats4)', 'SHARE_NOTHING'); .fastr.context.eval('\"package:stats4\" %in% search()', 'SHARE_NOTHING')[[1]][[1]]", "FALSE");
+        } finally {
+            FastROptions.setValue("ContextPoolSize", poolSize);
+            FastROptions.setValue("SharedContexts", sharedContexts);
+        }
+    }
+}
@@ -194,6 +194,15 @@ public class TestJavaInterop extends TestBase {
                         "[Lcom.oracle.truffle.r.test.library.fastr.TestJavaInterop$TestClass;");
 
         assertEvalFastR("a <- as.java.array(1L,,F); a;", getRValue(new int[]{1}));
+
+        assertEvalFastR("a <- as.java.array(c(1.9, -2.1), 'int'); a;", getRValue(new int[]{1, -2}));
+        assertEvalFastR("a <- as.java.array(1:3, 'long'); java.class(a);", "'[J'");
+        assertEvalFastR("a <- as.java.array(c(97L, 98L), 'char'); a;", getRValue(new char[]{'a', 'b'}));
+        assertEvalFastR("a <- as.java.array(c(T, F), 'byte'); a;", getRValue(new byte[]{1, 0}));
+        assertEvalFastR("a <- as.java.array(matrix(1:6, 2, 3),,F); java.class(a);", "'[[I'");
+        assertEvalFastR("a <- as.java.array(matrix(1:6, 2, 3),,F); c(length(a), length(a[1]), a[2, 3], a[1, 2]);", "c(2, 3, 6, 3)");
+        assertEvalFastR("a <- as.java.array(matrix(c(0.5, 1.5, 2.5, 3.5), 2), 'float', F); c(java.class(a), a[2, 1]);", "c('[[F', '1.5')");
+        assertEvalFastR("a <- as.java.array(array(letters[1:24], c(2, 3, 4)),,F); a[2, 3, 4];", "'x'");
     }
 
     @Test
@@ -202,6 +211,15 @@ public class TestJavaInterop extends TestBase {
         assertEvalFastR(CREATE_TRUFFLE_OBJECT + "ja <- as.java.array(c(1L, 2L, 3L), 'java.lang.Integer'); to$isIntegerArray(ja)", "'" + (new Integer[1]).getClass().getName() + "'");
     }
 
+    @Test
+    public void testToBuffer() {
+        assertEvalFastR("b <- as.java.buffer(c(1.5, 2.5, 3.5)); b$get(1L)", "2.5");
+        assertEvalFastR("b <- as.java.buffer(1:3); c(b$capacity(), b$isReadOnly())", "c(3, TRUE)");
+        assertEvalFastR("b <- as.java.buffer(as.raw(c(1, 255))); b$get(1L)", "-1");
+        assertEvalFastR("x <- c(1, 2, 3); b <- as.java.buffer(x); x[1] <- 10; c(x[1], b$get(0L))", "c(10, 1)");
+        assertEvalFastR("as.java.buffer(c('a', 'b'))", errorIn("as.java.buffer(c(\"a\", \"b\"))", "unsupported type"));
+    }
+
     @Test
     public void testNewArray() {
         testNewArray("java.lang.Boolean", true);
@@ -297,6 +315,9 @@ public class TestJavaInterop extends TestBase {
         assertEvalFastR(CREATE_TRUFFLE_OBJECT + " v <- .fastr.interop.fromArray(to$hasNullIntArray); v[3]", "list(3)");
 
         assertEvalFastR("ja <- new.java.array('java.lang.String', 0L); .fastr.interop.fromArray(ja)", "list()");
+
+        assertEvalFastR(CREATE_TRUFFLE_OBJECT + " v <- .fastr.interop.fromArray(to$fieldDoubleArray); v[1] <- 10; c(v[1], to$fieldDoubleArray[1])", "c(10, 1.1)");
+        assertEvalFastR(CREATE_TRUFFLE_OBJECT + " v <- .fastr.interop.fromArray(to$fieldIntegerArray); v[2] <- NA; c(anyNA(v), to$fieldIntegerArray[2] == 2L)", "c(TRUE, TRUE)");
     }
 
     public void testAsVectorFromArray(String field, String type) {
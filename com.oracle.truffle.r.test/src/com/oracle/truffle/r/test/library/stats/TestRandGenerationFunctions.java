@@ -97,6 +97,16 @@ public class TestRandGenerationFunctions extends TestBase {
         assertEval("rmultinom(NA, 1, 0.2)");
     }
 
+    @Test
+    public void testBulkGeneration() {
+        // scalar parameters take the bulk path, the results must be the same as one by one
+        assertEval("set.seed(1); x <- runif(1500, 2, 7); set.seed(1); identical(x, sapply(1:1500, function(i) runif(1, 2, 7)))");
+        assertEval("set.seed(1); x <- rnorm(1500, 3, 2); set.seed(1); identical(x, sapply(1:1500, function(i) rnorm(1, 3, 2)))");
+        assertEval("set.seed(1); runif(700); x <- rnorm(5); y <- runif(5); c(x, y)");
+        assertEval("RNGkind(NULL, 'Box-Muller'); set.seed(1); x <- rnorm(1500); set.seed(1); identical(x, sapply(1:1500, function(i) rnorm(1)))");
+        assertEval("set.seed(1); rnorm(5, 1, 0); runif(3, 2, 2); runif(3, 1, 0); rnorm(3, NA)");
+    }
+
     @Test
     public void testGenerators() {
         assertEval("for(gen in c(\"Buggy Kinderman-Ramage\", \"Ahrens-Dieter\", \"Box-Muller\", \"Inversion\", \"Kinderman-Ramage\", \"default\")) { print(paste0(gen, \":\")); RNGkind(NULL,gen); set.seed(42); print(rnorm(30)); }");
@@ -93,4 +93,12 @@ public class TestTypeConvert extends TestBase {
         assertEval(".External2(utils:::C_typeconvert, environment(), 'NA', FALSE, '.', 'allow.loss')");
         assertEval(".External2(utils:::C_typeconvert, c('1'), environment(), FALSE, '.', 'allow.loss')");
     }
+
+    @Test
+    public void testLongVectors() {
+        assertEval("{ x <- type.convert(as.character(1:100000)); c(typeof(x), sum(as.double(x))) }");
+        assertEval("{ x <- type.convert(c(as.character(1:99999), '1.5')); c(typeof(x), sum(x)) }");
+        assertEval("{ x <- type.convert(c(rep(c('b', 'NA', 'a'), 40000), 'c')); list(levels(x), table(x)) }");
+        assertEval("{ x <- type.convert(c(rep('T', 99999), '1')); c(class(x), length(levels(x))) }");
+    }
 }
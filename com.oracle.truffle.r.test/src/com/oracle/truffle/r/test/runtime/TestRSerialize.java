@@ -27,8 +27,11 @@ import java.util.Arrays;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.oracle.truffle.r.runtime.RRuntime;
 import com.oracle.truffle.r.runtime.RSerialize;
 import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.RIntVector;
 import com.oracle.truffle.r.runtime.data.RStringVector;
 import com.oracle.truffle.r.test.TestBase;
 
@@ -112,4 +115,31 @@ public class TestRSerialize extends TestBase {
         Assert.assertEquals("abc", ((RStringVector) unserialized).getDataAt(2));
         Assert.assertEquals(longString, ((RStringVector) unserialized).getDataAt(3));
     }
+
+    // Bulk encoding of atomic vectors
+
+    @Test
+    public void testLongVectors() {
+        int[] ints = new int[100003];
+        double[] doubles = new double[100003];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = i * 31;
+            doubles[i] = i / 7.0;
+        }
+        ints[5000] = RRuntime.INT_NA;
+        doubles[99999] = RRuntime.DOUBLE_NA;
+        for (int type : new int[]{RSerialize.XDR, RSerialize.BINARY}) {
+            byte[] serialized = RSerialize.serialize(RDataFactory.createIntVector(ints, false), type, RSerialize.DEFAULT_VERSION, null);
+            Object unserialized = RSerialize.unserialize(RDataFactory.createRawVector(serialized));
+            Assert.assertTrue(unserialized instanceof RIntVector);
+            Assert.assertArrayEquals(ints, ((RIntVector) unserialized).getDataWithoutCopying());
+            Assert.assertFalse(((RIntVector) unserialized).isComplete());
+
+            serialized = RSerialize.serialize(RDataFactory.createDoubleVector(doubles, false), type, RSerialize.DEFAULT_VERSION, null);
+            unserialized = RSerialize.unserialize(RDataFactory.createRawVector(serialized));
+            Assert.assertTrue(unserialized instanceof RDoubleVector);
+            Assert.assertArrayEquals(doubles, ((RDoubleVector) unserialized).getDataWithoutCopying(), 0);
+            Assert.assertTrue(RRuntime.isNA(((RDoubleVector) unserialized).getDataAt(99999)));
+        }
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.r.test.runtime.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.oracle.truffle.r.runtime.RRuntime;
+import com.oracle.truffle.r.runtime.data.RDataFactory;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector.BinaryOperation;
+import com.oracle.truffle.r.runtime.data.RDoubleExpressionVector.UnaryOperation;
+import com.oracle.truffle.r.runtime.data.RDoubleVector;
+import com.oracle.truffle.r.runtime.data.model.RAbstractDoubleVector;
+
+public class RDoubleExpressionVectorTests {
+
+    private static final class Sum extends RDoubleExpressionVector {
+        private RAbstractDoubleVector left;
+        private RAbstractDoubleVector right;
+        private int computed;
+
+        Sum(RAbstractDoubleVector left, RAbstractDoubleVector right) {
+            super(left.getLength(), 1 + Math.max(depthOf(left), depthOf(right)), left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        protected double computeAt(int index) {
+            computed++;
+            return valueAt(left, index) + valueAt(right, index);
+        }
+
+        @Override
+        protected void clearOperands() {
+            left = null;
+            right = null;
+        }
+    }
+
+    @Test
+    public void testFusion() {
+        RDoubleVector a = RDataFactory.createDoubleVector(new double[]{1, 2, 3}, true);
+        a.incRefCount();
+        Sum inner = new Sum(a, a);
+        Sum outer = new Sum(inner, a);
+        assertEquals(true, a.isShared());
+        assertEquals(1, RDoubleExpressionVector.depthOf(inner));
+        assertEquals(2, RDoubleExpressionVector.depthOf(outer));
+        assertEquals(false, outer.isComplete());
+
+        assertEquals(6, outer.getDataAt(1), 0);
+        assertEquals(3, outer.computed);
+        // the inner expression was computed on the fly, once, and keeps the values
+        assertEquals(3, inner.computed);
+        assertEquals(true, inner.isEvaluated());
+        assertEquals(true, inner.isComplete());
+        assertArrayEquals(new double[]{2, 4, 6}, inner.materialize().getDataWithoutCopying(), 0);
+        assertEquals(true, outer.isEvaluated());
+        assertEquals(true, outer.isComplete());
+        // the operands of both expressions are released
+        assertEquals(false, a.isShared());
+        assertArrayEquals(new double[]{3, 6, 9}, outer.materialize().getDataWithoutCopying(), 0);
+        assertEquals(3, outer.computed);
+    }
+
+    @Test
+    public void testOperandsProtected() {
+        RDoubleVector a = RDataFactory.createDoubleVector(new double[]{1, RRuntime.DOUBLE_NA}, false);
+        a.incRefCount();
+        Sum sum = new Sum(a, a);
+        assertEquals(true, a.isShared());
+        RDoubleVector result = sum.materialize();
+        assertEquals(false, a.isShared());
+        assertEquals(false, sum.isComplete());
+        assertEquals(true, RRuntime.isNA(result.getDataAt(1)));
+        // materialize returns a new vector every time
+        result.getDataWithoutCopying()[0] = 42;
+        assertEquals(2, sum.getDataAt(0), 0);
+    }
+
+    @Test
+    public void testOperations() {
+        RDoubleVector a = RDataFactory.createDoubleVector(new double[]{1, RRuntime.DOUBLE_NA, Double.NaN, 4}, false);
+        RDoubleVector b = RDataFactory.createDoubleVector(new double[]{RRuntime.DOUBLE_NA, 2, RRuntime.DOUBLE_NA, 0}, false);
+        RDoubleExpressionVector quotient = RDoubleExpressionVector.createBinary(BinaryOperation.DIVIDE, a, a, 4, b, b, 4, 4);
+        RDoubleExpressionVector negated = RDoubleExpressionVector.createUnary(UnaryOperation.NEGATE, quotient, quotient, 4);
+        // NA op x == NA, NaN op NA == NaN
+        assertEquals(true, RRuntime.isNA(negated.getDataAt(0)));
+        assertEquals(true, RRuntime.isNA(negated.getDataAt(1)));
+        assertEquals(true, Double.isNaN(negated.getDataAt(2)) && !RRuntime.isNA(negated.getDataAt(2)));
+        assertEquals(Double.NEGATIVE_INFINITY, negated.getDataAt(3), 0);
+        assertEquals(false, negated.isComplete());
+        assertEquals(true, quotient.isEvaluated());
+    }
+}